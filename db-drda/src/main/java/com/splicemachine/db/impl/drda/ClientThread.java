@@ -77,6 +77,9 @@ final class ClientThread extends Thread {
                         
                         // Set time out: Stops DDMReader.fill() from
                         // waiting indefinitely when timeSlice is set.
+                        // Sessions accepted for the selector threads
+                        // read through a channel, which ignores this, so
+                        // SessionChannelInputStream enforces it instead.
                         if (timeSlice > 0)
                             clientSocket.setSoTimeout(timeSlice);
                         
@@ -296,6 +296,18 @@ class DDMReader
 		return (pos - count) > 0;
 	}
 
+	/**
+	 * Are there bytes in the buffer which have been read from the
+	 * input stream but not yet processed, such as the start of the
+	 * next request
+	 *
+	 * @return true if there are unprocessed bytes in the buffer
+	 */
+	protected boolean hasBufferedData()
+	{
+		return pos < count;
+	}
+
 	/**
 	 * Check for the command protocol
 	 *
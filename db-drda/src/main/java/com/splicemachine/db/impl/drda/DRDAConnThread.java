@@ -325,6 +325,8 @@ class DRDAConnThread extends Thread {
                                 // DDMReader.fill(), which will happen
                                 // only when timeSlice is set.
                             }
+							if (releaseSession())
+								break;
 							currentTimeSlice = getTimeSlice();
 						} while ((currentTimeSlice <= 0)  || 
 							(System.currentTimeMillis() - timeStart < currentTimeSlice));
@@ -676,9 +678,53 @@ class DRDAConnThread extends Thread {
 		if (session.state == Session.ATTEXC)
 			sqlamLevel = appRequester.getManagerLevel(CodePoint.SQLAM);
 
+		else if (session.state == Session.CHKSEC && appRequester != null)
+		{
+			// the session was started by another thread, which has also
+			// set up the options for this client
+			sqlamLevel = appRequester.getManagerLevel(CodePoint.SQLAM);
+			setClientOptions();
+		}
+
         /* All sessions MUST start as EBCDIC */
         reader.setEbcdicCcsid();
         writer.setEbcdicCcsid();
+		if (session.state == Session.CHKSEC && appRequester != null &&
+				appRequester.supportsUtf8Ccsid())
+			switchToUtf8();
+	}
+
+	/**
+	 * Give the current session back to the server once its request has been
+	 * answered, so that this thread can serve other sessions while the
+	 * session waits for its next request. This is only done when the server
+	 * watches idle sessions with selector threads, and when this thread holds
+	 * no state for the session which the next thread wouldn't have.
+	 *
+	 * @return true if the session has been released, in which case this
+	 *         thread no longer has a current session
+	 */
+	private boolean releaseSession()
+	{
+		if (session == null || session.channelInput == null)
+			return false;
+		if (session.state != Session.CHKSEC || database == null ||
+				database instanceof XADatabase)
+			return false;
+		if (pendingStatementTimeout >= 0 || deferredReset)
+			return false;
+		// the client has already sent more, so carry on with it here
+		if (reader.hasBufferedData() || session.channelInput.hasBufferedData())
+			return false;
+
+		if (!server.watchSession(session))
+			return false;
+		session = null;
+		database = null;
+		appRequester = null;
+		sockis = null;
+		sockos = null;
+		return true;
 	}
 	/**      
 	 * In initial state for a session, 
@@ -3351,6 +3397,23 @@ class DRDAConnThread extends Thread {
 		else
 			return CodePoint.SVRCOD_ERROR;
 	}
+	/**
+	 * Set the options which depend on the version of the client, once its
+	 * product id is known
+	 */
+	private void setClientOptions()
+	{
+		// All versions of DNC,the only client supported, handle
+		// warnings on CNTQRY
+		sendWarningsOnCNTQRY = true;
+		// The client can not request DIAGLVL because when run with
+		// an older server it will cause an exception. Older version
+		// of the server do not recognize requests for DIAGLVL.
+		if ((appRequester.getClientType() == appRequester.DNC_CLIENT) &&
+				appRequester.greaterThanOrEqualTo(10, 2, 0)) {
+			diagnosticLevel = CodePoint.DIAGLVL1;
+		}
+	}
 	/**
 	 * Parse access RDB
 	 * Instance variables
@@ -3452,16 +3515,7 @@ class DRDAConnThread extends Thread {
                     if (appRequester.getClientType() != appRequester.DNC_CLIENT) {
                         invalidClient(appRequester.prdid);
                     }
-                    // All versions of DNC,the only client supported, handle
-                    // warnings on CNTQRY
-                    sendWarningsOnCNTQRY = true;
-					// The client can not request DIAGLVL because when run with
-					// an older server it will cause an exception. Older version
-					// of the server do not recognize requests for DIAGLVL.
-					if ((appRequester.getClientType() == appRequester.DNC_CLIENT) &&
-							appRequester.greaterThanOrEqualTo(10, 2, 0)) {
-						diagnosticLevel = CodePoint.DIAGLVL1;
-					}
+					setClientOptions();
 
 					removeFromRequired(CodePoint.PRDID);
 					break;
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Watches sessions which are waiting for their next request, so that an idle connection doesn't
+ * hold a <code>DRDAConnThread</code>.
+ *
+ * While a session is watched, its channel is in non-blocking mode and the start of its next request is
+ * read into its {@link SessionChannelInputStream}. Once the request is complete, the channel is switched
+ * back to blocking mode and the session is put into the run queue, where the next free connection thread
+ * picks it up and processes it with the usual <code>DDMReader</code> and <code>DDMWriter</code>. When the
+ * connection thread has replied, it hands the session back with {@link #watch(Session)}.
+ */
+final class DRDASelectorThread extends Thread
+{
+	private final NetworkServerControlImpl server;
+	private final Selector selector;
+	private final ConcurrentLinkedQueue newSessions = new ConcurrentLinkedQueue();
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+	private volatile boolean closed;
+
+	DRDASelectorThread(NetworkServerControlImpl server) throws IOException
+	{
+		// Create a more meaningful name for this thread (but preserve its
+		// thread id from the default name).
+		NetworkServerControlImpl.setUniqueThreadName(this, "NetworkServerSelector");
+		this.server = server;
+		this.selector = Selector.open();
+		setDaemon(true);
+	}
+
+	/**
+	 * Watch a session until its next request has arrived. Called by the thread which was serving the
+	 * session, once it has finished with it.
+	 */
+	void watch(Session session)
+	{
+		newSessions.add(session);
+		selector.wakeup();
+	}
+
+	void close()
+	{
+		closed = true;
+		selector.wakeup();
+	}
+
+	public void run()
+	{
+		List ready = new ArrayList();
+		try {
+			while (!closed)
+			{
+				if (selector.selectedKeys().isEmpty())
+					selector.select();
+				registerNewSessions();
+
+				for (Iterator it = selector.selectedKeys().iterator(); it.hasNext(); )
+				{
+					SelectionKey key = (SelectionKey) it.next();
+					it.remove();
+					Session session = (Session) key.attachment();
+					if (!key.isValid() || readRequest(session, (SocketChannel) key.channel()))
+					{
+						key.cancel();
+						ready.add(session);
+					}
+				}
+				if (ready.isEmpty())
+					continue;
+
+				// A channel can only be put back into blocking mode once
+				// its key has been deregistered, which happens on the next
+				// selection. Keys which become ready meanwhile are kept in
+				// the selected set for the next time around.
+				selector.selectNow();
+				for (int i = 0; i < ready.size(); i++)
+					handOver((Session) ready.get(i));
+				ready.clear();
+			}
+		} catch (IOException ioe) {
+			if (!closed)
+				server.consoleExceptionPrintTrace(ioe);
+		} catch (ClosedSelectorException cse) {
+			// we are shutting down
+		} finally {
+			try {
+				selector.close();
+			} catch (IOException ioe) {
+				// ignore, we are shutting down
+			}
+		}
+	}
+
+	private void registerNewSessions()
+	{
+		Session session;
+		while ((session = (Session) newSessions.poll()) != null)
+		{
+			SocketChannel channel = session.clientSocket.getChannel();
+			try {
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ, session);
+			} catch (IOException ioe) {
+				// the channel has been closed, or is unusable
+				abandon(session);
+			}
+		}
+	}
+
+	/**
+	 * Read what has arrived for an idle session.
+	 *
+	 * @return true if the session should be given to a connection thread
+	 */
+	private boolean readRequest(Session session, SocketChannel channel)
+	{
+		int read;
+		do {
+			readBuffer.clear();
+			try {
+				read = channel.read(readBuffer);
+			} catch (IOException ioe) {
+				// the connection thread will see the failure when it reads
+				// from the channel, and clean up the session
+				return true;
+			}
+			if (read < 0)
+			{
+				// the client has gone away; as above, this is picked up
+				// by the connection thread
+				return true;
+			}
+			session.channelInput.append(readBuffer.array(), 0, read);
+		} while (read == readBuffer.capacity()
+				&& session.channelInput.bufferedBytes() < SessionChannelInputStream.MAX_BUFFERED_REQUEST);
+		return session.channelInput.hasCompleteRequest();
+	}
+
+	private void handOver(Session session)
+	{
+		SocketChannel channel = session.clientSocket.getChannel();
+		if (!channel.isOpen())
+		{
+			// closed by the server, which has already dealt with the session
+			return;
+		}
+		try {
+			channel.configureBlocking(true);
+		} catch (IOException ioe) {
+			abandon(session);
+			return;
+		}
+		server.runSession(session);
+	}
+
+	private void abandon(Session session)
+	{
+		server.removeFromSessionTable(session.connNum);
+		try {
+			session.close();
+		} catch (SQLException se) {
+			server.consoleExceptionPrintTrace(se);
+		}
+	}
+}
@@ -35,6 +35,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import javax.net.SocketFactory;
@@ -44,6 +45,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.SSLServerSocketFactory;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.Charset;
 import java.security.Permission;
 import java.security.AccessController;
@@ -275,6 +277,8 @@ public final class NetworkServerControlImpl {
 	private int timeSlice;				// default time slice of a session to a thread
 	private Object timeSliceSync = new Object();// object to use for syncing reading
 										// and changing timeSlice
+	private int selectorThreads;		// number of threads watching idle sessions,
+										// 0 if sessions are read with blocking I/O
 
 	private boolean keepAlive = true;   // keepAlive value for client socket 
 	private int minPoolSize;			//minimum pool size for pooled connections
@@ -324,6 +328,10 @@ public final class NetworkServerControlImpl {
 	// number of DRDAConnThreads waiting for something to do
 	private int freeThreads;
 
+	// threads watching sessions which are waiting for their next request,
+	// null if sessions are read with blocking I/O
+	private DRDASelectorThread[] selectors;
+
 	// known application requesters
 	private Hashtable appRequesterTable = new Hashtable();
 
@@ -673,6 +681,15 @@ public final class NetworkServerControlImpl {
 		switch (getSSLMode()) {
 		case SSL_OFF:
 		default:
+			if (selectorThreads > 0) {
+				// accept sockets which have channels, so that idle sessions
+				// can be watched by the selector threads
+				ServerSocketChannel ssc = ServerSocketChannel.open();
+				ssc.socket().setReuseAddress(true);
+				ssc.socket().bind(new InetSocketAddress(hostAddress,
+														portNumber));
+				return ssc.socket();
+			}
 			ServerSocketFactory sf =
 				ServerSocketFactory.getDefault();
 			return sf.createServerSocket(portNumber
@@ -791,6 +808,22 @@ public final class NetworkServerControlImpl {
                             NetworkServerMBean.class,
                             "type=NetworkServer");
 
+		if (serverSocket.getChannel() != null) {
+			selectors = new DRDASelectorThread[selectorThreads];
+			for (int i = 0; i < selectors.length; i++) {
+				selectors[i] = (DRDASelectorThread)
+					AccessController.doPrivileged(
+								new PrivilegedExceptionAction() {
+									public Object run() throws Exception
+									{
+										return new DRDASelectorThread(thisControl);
+									}
+								}
+							);
+				selectors[i].start();
+			}
+		}
+
 		// We accept clients on a separate thread so we don't run into a problem
 		// blocking on the accept when trying to process a shutdown
 		final ClientThread clientThread =	 
@@ -830,6 +863,11 @@ public final class NetworkServerControlImpl {
 	                            //interrupt client thread
 	                            clientThread.interrupt();
 
+	                            //stop watching idle sessions
+	                            if (selectors != null)
+	                                for (int i = 0; i < selectors.length; i++)
+	                                    selectors[i].close();
+
 	                            return null;
 	                       }
 	                    });
@@ -3066,6 +3104,14 @@ public final class NetworkServerControlImpl {
 			setTimeSlice(getIntPropVal(Property.DRDA_PROP_TIMESLICE, propval));
 		}
 
+		propval = PropertyUtil.getSystemProperty( 
+			Property.DRDA_PROP_SELECTORTHREADS);
+		if (propval != null){
+			if(propval.equals(""))
+				propval = "0";
+			selectorThreads = getIntPropVal(Property.DRDA_PROP_SELECTORTHREADS, propval);
+		}
+
 		propval = PropertyUtil.getSystemProperty( 
 			Property.DRDA_PROP_PORTNUMBER);
 		if (propval != null){
@@ -3907,6 +3953,7 @@ public final class NetworkServerControlImpl {
 		retval.put(Property.DRDA_PROP_TIMESLICE, new Integer(getTimeSlice()).toString());
 
 		retval.put(Property.DRDA_PROP_TIMESLICE, new  Integer(getTimeSlice()).toString());
+		retval.put(Property.DRDA_PROP_SELECTORTHREADS, new Integer(selectorThreads).toString());
 		retval.put(Property.DRDA_PROP_LOGCONNECTIONS, new Boolean(getLogConnections()).toString());
 		String startDRDA = PropertyUtil.getSystemProperty(Property.START_DRDA);
 		//DERBY-375 If a system property is specified without any value, getProperty returns 
@@ -3943,10 +3990,9 @@ public final class NetworkServerControlImpl {
 
 	/**
 	 * Add a session - for use by <code>ClientThread</code>. Put the session
-	 * into the session table and the run queue. Start a new
-	 * <code>DRDAConnThread</code> if there are more sessions waiting than
-	 * there are free threads, and the maximum number of threads is not
-	 * exceeded.
+	 * into the session table, and either run it (see <code>runSession()</code>)
+	 * or, if idle sessions are watched by selector threads, watch it until
+	 * its first request arrives.
 	 *
 	 * <p><code>addSession()</code> should only be called from one thread at a
 	 * time.
@@ -3970,41 +4016,72 @@ public final class NetworkServerControlImpl {
 
 		sessionTable.put(new Integer(connectionNumber), session);
 
-		// Check whether there are enough free threads to service all the
-		// threads in the run queue in addition to the newly added session.
-		boolean enoughThreads;
-		synchronized (runQueue) {
-			enoughThreads = (runQueue.size() < freeThreads);
+		if (selectors != null) {
+			// the session gets a thread once its first request has arrived
+			watchSession(session);
+		} else {
+			runSession(session);
 		}
-		// No need to hold the synchronization on runQueue any longer than
-		// this. Since no other threads can make runQueue grow, and no other
-		// threads will reduce the number of free threads without removing
-		// sessions from runQueue, (runQueue.size() < freeThreads) cannot go
-		// from true to false until addSession() returns.
-
-		DRDAConnThread thread = null;
-
-		// try to start a new thread if we don't have enough free threads
-		if (!enoughThreads) {
-			// Synchronize on threadsSync to ensure that the value of
-			// maxThreads doesn't change until the new thread is added to
-			// threadList.
-			synchronized (threadsSync) {
-				// only start a new thread if we have no maximum number of
-				// threads or the maximum number of threads is not exceeded
-				if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
-					thread = new DRDAConnThread(session, this, getTimeSlice(),
-												getLogConnections());
-					threadList.add(thread);
-					thread.start();
-				}
+	}
+
+	/**
+	 * Put a session which has work to do into the run queue. Start a new
+	 * <code>DRDAConnThread</code> if there are more sessions waiting than
+	 * there are free threads, and the maximum number of threads is not
+	 * exceeded.
+	 *
+	 * <p>Called by <code>ClientThread</code> for new sessions, or by the
+	 * selector threads when a request arrives for an idle session.
+	 *
+	 * @param session the session to run
+	 */
+	void runSession(Session session) {
+
+		// Synchronize on threadsSync so that callers are serialized, and
+		// to ensure that the value of maxThreads doesn't change until the
+		// new thread is added to threadList.
+		synchronized (threadsSync) {
+			// Check whether there are enough free threads to service all the
+			// threads in the run queue in addition to the newly added session.
+			boolean enoughThreads;
+			synchronized (runQueue) {
+				enoughThreads = (runQueue.size() < freeThreads);
+			}
+			// No need to hold the synchronization on runQueue any longer than
+			// this. Since no other threads can make runQueue grow, and no other
+			// threads will reduce the number of free threads without removing
+			// sessions from runQueue, (runQueue.size() < freeThreads) cannot go
+			// from true to false until runSession() returns.
+
+			// try to start a new thread if we don't have enough free threads
+			// and we have no maximum number of threads or the maximum number
+			// of threads is not exceeded
+			if (!enoughThreads &&
+					((maxThreads == 0) || (threadList.size() < maxThreads))) {
+				DRDAConnThread thread = new DRDAConnThread(session, this,
+						getTimeSlice(), getLogConnections());
+				threadList.add(thread);
+				thread.start();
+			} else {
+				// add the session to the run queue if we didn't start a new thread
+				runQueueAdd(session);
 			}
 		}
+	}
 
-		// add the session to the run queue if we didn't start a new thread
-		if (thread == null) {
-			runQueueAdd(session);
-		}
+	/**
+	 * Watch a session which has no request in progress until its next
+	 * request arrives, so that it doesn't need a thread while it is idle.
+	 *
+	 * @param session the session to watch
+	 * @return false if idle sessions aren't watched, in which case the
+	 *         caller must keep serving the session
+	 */
+	boolean watchSession(Session session) {
+		if (selectors == null)
+			return false;
+		selectors[session.connNum % selectors.length].watch(session);
+		return true;
 	}
 
 	/**
@@ -29,6 +29,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import com.splicemachine.db.iapi.tools.i18n.LocalizedResource;
@@ -61,6 +63,8 @@ class Session
 	protected int connNum;				// connection number
 	protected InputStream sessionInput;	// session input stream
 	protected OutputStream sessionOutput;	// session output stream
+	protected SessionChannelInputStream channelInput;	// session input stream if the
+										// session is watched by a selector thread while idle
 	protected String traceFileName;		// trace file name for session
 	protected boolean traceOn;			// whether trace is currently on for the session
 	protected int state;				// the current state of the session
@@ -288,8 +292,19 @@ class Session
 	private void initialize(String traceDirectory)
 		throws Exception
 	{
-		sessionInput = clientSocket.getInputStream();
-		sessionOutput = clientSocket.getOutputStream();
+		SocketChannel channel = clientSocket.getChannel();
+		if (channel != null)
+		{
+			// accepted for the selector threads, see DRDASelectorThread
+			channelInput = new SessionChannelInputStream(channel);
+			sessionInput = channelInput;
+			sessionOutput = Channels.newOutputStream(channel);
+		}
+		else
+		{
+			sessionInput = clientSocket.getInputStream();
+			sessionOutput = clientSocket.getOutputStream();
+		}
 		if (traceOn)
 			initTrace(traceDirectory,false);
 		state = INIT;
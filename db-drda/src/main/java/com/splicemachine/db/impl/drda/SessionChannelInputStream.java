@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Input stream of a session which is watched by a {@link DRDASelectorThread} while it is idle.
+ *
+ * The selector thread reads the start of each request into this stream's buffer without blocking, until
+ * the request is complete. The buffered bytes are returned first, and any more are read from the channel,
+ * which is in blocking mode while a <code>DRDAConnThread</code> is serving the session.
+ *
+ * Reads from a channel stream ignore the socket's SO_TIMEOUT, which is how <code>ClientThread</code>
+ * applies the time slice. So when a timeout is set, the channel is waited for with a selector instead,
+ * and a <code>SocketTimeoutException</code> is thrown once the timeout has passed without any data, as a
+ * socket stream would.
+ *
+ * The stream is only used by one thread at a time: the selector thread while the session is idle, and
+ * the connection thread once the session has been handed to it through the run queue.
+ */
+final class SessionChannelInputStream extends InputStream
+{
+	/* requests which are larger than this are handed over before they have been read completely */
+	static final int MAX_BUFFERED_REQUEST = 64 * 1024;
+
+	private final SocketChannel channel;
+	private final InputStream channelInput;
+	private final byte[] single = new byte[1];
+	private Selector readSelector;	// opened by the first read which has to wait with a timeout
+	private byte[] buffer;
+	private int pos;
+	private int count;
+
+	SessionChannelInputStream(SocketChannel channel)
+	{
+		this.channel = channel;
+		this.channelInput = Channels.newInputStream(channel);
+	}
+
+	/**
+	 * Add bytes which the selector thread has read from the channel.
+	 */
+	void append(byte[] bytes, int offset, int length)
+	{
+		if (buffer == null)
+		{
+			buffer = new byte[Math.max(length, 256)];
+		}
+		else if (count + length > buffer.length)
+		{
+			if (pos > 0)
+			{
+				System.arraycopy(buffer, pos, buffer, 0, count - pos);
+				count -= pos;
+				pos = 0;
+			}
+			if (count + length > buffer.length)
+			{
+				byte[] grown = new byte[Math.max(count + length, buffer.length * 2)];
+				System.arraycopy(buffer, 0, grown, 0, count);
+				buffer = grown;
+			}
+		}
+		System.arraycopy(bytes, offset, buffer, count, length);
+		count += length;
+	}
+
+	/**
+	 * @return true if some bytes have been read from the channel but not from this stream
+	 */
+	boolean hasBufferedData()
+	{
+		return pos < count;
+	}
+
+	/**
+	 * @return the number of bytes which have been read from the channel but not from this stream
+	 */
+	int bufferedBytes()
+	{
+		return count - pos;
+	}
+
+	/**
+	 * Whether the buffered bytes hold a whole request, or enough of it that a connection thread should
+	 * start on it. A request is a chain of DSSes, so the DSS headers are followed until one which isn't
+	 * chained to the next. Anything which doesn't look like a complete, ordinary DSS (such as a
+	 * NetworkServerControl command, a continued DSS or a protocol error) is handed over as soon as it
+	 * arrives, and left for <code>DDMReader</code> to deal with.
+	 *
+	 * @return true if the session should be handed to a connection thread
+	 */
+	boolean hasCompleteRequest()
+	{
+		if (count - pos >= MAX_BUFFERED_REQUEST)
+			return true;
+		int offset = pos;
+		while (count - offset >= 6)
+		{
+			int dssLength = ((buffer[offset] & 0xff) << 8) + (buffer[offset + 1] & 0xff);
+			if ((buffer[offset + 2] & 0xff) != DssConstants.DSS_ID)
+				return true;
+			if ((dssLength & DssConstants.CONTINUATION_BIT) == DssConstants.CONTINUATION_BIT || dssLength < 6)
+				return true;
+			if (count - offset < dssLength)
+				return false;
+			int formatter = buffer[offset + 3] & 0xff;
+			if ((formatter & DssConstants.DSSCHAIN) != DssConstants.DSSCHAIN)
+				return true;
+			offset += dssLength;
+		}
+		return false;
+	}
+
+	public int read() throws IOException
+	{
+		if (pos < count)
+		{
+			int b = buffer[pos++] & 0xff;
+			releaseIfEmpty();
+			return b;
+		}
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+			return 0;
+		if (pos < count)
+		{
+			int n = Math.min(len, count - pos);
+			System.arraycopy(buffer, pos, b, off, n);
+			pos += n;
+			releaseIfEmpty();
+			return n;
+		}
+		int timeout = channel.socket().getSoTimeout();
+		if (timeout <= 0)
+			return channelInput.read(b, off, len);
+		return timedRead(ByteBuffer.wrap(b, off, len), timeout);
+	}
+
+	public int available() throws IOException
+	{
+		return bufferedBytes();
+	}
+
+	public void close() throws IOException
+	{
+		try {
+			channelInput.close();
+		} finally {
+			if (readSelector != null)
+				readSelector.close();
+		}
+	}
+
+	/*
+	 * Read at least one byte, waiting at most timeout milliseconds for it. The channel is
+	 * non-blocking while it is registered with the read selector, and is deregistered and put
+	 * back into blocking mode before returning.
+	 */
+	private int timedRead(ByteBuffer dst, int timeout) throws IOException
+	{
+		long deadline = System.currentTimeMillis() + timeout;
+		SelectionKey key = null;
+		channel.configureBlocking(false);
+		try {
+			for (;;)
+			{
+				int n = channel.read(dst);
+				if (n != 0)
+					return n;
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+					throw new SocketTimeoutException("Read timed out");
+				if (key == null)
+				{
+					if (readSelector == null)
+						readSelector = Selector.open();
+					key = channel.register(readSelector, SelectionKey.OP_READ);
+				}
+				readSelector.select(remaining);
+				readSelector.selectedKeys().clear();
+			}
+		} finally {
+			if (key != null)
+			{
+				key.cancel();
+				readSelector.selectNow();
+			}
+			channel.configureBlocking(true);
+		}
+	}
+
+	/*
+	 * Don't hold on to the buffer between requests, so that idle sessions stay small.
+	 */
+	private void releaseIfEmpty()
+	{
+		if (pos == count)
+		{
+			buffer = null;
+			pos = 0;
+			count = 0;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class DRDASelectorThreadTest{
+    /* a single, unchained request DSS of 10 bytes */
+    private static final byte[] REQUEST={0x00,0x0A,(byte)0xD0,0x01,0x00,0x01,0x00,0x04,0x10,0x41};
+
+    private NetworkServerControlImpl server;
+    private DRDASelectorThread selectorThread;
+    private ServerSocketChannel serverChannel;
+    private Socket client;
+    private SocketChannel accepted;
+    private Session session;
+    private ExecutorService connThreads;
+
+    @Before
+    public void setUp() throws Exception{
+        server=new NetworkServerControlImpl();
+        selectorThread=new DRDASelectorThread(server);
+        selectorThread.start();
+        serverChannel=ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),0));
+        client=new Socket(InetAddress.getLoopbackAddress(),serverChannel.socket().getLocalPort());
+        accepted=serverChannel.accept();
+        session=new Session(server,1,accepted.socket(),null,false);
+        connThreads=Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        connThreads.shutdownNow();
+        selectorThread.close();
+        client.close();
+        accepted.close();
+        serverChannel.close();
+    }
+
+    @Test
+    public void idleSessionIsWokenUpByItsNextRequest() throws Exception{
+        OutputStream out=client.getOutputStream();
+        for(int i=0;i<2;i++){
+            //the connection thread has answered the last request, and gives the session back
+            selectorThread.watch(session);
+            Future<Session> next=nextSession();
+
+            out.write(REQUEST,0,4);
+            out.flush();
+            Thread.sleep(200);
+            Assert.assertFalse("Session was woken up by part of a request",next.isDone());
+
+            out.write(REQUEST,4,REQUEST.length-4);
+            out.flush();
+            Assert.assertSame(session,next.get(10,TimeUnit.SECONDS));
+            Assert.assertTrue("Channel was handed over in non-blocking mode",accepted.isBlocking());
+            byte[] request=new byte[REQUEST.length];
+            new DataInputStream(session.sessionInput).readFully(request);
+            Assert.assertArrayEquals(REQUEST,request);
+            Assert.assertFalse(session.channelInput.hasBufferedData());
+        }
+    }
+
+    @Test
+    public void readsGiveUpAtTheEndOfTheTimeSlice() throws Exception{
+        accepted.socket().setSoTimeout(100);
+        byte[] request=new byte[REQUEST.length];
+        long start=System.currentTimeMillis();
+        try{
+            session.sessionInput.read(request);
+            Assert.fail("Read did not time out");
+        }catch(SocketTimeoutException expected){
+            Assert.assertTrue("Read timed out early",System.currentTimeMillis()-start>=100);
+        }
+        Assert.assertTrue("Channel was left in non-blocking mode",accepted.isBlocking());
+
+        client.getOutputStream().write(REQUEST);
+        client.getOutputStream().flush();
+        new DataInputStream(session.sessionInput).readFully(request);
+        Assert.assertArrayEquals(REQUEST,request);
+        Assert.assertTrue(accepted.isBlocking());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Wait for the next session the way a free DRDAConnThread does, so that a session which is handed over
+     * goes to the run queue instead of starting a new connection thread.
+     */
+    private Future<Session> nextSession() throws Exception{
+        final Thread[] waiter=new Thread[1];
+        Future<Session> next=connThreads.submit(new Callable<Session>(){
+            @Override
+            public Session call() throws Exception{
+                synchronized(waiter){
+                    waiter[0]=Thread.currentThread();
+                }
+                return server.getNextSession(null);
+            }
+        });
+        long deadline=System.currentTimeMillis()+10000;
+        while(System.currentTimeMillis()<deadline){
+            synchronized(waiter){
+                if(waiter[0]!=null && waiter[0].getState()==Thread.State.WAITING)
+                    return next;
+            }
+            Thread.sleep(10);
+        }
+        Assert.fail("Connection thread did not start waiting for a session: "+Arrays.toString(waiter));
+        return next;
+    }
+}
@@ -622,4 +622,10 @@ public interface Activation extends Dependent
 	public void materialize() throws StandardException;
 
     public boolean isMaterialized();
+
+    /**
+     * @return false if the statement's results can be returned in any order (a query without ORDER BY),
+     * true otherwise
+     */
+    public boolean isResultOrdered();
 }
@@ -41,6 +41,7 @@ import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 
 import com.splicemachine.db.iapi.store.access.StoreCostController;
 import com.splicemachine.db.iapi.store.access.SortCostController;
+import com.splicemachine.db.impl.sql.compile.ParameterSelectivity;
 import com.splicemachine.db.impl.sql.compile.subquery.aggregate.AggregateSubqueryFlatteningVisitor;
 
 import java.util.List;
@@ -367,6 +368,23 @@ public interface CompilerContext extends Context
 	 */
 	public void setSavedObjects(Object[] objs); 
 
+	/**
+	 * Remember the statistics a parameter with a default value was costed
+	 * against. Only the first selectivity recorded for a parameter is kept.
+	 *
+	 * @param parameterNumber	the number of the parameter (0-based)
+	 * @param selectivity		the statistics of the column it is compared to
+	 */
+	void addParameterSelectivity(int parameterNumber, ParameterSelectivity selectivity);
+
+	/**
+	 * Get the selectivities recorded by addParameterSelectivity.
+	 *
+	 * @return the selectivities indexed by parameter number (entries may be
+	 * null), or null if none were recorded
+	 */
+	ParameterSelectivity[] getParameterSelectivities();
+
 	/**
 	 * Set the in use state for the compiler context.
 	 *
@@ -883,6 +883,23 @@ public interface LanguageConnectionContext extends Context {
         public PreparedStatement prepareInternalStatement(String sqlText) 
 	    throws StandardException;
 
+	/**
+	 * Prepare a statement with its literals replaced by parameters, if
+	 * automatic parameterization is enabled, and return an activation with
+	 * the values of the literals bound to the parameters. Statements which
+	 * only differ in those literals share the same prepared statement.
+	 *
+	 * @param compilationSchema schema
+	 * @param sqlText sql query string
+	 * @param isForReadOnly read only status for resultset
+	 * @param scrollable whether the activation is for a scrollable result set
+	 * @return the activation, or null if the statement should be prepared
+	 * as it is
+	 */
+	Activation getAutoParameterizedActivation(SchemaDescriptor compilationSchema,
+			String sqlText, boolean isForReadOnly, boolean scrollable)
+	    throws StandardException;
+
 	/**
 	 * Control whether or not optimizer trace is on.
 	 *
@@ -40,6 +40,7 @@ public class PartitionStatisticsDescriptor extends TupleDescriptor {
     private long partitionSize;
     private long rowCount;
     private boolean inProgress;
+    private long writeCount;
     private List<ColumnStatisticsDescriptor> columnStatsDescriptors;
 
     public PartitionStatisticsDescriptor(long conglomerateId,
@@ -50,6 +51,18 @@ public class PartitionStatisticsDescriptor extends TupleDescriptor {
                                          long rowCount,
                                          long partitionSize,
                                          int meanRowWidth) {
+        this(conglomerateId,partitionId,timestamp,stale,inProgress,rowCount,partitionSize,meanRowWidth,-1l);
+    }
+
+    public PartitionStatisticsDescriptor(long conglomerateId,
+                                         String partitionId,
+                                         long timestamp,
+                                         boolean stale,
+                                         boolean inProgress,
+                                         long rowCount,
+                                         long partitionSize,
+                                         int meanRowWidth,
+                                         long writeCount) {
         this.conglomerateId = conglomerateId;
         this.partitionId = partitionId;
         this.timestamp = timestamp;
@@ -58,6 +71,7 @@ public class PartitionStatisticsDescriptor extends TupleDescriptor {
         this.partitionSize = partitionSize;
         this.rowCount = rowCount;
         this.inProgress = inProgress;
+        this.writeCount = writeCount;
     }
 
     public long getConglomerateId() { return conglomerateId; }
@@ -69,6 +83,12 @@ public class PartitionStatisticsDescriptor extends TupleDescriptor {
     public long getRowCount() { return rowCount; }
     public boolean isInProgress() { return inProgress; }
 
+    /**
+     * @return the number of write requests the partition had served when its statistics were collected,
+     * or -1 if that is not known
+     */
+    public long getWriteCount() { return writeCount; }
+
     public List<ColumnStatisticsDescriptor> getColumnStatsDescriptors() {
         return columnStatsDescriptors;
     }
@@ -78,7 +78,7 @@ public class ColumnStatisticsMerge implements Aggregator<ColumnStatisticsImpl, C
         quantilesSketchUnion.update(columnStatistics.quantilesSketch);
         frequenciesSketch.merge(columnStatistics.frequenciesSketch);
         thetaSketchUnion.update(columnStatistics.thetaSketch);
-        nullCount =+ columnStatistics.nullCount();
+        nullCount += columnStatistics.nullCount();
     }
 
     /**
@@ -92,7 +92,7 @@ public class ColumnStatisticsMerge implements Aggregator<ColumnStatisticsImpl, C
         quantilesSketchUnion.update(columnStatisticsMerge.quantilesSketchUnion.getResult());
         frequenciesSketch.merge(columnStatisticsMerge.frequenciesSketch);
         thetaSketchUnion.update(columnStatisticsMerge.thetaSketchUnion.getResult());
-        nullCount =+ columnStatisticsMerge.nullCount;
+        nullCount += columnStatisticsMerge.nullCount;
     }
 
     /**
@@ -24,6 +24,9 @@ import java.util.List;
  * effective partition.  The rationale for this is to not merge the stats together
  * continually nor apply them in a linear fashion to each partition.
  *
+ * When the partitions were sampled, the merged column statistics hold the union of the samples, which are scaled
+ * to the summed row count of the partitions.
+ *
  *
  *
  */
@@ -169,7 +172,7 @@ public class EffectivePartitionStatisticsImpl implements PartitionStatistics {
     @Override
     public long nullCount(int positionNumber) {
         ItemStatistics stats = positionNumber >= itemStatistics.length?null:itemStatistics[positionNumber];
-        return stats==null?(long) (fallbackNullFraction * (double) rowCount()):itemStatistics[positionNumber].nullCount();
+        return stats==null?(long) (fallbackNullFraction * (double) rowCount()):SampledStatistics.scale(stats.nullCount(),rowCount,stats.totalCount());
     }
 
     /**
@@ -182,7 +185,7 @@ public class EffectivePartitionStatisticsImpl implements PartitionStatistics {
     @Override
     public long notNullCount(int positionNumber) {
         ItemStatistics stats = positionNumber >= itemStatistics.length?null:itemStatistics[positionNumber];
-        return stats==null?(long) ( (1.0 - fallbackNullFraction) * (double) rowCount()):itemStatistics[positionNumber].notNullCount();
+        return stats==null?(long) ( (1.0 - fallbackNullFraction) * (double) rowCount()):SampledStatistics.scale(stats.notNullCount(),rowCount,stats.totalCount());
     }
 
     /**
@@ -195,7 +198,7 @@ public class EffectivePartitionStatisticsImpl implements PartitionStatistics {
     @Override
     public long cardinality(int positionNumber) {
         ItemStatistics stats = positionNumber >= itemStatistics.length?null:itemStatistics[positionNumber];
-        return stats==null?rowCount():itemStatistics[positionNumber].cardinality();
+        return stats==null?rowCount():SampledStatistics.estimateCardinality(stats.cardinality(),stats.totalCount(),rowCount);
     }
 
     /**
@@ -210,7 +213,7 @@ public class EffectivePartitionStatisticsImpl implements PartitionStatistics {
     @Override
     public <T extends Comparator<T>> long selectivity(T element, int positionNumber) {
         ItemStatistics stats = positionNumber >= itemStatistics.length?null:itemStatistics[positionNumber];
-        return stats==null?(long) (( (double) rowCount()) * extraQualifierMultiplier ):itemStatistics[positionNumber].selectivity((T) element);
+        return stats==null?(long) (( (double) rowCount()) * extraQualifierMultiplier ):SampledStatistics.scale(stats.selectivity((T) element),rowCount,stats.totalCount());
     }
 
     /**
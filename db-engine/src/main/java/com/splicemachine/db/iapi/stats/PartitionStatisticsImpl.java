@@ -22,6 +22,9 @@ import java.util.Comparator;
 import java.util.List;
 
 /**
+ *
+ * Statistics of a single partition, as stored in the dictionary. The column statistics may have been collected from
+ * a sample of the partition's rows, so the counts derived from them are scaled to the partition's row count.
  *
  */
 public class PartitionStatisticsImpl implements PartitionStatistics {
@@ -88,26 +91,31 @@ public class PartitionStatisticsImpl implements PartitionStatistics {
 
     @Override
     public long nullCount(int positionNumber) {
-        return itemStatistics.get(positionNumber).nullCount();
+        ItemStatistics stats = itemStatistics.get(positionNumber);
+        return SampledStatistics.scale(stats.nullCount(),rowCount(),stats.totalCount());
     }
 
     @Override
     public long notNullCount(int positionNumber) {
-        return itemStatistics.get(positionNumber).notNullCount();
+        ItemStatistics stats = itemStatistics.get(positionNumber);
+        return SampledStatistics.scale(stats.notNullCount(),rowCount(),stats.totalCount());
     }
 
     @Override
     public long cardinality(int positionNumber) {
-        return itemStatistics.get(positionNumber).cardinality();
+        ItemStatistics stats = itemStatistics.get(positionNumber);
+        return SampledStatistics.estimateCardinality(stats.cardinality(),stats.totalCount(),rowCount());
     }
 
     @Override
     public <T extends Comparator<T>> long selectivity(T element, int positionNumber) {
-        return itemStatistics.get(positionNumber).selectivity((T) element);
+        ItemStatistics stats = itemStatistics.get(positionNumber);
+        return SampledStatistics.scale(stats.selectivity((T) element),rowCount(),stats.totalCount());
     }
 
     @Override
     public <T extends Comparator<T>> long rangeSelectivity(T start, T stop, boolean includeStart, boolean includeStop, int positionNumber) {
-        return itemStatistics.get(positionNumber).rangeSelectivity((T) start, (T) stop, includeStart, includeStop);
+        ItemStatistics stats = itemStatistics.get(positionNumber);
+        return SampledStatistics.scale(stats.rangeSelectivity((T) start, (T) stop, includeStart, includeStop),rowCount(),stats.totalCount());
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.iapi.stats;
+
+/**
+ *
+ * Scaling of column statistics which were collected from a sample of the rows in a partition.
+ *
+ * The row count of a partition is always exact, while the column sketches only see the sampled rows (the total
+ * count of a column is the size of the sample). Counts taken from the sketches (null counts, selectivities) scale
+ * linearly with the sample, but the number of distinct values does not, so it is estimated separately.
+ *
+ */
+public final class SampledStatistics {
+    private static final int MAX_ITERATIONS = 64;
+
+    private SampledStatistics() {
+
+    }
+
+    /**
+     *
+     * The factor to multiply counts taken from a sample by.
+     *
+     * @param rowCount the exact number of rows
+     * @param sampledRows the number of rows fed to the sketches
+     * @return the scale factor, 1 if the statistics were not sampled
+     */
+    public static double scaleFactor(long rowCount, long sampledRows) {
+        if (sampledRows <= 0 || rowCount <= sampledRows)
+            return 1.0d;
+        return ((double) rowCount) / ((double) sampledRows);
+    }
+
+    /**
+     *
+     * Scale a count taken from a sample.
+     *
+     * @param count the count in the sample
+     * @param rowCount the exact number of rows
+     * @param sampledRows the number of rows fed to the sketches
+     * @return the estimated count over all rows
+     */
+    public static long scale(long count, long rowCount, long sampledRows) {
+        double factor = scaleFactor(rowCount, sampledRows);
+        return factor == 1.0d ? count : Math.round(count * factor);
+    }
+
+    /**
+     *
+     * Estimate the number of distinct values of a column from the number of distinct values in a
+     * uniform random sample.
+     *
+     * Assuming each of the {@code D} distinct values occurs {@code N/D} times, a sample of fraction {@code p} is
+     * expected to contain {@code D*(1-(1-p)^(N/D))} distinct values. That expression grows with {@code D}, so it is
+     * solved for {@code D} by bisection between the sample cardinality and the largest number of distinct values
+     * the sample allows for. A sample in which every value is distinct therefore scales to the row count, while a
+     * sample which saw only a few values (each of them many times) hardly scales at all.
+     *
+     * @param sampleCardinality the number of distinct values in the sample
+     * @param sampledRows the number of rows in the sample
+     * @param rowCount the exact number of rows
+     * @return the estimated number of distinct values over all rows
+     */
+    public static long estimateCardinality(long sampleCardinality, long sampledRows, long rowCount) {
+        if (sampledRows <= 0 || rowCount <= sampledRows || sampleCardinality <= 0)
+            return sampleCardinality;
+        double d = Math.min(sampleCardinality, sampledRows);
+        double n = sampledRows;
+        double rows = rowCount;
+        double p = n / rows;
+        double low = d;
+        double high = Math.min(rows, d * rows / n);
+        if (high <= low)
+            return (long) low;
+        double logMiss = Math.log1p(-p);
+        for (int i = 0; i < MAX_ITERATIONS && high - low > 0.5d; i++) {
+            double mid = (low + high) / 2;
+            double expected = -mid * Math.expm1(logMiss * rows / mid);
+            if (expected < d)
+                low = mid;
+            else
+                high = mid;
+        }
+        return Math.round((low + high) / 2);
+    }
+}
@@ -217,7 +217,10 @@ public class TableStatisticsImpl implements TableStatistics {
      */
     @Override
     public <T extends Comparator<T>> double selectivity(T element, int positionNumber) {
-        return getEffectivePartitionStatistics().selectivity(element,positionNumber)/getEffectivePartitionStatistics().rowCount();
+        long rowCount = getEffectivePartitionStatistics().rowCount();
+        if (rowCount == 0)
+            return 0;
+        return ((double) getEffectivePartitionStatistics().selectivity(element,positionNumber))/((double) rowCount);
     }
 
     /**
@@ -818,4 +818,7 @@ final public class GenericActivationHolder implements Activation
     public boolean isMaterialized() {
         return ac.isMaterialized();
     }
+    public boolean isResultOrdered() {
+        return ac.isResultOrdered();
+    }
 }
@@ -52,6 +52,7 @@ import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.util.ByteArray;
 import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.compile.CursorNode;
+import com.splicemachine.db.impl.sql.compile.ParameterSelectivity;
 import com.splicemachine.db.impl.sql.compile.StatementNode;
 
 import java.sql.SQLWarning;
@@ -148,6 +149,11 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
     /* Incremented for each (re)compile. */
     private long versionCounter;
 
+    /* Statistics of the parameters of an automatically parameterized statement, and the selectivity
+     * signature of the values it was compiled with. */
+    private volatile ParameterSelectivity[] parameterSelectivities;
+    private volatile String compiledSelectivitySignature;
+
     private boolean isAutoTraced;
 
     private boolean hasXPlainTableOrProcedure;
@@ -594,6 +600,37 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         savedObjects = objects;
     }
 
+    /**
+     * Set the statistics the parameters were costed against. Called when an automatically
+     * parameterized statement completes compilation.
+     *
+     * @param lcc the connection which compiled the statement
+     * @param selectivities the selectivities indexed by parameter number, may be null
+     * @param compiledValues the parameter values the statement was compiled with
+     */
+    public final void setParameterSelectivities(LanguageConnectionContext lcc, ParameterSelectivity[] selectivities,
+                                                Object[] compiledValues) throws StandardException {
+        parameterSelectivities = selectivities;
+        compiledSelectivitySignature = ParameterSelectivity.signature(lcc, selectivities, compiledValues);
+    }
+
+    /**
+     * @return the selectivity signature of the parameter values this statement was compiled with,
+     * or null if it is not known
+     */
+    public final String getCompiledSelectivitySignature() {
+        return compiledSelectivitySignature;
+    }
+
+    /**
+     * @param lcc the connection the statement is executed by
+     * @param values parameter values
+     * @return the selectivity signature of the values, or null if this statement has no parameter statistics
+     */
+    public final String getSelectivitySignature(LanguageConnectionContext lcc, Object[] values) throws StandardException {
+        return ParameterSelectivity.signature(lcc, parameterSelectivities, values);
+    }
+
     /**
      * Get the specified saved object.
      *
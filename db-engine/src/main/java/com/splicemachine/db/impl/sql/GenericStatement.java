@@ -64,8 +64,12 @@ public class GenericStatement implements Statement{
     private final String statementText;
     private final boolean isForReadOnly;
     private int prepareIsolationLevel;
+    private final String selectivitySignature;
     private GenericStorablePreparedStatement preparedStmt;
 
+    // the literal values of an automatically parameterized statement, used as parameter defaults
+    private final Object[] parameterValues;
+
     /**
      * Constructor for a Statement given the text of the statement in a String
      *
@@ -75,9 +79,26 @@ public class GenericStatement implements Statement{
      */
 
     public GenericStatement(SchemaDescriptor compilationSchema,String statementText,boolean isForReadOnly){
+        this(compilationSchema,statementText,isForReadOnly,null,null);
+    }
+
+    /**
+     * Constructor for an automatically parameterized statement.
+     *
+     * @param compilationSchema    schema
+     * @param statementText        The text of the statement, with its literals replaced by parameters
+     * @param isForReadOnly        if the statement is opened with level CONCUR_READ_ONLY
+     * @param parameterValues      the values of the literals, used as parameter defaults when compiling
+     * @param selectivitySignature the selectivity signature of the plan variant, or an empty string for the
+     *                             plan compiled with the values of the first execution
+     */
+    public GenericStatement(SchemaDescriptor compilationSchema,String statementText,boolean isForReadOnly,
+                            Object[] parameterValues,String selectivitySignature){
         this.compilationSchema=compilationSchema;
         this.statementText=statementText;
         this.isForReadOnly=isForReadOnly;
+        this.parameterValues=parameterValues;
+        this.selectivitySignature=selectivitySignature;
     }
 
     public PreparedStatement prepare(LanguageConnectionContext lcc) throws StandardException{
@@ -196,6 +217,11 @@ public class GenericStatement implements Statement{
 
     public String getCompilationSchema(){ return compilationSchema.getDescriptorName(); }
 
+    /**
+     * @return true if the literals of this statement were replaced by parameters before it was prepared
+     */
+    public boolean isAutoParameterized(){ return selectivitySignature!=null; }
+
     /**
      * Return the {@link PreparedStatement} currently associated with this
      * statement.
@@ -209,7 +235,8 @@ public class GenericStatement implements Statement{
             GenericStatement os=(GenericStatement)other;
             return statementText.equals(os.statementText) && isForReadOnly==os.isForReadOnly
                     && compilationSchema.equals(os.compilationSchema) &&
-                    (prepareIsolationLevel==os.prepareIsolationLevel);
+                    (prepareIsolationLevel==os.prepareIsolationLevel) &&
+                    (selectivitySignature==null?os.selectivitySignature==null:selectivitySignature.equals(os.selectivitySignature));
         }
         return false;
     }
@@ -263,6 +290,9 @@ public class GenericStatement implements Statement{
         Timestamp beginTimestamp=null;
         StatementContext statementContext=null;
 
+        if(paramDefaults==null)
+            paramDefaults=parameterValues;
+
         // verify it isn't already prepared...
         // if it is, and is valid, simply return that tree.
         // if it is invalid, we will recompile now.
@@ -480,6 +510,8 @@ public class GenericStatement implements Statement{
              * we mark it valid.
              */
             Timestamp endTimestamp=generate(lcc,timestamps,cc,qt);
+            if(isAutoParameterized())
+                preparedStmt.setParameterSelectivities(lcc,cc.getParameterSelectivities(),paramDefaults);
 
             saveTree(qt, CompilationPhase.AFTER_GENERATE);
 
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ *
+ * Replaces the literals of a statement by parameter markers, so that statements which only differ in the values
+ * they compare columns to can share one compiled plan.
+ *
+ * The statement text is only tokenized, not parsed, so the rewrite is deliberately conservative. Only queries,
+ * updates and deletes without parameters of their own are rewritten, and only literals in one of the forms
+ *
+ * <pre>
+ *     column op literal          (op one of =, &lt;&gt;, !=, &lt;, &lt;=, &gt;, &gt;=)
+ *     column [NOT] IN (literal, ...)
+ *     column [NOT] BETWEEN literal AND literal
+ * </pre>
+ *
+ * which are followed by the end of a predicate (AND, OR, a closing parenthesis, the start of the next clause or
+ * the end of the statement). A parameter in any of those positions takes its type from the column it is compared
+ * to. Everything else in the text (including comments and optimizer hints) is kept as it is.
+ *
+ */
+public final class StatementParameterizer {
+    private static final Set<String> STATEMENTS = new HashSet<>(Arrays.asList("SELECT", "UPDATE", "DELETE", "WITH"));
+    private static final Set<String> RELATIONAL_OPERATORS = new HashSet<>(Arrays.asList("=", "<>", "!=", "<", "<=", ">", ">="));
+    private static final Set<String> TERMINATORS = new HashSet<>(Arrays.asList(")", ";", "AND", "OR", "ORDER", "GROUP",
+            "HAVING", "FETCH", "OFFSET", "FOR", "UNION", "INTERSECT", "EXCEPT", "WITH"));
+    private static final Set<String> NOT_COLUMNS = new HashSet<>(Arrays.asList("AND", "OR", "NOT", "WHERE", "ON", "HAVING",
+            "WHEN", "THEN", "ELSE", "CASE", "NULL", "TRUE", "FALSE", "SELECT", "SET", "BY", "IN", "BETWEEN", "LIKE", "IS"));
+
+    private enum TokenType { WORD, QUOTED_WORD, NUMBER, STRING, SYMBOL }
+
+    private static final class Token {
+        final TokenType type;
+        final int start;
+        final int end;
+        final String text;
+
+        Token(TokenType type, int start, int end, String text) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+
+        boolean is(String s) {
+            return (type == TokenType.WORD || type == TokenType.SYMBOL) && text.equals(s);
+        }
+    }
+
+    /**
+     * A statement with its literals replaced by parameters.
+     */
+    public static final class Result {
+        private final String text;
+        private final DataValueDescriptor[] values;
+
+        Result(String text, DataValueDescriptor[] values) {
+            this.text = text;
+            this.values = values;
+        }
+
+        /**
+         * @return the text of the statement, with a parameter marker in place of each literal
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return the values of the literals, in parameter order
+         */
+        public DataValueDescriptor[] getValues() {
+            return values;
+        }
+    }
+
+    private StatementParameterizer() {
+    }
+
+    /**
+     *
+     * Replace the eligible literals of a statement by parameters.
+     *
+     * @param sql the text of the statement
+     * @return the parameterized statement, or null if the statement has no literals which can be replaced
+     */
+    public static Result parameterize(String sql) {
+        List<Token> tokens = tokenize(sql);
+        if (tokens == null || tokens.isEmpty() || !STATEMENTS.contains(tokens.get(0).text))
+            return null;
+
+        // ranges of the text to replace by a parameter, in order, and the values of those literals
+        List<int[]> ranges = new ArrayList<>();
+        List<DataValueDescriptor> values = new ArrayList<>();
+        try {
+            int i = 0;
+            while (i < tokens.size()) {
+                int next = isColumn(tokens, i) ? matchPredicate(tokens, i + 1, ranges, values, sql) : -1;
+                i = next > i ? next : i + 1;
+            }
+        } catch (StandardException | NumberFormatException e) {
+            return null;
+        }
+        if (values.isEmpty())
+            return null;
+
+        StringBuilder text = new StringBuilder(sql.length());
+        int position = 0;
+        for (int[] range : ranges) {
+            text.append(sql, position, range[0]).append('?');
+            position = range[1];
+        }
+        text.append(sql, position, sql.length());
+        return new Result(text.toString(), values.toArray(new DataValueDescriptor[values.size()]));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static boolean isColumn(List<Token> tokens, int i) {
+        Token token = tokens.get(i);
+        return token.type == TokenType.QUOTED_WORD || (token.type == TokenType.WORD && !NOT_COLUMNS.contains(token.text));
+    }
+
+    /**
+     * Match the predicate following a column at position {@code i}. If it matches, the ranges and values of its
+     * literals are added, and the position of the token following the predicate is returned, otherwise -1.
+     */
+    private static int matchPredicate(List<Token> tokens, int i, List<int[]> ranges,
+                                      List<DataValueDescriptor> values, String sql) throws StandardException {
+        if (i >= tokens.size())
+            return -1;
+        List<int[]> matchedRanges = new ArrayList<>();
+        int end;
+        Token token = tokens.get(i);
+        if (token.type == TokenType.SYMBOL && RELATIONAL_OPERATORS.contains(token.text)) {
+            end = matchLiteral(tokens, i + 1, matchedRanges);
+        } else {
+            if (token.is("NOT"))
+                i++;
+            if (i >= tokens.size())
+                return -1;
+            token = tokens.get(i);
+            if (token.is("IN"))
+                end = matchInList(tokens, i + 1, matchedRanges);
+            else if (token.is("BETWEEN")) {
+                end = matchLiteral(tokens, i + 1, matchedRanges);
+                if (end < 0 || end >= tokens.size() || !tokens.get(end).is("AND"))
+                    return -1;
+                end = matchLiteral(tokens, end + 1, matchedRanges);
+            } else
+                return -1;
+        }
+        if (end < 0 || (end < tokens.size() && !isTerminator(tokens.get(end))))
+            return -1;
+
+        for (int[] range : matchedRanges) {
+            ranges.add(range);
+            values.add(toValue(sql.substring(range[0], range[1]), tokens, range[2]));
+        }
+        return end;
+    }
+
+    private static int matchInList(List<Token> tokens, int i, List<int[]> matchedRanges) {
+        if (i >= tokens.size() || !tokens.get(i).is("("))
+            return -1;
+        int end = i;
+        do {
+            end = matchLiteral(tokens, end + 1, matchedRanges);
+            if (end < 0 || end >= tokens.size())
+                return -1;
+        } while (tokens.get(end).is(","));
+        return tokens.get(end).is(")") ? end + 1 : -1;
+    }
+
+    /**
+     * Match a (possibly negative) literal at position {@code i}, returning the position of the following token.
+     * The range added holds the start and end of the literal in the text, and the position of its token.
+     */
+    private static int matchLiteral(List<Token> tokens, int i, List<int[]> matchedRanges) {
+        if (i >= tokens.size())
+            return -1;
+        Token token = tokens.get(i);
+        int start = token.start;
+        if (token.is("-") && i + 1 < tokens.size() && tokens.get(i + 1).type == TokenType.NUMBER)
+            token = tokens.get(++i);
+        if (token.type != TokenType.NUMBER && token.type != TokenType.STRING)
+            return -1;
+        matchedRanges.add(new int[]{start, token.end, i});
+        return i + 1;
+    }
+
+    private static boolean isTerminator(Token token) {
+        return (token.type == TokenType.WORD || token.type == TokenType.SYMBOL) && TERMINATORS.contains(token.text);
+    }
+
+    private static DataValueDescriptor toValue(String literal, List<Token> tokens, int i) throws StandardException {
+        Token token = tokens.get(i);
+        if (token.type == TokenType.STRING)
+            return new SQLChar(token.text);
+
+        String number = literal.startsWith("-") ? "-" + token.text : token.text;
+        if (number.indexOf('e') >= 0 || number.indexOf('E') >= 0)
+            return new SQLDouble(Double.parseDouble(number));
+        if (number.indexOf('.') >= 0)
+            return new SQLDecimal(new BigDecimal(number));
+        long value;
+        try {
+            value = Long.parseLong(number);
+        } catch (NumberFormatException nfe) {
+            return new SQLDecimal(new BigDecimal(number));
+        }
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+            return new SQLInteger((int) value);
+        return new SQLLongint(value);
+    }
+
+    /**
+     * Split the text into tokens. Returns null if the text contains parameters of its own, or something the
+     * tokenizer does not understand.
+     */
+    private static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n' && sql.charAt(i) != '\r')
+                    i++;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                if (close < 0)
+                    return null;
+                i = close + 2;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length)
+                        return null;
+                    char d = sql.charAt(i++);
+                    if (d == c) {
+                        if (i < length && sql.charAt(i) == c) {
+                            value.append(c);
+                            i++;
+                        } else
+                            break;
+                    } else
+                        value.append(d);
+                }
+                tokens.add(new Token(c == '\'' ? TokenType.STRING : TokenType.QUOTED_WORD, start, i, value.toString()));
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                while (i < length && Character.isDigit(sql.charAt(i)))
+                    i++;
+                if (i < length && sql.charAt(i) == '.') {
+                    i++;
+                    while (i < length && Character.isDigit(sql.charAt(i)))
+                        i++;
+                }
+                if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+                    i++;
+                    if (i < length && (sql.charAt(i) == '+' || sql.charAt(i) == '-'))
+                        i++;
+                    if (i >= length || !Character.isDigit(sql.charAt(i)))
+                        return null;
+                    while (i < length && Character.isDigit(sql.charAt(i)))
+                        i++;
+                }
+                if (i < length && isWordPart(sql.charAt(i)))
+                    return null;
+                tokens.add(new Token(TokenType.NUMBER, start, i, sql.substring(start, i)));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && isWordPart(sql.charAt(i)))
+                    i++;
+                tokens.add(new Token(TokenType.WORD, start, i, sql.substring(start, i).toUpperCase(Locale.ENGLISH)));
+            } else if (c == '?') {
+                return null;
+            } else {
+                i++;
+                if (i < length) {
+                    String pair = sql.substring(start, i + 1);
+                    if (pair.equals("<>") || pair.equals("<=") || pair.equals(">=") || pair.equals("!=") || pair.equals("||"))
+                        i++;
+                }
+                tokens.add(new Token(TokenType.SYMBOL, start, i, sql.substring(start, i)));
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@';
+    }
+}
@@ -48,6 +48,7 @@ import org.spark_project.guava.cache.RemovalNotification;
 import javax.management.MXBean;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -65,12 +66,19 @@ public class DataDictionaryCache {
     private Cache<UUID, SPSDescriptor> storedPreparedStatementCache;
     private Cache<Long,Conglomerate> conglomerateCache;
     private Cache<GenericStatement,GenericStorablePreparedStatement> statementCache;
+    private Cache<String,Boolean> autoParameterizeFailureCache;
     private Cache<String,SchemaDescriptor> schemaCache;
     private Cache<String,Optional<RoleGrantDescriptor>> roleCache;
     private int tdCacheSize;
     private int stmtCacheSize;
     private int permissionsCacheSize;
     private DataDictionary dd;
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong autoParameterizedHits = new AtomicLong();
+    private final AtomicLong autoParameterizedMisses = new AtomicLong();
+    private final AtomicLong autoParameterizedVariants = new AtomicLong();
+    private final AtomicLong autoParameterizedFallbacks = new AtomicLong();
 
 
     public DataDictionaryCache(Properties startParams,DataDictionary dd) throws StandardException {
@@ -112,6 +120,7 @@ public class DataDictionaryCache {
         partitionStatisticsCache = CacheBuilder.newBuilder().maximumSize(8092).build();
         conglomerateCache = CacheBuilder.newBuilder().maximumSize(1024).build();
         statementCache = CacheBuilder.newBuilder().maximumSize(1024).removalListener(dependentInvalidator).build();
+        autoParameterizeFailureCache = CacheBuilder.newBuilder().maximumSize(1024).build();
         schemaCache = CacheBuilder.newBuilder().maximumSize(1024).build();
         roleCache = CacheBuilder.newBuilder().maximumSize(100).build();
         permissionsCache=CacheBuilder.newBuilder().maximumSize(permissionsCacheSize).build();
@@ -336,6 +345,7 @@ public class DataDictionaryCache {
         storedPreparedStatementCache.invalidateAll();
         schemaCache.invalidateAll();
         statementCache.invalidateAll();
+        autoParameterizeFailureCache.invalidateAll();
         roleCache.invalidateAll();
     }
 
@@ -347,6 +357,7 @@ public class DataDictionaryCache {
         sequenceGeneratorCache.invalidateAll();
         permissionsCache.invalidateAll();
         statementCache.invalidateAll();
+        autoParameterizeFailureCache.invalidateAll();
         roleCache.invalidateAll();
     }
 
@@ -366,6 +377,7 @@ public class DataDictionaryCache {
         if (LOG.isDebugEnabled())
             LOG.debug("clearStatementCache ");
         statementCache.invalidateAll();
+        autoParameterizeFailureCache.invalidateAll();
     }
 
     public void statementCacheAdd(GenericStatement gs, GenericStorablePreparedStatement gsp) throws StandardException {
@@ -382,9 +394,74 @@ public class DataDictionaryCache {
         GenericStorablePreparedStatement gsps = statementCache.getIfPresent(gs);
         if (LOG.isDebugEnabled())
             LOG.debug("statementCacheFind " + gs.toString() +(gsps != null ? " found" : " null"));
+        (gsps != null ? statementCacheHits : statementCacheMisses).incrementAndGet();
+        if (gs.isAutoParameterized())
+            (gsps != null ? autoParameterizedHits : autoParameterizedMisses).incrementAndGet();
         return gsps;
     }
 
+    /**
+     * Remember that the parameterized text of a statement failed to compile, so that later executions of
+     * the statement prepare their original text straight away. Forgotten when the statement cache is cleared.
+     */
+    public void autoParameterizeFailureAdd(SchemaDescriptor sd, String parameterizedText) throws StandardException {
+        if (!dd.canUseCache(null))
+            return;
+        if (LOG.isDebugEnabled())
+            LOG.debug("autoParameterizeFailureAdd " + parameterizedText);
+        autoParameterizeFailureCache.put(autoParameterizeKey(sd,parameterizedText),Boolean.TRUE);
+    }
+
+    public boolean autoParameterizeFailureFind(SchemaDescriptor sd, String parameterizedText) throws StandardException {
+        if (!dd.canUseCache(null))
+            return false;
+        return autoParameterizeFailureCache.getIfPresent(autoParameterizeKey(sd,parameterizedText)) != null;
+    }
+
+    private static String autoParameterizeKey(SchemaDescriptor sd, String parameterizedText) {
+        return sd.getDescriptorName() + '\u0000' + parameterizedText;
+    }
+
+    /**
+     * Record that an automatically parameterized statement was executed with a plan variant, because the
+     * selectivity of its parameter values differs from the ones the first plan was compiled with.
+     */
+    public void recordAutoParameterizedVariant() {
+        autoParameterizedVariants.incrementAndGet();
+    }
+
+    /**
+     * Record that an automatically parameterized statement could not be used, and the original text was
+     * prepared instead.
+     */
+    public void recordAutoParameterizedFallback() {
+        autoParameterizedFallbacks.incrementAndGet();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    public long getAutoParameterizedHits() {
+        return autoParameterizedHits.get();
+    }
+
+    public long getAutoParameterizedMisses() {
+        return autoParameterizedMisses.get();
+    }
+
+    public long getAutoParameterizedVariants() {
+        return autoParameterizedVariants.get();
+    }
+
+    public long getAutoParameterizedFallbacks() {
+        return autoParameterizedFallbacks.get();
+    }
+
     public void roleCacheAdd(String roleName, Optional<RoleGrantDescriptor> optional) throws StandardException {
         if (!dd.canUseCache(null))
             return;
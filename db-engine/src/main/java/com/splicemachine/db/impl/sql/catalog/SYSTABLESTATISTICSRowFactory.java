@@ -43,7 +43,7 @@ import java.util.Properties;
  */
 public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
     public static final String TABLENAME_STRING = "SYSTABLESTATS";
-    public static final int SYSTABLESTATISTICS_COLUMN_COUNT= 8;
+    public static final int SYSTABLESTATISTICS_COLUMN_COUNT= 9;
     public static final int CONGLOMID = 1;
     public static final int PARTITIONID = 2;
     public static final int TIMESTAMP = 3;
@@ -52,6 +52,7 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
     public static final int ROWCOUNT = 6;
     public static final int PARTITION_SIZE = 7;
     public static final int MEANROWWIDTH= 8;
+    public static final int WRITECOUNT= 9;
 
     protected static final int		SYSTABLESTATISTICS_INDEX1_ID = 0;
     protected static final int		SYSTABLESTATISTICS_INDEX2_ID = 1;
@@ -93,6 +94,7 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
         long rowCount = 0;
         long partitionSize = 0;
         int meanRowWidth=0;
+        long writeCount = -1;
 
         if(td!=null){
             PartitionStatisticsDescriptor tsd = (PartitionStatisticsDescriptor)td;
@@ -104,6 +106,7 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
             rowCount = tsd.getRowCount();
             partitionSize = tsd.getPartitionSize();
             meanRowWidth = tsd.getMeanRowWidth();
+            writeCount = tsd.getWriteCount();
         }
 
         ExecRow row = getExecutionFactory().getValueRow(SYSTABLESTATISTICS_COLUMN_COUNT);
@@ -115,6 +118,7 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
         row.setColumn(ROWCOUNT,new SQLLongint(rowCount));
         row.setColumn(PARTITION_SIZE,new SQLLongint(partitionSize));
         row.setColumn(MEANROWWIDTH,new SQLInteger(meanRowWidth));
+        row.setColumn(WRITECOUNT,writeCount<0?new SQLLongint():new SQLLongint(writeCount));
         return row;
     }
 
@@ -141,6 +145,8 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
         long partitionSize = col.getLong();
         col = row.getColumn(MEANROWWIDTH);
         int rowWidth = col.getInt();
+        col = row.getColumn(WRITECOUNT);
+        long writeCount = col==null || col.isNull()?-1l:col.getLong(); //not written by older versions
 
         return new PartitionStatisticsDescriptor(conglomId,
                 partitionId,
@@ -149,7 +155,8 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
                 inProgress,
                 rowCount,
                 partitionSize,
-                rowWidth);
+                rowWidth,
+                writeCount);
     }
 
     @Override
@@ -162,7 +169,8 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
                 SystemColumnImpl.getColumn("IN_PROGRESS", Types.BOOLEAN, false),
                 SystemColumnImpl.getColumn("ROWCOUNT",Types.BIGINT,true),
                 SystemColumnImpl.getColumn("PARTITION_SIZE",Types.BIGINT,true),
-                SystemColumnImpl.getColumn("MEANROWWIDTH",Types.INTEGER,true)
+                SystemColumnImpl.getColumn("MEANROWWIDTH",Types.INTEGER,true),
+                SystemColumnImpl.getColumn("WRITECOUNT",Types.BIGINT,true)
         };
     }
 
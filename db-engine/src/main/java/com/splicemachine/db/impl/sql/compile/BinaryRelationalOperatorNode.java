@@ -1046,6 +1046,24 @@ public class BinaryRelationalOperatorNode
         }
     }
 
+    /**
+     * Return the parameter the key column of the given table is compared to, if it is compared to one.
+     *
+     * @param optTable the table the key column belongs to
+     * @return the parameter, or null if the column is not compared to a parameter
+     */
+    ParameterNode getCompareParameter(Optimizable optTable) throws StandardException{
+        ValueNode node=keyColumnOnLeft(optTable)?rightOperand:leftOperand;
+        if(node instanceof CastNode)
+            node=((CastNode)node).castOperand;
+
+        if(node instanceof ParameterNode)
+            return (ParameterNode)node;
+        else if(node instanceof UnaryOperatorNode && node.requiresTypeFromContext())
+            return ((UnaryOperatorNode)node).getParameterOperand();
+        return null;
+    }
+
 
     /**
      * Return 50% if this is a comparison with a boolean column, a negative
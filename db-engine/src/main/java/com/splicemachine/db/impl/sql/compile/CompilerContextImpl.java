@@ -27,6 +27,7 @@ package com.splicemachine.db.impl.sql.compile;
 
 import java.sql.SQLWarning;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -127,6 +128,7 @@ public class CompilerContextImpl extends ContextImpl
 		scanIsolationLevel = ExecutionContext.UNSPECIFIED_ISOLATION_LEVEL;
 		warnings = null;
 		savedObjects = null;
+		parameterSelectivities = null;
 		reliability = CompilerContext.SQL_LEGAL;
 		returnParameterFlag = false;
 		initRequiredPriv();
@@ -356,6 +358,24 @@ public class CompilerContextImpl extends ContextImpl
 		}		
 	}
 
+	/** @see CompilerContext#addParameterSelectivity */
+	public void addParameterSelectivity(int parameterNumber, ParameterSelectivity selectivity)
+	{
+		if (parameterSelectivities == null)
+			parameterSelectivities = new ParameterSelectivity[parameterNumber + 1];
+		else if (parameterSelectivities.length <= parameterNumber)
+			parameterSelectivities = Arrays.copyOf(parameterSelectivities, parameterNumber + 1);
+
+		if (parameterSelectivities[parameterNumber] == null)
+			parameterSelectivities[parameterNumber] = selectivity;
+	}
+
+	/** @see CompilerContext#getParameterSelectivities */
+	public ParameterSelectivity[] getParameterSelectivities()
+	{
+		return parameterSelectivities;
+	}
+
 	/** @see CompilerContext#setCursorInfo */
 	public void setCursorInfo(Object cursorInfo)
 	{
@@ -1025,6 +1045,7 @@ public class CompilerContextImpl extends ContextImpl
 	private int					nextEquivalenceClass = -1;
 	private long				nextClassName;
 	private Vector				savedObjects;
+	private ParameterSelectivity[]	parameterSelectivities;
 	private String				classPrefix;
 	private SchemaDescriptor	compilationSchema;
 
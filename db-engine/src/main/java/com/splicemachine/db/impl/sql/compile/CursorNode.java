@@ -57,6 +57,7 @@ public class CursorNode extends DMLStatementNode{
 
     private String name;
     private OrderByList orderByList;
+    private boolean hasOrderBy; // orderByList is pushed down during optimization, remember we had one
     private ValueNode offset;     // <result offset clause> value
     private ValueNode fetchFirst; // <fetch first clause> value
     private boolean hasJDBClimitClause; // true if using JDBC limit/offset escape syntax
@@ -369,6 +370,7 @@ public class CursorNode extends DMLStatementNode{
 
             resultSet.pushOrderByList(orderByList);
             orderByList=null;
+            hasOrderBy=true;
         }
 
         resultSet.pushOffsetFetchFirst(offset,fetchFirst,hasJDBClimitClause);
@@ -423,6 +425,14 @@ public class CursorNode extends DMLStatementNode{
             constructor.endStatement();
         }
 
+        if(!hasOrderBy){ //results can be returned in any order
+            MethodBuilder constructor=acb.getConstructor();
+            constructor.pushThis();
+            constructor.push(false);
+            constructor.putField(ClassName.BaseActivation,"resultOrdered","boolean");
+            constructor.endStatement();
+        }
+
         // generate the parameters
         generateParameterValueSet(acb);
 
@@ -525,7 +525,8 @@ public class FromBaseTable extends FromTable {
 
     @Override
     public void verifyProperties(DataDictionary dDictionary) throws StandardException{
-        if (tableDescriptor.getStoredAs()!=null) {
+        // Parquet and text files can be read by the control side, ORC files still need Spark
+        if ("O".equals(tableDescriptor.getStoredAs())) {
             dataSetProcessorType = CompilerContext.DataSetProcessorType.FORCED_SPARK;
         }
         if(tableProperties==null){
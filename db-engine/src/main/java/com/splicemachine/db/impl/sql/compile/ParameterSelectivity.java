@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.store.access.StoreCostController;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * The statistics a parameter was costed against when the optimizer used its default value as a range qualifier.
+ *
+ * Automatically parameterized statements are compiled with the values of their first execution. Keeping
+ * these around allows a later execution to estimate the selectivity of its own values, and to tell whether the
+ * cached plan was optimized for a similar selectivity. Selectivities are compared by order of magnitude
+ * (see {@link #getBucket(StoreCostController, DataValueDescriptor)}), so that only values which are much more or much less
+ * selective than the compiled ones lead to another plan.
+ *
+ * Only the conglomerate number of the table is kept, since a prepared statement outlives the compilation and the
+ * cost controllers it opened. The statistics are opened again each time a signature is computed.
+ *
+ */
+public final class ParameterSelectivity {
+    public static final int MIN_BUCKET = -6;
+
+    private final long conglomerateNumber;
+    private final int colNum;
+    private final int operator;
+
+    /**
+     *
+     * @param conglomerateNumber the conglomerate number of the table the parameter is compared against
+     * @param colNum the column the parameter is compared with
+     * @param operator the relational operator of the comparison
+     */
+    public ParameterSelectivity(long conglomerateNumber, int colNum, int operator) {
+        this.conglomerateNumber = conglomerateNumber;
+        this.colNum = colNum;
+        this.operator = operator;
+    }
+
+    /**
+     *
+     * Estimate the selectivity of the predicate for a value of the parameter, the same way
+     * {@link ScanCostFunction} estimates it for the default value.
+     *
+     * @param storeCost the statistics of the table
+     * @param value the value of the parameter
+     * @return the selectivity, or -1 if it cannot be estimated
+     */
+    public double getSelectivity(StoreCostController storeCost, DataValueDescriptor value) {
+        switch (operator) {
+            case RelationalOperator.EQUALS_RELOP:
+                return storeCost.getSelectivity(colNum, value, true, value, true);
+            case RelationalOperator.NOT_EQUALS_RELOP:
+                return 1 - storeCost.getSelectivity(colNum, value, true, value, true);
+            case RelationalOperator.GREATER_EQUALS_RELOP:
+                return storeCost.getSelectivity(colNum, value, true, null, true);
+            case RelationalOperator.GREATER_THAN_RELOP:
+                return storeCost.getSelectivity(colNum, value, false, null, true);
+            case RelationalOperator.LESS_EQUALS_RELOP:
+                return storeCost.getSelectivity(colNum, null, true, value, true);
+            case RelationalOperator.LESS_THAN_RELOP:
+                return storeCost.getSelectivity(colNum, null, true, value, false);
+            default:
+                return -1.0d;
+        }
+    }
+
+    /**
+     *
+     * @param storeCost the statistics of the table
+     * @param value the value of the parameter
+     * @return the order of magnitude of the selectivity of the value, between {@link #MIN_BUCKET} and 0
+     */
+    public int getBucket(StoreCostController storeCost, DataValueDescriptor value) {
+        double selectivity = getSelectivity(storeCost, value);
+        if (selectivity >= 1.0d)
+            return 0;
+        if (selectivity <= 0.0d)
+            return MIN_BUCKET;
+        return Math.max(MIN_BUCKET, (int) Math.floor(Math.log10(selectivity)));
+    }
+
+    /**
+     *
+     * Describe the selectivity buckets of a set of parameter values.
+     *
+     * @param lcc the connection, whose compile transaction is used to read the statistics
+     * @param selectivities the selectivity of each parameter, indexed by parameter number (entries may be null)
+     * @param values the values of the parameters
+     * @return a signature which is equal for values with the same buckets, or null if there are no selectivities
+     * or a table they refer to no longer exists
+     */
+    public static String signature(LanguageConnectionContext lcc, ParameterSelectivity[] selectivities,
+                                   Object[] values) throws StandardException {
+        if (selectivities == null || values == null)
+            return null;
+        Map<Long, StoreCostController> storeCosts = new HashMap<>();
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < selectivities.length && i < values.length; i++) {
+                if (selectivities[i] == null || !(values[i] instanceof DataValueDescriptor))
+                    continue;
+                DataValueDescriptor value = (DataValueDescriptor) values[i];
+                if (value.isNull())
+                    continue;
+                long conglomerateNumber = selectivities[i].conglomerateNumber;
+                StoreCostController storeCost = storeCosts.get(conglomerateNumber);
+                if (storeCost == null) {
+                    storeCost = openStoreCost(lcc, conglomerateNumber);
+                    if (storeCost == null)
+                        return null;
+                    storeCosts.put(conglomerateNumber, storeCost);
+                }
+                sb.append(i).append(':').append(selectivities[i].getBucket(storeCost, value)).append(';');
+            }
+            return sb.toString();
+        } finally {
+            for (StoreCostController storeCost : storeCosts.values())
+                storeCost.close();
+        }
+    }
+
+    private static StoreCostController openStoreCost(LanguageConnectionContext lcc, long conglomerateNumber)
+            throws StandardException {
+        DataDictionary dd = lcc.getDataDictionary();
+        ConglomerateDescriptor cd = dd.getConglomerateDescriptor(conglomerateNumber);
+        if (cd == null)
+            return null;
+        TableDescriptor td = dd.getTableDescriptor(cd.getTableID());
+        if (td == null)
+            return null;
+        return lcc.getTransactionCompile().openStoreCost(td, cd);
+    }
+}
@@ -398,6 +398,7 @@ public class ScanCostFunction{
         int colNum = relop.getColumnOperand(baseTable).getColumnNumber();
         int relationalOperator = relop.getOperator();
         List<SelectivityHolder> columnHolder = getSelectivityListForColumn(colNum);
+        recordParameterSelectivity(relop,colNum,relationalOperator);
         OP_SWITCH: switch(relationalOperator){
             case RelationalOperator.EQUALS_RELOP:
                 columnHolder.add(new RangeSelectivity(scc,value,value,true,true,colNum,phase));
@@ -469,5 +470,26 @@ public class ScanCostFunction{
         return true;
     }
 
+    /**
+     *
+     * Remember the statistics a parameter was costed against (with its default value), so that the plan of an
+     * automatically parameterized statement can be checked against the values it is executed with.
+     *
+     * @param relop
+     * @param colNum
+     * @param relationalOperator
+     * @throws StandardException
+     */
+    private void recordParameterSelectivity(RelationalOperator relop, int colNum, int relationalOperator) throws StandardException {
+        if (!(relop instanceof BinaryRelationalOperatorNode))
+            return;
+        BinaryRelationalOperatorNode bron = (BinaryRelationalOperatorNode) relop;
+        ParameterNode parameter = bron.getCompareParameter(baseTable);
+        if (parameter == null || parameter.getDefaultValue() == null)
+            return;
+        bron.getCompilerContext().addParameterSelectivity(parameter.getParameterNumber(),
+                new ParameterSelectivity(baseTable.getTableDescriptor().getHeapConglomerateId(),colNum,relationalOperator));
+    }
+
 
 }
@@ -56,11 +56,17 @@ import com.splicemachine.db.iapi.sql.execute.*;
 import com.splicemachine.db.iapi.sql.execute.CursorActivation;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.store.access.XATransactionController;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.DataValueFactory;
+import com.splicemachine.db.iapi.types.StringDataValue;
 import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.iapi.util.InterruptStatus;
+import com.splicemachine.db.impl.sql.GenericPreparedStatement;
 import com.splicemachine.db.impl.sql.GenericStatement;
 import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.db.impl.sql.StatementParameterizer;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.compile.CompilerContextImpl;
 import com.splicemachine.db.impl.sql.execute.*;
 import java.util.*;
@@ -238,6 +244,7 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
     // Whether or not to write executing statement info to db2j.log
     private boolean logStatementText;
     private boolean logQueryPlan;
+    private boolean autoParameterize;
     private HeaderPrintWriter istream;
 
     // this used to be computed in OptimizerFactoryContextImpl; i.e everytime a
@@ -329,6 +336,9 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         String logQueryPlanProperty=PropertyUtil.getServiceProperty(getTransactionCompile(),"derby.language.logQueryPlan");
         logQueryPlan=Boolean.valueOf(logQueryPlanProperty);
 
+        String autoParameterizeProperty=PropertyUtil.getServiceProperty(getTransactionCompile(),Property.LANG_AUTO_PARAMETERIZE);
+        autoParameterize=Boolean.valueOf(autoParameterizeProperty);
+
         lockEscalationThreshold=Property.DEFAULT_LOCKS_ESCALATION_THRESHOLD;
         stmtValidators=new ArrayList<>();
         triggerTables=new ArrayList<>();
@@ -1090,6 +1100,88 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         return connFactory.getStatement(getDefaultSchema(),sqlText,true).prepare(this);
     }
 
+    @Override
+    public Activation getAutoParameterizedActivation(SchemaDescriptor compilationSchema,
+                                                     String sqlText,
+                                                     boolean isForReadOnly,
+                                                     boolean scrollable) throws StandardException{
+        if(!autoParameterize || restoreMode)
+            return null;
+        StatementParameterizer.Result parameterized=StatementParameterizer.parameterize(sqlText);
+        if(parameterized==null)
+            return null;
+
+        DataDictionaryCache cache=getDataDictionary().getDataDictionaryCache();
+        if(cache.autoParameterizeFailureFind(compilationSchema,parameterized.getText())){
+            cache.recordAutoParameterizedFallback();
+            return null;
+        }
+        DataValueDescriptor[] values=parameterized.getValues();
+        int depth=getStatementDepth();
+        Activation activation=null;
+        try{
+            GenericStatement statement=new GenericStatement(compilationSchema,parameterized.getText(),isForReadOnly,values,"");
+            GenericPreparedStatement ps;
+            try{
+                ps=(GenericPreparedStatement)statement.prepare(this);
+            }catch(StandardException se){
+                // the literals can't be parameters here, don't try again for every execution
+                cache.autoParameterizeFailureAdd(compilationSchema,parameterized.getText());
+                throw se;
+            }
+
+            // the plan was optimized for the values it was first compiled with. If ours are much more (or much
+            // less) selective, use the plan variant compiled for values like ours instead
+            String signature=ps.getSelectivitySignature(this,values);
+            String compiledSignature=ps.getCompiledSelectivitySignature();
+            if(signature!=null && compiledSignature!=null && !signature.equals(compiledSignature)){
+                statement=new GenericStatement(compilationSchema,parameterized.getText(),isForReadOnly,values,signature);
+                ps=(GenericPreparedStatement)statement.prepare(this);
+                cache.recordAutoParameterizedVariant();
+            }
+
+            activation=ps.getActivation(this,scrollable);
+            if(bindAutoParameters(ps.getParameterTypes(),activation.getParameterValueSet(),values))
+                return activation;
+        }catch(StandardException se){
+            // prepare the original text instead, which raises the error again if it was not caused by
+            // the parameters
+            while(getStatementDepth()>depth){
+                popStatementContext(getStatementContext(),null);
+            }
+        }
+        if(activation!=null)
+            activation.close();
+        cache.recordAutoParameterizedFallback();
+        return null;
+    }
+
+    /**
+     * Set the literal values of an automatically parameterized statement as its parameters. A value is only
+     * used if it converts to the type of its parameter without changing, otherwise the statement would not
+     * mean the same as the original text.
+     *
+     * @return true if all the values were set
+     */
+    private static boolean bindAutoParameters(DataTypeDescriptor[] types,
+                                              ParameterValueSet pvs,
+                                              DataValueDescriptor[] values) throws StandardException{
+        if(types==null || types.length!=values.length)
+            return false;
+        for(int i=0;i<values.length;i++){
+            DataTypeDescriptor type=types[i];
+            if(type==null)
+                return false;
+            if(values[i] instanceof StringDataValue?!type.getTypeId().isStringTypeId():!type.getTypeId().isNumericTypeId())
+                return false;
+            DataValueDescriptor converted=type.normalize(values[i],type.getNull());
+            if(converted.compare(values[i])!=0)
+                return false;
+            pvs.getParameterForSet(i).setValue(converted);
+        }
+        return true;
+    }
+
     /**
      * Remove the activation to those known about by this connection.
      */
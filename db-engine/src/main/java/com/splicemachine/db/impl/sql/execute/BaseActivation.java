@@ -91,6 +91,7 @@ public abstract class BaseActivation implements CursorActivation, GeneratedByteC
 	protected DataValueFactory dvf;
     public boolean ignoreSequence = false;
 	protected boolean materialized = false;
+	protected boolean resultOrdered = true;
 
 	protected ExecPreparedStatement preStmt;
 	protected ResultSet resultSet;
@@ -1689,6 +1690,10 @@ public abstract class BaseActivation implements CursorActivation, GeneratedByteC
 		return materialized;
 	}
 
+	public boolean isResultOrdered() {
+		return resultOrdered;
+	}
+
     public int[] getScanKeys() {
         return scanKeys;
     }
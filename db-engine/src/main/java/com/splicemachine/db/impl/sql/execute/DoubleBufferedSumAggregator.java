@@ -50,6 +50,10 @@ public class DoubleBufferedSumAggregator extends SumAggregator{
 		private double sum = 0d;
 		private boolean isNull = true;
 
+		public DoubleBufferedSumAggregator() { // SERDE
+				this(64);
+		}
+
 		public DoubleBufferedSumAggregator(int bufferSize) {
 				int s = 1;
 				while(s<bufferSize){
@@ -48,6 +48,10 @@ public class FloatBufferedSumAggregator extends SumAggregator {
 		private float sum = 0f;
 		private boolean isNull = true;
 
+		public FloatBufferedSumAggregator() { // SERDE
+				this(64);
+		}
+
 		public FloatBufferedSumAggregator(int bufferSize) {
 				int s = 1;
 				while(s<bufferSize){
@@ -49,6 +49,10 @@ public class LongBufferedSumAggregator extends SumAggregator {
 		private long sum = 0;
 		private boolean isNull = true; //set to false when elements are added
 
+		public LongBufferedSumAggregator() { // SERDE
+				this(64);
+		}
+
 		public LongBufferedSumAggregator(int bufferSize) {
 				int s = 1;
 				while(s<bufferSize){
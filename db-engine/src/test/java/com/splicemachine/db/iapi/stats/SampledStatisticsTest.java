@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.iapi.stats;
+
+import com.splicemachine.db.iapi.types.SQLLongint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for scaling column statistics collected from a sample.
+ */
+public class SampledStatisticsTest {
+
+    @Test
+    public void unsampledStatisticsAreNotScaled() {
+        Assert.assertEquals(1.0d, SampledStatistics.scaleFactor(1000, 1000), 0.0d);
+        Assert.assertEquals(1.0d, SampledStatistics.scaleFactor(1000, 0), 0.0d);
+        Assert.assertEquals(17, SampledStatistics.scale(17, 1000, 1000));
+        Assert.assertEquals(250, SampledStatistics.estimateCardinality(250, 1000, 1000));
+    }
+
+    @Test
+    public void countsScaleWithTheSample() {
+        Assert.assertEquals(10.0d, SampledStatistics.scaleFactor(100000, 10000), 0.0d);
+        Assert.assertEquals(170, SampledStatistics.scale(17, 100000, 10000));
+    }
+
+    @Test
+    public void distinctSampleScalesToRowCount() {
+        Assert.assertEquals(100000, SampledStatistics.estimateCardinality(10000, 10000, 100000));
+    }
+
+    @Test
+    public void fewValuesDoNotScale() {
+        Assert.assertEquals(10, SampledStatistics.estimateCardinality(10, 10000, 100000));
+    }
+
+    @Test
+    public void estimateCloseToTrueCardinality() {
+        int distinct = 5000;
+        int rows = 100000;
+        Random random = new Random(42);
+        Set<Integer> seen = new HashSet<>();
+        int sampled = 0;
+        for (int i = 0; i < rows; i++) {
+            if (random.nextDouble() < 0.05d) {
+                sampled++;
+                seen.add(i % distinct);
+            }
+        }
+        long estimate = SampledStatistics.estimateCardinality(seen.size(), sampled, rows);
+        Assert.assertTrue("Sample saw " + seen.size() + " values, estimated " + estimate,
+                Math.abs(estimate - distinct) < distinct / 10);
+    }
+
+    @Test
+    public void mergeAddsNullCounts() throws Exception {
+        ColumnStatisticsMerge merge = ColumnStatisticsMerge.instance();
+        for (int partition = 0; partition < 3; partition++) {
+            ColumnStatisticsImpl stats = new ColumnStatisticsImpl(new SQLLongint());
+            for (int i = 0; i < 10; i++) {
+                stats.update(i % 2 == 0 ? new SQLLongint() : new SQLLongint(i));
+            }
+            merge.accumulate(stats);
+        }
+        ColumnStatisticsImpl merged = merge.terminate();
+        Assert.assertEquals(15, merged.nullCount());
+        Assert.assertEquals(30, merged.totalCount());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for replacing the literals of a statement by parameters.
+ */
+public class StatementParameterizerTest {
+
+    @Test
+    public void comparisonsAreParameterized() throws Exception {
+        StatementParameterizer.Result result = StatementParameterizer.parameterize(
+                "select * from t where a = 42 and t.b <> 'x''y' or c >= -3.5");
+        Assert.assertNotNull(result);
+        Assert.assertEquals("select * from t where a = ? and t.b <> ? or c >= ?", result.getText());
+        DataValueDescriptor[] values = result.getValues();
+        Assert.assertEquals(3, values.length);
+        Assert.assertTrue(values[0] instanceof SQLInteger);
+        Assert.assertEquals(42, values[0].getInt());
+        Assert.assertTrue(values[1] instanceof SQLChar);
+        Assert.assertEquals("x'y", values[1].getString());
+        Assert.assertTrue(values[2] instanceof SQLDecimal);
+        Assert.assertEquals("-3.5", values[2].getString());
+    }
+
+    @Test
+    public void inListsAndBetweenAreParameterized() throws Exception {
+        StatementParameterizer.Result result = StatementParameterizer.parameterize(
+                "SELECT a FROM t WHERE a IN (1, 2, 3) AND b NOT BETWEEN 1e3 AND 5000000000 ORDER BY a");
+        Assert.assertNotNull(result);
+        Assert.assertEquals("SELECT a FROM t WHERE a IN (?, ?, ?) AND b NOT BETWEEN ? AND ? ORDER BY a", result.getText());
+        DataValueDescriptor[] values = result.getValues();
+        Assert.assertEquals(5, values.length);
+        Assert.assertTrue(values[3] instanceof SQLDouble);
+        Assert.assertTrue(values[4] instanceof SQLLongint);
+        Assert.assertEquals(5000000000L, values[4].getLong());
+    }
+
+    @Test
+    public void commentsAndHintsAreKept() throws Exception {
+        StatementParameterizer.Result result = StatementParameterizer.parameterize(
+                "select * from t --splice-properties index=i1\n where /* a = 1 */ a = 1");
+        Assert.assertNotNull(result);
+        Assert.assertEquals("select * from t --splice-properties index=i1\n where /* a = 1 */ a = ?", result.getText());
+        Assert.assertEquals(1, result.getValues().length);
+    }
+
+    @Test
+    public void literalsInExpressionsAreKept() throws Exception {
+        Assert.assertNull(StatementParameterizer.parameterize("select * from t where a = 1 + b"));
+        Assert.assertNull(StatementParameterizer.parameterize("select case when a = 1 then 2 end from t"));
+        Assert.assertNull(StatementParameterizer.parameterize("select * from t where a = DATE '2016-01-01'"));
+        Assert.assertNull(StatementParameterizer.parameterize("select * from t where a = X'0A'"));
+        Assert.assertNull(StatementParameterizer.parameterize("select * from t where 1 = a"));
+        Assert.assertEquals("update t set a = 1, b = ?",
+                StatementParameterizer.parameterize("update t set a = 1, b = 2").getText());
+    }
+
+    @Test
+    public void onlyPlainStatementsAreParameterized() throws Exception {
+        Assert.assertNull(StatementParameterizer.parameterize("select * from t where a = ? and b = 1"));
+        Assert.assertNull(StatementParameterizer.parameterize("insert into t values (1)"));
+        Assert.assertNull(StatementParameterizer.parameterize("explain select * from t where a = 1"));
+        Assert.assertNull(StatementParameterizer.parameterize("select * from t where a = 'unterminated"));
+        Assert.assertNotNull(StatementParameterizer.parameterize("select * from t where a = '?'"));
+        Assert.assertNotNull(StatementParameterizer.parameterize("delete from t where a = 1"));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDescriptorGenerator;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.store.access.StoreCostController;
+import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the selectivity signatures of automatically parameterized statements.
+ */
+public class ParameterSelectivityTest {
+    private LanguageConnectionContext lcc;
+    private DataDictionary dd;
+    private TransactionController tc;
+    private StoreCostController storeCost;
+
+    @Before
+    public void setUp() throws Exception {
+        lcc = mock(LanguageConnectionContext.class);
+        dd = mock(DataDictionary.class);
+        tc = mock(TransactionController.class);
+        storeCost = mock(StoreCostController.class);
+        TableDescriptor td = mock(TableDescriptor.class);
+        UUID tableId = mock(UUID.class);
+        ConglomerateDescriptor cd = new DataDescriptorGenerator(dd).newConglomerateDescriptor(
+                1184L, "T", false, null, false, mock(UUID.class), tableId, null);
+        when(lcc.getDataDictionary()).thenReturn(dd);
+        when(lcc.getTransactionCompile()).thenReturn(tc);
+        when(dd.getConglomerateDescriptor(1184L)).thenReturn(cd);
+        when(dd.getTableDescriptor(tableId)).thenReturn(td);
+        when(tc.openStoreCost(td, cd)).thenReturn(storeCost);
+        when(storeCost.getSelectivity(eq(1), any(DataValueDescriptor.class), anyBoolean(),
+                any(DataValueDescriptor.class), anyBoolean())).thenReturn(0.0005d);
+    }
+
+    @Test
+    public void statisticsAreOpenedOncePerSignatureAndClosed() throws Exception {
+        ParameterSelectivity[] selectivities = {
+                new ParameterSelectivity(1184L, 1, RelationalOperator.EQUALS_RELOP),
+                null,
+                new ParameterSelectivity(1184L, 1, RelationalOperator.NOT_EQUALS_RELOP)
+        };
+        Object[] values = {new SQLInteger(1), new SQLInteger(2), new SQLInteger(3)};
+
+        Assert.assertEquals("0:-4;2:-1;", ParameterSelectivity.signature(lcc, selectivities, values));
+        verify(tc, times(1)).openStoreCost(any(TableDescriptor.class), any(ConglomerateDescriptor.class));
+        verify(storeCost, times(1)).close();
+    }
+
+    @Test
+    public void nullValuesAreLeftOutOfTheSignature() throws Exception {
+        ParameterSelectivity[] selectivities = {new ParameterSelectivity(1184L, 1, RelationalOperator.EQUALS_RELOP)};
+
+        Assert.assertEquals("", ParameterSelectivity.signature(lcc, selectivities, new Object[]{new SQLInteger()}));
+        verify(tc, never()).openStoreCost(any(TableDescriptor.class), any(ConglomerateDescriptor.class));
+    }
+
+    @Test
+    public void noSignatureOnceTheTableIsGone() throws Exception {
+        ParameterSelectivity[] selectivities = {
+                new ParameterSelectivity(1184L, 1, RelationalOperator.EQUALS_RELOP),
+                new ParameterSelectivity(1200L, 2, RelationalOperator.LESS_THAN_RELOP)
+        };
+        Object[] values = {new SQLInteger(1), new SQLInteger(2)};
+
+        Assert.assertNull(ParameterSelectivity.signature(lcc, selectivities, values));
+        verify(storeCost, times(1)).close();
+        verify(storeCost, never()).getSelectivity(eq(2), any(DataValueDescriptor.class), anyBoolean(),
+                any(DataValueDescriptor.class), anyBoolean());
+    }
+}
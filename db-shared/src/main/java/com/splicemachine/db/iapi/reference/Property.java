@@ -667,6 +667,14 @@ public interface Property {
 	String STATEMENT_CACHE_SIZE = "derby.language.statementCacheSize";
 	int STATEMENT_CACHE_SIZE_DEFAULT = 100;
 
+	/*
+		Rewrite the constants compared against columns in statements executed
+		through java.sql.Statement into parameters, so that statements which
+		only differ in those constants share one compiled plan.
+		By default, statements are cached by their exact text
+	 */
+	String LANG_AUTO_PARAMETERIZE = "derby.language.autoParameterize";
+
 	/**
 	 * Tells if the system stored procedures should be updated during database boot up.
 	 * Default is false.  System property.  Loaded once (static initializer).
@@ -1029,6 +1037,19 @@ public interface Property {
 	public final static String DRDA_PROP_MAXTHREADS = "derby.drda.maxThreads";
 	public final static String DRDA_PROP_TIMESLICE = "derby.drda.timeSlice";
 
+    /**
+     * db.drda.selectorThreads
+     *<BR>
+     * The number of threads which watch idle client connections with
+     * non-blocking I/O. When this is greater than 0, a connection only holds a
+     * connection thread while a request is being processed, so
+     * db.drda.maxThreads limits the number of requests being processed at once
+     * rather than the number of open connections. Not used with SSL.
+     *<BR>
+     * Default: 0 (each connection is read with blocking I/O)
+     */
+	public final static String DRDA_PROP_SELECTORTHREADS = "derby.drda.selectorThreads";
+
 
     /**
      * db.drda.sslMode
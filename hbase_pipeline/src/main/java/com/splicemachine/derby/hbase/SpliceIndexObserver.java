@@ -217,7 +217,9 @@ public class SpliceIndexObserver extends BaseRegionObserver {
             WriteContext context = ctxFactory.createPassThrough(null, txn, region, 1, null);
             context.sendUpstream(mutation);
             context.flush();
-            WriteResult mutationResult = context.close().get(mutation);
+            //only failed mutations have a result, so a missing one means the write succeeded
+            WriteResult mutationResult = context.currentResults().get(mutation);
+            context.close();
             if (mutationResult == null) {
                 return; //we didn't actually do anything, so no worries
             }
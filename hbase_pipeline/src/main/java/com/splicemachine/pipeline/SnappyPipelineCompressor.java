@@ -15,6 +15,7 @@
 
 package com.splicemachine.pipeline;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -96,8 +97,30 @@ public class SnappyPipelineCompressor implements PipelineCompressor{
         return baos.toByteArray();
     }
 
+    @Override
+    public byte[] compress(Object o,int headerSize) throws IOException{
+        byte[] d = compress(o);
+        byte[] result = new byte[headerSize+d.length];
+        System.arraycopy(d,0,result,headerSize,d.length);
+        return result;
+    }
+
     @Override
     public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
-        throw new UnsupportedOperationException("IMPLEMENT");
+        return decompress(bytes,0,bytes.length,clazz);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,int offset,int length,Class<T> clazz) throws IOException{
+        if(!supportsNative) return delegate.decompress(bytes,offset,length,clazz);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(2*length);
+        try(InputStream is = snappy.createInputStream(new ByteArrayInputStream(bytes,offset,length))){
+            byte[] buffer = new byte[4096];
+            int read;
+            while((read=is.read(buffer))>=0){
+                baos.write(buffer,0,read);
+            }
+        }
+        return delegate.decompress(baos.toByteArray(),clazz);
     }
 }
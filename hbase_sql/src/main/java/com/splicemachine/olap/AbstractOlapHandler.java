@@ -49,7 +49,11 @@ public abstract class AbstractOlapHandler extends SimpleChannelUpstreamHandler {
 
     /* ****************************************************************************************************************/
     /*Protected convenience methods*/
-    protected void writeResponse(MessageEvent e,final String requestId,OlapStatus status) throws IOException{
+    /**
+     * @return true if the response was a final one (the job is done, and has been cleared from the registry
+     * once the response is written).
+     */
+    protected boolean writeResponse(MessageEvent e,final String requestId,OlapStatus status) throws IOException{
         Channel c = e.getChannel();
         final boolean[] shouldRemove=new boolean[]{false};
         ChannelFuture futureResponse = c.write(OlapSerializationUtils.buildResponse(status,shouldRemove,jobRegistry.tickTime()));
@@ -68,6 +72,7 @@ public abstract class AbstractOlapHandler extends SimpleChannelUpstreamHandler {
                                        }
                                    }
         );
+        return shouldRemove[0];
     }
 
     protected boolean shouldDisconnect(Throwable t){
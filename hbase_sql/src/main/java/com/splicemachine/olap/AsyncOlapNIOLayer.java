@@ -42,6 +42,7 @@ import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -164,6 +165,11 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         private volatile long tickTimeNanos=TimeUnit.MILLISECONDS.toNanos(1000L);
         private ScheduledFuture<?> keepAlive;
         private final ByteString data;
+        /*
+         * The channel the job was submitted on, which is kept out of the pool while the server may still
+         * write the result on it. Whoever takes it from here owns it.
+         */
+        private final AtomicReference<Channel> submitChannel=new AtomicReference<>();
 
         OlapFuture(DistributedJob job) throws IOException {
             this.job=job;
@@ -243,26 +249,69 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             Future<Channel> channelFuture=channelPool.acquire();
             channelFuture.addListener(new CancelCommand(job.getUniqueName()));
             cancelled=true;
+            closeSubmitChannel();
             signal();
         }
 
         void fail(Throwable cause){
+            if(isDone()) return;
             if (LOG.isTraceEnabled())
                 LOG.trace("Failed job "+ job.getUniqueName() + " due to " + cause);
             this.cause=cause;
             this.failed=true;
-            this.keepAlive.cancel(false);
+            if(keepAlive!=null)
+                this.keepAlive.cancel(false);
+            closeSubmitChannel();
             this.executionList.execute();
         }
 
         void success(OlapResult result) {
+            if(isDone()) return;
             if (LOG.isTraceEnabled())
                 LOG.trace("Successful job "+ job.getUniqueName());
             this.finalResult = result;
-            this.keepAlive.cancel(false);
+            if(keepAlive!=null)
+                this.keepAlive.cancel(false);
+            closeSubmitChannel();
             this.executionList.execute();
         }
 
+        /**
+         * Keep the submission channel open to receive the result when the server pushes it.
+         *
+         * @return false if the job completed in the meantime, in which case the caller still owns the channel.
+         */
+        boolean holdSubmitChannel(Channel c){
+            submitChannel.set(c);
+            return !isDone() || !submitChannel.compareAndSet(c,null);
+        }
+
+        /**
+         * @return true if the server can still push the result on the held submission channel. The server forgets
+         * the job once it has written the result there, so the job being unknown doesn't mean it was aborted.
+         */
+        boolean awaitingPushedResult(){
+            Channel c=submitChannel.get();
+            return c!=null && c.isActive();
+        }
+
+        /**
+         * @return true if {@code c} is the held submission channel, which is now owned by the caller.
+         */
+        boolean takeSubmitChannel(Channel c){
+            return submitChannel.compareAndSet(c,null);
+        }
+
+        private void closeSubmitChannel(){
+            /*
+             * The job completed some other way (status check, cancellation, or failure), but the server may
+             * still write the result on the submission channel, so it can't go back to the pool.
+             */
+            Channel c=submitChannel.getAndSet(null);
+            if(c!=null)
+                c.close();
+        }
+
         void doSubmit() throws IOException{
             Future<Channel> channelFuture=channelPool.acquire();
             if (LOG.isTraceEnabled())
@@ -282,6 +331,8 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             }
 
             this.keepAlive = executorService.scheduleWithFixedDelay(this, tickTimeNanos, tickTimeNanos, TimeUnit.NANOSECONDS);
+            if(isDone()) //the result may have been pushed before the status checks were scheduled
+                this.keepAlive.cancel(false);
         }
 
         void signal(){
@@ -331,7 +382,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Submitted job " + olapFuture.job.getUniqueName());
             }
 
-            OlapMessage.Submit submit=OlapMessage.Submit.newBuilder().setCommandBytes(olapFuture.data).build();
+            OlapMessage.Submit submit=OlapMessage.Submit.newBuilder()
+                    .setCommandBytes(olapFuture.data)
+                    .setNotifyOnCompletion(true)
+                    .build();
             OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setExtension(OlapMessage.Submit.command,submit)
@@ -440,9 +494,17 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         protected void channelRead0(ChannelHandlerContext ctx,OlapMessage.Response olapResult) throws Exception{
             OlapResult or=parseFromResponse(olapResult);
             //TODO -sf- deal with a OlapServer failover here (i.e. a move to NOT_SUBMITTED from any other state
-            if(or instanceof SubmittedResult) {
+            if(future.isDone()){
+                //the result was already pushed on the submission channel, nothing left to do
+                if(LOG.isTraceEnabled())
+                    LOG.trace("Ignoring status response for completed job "+future.job.getUniqueName());
+            }else if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
                 future.lastStatus = System.currentTimeMillis();
+            } else if(future.submitted && or instanceof NotSubmittedResult && future.awaitingPushedResult()) {
+                // The result was pushed on the submission channel, but we haven't read it yet
+                if(LOG.isTraceEnabled())
+                    LOG.trace("Status not available for job "+future.job.getUniqueName()+", waiting for pushed result");
             } else if(future.submitted && !future.isDone() && or instanceof NotSubmittedResult) {
                 // The job is no longer submitted, assume aborted
                 long millisSinceLastStatus = System.currentTimeMillis() - future.lastStatus;
@@ -489,27 +551,53 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
                 future.submitted = true;
+                if(!future.holdSubmitChannel(ctx.channel())){
+                    //the job already completed, but the server may still write the result on this channel
+                    ctx.channel().close();
+                }
+                /*
+                 * Otherwise the server writes the result on this channel as soon as the job completes, so keep
+                 * it (and this handler) until then. Status checks continue as a heartbeat.
+                 */
+                return;
+            }else if(!releaseChannel(ctx)){
+                //the channel is being closed because the job already completed
+                return;
+            }else if(or.isSuccess()){
+                future.success(or);
             }else{
                 Throwable t=or.getThrowable();
-                LOG.error("Job wasn't submitted, result: " + or);
+                if(!future.submitted)
+                    LOG.error("Job wasn't submitted, result: " + or);
                 if(t!=null){
                     future.fail(t);
                 }else{
                     future.fail(new IOException("Job wasn't submitted, result: "+or));
                 }
             }
-            ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
-            Channel channel=ctx.channel();
-            channelPool.release(channel); //release the underlying channel back to the pool cause we're done
             future.signal();
         }
 
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx,Throwable cause) throws Exception{
-            future.fail(cause);
-            ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
-            channelPool.release(ctx.channel());
+            if(releaseChannel(ctx))
+                future.fail(cause);
             future.signal();
         }
+
+        /**
+         * Remove this handler and return the channel to the pool, unless the channel was held for the result
+         * and has already been taken by a completion from elsewhere.
+         *
+         * @return true if the channel was released
+         */
+        private boolean releaseChannel(ChannelHandlerContext ctx){
+            Channel channel=ctx.channel();
+            if(future.submitted && !future.takeSubmitChannel(channel))
+                return false;
+            ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
+            channelPool.release(channel); //release the underlying channel back to the pool cause we're done
+            return true;
+        }
     }
 }
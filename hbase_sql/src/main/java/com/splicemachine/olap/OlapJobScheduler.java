@@ -0,0 +1,338 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.olap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.apache.log4j.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits Olap jobs to a bounded number of worker threads.
+ *
+ * Jobs wait in named queues, each of which has a weight and may limit how many of its jobs run at once. When a
+ * worker is free, the job is taken from the eligible queue with the lowest virtual time, which advances by
+ * {@code 1/weight} for every job the queue starts. Busy queues therefore share the workers in proportion to
+ * their weights, and a queue which has been idle is brought forward to the current virtual time, so it gets no
+ * credit for the time it didn't use. Jobs which arrive when too many jobs are already waiting are rejected.
+ *
+ * @see com.splicemachine.access.configuration.SIConfigurations#OLAP_SERVER_QUEUES
+ */
+public class OlapJobScheduler{
+    private static final Logger LOG=Logger.getLogger(OlapJobScheduler.class);
+
+    public static final String DEFAULT_QUEUE="default";
+
+    private final ExecutorService workers;
+    private final Clock clock;
+    private final int maxRunningJobs;
+    private final int maxQueuedJobs;
+    private final Map<String,Queue> queues;
+    private final Queue defaultQueue;
+
+    /*guarded by this*/
+    private int runningJobs;
+    private int queuedJobs;
+    private double virtualTime;
+
+    OlapJobScheduler(ExecutorService workers,Clock clock,int maxRunningJobs,int maxQueuedJobs,String queueSpec){
+        this.workers=workers;
+        this.clock=clock;
+        this.maxRunningJobs=maxRunningJobs>0?maxRunningJobs:Integer.MAX_VALUE;
+        this.maxQueuedJobs=maxQueuedJobs;
+        this.queues=parseQueues(queueSpec);
+        Queue dq=queues.get(DEFAULT_QUEUE);
+        if(dq==null){
+            dq=new Queue(DEFAULT_QUEUE,1,this.maxRunningJobs);
+            queues.put(DEFAULT_QUEUE,dq);
+        }
+        this.defaultQueue=dq;
+    }
+
+    static OlapJobScheduler create(SConfiguration config,Clock clock){
+        ThreadFactory tf=new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olap-worker-%d").build();
+        OlapJobScheduler scheduler=new OlapJobScheduler(Executors.newCachedThreadPool(tf),clock,
+                config.getOlapServerThreads(),config.getOlapServerMaxQueuedJobs(),config.getOlapServerQueues());
+        try{
+            scheduler.registerJMX(ManagementFactory.getPlatformMBeanServer());
+        }catch(Exception e){
+            LOG.warn("Unable to register Olap queues with JMX. Service will function but metrics will not be available.",e);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Choose the queue a job should be scheduled from.
+     *
+     * @param queueSpec the configured queues
+     * @param candidates the queue names to try, in order of preference. {@code null} entries are skipped
+     * @return the first candidate which is a configured queue, or {@code null} if there is none
+     */
+    public static String selectQueue(String queueSpec,String... candidates){
+        if(queueSpec==null || queueSpec.trim().isEmpty()) return null;
+        for(String candidate:candidates){
+            if(candidate==null) continue;
+            for(String entry:queueSpec.split(",")){
+                int colon=entry.indexOf(':');
+                String name=(colon<0?entry:entry.substring(0,colon)).trim();
+                if(name.equals(candidate))
+                    return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queue a job to run once a worker is available for it.
+     *
+     * @param queueName the queue to schedule the job from; unknown (or {@code null}) queues map to the default queue
+     * @param status the status of the job, which must already be marked as submitted
+     * @param job the job to run
+     * @return false if the job was rejected because too many jobs are already waiting
+     */
+    public synchronized boolean submit(String queueName,OlapJobStatus status,Callable<Void> job){
+        Queue queue=queueName==null?null:queues.get(queueName);
+        if(queue==null)
+            queue=defaultQueue;
+        boolean canStart=runningJobs<maxRunningJobs && queue.running<queue.maxRunningJobs && queue.pending.isEmpty();
+        if(queuedJobs>=maxQueuedJobs && !canStart){
+            queue.rejected++;
+            return false;
+        }
+        if(queue.pending.isEmpty() && queue.running==0)
+            queue.virtualTime=Math.max(queue.virtualTime,virtualTime);
+        queue.pending.add(new Job(queue,status,job,clock.nanoTime()));
+        queue.submitted++;
+        queuedJobs++;
+        dispatch();
+        return true;
+    }
+
+    OlapQueueStatistics getQueue(String queueName){
+        return queues.get(queueName);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void registerJMX(MBeanServer mbs) throws Exception{
+        for(Queue queue:queues.values()){
+            ObjectName name=new ObjectName("com.splicemachine.olap:type=OlapQueueStatistics,name="+ObjectName.quote(queue.name));
+            mbs.registerMBean(queue,name);
+        }
+    }
+
+    private void dispatch(){
+        assert Thread.holdsLock(this);
+        while(runningJobs<maxRunningJobs){
+            Queue next=null;
+            for(Queue queue:queues.values()){
+                if(queue.pending.isEmpty() || queue.running>=queue.maxRunningJobs) continue;
+                if(next==null || queue.virtualTime<next.virtualTime)
+                    next=queue;
+            }
+            if(next==null) return;
+
+            Job job=next.pending.poll();
+            queuedJobs--;
+            OlapStatus.State state=job.status.currentState();
+            if(state==OlapStatus.State.CANCELED || state==OlapStatus.State.FAILED){
+                //the client has gone away while the job was waiting, so don't bother running it
+                continue;
+            }
+            long queueTime=clock.nanoTime()-job.queuedAt;
+            next.totalQueueTime+=queueTime;
+            next.maxQueueTime=Math.max(next.maxQueueTime,queueTime);
+            next.started++;
+            next.running++;
+            runningJobs++;
+            virtualTime=next.virtualTime;
+            next.virtualTime+=1d/next.weight;
+            try{
+                workers.execute(job);
+            }catch(RejectedExecutionException ree){
+                //we are shutting down
+                LOG.warn("Unable to run job, the Olap server is shutting down",ree);
+                next.running--;
+                runningJobs--;
+                return;
+            }
+        }
+    }
+
+    private synchronized void finished(Queue queue,long runTime){
+        queue.running--;
+        queue.completed++;
+        queue.totalRunTime+=runTime;
+        runningJobs--;
+        dispatch();
+    }
+
+    private Map<String,Queue> parseQueues(String queueSpec){
+        Map<String,Queue> queues=new LinkedHashMap<>();
+        if(queueSpec==null) return queues;
+        for(String entry:queueSpec.split(",")){
+            entry=entry.trim();
+            if(entry.isEmpty()) continue;
+            String[] parts=entry.split(":");
+            try{
+                if(parts.length<2 || parts.length>3 || parts[0].trim().isEmpty())
+                    throw new NumberFormatException();
+                int weight=Integer.parseInt(parts[1].trim());
+                int maxRunning=parts.length==3?Integer.parseInt(parts[2].trim()):maxRunningJobs;
+                if(weight<=0 || maxRunning<=0)
+                    throw new NumberFormatException();
+                String name=parts[0].trim();
+                queues.put(name,new Queue(name,weight,maxRunning));
+            }catch(NumberFormatException nfe){
+                LOG.warn("Ignoring invalid Olap queue definition \""+entry+"\", expected name:weight[:maxConcurrentJobs]");
+            }
+        }
+        return queues;
+    }
+
+    private class Job implements Runnable{
+        private final Queue queue;
+        private final OlapJobStatus status;
+        private final Callable<Void> callable;
+        private final long queuedAt;
+
+        Job(Queue queue,OlapJobStatus status,Callable<Void> callable,long queuedAt){
+            this.queue=queue;
+            this.status=status;
+            this.callable=callable;
+            this.queuedAt=queuedAt;
+        }
+
+        @Override
+        public void run(){
+            long start=clock.nanoTime();
+            try{
+                callable.call();
+            }catch(Throwable t){
+                LOG.error("Uncaught exception",t);
+                if(status.isRunning()){
+                    status.markCompleted(new FailedOlapResult(t));
+                }
+            }finally{
+                finished(queue,clock.nanoTime()-start);
+            }
+        }
+    }
+
+    private class Queue implements OlapQueueStatistics{
+        private final String name;
+        private final int weight;
+        private final int maxRunningJobs;
+        private final ArrayDeque<Job> pending=new ArrayDeque<>();
+
+        /*guarded by the scheduler*/
+        private double virtualTime;
+        private int running;
+        private long submitted;
+        private long rejected;
+        private long started;
+        private long completed;
+        private long totalQueueTime;
+        private long maxQueueTime;
+        private long totalRunTime;
+
+        Queue(String name,int weight,int maxRunningJobs){
+            this.name=name;
+            this.weight=weight;
+            this.maxRunningJobs=maxRunningJobs;
+        }
+
+        @Override public int getWeight(){ return weight; }
+
+        @Override public int getMaxRunningJobs(){ return maxRunningJobs; }
+
+        @Override
+        public int getQueuedJobs(){
+            synchronized(OlapJobScheduler.this){
+                return pending.size();
+            }
+        }
+
+        @Override
+        public int getRunningJobs(){
+            synchronized(OlapJobScheduler.this){
+                return running;
+            }
+        }
+
+        @Override
+        public long getTotalSubmittedJobs(){
+            synchronized(OlapJobScheduler.this){
+                return submitted;
+            }
+        }
+
+        @Override
+        public long getTotalRejectedJobs(){
+            synchronized(OlapJobScheduler.this){
+                return rejected;
+            }
+        }
+
+        @Override
+        public long getTotalCompletedJobs(){
+            synchronized(OlapJobScheduler.this){
+                return completed;
+            }
+        }
+
+        @Override
+        public double getAverageQueueTimeMs(){
+            synchronized(OlapJobScheduler.this){
+                return started==0?0d:toMillis(totalQueueTime)/started;
+            }
+        }
+
+        @Override
+        public long getMaxQueueTimeMs(){
+            synchronized(OlapJobScheduler.this){
+                return TimeUnit.NANOSECONDS.toMillis(maxQueueTime);
+            }
+        }
+
+        @Override
+        public double getAverageRunTimeMs(){
+            synchronized(OlapJobScheduler.this){
+                return completed==0?0d:toMillis(totalRunTime)/completed;
+            }
+        }
+
+        private double toMillis(long nanos){
+            return nanos/1000000d;
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
 import org.apache.log4j.Logger;
 import scala.concurrent.duration.FiniteDuration;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -39,6 +41,9 @@ public class OlapJobStatus implements OlapStatus{
 
     private volatile AtomicReference<OlapStatus.State> currentState = new AtomicReference<>(State.NOT_SUBMITTED);
     private volatile OlapResult results;
+    /* run once the job has been marked completed; guarded by itself */
+    private final List<Runnable> completionListeners = new ArrayList<>();
+    private boolean completionNotified = false;
 
     public OlapJobStatus(long tickTime,int numTicks){
         //TODO -sf- remove the constants
@@ -122,6 +127,24 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.COMPLETE);
         }while(shouldContinue);
         results = result;
+        notifyCompletion();
+    }
+
+    /**
+     * Register a listener to run (on the thread which completes the job) once the job has been marked
+     * completed. If the job is already complete, the listener is run immediately.
+     *
+     * Listeners are not run when the job is cancelled or fails because its client timed out, since nobody
+     * is waiting for the result in those cases.
+     */
+    public void addCompletionListener(Runnable listener){
+        synchronized(completionListeners){
+            if(!completionNotified){
+                completionListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
     }
 
     public boolean markRunning(){
@@ -161,6 +184,22 @@ public class OlapJobStatus implements OlapStatus{
     /*private helper methods*/
     /* ****************************************************************************************************************/
 
+    private void notifyCompletion(){
+        List<Runnable> listeners;
+        synchronized(completionListeners){
+            completionNotified = true;
+            listeners = new ArrayList<>(completionListeners);
+            completionListeners.clear();
+        }
+        for(Runnable listener:listeners){
+            try{
+                listener.run();
+            }catch(Exception e){
+                LOG.warn("Unexpected error notifying job completion",e);
+            }
+        }
+    }
+
     private State checkFailed(){
         /*
          * Checks whether the current state is failed or not. Used by internal compaction checking to determine
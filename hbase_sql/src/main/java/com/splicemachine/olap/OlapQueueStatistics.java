@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.olap;
+
+import javax.management.MXBean;
+
+/**
+ * Exposes the state of a single Olap server queue via JMX.
+ */
+@MXBean
+public interface OlapQueueStatistics{
+
+    /**
+     * @return the share of the Olap server this queue receives relative to the other busy queues
+     */
+    int getWeight();
+
+    /**
+     * @return the maximum number of jobs from this queue which may run at the same time
+     */
+    int getMaxRunningJobs();
+
+    /**
+     * @return the number of jobs waiting in this queue
+     */
+    int getQueuedJobs();
+
+    /**
+     * @return the number of jobs from this queue which are running
+     */
+    int getRunningJobs();
+
+    /**
+     * @return the number of jobs admitted to this queue since the server started
+     */
+    long getTotalSubmittedJobs();
+
+    /**
+     * @return the number of jobs rejected because the Olap server had too many waiting jobs
+     */
+    long getTotalRejectedJobs();
+
+    /**
+     * @return the number of jobs from this queue which have finished running
+     */
+    long getTotalCompletedJobs();
+
+    /**
+     * @return the average time (in milliseconds) jobs waited in this queue before running
+     */
+    double getAverageQueueTimeMs();
+
+    /**
+     * @return the longest time (in milliseconds) a job waited in this queue before running
+     */
+    long getMaxQueueTimeMs();
+
+    /**
+     * @return the average time (in milliseconds) jobs from this queue took to run
+     */
+    double getAverageRunTimeMs();
+}
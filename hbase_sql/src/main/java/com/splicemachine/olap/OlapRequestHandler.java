@@ -15,7 +15,6 @@
 
 package com.splicemachine.olap;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.olap.OlapMessage;
 import com.splicemachine.concurrent.Clock;
@@ -24,10 +23,9 @@ import org.apache.log4j.Logger;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.MessageEvent;
 
+import java.io.IOException;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Scott Fines
@@ -36,7 +34,7 @@ import java.util.concurrent.ThreadFactory;
 class OlapRequestHandler extends AbstractOlapHandler{
     private static final Logger LOG =Logger.getLogger(OlapRequestHandler.class);
 
-    private final ExecutorService executionPool;
+    private final OlapJobScheduler scheduler;
     private final Clock clock;
     private final long clientCheckTimeMs;
 
@@ -45,7 +43,7 @@ class OlapRequestHandler extends AbstractOlapHandler{
                        Clock clock,
                        long clientCheckTimeMs){
         super(jobRegistry);
-        this.executionPool=configureThreadPool(config);
+        this.scheduler=OlapJobScheduler.create(config,clock);
         this.clock=clock;
         this.clientCheckTimeMs=clientCheckTimeMs;
     }
@@ -94,23 +92,27 @@ class OlapRequestHandler extends AbstractOlapHandler{
         }
         final Callable<Void> job=jr.toCallable(jobStatus,clock,clientCheckTimeMs);
 
-        executionPool.submit(new Callable<Void>() {
-            @Override
-            public Void call() throws Exception {
-                try {
-                    return job.call();
-                } catch (Throwable t) {
-                    LOG.error("Uncaught exception", t);
-                    if (jobStatus.isRunning()) {
-                        jobStatus.markCompleted(new FailedOlapResult(t));
-                    }
-                }
-                return null;
-            }
-        });
-        if(LOG.isTraceEnabled())
-            LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted");
-        writeResponse(e,jr.getUniqueName(),jobStatus);
+        if(scheduler.submit(jr.getQueue(),jobStatus,job)){
+            if(LOG.isTraceEnabled())
+                LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted");
+        }else{
+            /*
+             * Too many jobs are already waiting, so fail this one straight away rather than letting the
+             * client wait behind them indefinitely.
+             */
+            LOG.warn("Rejecting job "+jobRequest.getUniqueName()+", too many Olap jobs are waiting to run");
+            jobStatus.markCompleted(new FailedOlapResult(
+                    new RejectedExecutionException("The Olap server is overloaded, too many jobs are waiting to run")));
+        }
+        boolean done=writeResponse(e,jr.getUniqueName(),jobStatus);
+        if(!done && extension.getNotifyOnCompletion()){
+            /*
+             * The client is waiting on this channel for the result, so write it as soon as the job
+             * completes. The listener is only registered after the submission response has been written,
+             * so the result can't overtake it.
+             */
+            jobStatus.addCompletionListener(new CompletionNotifier(e,jr.getUniqueName(),jobStatus));
+        }
     }
 
 
@@ -118,10 +120,31 @@ class OlapRequestHandler extends AbstractOlapHandler{
     /* ****************************************************************************************************************/
     /*private helper methods*/
 
+    private class CompletionNotifier implements Runnable{
+        private final MessageEvent event;
+        private final String requestId;
+        private final OlapJobStatus jobStatus;
+
+        CompletionNotifier(MessageEvent event,String requestId,OlapJobStatus jobStatus){
+            this.event=event;
+            this.requestId=requestId;
+            this.jobStatus=jobStatus;
+        }
 
-    private ExecutorService configureThreadPool(SConfiguration config){
-        //TODO -sf- bound this by the number of possible Spark tasks which can run in YARN
-        ThreadFactory tf =new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olap-worker-%d").build();
-        return Executors.newCachedThreadPool(tf);
+        @Override
+        public void run(){
+            if(!event.getChannel().isConnected()){
+                if(LOG.isTraceEnabled())
+                    LOG.trace("Client for job "+requestId+" has disconnected, not notifying completion");
+                return;
+            }
+            try{
+                writeResponse(event,requestId,jobStatus);
+            }catch(IOException ioe){
+                //the client will still see the result on its next status check
+                LOG.warn("Unable to notify completion of job "+requestId,ioe);
+            }
+        }
     }
+
 }
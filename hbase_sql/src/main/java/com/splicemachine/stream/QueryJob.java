@@ -79,6 +79,11 @@ public class QueryJob implements Callable<Void>{
             dsp.setJobGroup(jobName, sql);
             dsp.clearBroadcastedOperation();
             dataset = root.getDataSet(dsp);
+            if (queryRequest.queue != null) {
+                // run in the Spark fair scheduler pool named after the Olap queue the query was scheduled from,
+                // rather than the generic pool chosen by the operations
+                dsp.setSchedulerPool(queryRequest.queue);
+            }
             context = dsp.createOperationContext(root);
             SparkDataSet<LocatedRow> sparkDataSet = (SparkDataSet<LocatedRow>) dataset;
             String clientHost = queryRequest.host;
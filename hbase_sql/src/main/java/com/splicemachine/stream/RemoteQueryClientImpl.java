@@ -20,11 +20,13 @@ import com.splicemachine.EngineDriver;
 import com.splicemachine.access.HConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 import com.splicemachine.derby.impl.sql.execute.operations.*;
 import com.splicemachine.derby.stream.ActivationHolder;
 import com.splicemachine.derby.stream.iapi.RemoteQueryClient;
+import com.splicemachine.olap.OlapJobScheduler;
 import com.splicemachine.pipeline.Exceptions;
 import io.netty.channel.ChannelHandler;
 import org.apache.log4j.Logger;
@@ -74,7 +76,10 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
             updateLimitOffset();
             int streamingBatches = HConfiguration.getConfiguration().getSparkResultStreamingBatches();
             int streamingBatchSize = HConfiguration.getConfiguration().getSparkResultStreamingBatchSize();
-            streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize);
+            // The statement's results can be returned as soon as any partition produces them if it has no ORDER BY.
+            // Subqueries (Any/Once) might depend on the ordering of their source, so they are always ordered
+            boolean ordered = offset > 0 || !(root instanceof ScrollInsensitiveOperation) || activation.isResultOrdered();
+            streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize, ordered);
             StreamListenerServer server = getServer();
             server.register(streamListener);
             HostAndPort hostAndPort = server.getHostAndPort();
@@ -84,9 +89,12 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
 
             String sql = activation.getPreparedStatement().getSource();
             sql = sql == null ? root.toString() : sql;
-            String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
+            LanguageConnectionContext lcc = activation.getLanguageConnectionContext();
+            String userId = lcc.getCurrentUserId(activation);
+            String queue = OlapJobScheduler.selectQueue(HConfiguration.getConfiguration().getOlapServerQueues(),
+                    lcc.getCurrentRoleId(activation), userId);
 
-            RemoteQueryJob jobRequest = new RemoteQueryJob(ah, root.getResultSetNumber(), uuid, host, port, userId, sql,
+            RemoteQueryJob jobRequest = new RemoteQueryJob(ah, root.getResultSetNumber(), uuid, host, port, userId, queue, sql,
                     streamingBatches, streamingBatchSize);
             olapFuture = EngineDriver.driver().getOlapClient().submit(jobRequest);
             olapFuture.addListener(new Runnable() {
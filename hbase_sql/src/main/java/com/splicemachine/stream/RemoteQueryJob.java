@@ -34,13 +34,14 @@ public class RemoteQueryJob extends DistributedJob {
     String host;
     int port;
     String userId;
+    String queue;
     String sql;
     int streamingBatches;
     int streamingBatchSize;
 
 
     public RemoteQueryJob(ActivationHolder ah, int rootResultSetNumber, UUID uuid, String host, int port,
-                          String userId, String sql,
+                          String userId, String queue, String sql,
                           int streamingBatches, int streamingBatchSize) {
         this.ah = ah;
         this.rootResultSetNumber = rootResultSetNumber;
@@ -48,6 +49,7 @@ public class RemoteQueryJob extends DistributedJob {
         this.host = host;
         this.port = port;
         this.userId = userId;
+        this.queue = queue;
         this.sql = sql;
         this.streamingBatches = streamingBatches;
         this.streamingBatchSize = streamingBatchSize;
@@ -58,6 +60,11 @@ public class RemoteQueryJob extends DistributedJob {
         return new QueryJob(this, jobStatus);
     }
 
+    @Override
+    public String getQueue() {
+        return queue;
+    }
+
     @Override
     public String getName() {
         return "query-"+uuid;
@@ -25,14 +25,21 @@ import org.apache.log4j.Logger;
 
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 
 /**
  * This class handles connections from Spark tasks streaming data to the query client. One connection is created from
  * each task, it handles failures and recovery in case the task is retried.
  *
+ * By default partitions are consumed in order, so the results keep the ordering of the RDD. When the query doesn't
+ * need ordered results, the listener can be created unordered: rows are then returned from whichever partition has
+ * them available, so a slow partition doesn't hold back the others. Memory is bounded by the same permit negotiation
+ * with each {@link ResultStreamer} in both modes.
+ *
  * Created by dgomezferro on 5/20/16.
  */
 @ChannelHandler.Sharable
@@ -44,6 +51,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private final int queueSize;
     private final int batchSize;
     private final UUID uuid;
+    private final boolean ordered;
     private long limit;
     private long offset;
 
@@ -60,6 +68,12 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private volatile boolean canBlock = true;
     private volatile boolean stopped = false;
 
+    // Unordered mode: partitions with pending messages, one entry per message received
+    private final BlockingQueue<PartitionState> ready = new LinkedBlockingQueue<>();
+    // Unordered mode: wakes up the iterator when the stream is stopped or failed
+    private final PartitionState control = new PartitionState(-1, 0);
+    private int finishedPartitions;
+
     StreamListener() {
         this(-1, 0);
     }
@@ -69,23 +83,37 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     }
 
     public StreamListener(long limit, long offset, int batches, int batchSize) {
+        this(limit, offset, batches, batchSize, true);
+    }
+
+    /**
+     * @param ordered whether results have to be returned in partition order. An unordered listener can't skip an
+     *                offset, since it doesn't know which rows come first.
+     */
+    public StreamListener(long limit, long offset, int batches, int batchSize, boolean ordered) {
+        assert ordered || offset <= 0 : "Unordered streams don't support an offset";
         this.offset = offset;
         this.limit = limit;
         this.batchSize = batchSize;
         this.queueSize = batches*batchSize;
-        // start with this to force a channel advancement
-        PartitionState first = new PartitionState(0, 0);
-        first.messages.add(SENTINEL);
-        first.initialized = true;
-        this.partitionStateMap.put(-1, first);
+        this.ordered = ordered;
+        if (ordered) {
+            // start with this to force a channel advancement
+            PartitionState first = new PartitionState(0, 0);
+            first.messages.add(SENTINEL);
+            first.initialized = true;
+            this.partitionStateMap.put(-1, first);
+        }
         this.uuid = UUID.randomUUID();
     }
 
     public Iterator<T> getIterator() {
-        // Initialize first partition
-        PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize));
-        if (failure != null) {
-            ps.messages.add(FAILURE);
+        if (ordered) {
+            // Initialize first partition
+            PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize));
+            if (failure != null) {
+                ps.messages.add(FAILURE);
+            }
         }
         // This will block until some data is available
         advance();
@@ -112,6 +140,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         if (msg instanceof StreamProtocol.RequestClose) {
             // We can't block here, we negotiate throughput with the server to guarantee it
             state.messages.add(SENTINEL);
+            signal(state);
             // Let server know it can close the connection
             ctx.writeAndFlush(new StreamProtocol.ConfirmClose());
             ctx.close().sync();
@@ -122,6 +151,16 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             // Data or StreamProtocol.Skipped
             // We can't block here, we negotiate throughput with the server to guarantee it
             state.messages.add(msg);
+            signal(state);
+        }
+    }
+
+    /**
+     * In unordered mode, let the iterator know there's a new message on this partition's queue
+     */
+    private void signal(PartitionState state) {
+        if (!ordered) {
+            ready.add(state);
         }
     }
 
@@ -147,6 +186,10 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     }
 
     private void advance() {
+        if (!ordered) {
+            advanceUnordered();
+            return;
+        }
         T next = null;
         try {
             while (next == null) {
@@ -242,6 +285,120 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
     }
 
+    /**
+     * Unordered version of advance(), it takes the next message from any partition that has one available.
+     *
+     * Since the client offset is always 0 here, each partition keeps its own offset, which is only used to skip rows
+     * we already returned when a task is retried.
+     */
+    private void advanceUnordered() {
+        T next = null;
+        try {
+            while (next == null) {
+                if (stopped) {
+                    currentResult = null;
+                    return;
+                }
+                PartitionState state = canBlock ? ready.take() : ready.remove();
+                if (state == control) {
+                    if (failure != null) {
+                        // The olap job failed, return
+                        currentResult = null;
+                        return;
+                    }
+                    continue;
+                }
+                if (partitionStateMap.get(state.partition) != state) {
+                    // Either a finished partition, or a retried task whose RETRY message we haven't seen yet
+                    continue;
+                }
+                Object msg = state.messages.poll();
+                if (msg == null) {
+                    // Messages were discarded by a retry
+                    continue;
+                }
+                if (!state.initialized && limit > 0) {
+                    if (LOG.isTraceEnabled())
+                        LOG.trace("Sending skip " + limit + " to partition " + state.partition);
+                    // No partition has to send more than what's left of the limit
+                    state.channel.writeAndFlush(new StreamProtocol.Skip(limit, 0));
+                }
+                state.initialized = true;
+                if (msg == RETRY) {
+                    // There was a retried task, skip all records already read from the previous run
+                    PartitionState nextState = state.next;
+                    long currentRead = state.readTotal;
+                    long serverLimit = limit > 0 ? limit + currentRead : -1;
+                    nextState.channel.writeAndFlush(new StreamProtocol.Skip(serverLimit, currentRead));
+                    nextState.initialized = true;
+                    nextState.offset = currentRead;
+                    state.messages.clear();
+
+                    partitionStateMap.put(state.partition, nextState);
+                    // Messages the new task sent before now were ignored above, queue them again
+                    for (int i = nextState.messages.size(); i > 0; i--) {
+                        ready.add(nextState);
+                    }
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("Retried task, currentRead " + currentRead + " serverLimit " + serverLimit +
+                                " state " + state);
+                    }
+                } else if (msg == FAILURE) {
+                    // The olap job failed, return
+                    currentResult = null;
+                    return;
+                } else if (msg == SENTINEL) {
+                    partitionStateMap.remove(state.partition);
+                    if (state.channel != null)
+                        partitionMap.remove(state.channel);
+
+                    finishedPartitions++;
+                    if (finishedPartitions >= numPartitions) {
+                        // finished
+                        if (LOG.isTraceEnabled())
+                            LOG.trace("End of stream");
+                        currentResult = null;
+                        close();
+                        return;
+                    }
+                } else {
+                    if (msg instanceof StreamProtocol.Skipped) {
+                        StreamProtocol.Skipped skipped = (StreamProtocol.Skipped) msg;
+                        state.offset -= skipped.skipped;
+                        state.readTotal += skipped.skipped;
+                    } else if (state.offset > 0) {
+                        // Already returned before the task was retried
+                        state.offset--;
+                        state.consumed++;
+                        state.readTotal++;
+                    } else {
+                        // We are returning a message
+                        next = (T) msg;
+                        state.consumed++;
+                        state.readTotal++;
+                        // Check the limit
+                        if (limit > 0) {
+                            limit--;
+                            if (limit == 0) {
+                                stopAllStreams();
+                            }
+                        }
+                    }
+
+                    if (state.consumed > batchSize) {
+                        if (LOG.isTraceEnabled())
+                            LOG.trace("Writing CONT");
+                        state.channel.writeAndFlush(new StreamProtocol.Continue());
+                        state.consumed -= batchSize;
+                    }
+                }
+            }
+            currentResult = next;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void clearCurrentQueue() {
         PartitionState ps = partitionStateMap.remove(currentQueue);
         if (ps != null && ps.channel != null)
@@ -267,11 +424,16 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         for (Channel channel : partitionMap.keySet()) {
             channel.writeAndFlush(new StreamProtocol.RequestClose());
         }
-        // create fake queue with finish message so the next call to next() returns null
-        currentQueue = (int) numPartitions + 1;
-        PartitionState ps = new PartitionState(currentQueue, 0);
-        ps.messages.add(SENTINEL);
-        partitionStateMap.putIfAbsent(currentQueue, ps);
+        if (ordered) {
+            // create fake queue with finish message so the next call to next() returns null
+            currentQueue = (int) numPartitions + 1;
+            PartitionState ps = new PartitionState(currentQueue, 0);
+            ps.messages.add(SENTINEL);
+            partitionStateMap.putIfAbsent(currentQueue, ps);
+        } else {
+            // wake up the iterator, it'll see the stopped flag
+            ready.add(control);
+        }
         close();
     }
 
@@ -293,6 +455,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
 
         if (failure != null) {
             ps.messages.add(FAILURE);
+            signal(ps);
         }
         Channel previousChannel = ps.channel;
         if (previousChannel != null) {
@@ -304,6 +467,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             partitionMap.remove(ps.channel); // don't accept more messages from this channel
             // this is a new connection from a retried task
             ps.messages.add(RETRY);
+            signal(ps);
         } else {
             partitionMap.put(channel, ps);
             ps.channel = channel;
@@ -379,6 +543,9 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                 state.messages.add(FAILURE);
             }
         }
+        if (!ordered) {
+            ready.add(control);
+        }
     }
 }
 
@@ -388,6 +555,7 @@ class PartitionState {
     ArrayBlockingQueue<Object> messages;
     long consumed;
     long readTotal;
+    long offset; // only used by unordered listeners, records to ignore after a task was retried
     boolean initialized;
     volatile PartitionState next = null; // used when a task is retried after a failure
 
@@ -403,6 +571,7 @@ class PartitionState {
                 ", channel=" + channel +
                 ", messages=" + messages.size() +
                 ", consumed=" + consumed +
+                ", offset=" + offset +
                 ", initialized=" + initialized +
                 ", next=" + next +
                 '}';
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.SpliceSpark;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.function.RowComparator;
+import com.splicemachine.derby.stream.function.TopNFlatMapFunction;
+import org.apache.spark.Dependency;
+import org.apache.spark.ShuffleDependency;
+import org.apache.spark.rdd.RDD;
+import org.junit.Assert;
+import org.junit.Test;
+import scala.collection.JavaConversions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the partial top-N of an ORDER BY ... FETCH FIRST runs on Spark once per source partition, and
+ * that only its results are shuffled into the final partition.
+ */
+public class SparkTopNTest{
+    private static final int PARTITIONS=4;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void partialTopNRunsPerPartition() throws Exception{
+        List<Integer> values=new ArrayList<>();
+        Random random=new Random(0L);
+        for(int i=0;i<1000;i++){
+            values.add(random.nextInt(10000));
+        }
+        TopNFlatMapFunction topN=new TopNFlatMapFunction(null,new int[]{0},new RowComparator(new boolean[]{false}),10);
+        SparkDataSet<LocatedRow> source=new SparkDataSet<>(SpliceSpark.getContext().parallelize(rows(values),PARTITIONS));
+
+        SparkDataSet<LocatedRow> firstRows=(SparkDataSet<LocatedRow>)topN.firstRows(source);
+
+        Assert.assertEquals(1,firstRows.rdd.getNumPartitions());
+        RDD<?> shuffled=shuffledParent(firstRows.rdd.rdd());
+        Assert.assertNotNull("The partial top-N is not separated from the final one by a shuffle",shuffled);
+        Assert.assertEquals("The partial top-N does not run per source partition",PARTITIONS,shuffled.getNumPartitions());
+
+        List<Integer> expected=new ArrayList<>(values);
+        Collections.sort(expected);
+        List<Integer> keys=new ArrayList<>();
+        for(LocatedRow row : firstRows.rdd.collect()){
+            keys.add(row.getRow().getColumn(1).getInt());
+        }
+        Assert.assertEquals(expected.subList(0,10),keys);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * The RDD on the map side of the first shuffle in the lineage of rdd, or null if there is none
+     */
+    private static RDD<?> shuffledParent(RDD<?> rdd){
+        for(Dependency<?> dependency : JavaConversions.seqAsJavaList(rdd.dependencies())){
+            if(dependency instanceof ShuffleDependency)
+                return dependency.rdd();
+            RDD<?> parent=shuffledParent(dependency.rdd());
+            if(parent!=null)
+                return parent;
+        }
+        return null;
+    }
+
+    private static List<LocatedRow> rows(List<Integer> values){
+        List<LocatedRow> rows=new ArrayList<>(values.size());
+        for(Integer value : values){
+            ExecRow row=new ValueRow(1);
+            row.setColumn(1,new SQLInteger(value));
+            rows.add(new LocatedRow(row));
+        }
+        return rows;
+    }
+}
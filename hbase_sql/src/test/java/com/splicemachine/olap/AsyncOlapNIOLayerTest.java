@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import com.google.protobuf.ExtensionRegistry;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.derby.iapi.sql.olap.AbstractOlapResult;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import com.splicemachine.derby.iapi.sql.olap.OlapResult;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
+import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
+import org.jboss.netty.handler.codec.protobuf.ProtobufDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufEncoder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests how the client handles the interleaving of status checks and results pushed on the submission channel,
+ * against a scripted server.
+ */
+public class AsyncOlapNIOLayerTest{
+    private static final long TICK_TIME_MILLIS=100l;
+
+    private final ScheduledExecutorService pushExecutor=Executors.newSingleThreadScheduledExecutor();
+    private NioServerSocketChannelFactory channelFactory;
+    private Channel serverChannel;
+    private ScriptedHandler handler;
+    private AsyncOlapNIOLayer client;
+
+    @Before
+    public void setUp() throws Exception{
+        handler=new ScriptedHandler();
+        channelFactory=new NioServerSocketChannelFactory(Executors.newCachedThreadPool(),Executors.newCachedThreadPool());
+        ServerBootstrap bootstrap=new ServerBootstrap(channelFactory);
+        bootstrap.setPipelineFactory(new ChannelPipelineFactory(){
+            @Override
+            public ChannelPipeline getPipeline() throws Exception{
+                ExtensionRegistry er=ExtensionRegistry.newInstance();
+                er.add(OlapMessage.Submit.command);
+                er.add(OlapMessage.Status.command);
+                er.add(OlapMessage.Cancel.command);
+                ChannelPipeline pipeline=Channels.pipeline();
+                pipeline.addLast("frameDecoder",new LengthFieldBasedFrameDecoder(1<<30,0,4,0,4));
+                pipeline.addLast("protobufDecoder",new ProtobufDecoder(OlapMessage.Command.getDefaultInstance(),er));
+                pipeline.addLast("frameEncoder",new LengthFieldPrepender(4));
+                pipeline.addLast("protobufEncoder",new ProtobufEncoder());
+                pipeline.addLast("handler",handler);
+                return pipeline;
+            }
+        });
+        serverChannel=bootstrap.bind(new InetSocketAddress("localhost",0));
+        InetSocketAddress address=(InetSocketAddress)serverChannel.getLocalAddress();
+        client=new AsyncOlapNIOLayer(address.getHostName(),address.getPort());
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        client.shutdown();
+        serverChannel.close().awaitUninterruptibly();
+        channelFactory.releaseExternalResources();
+        pushExecutor.shutdownNow();
+    }
+
+    @Test
+    public void statusCheckBeforePushedResultDoesNotFailTheJob() throws Exception{
+        /*
+         * The server forgets the job once it writes the result on the submission channel, so a status check
+         * which races with reading that result finds the job unknown
+         */
+        handler.pushResultAfterStatus=true;
+        OlapResult result=client.submit(newJob()).get(10,TimeUnit.SECONDS);
+        Assert.assertTrue("Job did not succeed",result.isSuccess());
+        Assert.assertTrue("No status check raced with the result",handler.statusChecks>0);
+    }
+
+    @Test
+    public void unknownJobFailsOnceTheSubmissionChannelIsClosed() throws Exception{
+        //the server restarted, so the result will never be pushed
+        handler.closeSubmitChannel=true;
+        try{
+            client.submit(newJob()).get(10,TimeUnit.SECONDS);
+            Assert.fail("Job should have failed");
+        }catch(ExecutionException ee){
+            Assert.assertTrue("Unexpected failure: "+ee.getCause(),ee.getCause() instanceof IOException);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private static DistributedJob newJob(){
+        DistributedJob job=new NoopJob();
+        job.markSubmitted();
+        return job;
+    }
+
+    private static OlapMessage.Response progress(OlapMessage.Response.Type type){
+        OlapMessage.ProgressResponse pr=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(TICK_TIME_MILLIS).build();
+        return OlapMessage.Response.newBuilder().setType(type).setExtension(OlapMessage.ProgressResponse.response,pr).build();
+    }
+
+    @ChannelHandler.Sharable
+    private class ScriptedHandler extends SimpleChannelUpstreamHandler{
+        private volatile boolean pushResultAfterStatus;
+        private volatile boolean closeSubmitChannel;
+        private volatile int statusChecks;
+        private volatile Channel submitChannel;
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx,MessageEvent e) throws Exception{
+            OlapMessage.Command cmd=(OlapMessage.Command)e.getMessage();
+            switch(cmd.getType()){
+                case SUBMIT:
+                    submitChannel=e.getChannel();
+                    e.getChannel().write(progress(OlapMessage.Response.Type.IN_PROGRESS));
+                    if(closeSubmitChannel)
+                        e.getChannel().close();
+                    break;
+                case STATUS:
+                    statusChecks++;
+                    e.getChannel().write(progress(OlapMessage.Response.Type.NOT_SUBMITTED));
+                    if(pushResultAfterStatus && statusChecks==1){
+                        pushExecutor.schedule(new Runnable(){
+                            @Override
+                            public void run(){
+                                pushResult();
+                            }
+                        },2*TICK_TIME_MILLIS,TimeUnit.MILLISECONDS);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected command "+cmd.getType());
+            }
+        }
+
+        private void pushResult(){
+            try{
+                OlapMessage.Result r=OlapMessage.Result.newBuilder()
+                        .setResultBytes(OlapSerializationUtils.encode(new SuccessfulResult())).build();
+                submitChannel.write(OlapMessage.Response.newBuilder()
+                        .setType(OlapMessage.Response.Type.COMPLETED)
+                        .setExtension(OlapMessage.Result.response,r).build());
+            }catch(IOException ioe){
+                throw new RuntimeException(ioe);
+            }
+        }
+    }
+
+    private static class SuccessfulResult extends AbstractOlapResult{
+        @Override
+        public boolean isSuccess(){
+            return true;
+        }
+    }
+
+    private static class NoopJob extends DistributedJob{
+        @Override
+        public Callable<Void> toCallable(OlapStatus jobStatus,Clock clock,long clientTimeoutCheckIntervalMs){
+            throw new UnsupportedOperationException("Not executed by the scripted server");
+        }
+
+        @Override
+        public String getName(){
+            return "NoopJob";
+        }
+    }
+}
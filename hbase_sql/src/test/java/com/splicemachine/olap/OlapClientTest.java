@@ -83,6 +83,17 @@ public class OlapClientTest {
         Assert.assertEquals(13, result.order);
     }
 
+    @Test(timeout = 3000)
+    public void shortJobIsNotDelayedByStatusChecks() throws Exception {
+        // the server pushes the result on completion, so we shouldn't have to wait for a status check
+        olapClient.execute(new DumbDistributedJob(10,1));
+        long start = System.currentTimeMillis();
+        DumbOlapResult result = olapClient.execute(new DumbDistributedJob(50,2));
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertEquals(2, result.order);
+        Assert.assertTrue("Job took " + elapsed + " ms", elapsed < HConfiguration.getConfiguration().getOlapClientTickTime());
+    }
+
     @Test(timeout = 20000, expected = IllegalStateException.class)
     public void cantReuseJobsTest() throws Exception {
         final Random rand = new Random(0);
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.olap;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the admission and ordering of jobs by the {@link OlapJobScheduler}.
+ */
+public class OlapJobSchedulerTest{
+
+    private final ManualExecutor workers=new ManualExecutor();
+    private final IncrementingClock clock=new IncrementingClock();
+    private final StringBuilder started=new StringBuilder();
+
+    @Test
+    public void busyQueuesShareWorkersByWeight() throws Exception{
+        OlapJobScheduler scheduler=new OlapJobScheduler(workers,clock,1,100,"reports:3, analysts:1");
+        for(int i=0;i<6;i++){
+            Assert.assertTrue(scheduler.submit("analysts",newStatus(),job('A')));
+        }
+        for(int i=0;i<6;i++){
+            Assert.assertTrue(scheduler.submit("reports",newStatus(),job('R')));
+        }
+        while(workers.runNext()){
+        }
+        Assert.assertEquals("ARRRRARRAAAA",started.toString());
+    }
+
+    @Test
+    public void queueLimitsConcurrentJobs() throws Exception{
+        OlapJobScheduler scheduler=new OlapJobScheduler(workers,clock,4,100,"reports:1:1");
+        for(int i=0;i<3;i++){
+            scheduler.submit("reports",newStatus(),job('R'));
+        }
+        scheduler.submit("SPLICE",newStatus(),job('D'));
+        Assert.assertEquals(2,workers.tasks.size());
+        Assert.assertEquals(2,scheduler.getQueue("reports").getQueuedJobs());
+        Assert.assertEquals(1,scheduler.getQueue(OlapJobScheduler.DEFAULT_QUEUE).getRunningJobs());
+
+        workers.runNext();
+        Assert.assertEquals(2,workers.tasks.size());
+        Assert.assertEquals(1,scheduler.getQueue("reports").getQueuedJobs());
+    }
+
+    @Test
+    public void rejectsJobsWhenTooManyAreWaiting() throws Exception{
+        OlapJobScheduler scheduler=new OlapJobScheduler(workers,clock,1,2,"");
+        Assert.assertTrue(scheduler.submit(null,newStatus(),job('D')));
+        Assert.assertTrue(scheduler.submit(null,newStatus(),job('D')));
+        Assert.assertTrue(scheduler.submit(null,newStatus(),job('D')));
+        Assert.assertFalse(scheduler.submit(null,newStatus(),job('D')));
+
+        OlapQueueStatistics queue=scheduler.getQueue(OlapJobScheduler.DEFAULT_QUEUE);
+        Assert.assertEquals(3,queue.getTotalSubmittedJobs());
+        Assert.assertEquals(1,queue.getTotalRejectedJobs());
+
+        workers.runNext();
+        Assert.assertTrue("Finished job should make room",scheduler.submit(null,newStatus(),job('D')));
+    }
+
+    @Test
+    public void cancelledJobsAreNotRun() throws Exception{
+        OlapJobScheduler scheduler=new OlapJobScheduler(workers,clock,1,100,"");
+        scheduler.submit(null,newStatus(),job('1'));
+        OlapJobStatus cancelled=newStatus();
+        scheduler.submit(null,cancelled,job('2'));
+        scheduler.submit(null,newStatus(),job('3'));
+        cancelled.cancel();
+        while(workers.runNext()){
+        }
+        Assert.assertEquals("13",started.toString());
+    }
+
+    @Test
+    public void recordsQueueAndRunTimes() throws Exception{
+        OlapJobScheduler scheduler=new OlapJobScheduler(workers,clock,1,100,"");
+        scheduler.submit(null,newStatus(),sleepingJob(40));
+        scheduler.submit(null,newStatus(),sleepingJob(20));
+        while(workers.runNext()){
+        }
+        OlapQueueStatistics queue=scheduler.getQueue(OlapJobScheduler.DEFAULT_QUEUE);
+        Assert.assertEquals(2,queue.getTotalCompletedJobs());
+        Assert.assertEquals(30d,queue.getAverageRunTimeMs(),0.001d);
+        Assert.assertEquals(20d,queue.getAverageQueueTimeMs(),0.001d);
+        Assert.assertEquals(40,queue.getMaxQueueTimeMs());
+    }
+
+    @Test
+    public void selectsRoleBeforeUser() throws Exception{
+        String queues="REPORTS:4:8, ANALYST:1";
+        Assert.assertEquals("REPORTS",OlapJobScheduler.selectQueue(queues,"REPORTS","ANALYST"));
+        Assert.assertEquals("ANALYST",OlapJobScheduler.selectQueue(queues,null,"ANALYST"));
+        Assert.assertNull(OlapJobScheduler.selectQueue(queues,"OTHER","SPLICE"));
+        Assert.assertNull(OlapJobScheduler.selectQueue("","REPORTS"));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static OlapJobStatus newStatus(){
+        OlapJobStatus status=new OlapJobStatus(1000,120);
+        status.markSubmitted();
+        return status;
+    }
+
+    private Callable<Void> job(final char name){
+        return new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                started.append(name);
+                return null;
+            }
+        };
+    }
+
+    private Callable<Void> sleepingJob(final long millis){
+        return new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                clock.sleep(millis,TimeUnit.MILLISECONDS);
+                return null;
+            }
+        };
+    }
+
+    private static class ManualExecutor extends AbstractExecutorService{
+        private final List<Runnable> tasks=new LinkedList<>();
+
+        boolean runNext(){
+            if(tasks.isEmpty()) return false;
+            tasks.remove(0).run();
+            return true;
+        }
+
+        @Override public void execute(Runnable command){ tasks.add(command); }
+
+        @Override public void shutdown(){ }
+
+        @Override public List<Runnable> shutdownNow(){ return tasks; }
+
+        @Override public boolean isShutdown(){ return false; }
+
+        @Override public boolean isTerminated(){ return false; }
+
+        @Override public boolean awaitTermination(long timeout,TimeUnit unit){ return true; }
+    }
+}
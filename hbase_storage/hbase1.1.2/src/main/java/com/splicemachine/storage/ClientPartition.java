@@ -206,6 +206,7 @@ public class ClientPartition extends SkeletonHBaseClientPartition{
         int totalStoreFileSizeMB = 0;
         int totalMemstoreSieMB = 0;
         int storefileIndexSizeMB = 0;
+        long writeRequestCount = 0;
         try(Admin admin=connection.getAdmin()){
             ClusterStatus clusterStatus=admin.getClusterStatus();
             for(Map.Entry<ServerName,List<HRegionInfo>> entry:serverToRegionMap.entrySet()){
@@ -216,10 +217,11 @@ public class ClientPartition extends SkeletonHBaseClientPartition{
                     totalStoreFileSizeMB+=rl.getStorefileSizeMB();
                     totalMemstoreSieMB+=rl.getMemStoreSizeMB();
                     storefileIndexSizeMB+=rl.getStorefileIndexSizeMB();
+                    writeRequestCount+=rl.getWriteRequestsCount();
                 }
             }
         }
-        return new HPartitionLoad(getName(),totalStoreFileSizeMB,totalMemstoreSieMB,storefileIndexSizeMB);
+        return new HPartitionLoad(getName(),totalStoreFileSizeMB,totalMemstoreSieMB,storefileIndexSizeMB,writeRequestCount);
     }
 
     /**
@@ -23,6 +23,9 @@ import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.storage.DataPut;
+import com.splicemachine.storage.HPut;
+import com.splicemachine.storage.MutationStatus;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.RegionPartition;
 import com.splicemachine.utils.ByteSlice;
@@ -36,6 +39,8 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -91,11 +96,7 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                     trafficControl.release(1);
                 }
             }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
-                }
-                if(t==Txn.ROOT_TRANSACTION){
+                if(isCommitted(transaction)){
                     trafficControl.acquire(1);
                     try{
                         SynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
@@ -119,8 +120,86 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public void resolve(Partition region,ByteSlice[] rowKeys,long[] txnIds,boolean[] resolved,int size,
+                        TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        assert region instanceof RegionPartition: "Not on a region!";
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return; //do nothing if we are closing or rollforward is disabled
+
+        DataPut[] commits=new DataPut[size];
+        int[] commitPositions=new int[size];
+        int numCommits=0;
+        for(int i=0;i<size;i++){
+            TxnView transaction;
+            try{
+                transaction=supplier.getTransaction(txnIds[i]);
+            }catch(IOException e){
+                LOG.info("Unable to fetch transaction for id "+txnIds[i]+", will not resolve",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+                continue;
+            }
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK){
+                //rollbacks are rare enough that we don't bother to batch them
+                resolved[i]=resolve(region,rowKeys[i],txnIds[i],supplier,status,failOnError,trafficControl);
+                continue;
+            }
+            if(isCommitted(transaction)){
+                commits[numCommits]=new HPut(newCommitPut(rowKeys[i],txnIds[i],transaction.getEffectiveCommitTimestamp()));
+                commitPositions[numCommits]=i;
+                numCommits++;
+            }
+            status.rowResolved();
+        }
+        if(numCommits<=0) return;
+        if(numCommits<size)
+            commits=Arrays.copyOf(commits,numCommits);
+
+        try{
+            trafficControl.acquire(numCommits);
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try{
+            Iterator<MutationStatus> statuses=region.writeBatch(commits);
+            for(int i=0;i<numCommits && statuses.hasNext();i++){
+                resolved[commitPositions[i]]=statuses.next().isSuccess();
+            }
+        }catch(IOException e){
+            if(!(e instanceof RegionTooBusyException) && !(e instanceof NotServingRegionException)){
+                LOG.info("Exception encountered when attempting to resolve rows as committed",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+            }
+        }finally{
+            trafficControl.release(numCommits);
+        }
+    }
+
     /******************************************************************************************************************/
     /*private helper methods */
+    private static boolean isCommitted(TxnView transaction){
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
+    private static Put newCommitPut(ByteSlice rowKey,long txnId,long commitTimestamp){
+        Put put=new Put(rowKey.getByteCopy());
+        put.add(SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
+                Bytes.toBytes(commitTimestamp));
+        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
+        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        put.setDurability(Durability.SKIP_WAL);
+        return put;
+    }
+
     private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
         assert region instanceof RegionPartition: "Not on a region!";
         /*
@@ -131,13 +210,7 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
-        Put put=new Put(rowKey.getByteCopy());
-        put.add(SIConstants.DEFAULT_FAMILY_BYTES,
-                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
-                Bytes.toBytes(commitTimestamp));
-        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
-        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
-        put.setDurability(Durability.SKIP_WAL);
+        Put put=newCommitPut(rowKey,txnId,commitTimestamp);
         try{
             ((RegionPartition)region).unwrapDelegate().put(put);
         }catch(IOException e){
@@ -26,13 +26,21 @@ import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryAccumulator;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongOpenHashSet;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -42,6 +50,12 @@ import java.util.TreeSet;
  * guts for SICompactionScanner.
  * <p/>
  * It is handed key-values and can change them.
+ * <p/>
+ * When given a watermark (a timestamp no greater than the begin timestamp of any active transaction), it also
+ * discards versions which no transaction can see any more: everything below the newest tombstone or
+ * anti-tombstone that is visible to all transactions, and rows which have been deleted entirely. Successive
+ * updates which are visible to all transactions are collapsed into a single version, the same way a reader
+ * would accumulate them.
  */
 public class SICompactionState {
     private static final Logger LOG = Logger.getLogger(SICompactionState.class);
@@ -49,11 +63,23 @@ public class SICompactionState {
     private SortedSet<Cell> dataToReturn;
     private final RollForward rollForward;
     private ByteSlice rowSlice = new ByteSlice();
+    private final long watermark;
+    private final List<Cell> rowCells = new ArrayList<>();
+    private EntryDecoder entryDecoder;
 
     public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize) {
+        this(transactionStore,rollForward,activeTransactionCacheSize,0L);
+    }
+
+    /**
+     * @param watermark a timestamp which is no greater than the begin timestamp of any active transaction,
+     *                  or {@code 0} to keep every committed version.
+     */
+    public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize,long watermark) {
         this.rollForward = rollForward;
         this.transactionStore = new ActiveTxnCacheSupplier(transactionStore,activeTransactionCacheSize);
         this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
+        this.watermark = watermark;
     }
 
     /**
@@ -67,7 +93,20 @@ public class SICompactionState {
         for (Cell aRawList : rawList) {
             mutate(aRawList);
         }
-        results.addAll(dataToReturn);
+        if (watermark <= 0) {
+            results.addAll(dataToReturn);
+            return;
+        }
+        rowCells.clear();
+        for (Cell cell : dataToReturn) {
+            if (!rowCells.isEmpty() && !CellUtil.matchingRow(rowCells.get(0), cell)) {
+                purgeObsoleteVersions(rowCells, results);
+                rowCells.clear();
+            }
+            rowCells.add(cell);
+        }
+        if (!rowCells.isEmpty())
+            purgeObsoleteVersions(rowCells, results);
     }
 
     /**
@@ -104,6 +143,150 @@ public class SICompactionState {
         }
     }
 
+    /**
+     * Remove the versions of a single row which no transaction can see any more.
+     *
+     * A tombstone or anti-tombstone which is visible to everyone hides all older versions from everyone, so
+     * the newest such marker acts as a fence below which everything can be dropped (along with the user data
+     * written by a deleting transaction). If the fence is a tombstone and nothing has been written since,
+     * the row is gone for everyone, and the tombstone itself can go too.
+     *
+     * Above the fence, the oldest run of updates which are visible to everyone is always read together, so it
+     * is replaced by a single version containing what a reader would accumulate from the run. The run stops
+     * at the first version which is not visible to everyone, or at any tombstone, since readers may see those
+     * differently.
+     */
+    private void purgeObsoleteVersions(List<Cell> row, List<Cell> results) throws IOException {
+        long fence = -1L;
+        boolean fenceIsTombstone = false;
+        for (Cell cell : row) {
+            CellType type = getKeyValueType(cell);
+            if ((type == CellType.TOMBSTONE || type == CellType.ANTI_TOMBSTONE)
+                    && cell.getTimestamp() > fence && isVisibleToAll(cell.getTimestamp())) {
+                fence = cell.getTimestamp();
+                fenceIsTombstone = type == CellType.TOMBSTONE;
+            }
+        }
+
+        /*
+         * Find what survives the fence, and whether anything has been written since it.
+         */
+        LongArrayList markers = new LongArrayList();
+        LongArrayList userData = new LongArrayList();
+        boolean writtenSinceFence = false;
+        for (Cell cell : row) {
+            CellType type = getKeyValueType(cell);
+            long ts = cell.getTimestamp();
+            if (isSIManaged(type) && isHiddenByFence(type, ts, fence, fenceIsTombstone))
+                continue;
+            if (ts > fence && isSIManaged(type))
+                writtenSinceFence = true;
+            if (type == CellType.USER_DATA)
+                userData.add(ts);
+            else if ((type == CellType.TOMBSTONE || type == CellType.ANTI_TOMBSTONE) && ts > fence)
+                markers.add(ts);
+        }
+        boolean rowDeleted = fenceIsTombstone && !writtenSinceFence;
+
+        /*
+         * Find the oldest run of user data versions which are visible to everyone.
+         */
+        long[] userDataTs = userData.toArray();
+        long[] markerTs = markers.toArray();
+        Arrays.sort(userDataTs);
+        Arrays.sort(markerTs);
+        LongOpenHashSet collapsed = new LongOpenHashSet();
+        long collapsedTs = -1L;
+        int m = 0;
+        for (long ts : userDataTs) {
+            if (!isVisibleToAll(ts)) break;
+            boolean markerInRun = false;
+            while (m < markerTs.length && markerTs[m] <= ts) {
+                if (collapsedTs >= 0 && markerTs[m] > collapsedTs)
+                    markerInRun = true;
+                m++;
+            }
+            if (markerInRun) break;
+            collapsed.add(ts);
+            collapsedTs = ts;
+        }
+        Cell collapsedCell = null;
+        if (collapsed.size() > 1)
+            collapsedCell = collapse(row, collapsed, collapsedTs);
+        else
+            collapsed.clear();
+
+        for (Cell cell : row) {
+            CellType type = getKeyValueType(cell);
+            long ts = cell.getTimestamp();
+            if (isSIManaged(type)) {
+                if (rowDeleted || isHiddenByFence(type, ts, fence, fenceIsTombstone))
+                    continue;
+                if (collapsedCell != null && collapsed.contains(ts) && ts != collapsedTs)
+                    continue;
+                if (collapsedCell != null && type == CellType.USER_DATA && ts == collapsedTs)
+                    cell = collapsedCell;
+            }
+            results.add(cell);
+        }
+    }
+
+    private static boolean isSIManaged(CellType type) {
+        switch (type) {
+            case COMMIT_TIMESTAMP:
+            case TOMBSTONE:
+            case ANTI_TOMBSTONE:
+            case USER_DATA:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /*
+     * A visible tombstone hides every version written at or before it, while an anti-tombstone hides
+     * only the versions written before it (the anti-tombstone is written along with the new row).
+     */
+    private static boolean isHiddenByFence(CellType type, long ts, long fence, boolean fenceIsTombstone) {
+        if (ts < fence) return true;
+        return ts == fence && fenceIsTombstone && type == CellType.USER_DATA;
+    }
+
+    private boolean isVisibleToAll(long timestamp) throws IOException {
+        TxnView transaction = transactionStore.getTransaction(timestamp);
+        if (transaction.getEffectiveState() != Txn.State.COMMITTED) return false;
+        long commitTimestamp = transaction.getEffectiveCommitTimestamp();
+        return commitTimestamp >= 0 && commitTimestamp < watermark;
+    }
+
+    /**
+     * Merge the given versions of the row's user data the same way a reader does: newest first, each field
+     * taken from the newest version which contains it.
+     */
+    private Cell collapse(List<Cell> row, LongOpenHashSet versions, long newestVersion) throws IOException {
+        if (entryDecoder == null)
+            entryDecoder = new EntryDecoder();
+        EntryAccumulator accumulator = EntryPredicateFilter.emptyPredicate().newAccumulator();
+        Cell newest = null;
+        for (Cell cell : row) { // user data is sorted newest first
+            if (getKeyValueType(cell) != CellType.USER_DATA || !versions.contains(cell.getTimestamp()))
+                continue;
+            if (cell.getValueLength() == 0)
+                return null; // not an encoded row, so leave it alone
+            if (newest == null)
+                newest = cell;
+            entryDecoder.set(CellUtil.cloneValue(cell));
+            if (accumulator.isInteresting(entryDecoder.getCurrentIndex()))
+                EntryPredicateFilter.emptyPredicate().match(entryDecoder, accumulator);
+        }
+        assert newest != null && newest.getTimestamp() == newestVersion;
+        byte[] value = accumulator.finish();
+        return new KeyValue(newest.getRowArray(), newest.getRowOffset(), newest.getRowLength(),
+                newest.getFamilyArray(), newest.getFamilyOffset(), newest.getFamilyLength(),
+                newest.getQualifierArray(), newest.getQualifierOffset(), newest.getQualifierLength(),
+                newestVersion, KeyValue.Type.Put, value, 0, value.length);
+    }
+
     private void ensureTransactionCached(long timestamp,Cell element) {
         if(!transactionStore.transactionCached(timestamp)){
             if(isFailedCommitTimestamp(element)){
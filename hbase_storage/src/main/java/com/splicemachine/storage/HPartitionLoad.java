@@ -24,12 +24,18 @@ public class HPartitionLoad implements PartitionLoad{
     private final int memStoreSizeMB;
     private final int storefileIndexSizeMB;
     private final String name;
+    private final long writeRequestCount;
 
     public HPartitionLoad(String name,int storefileSizeMB,int memStoreSizeMB,int storefileIndexSizeMB){
+        this(name,storefileSizeMB,memStoreSizeMB,storefileIndexSizeMB,-1l);
+    }
+
+    public HPartitionLoad(String name,int storefileSizeMB,int memStoreSizeMB,int storefileIndexSizeMB,long writeRequestCount){
         this.storefileSizeMB=storefileSizeMB;
         this.memStoreSizeMB=memStoreSizeMB;
         this.storefileIndexSizeMB=storefileIndexSizeMB;
         this.name = name;
+        this.writeRequestCount = writeRequestCount;
     }
 
     @Override
@@ -51,4 +57,9 @@ public class HPartitionLoad implements PartitionLoad{
     public int getStorefileIndexSizeMB(){
         return storefileIndexSizeMB;
     }
+
+    @Override
+    public long getWriteRequestCount(){
+        return writeRequestCount;
+    }
 }
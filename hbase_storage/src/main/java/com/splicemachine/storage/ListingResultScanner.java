@@ -50,6 +50,23 @@ public class ListingResultScanner implements DataScanner{
         return resultView;
     }
 
+    @Override
+    public int nextBatch(RowBatch batch) throws IOException{
+        batch.clear();
+        while(!batch.isFull()){
+            Result r = resultScanner.next();
+            if(r==null||r.size()<=0) break;
+            for(Cell c:r.rawCells()){
+                DataCell reusable = batch.reusableCell();
+                HCell cell = reusable instanceof HCell?(HCell)reusable:new HCell();
+                cell.set(c);
+                batch.addCell(cell);
+            }
+            batch.endRow();
+        }
+        return batch.size();
+    }
+
     @Override
     public void close() throws IOException{
         resultScanner.close();
@@ -83,6 +83,34 @@ public class RegionDataScanner implements DataScanner{
         return Lists.transform(internalList,transform);
     }
 
+    @Override
+    public int nextBatch(RowBatch batch) throws IOException{
+        batch.clear();
+        if(internalList==null)
+            internalList = new ArrayList<>(10);
+        readTimer.startTiming();
+        while(!batch.isFull()){
+            internalList.clear();
+            delegate.next(internalList);
+            if(internalList.size()<=0) break;
+
+            for(int i=0;i<internalList.size();i++){
+                //reuse the wrappers from the previous batch instead of creating one per cell
+                DataCell reusable = batch.reusableCell();
+                HCell cell = reusable instanceof HCell?(HCell)reusable:new HCell();
+                cell.set(internalList.get(i));
+                batch.addCell(cell);
+            }
+            batch.endRow();
+            collectMetrics(internalList);
+        }
+        if(batch.size()>0)
+            readTimer.tick(batch.size());
+        else
+            readTimer.stopTiming();
+        return batch.size();
+    }
+
 
     @Override public TimeView getReadTime(){ return readTimer.getTime(); }
     @Override public long getBytesOutput(){ return outputBytesCounter.getTotal(); }
@@ -18,6 +18,8 @@ package com.splicemachine.storage;
 import org.spark_project.guava.base.Function;
 import com.splicemachine.si.impl.HRegionTooBusy;
 
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.DroppedSnapshotException;
 import org.spark_project.guava.collect.Iterators;
 import com.splicemachine.kvpair.KVPair;
@@ -189,6 +191,52 @@ public class RegionPartition implements Partition{
         }
     }
 
+    @Override
+    public DataResult[] getLatest(List<byte[]> sortedKeys) throws IOException{
+        DataResult[] results=new DataResult[sortedKeys.size()];
+        if(results.length<=0) return results;
+
+        /*
+         * Rather than issuing a Get (and building a new scanner) for each key, we open a single scanner over the
+         * range covered by the keys, and reseek it forward to each key in turn. Because the keys are sorted,
+         * the scanner never needs to move backwards: if a key is behind the row we last read, then
+         * there can't be any data for it (unless it's the same row, which we've already read).
+         */
+        byte[] stop=Bytes.add(sortedKeys.get(results.length-1),new byte[]{0x00});
+        Scan scan=new Scan(sortedKeys.get(0),stop);
+        scan.setMaxVersions(1);
+        try(RegionScanner scanner=region.getScanner(scan)){
+            List<Cell> cells=new ArrayList<>();
+            byte[] lastRow=null;
+            DataResult lastResult=null;
+            boolean hasMore=true;
+            for(int i=0;i<results.length;i++){
+                byte[] key=sortedKeys.get(i);
+                if(lastRow!=null){
+                    int compare=Bytes.compareTo(key,lastRow);
+                    if(compare==0){
+                        results[i]=lastResult;
+                        continue;
+                    }else if(compare<0) continue;
+                    else if(!hasMore) break; //no rows left in the range
+                    scanner.reseek(key);
+                }
+                cells.clear();
+                hasMore=scanner.next(cells);
+                if(cells.isEmpty()) break;
+                lastRow=CellUtil.cloneRow(cells.get(0));
+                lastResult=new HResult(Result.create(cells));
+                if(Bytes.equals(key,lastRow))
+                    results[i]=lastResult;
+            }
+        }catch(NotServingRegionException nsre){
+            throw new HNotServingRegion(nsre.getMessage());
+        }catch(WrongRegionException wre){
+            throw new HWrongRegion(wre.getMessage());
+        }
+        return results;
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g=new Get(rowKey);
@@ -82,6 +82,17 @@ public abstract class SkeletonHBaseClientPartition implements Partition{
         return previous;
     }
 
+    @Override
+    public DataResult[] getLatest(List<byte[]> sortedKeys) throws IOException{
+        DataResult[] results=new DataResult[sortedKeys.size()];
+        for(int i=0;i<results.length;i++){
+            DataResult result=getLatest(sortedKeys.get(i),null);
+            if(result.size()>0)
+                results[i]=result;
+        }
+        return results;
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g = new Get(rowKey);
@@ -34,10 +34,15 @@ import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.storage.DataFilter;
 import com.splicemachine.storage.HCell;
 import com.splicemachine.storage.RegionPartition;
+import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.GreenLight;
 import com.splicemachine.utils.TrafficControl;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
@@ -220,4 +225,60 @@ public class SynchronousReadResolverTest {
         Assert.assertEquals("Incorrect committed txnId", childTxn.getTxnId(), commitTs.getTimestamp());
         Assert.assertEquals("Incorrect commit timestamp!", childTxn.getEffectiveCommitTimestamp(), Bytes.toLong(CellUtil.cloneValue(commitTs)));
     }
+
+    @Test
+    public void testResolvingABatchWorks() throws Exception {
+        HBaseTestingUtility testUtility = new HBaseTestingUtility();
+        HTableDescriptor descriptor = new HTableDescriptor(TableName.valueOf("testResolvingABatchWorks"));
+        descriptor.addFamily(new HColumnDescriptor(SIConstants.DEFAULT_FAMILY_BYTES).setMaxVersions(Integer.MAX_VALUE));
+        HRegion region = testUtility.createLocalHRegion(descriptor, null, null);
+        try {
+            RegionPartition rp = new RegionPartition(region);
+            TestingTimestampSource timestampSource = new TestingTimestampSource();
+            TxnStore store = new TestingTxnStore(new IncrementingClock(),timestampSource,HExceptionFactory.INSTANCE,Long.MAX_VALUE);
+            ClientTxnLifecycleManager tc = new ClientTxnLifecycleManager(timestampSource,HExceptionFactory.INSTANCE);
+            tc.setTxnStore(store);
+            tc.setKeepAliveScheduler(new ManualKeepAliveScheduler(store));
+
+            Txn committedTxn = tc.beginTransaction(Bytes.toBytes("1184"));
+            Txn rolledBackTxn = tc.beginTransaction(Bytes.toBytes("1184"));
+            Txn activeTxn = tc.beginTransaction(Bytes.toBytes("1184"));
+            Txn[] writers = new Txn[]{committedTxn, committedTxn, rolledBackTxn, activeTxn, committedTxn};
+            ByteSlice[] rowKeys = new ByteSlice[writers.length];
+            long[] txnIds = new long[writers.length];
+            for (int i = 0; i < writers.length; i++) {
+                byte[] rowKey = Encoding.encode("hello" + i);
+                Put testPut = new Put(rowKey);
+                testPut.add(SIConstants.DEFAULT_FAMILY_BYTES, SIConstants.PACKED_COLUMN_BYTES,
+                        writers[i].getTxnId(), Encoding.encode("value" + i));
+                region.put(testPut);
+                rowKeys[i] = ByteSlice.wrap(rowKey);
+                txnIds[i] = writers[i].getTxnId();
+            }
+            committedTxn.commit();
+            rolledBackTxn.rollback();
+
+            boolean[] resolved = new boolean[writers.length];
+            SynchronousReadResolver.INSTANCE.resolve(rp, rowKeys, txnIds, resolved, writers.length, store,
+                    new RollForwardStatus(), true, GreenLight.INSTANCE);
+            Assert.assertArrayEquals(new boolean[]{true, true, true, false, true}, resolved);
+
+            for (int i = 0; i < writers.length; i++) {
+                Result result = region.get(new Get(rowKeys[i].getByteCopy()));
+                Cell commitTs = result.getColumnLatestCell(SIConstants.DEFAULT_FAMILY_BYTES, SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES);
+                if (writers[i] == committedTxn) {
+                    Assert.assertNotNull("No Commit TS column found for row " + i, commitTs);
+                    Assert.assertEquals("Incorrect committed txnId", committedTxn.getTxnId(), commitTs.getTimestamp());
+                    Assert.assertEquals("Incorrect commit timestamp!", committedTxn.getEffectiveCommitTimestamp(), Bytes.toLong(CellUtil.cloneValue(commitTs)));
+                } else if (writers[i] == rolledBackTxn) {
+                    Assert.assertEquals("Rolled back row was not removed", 0, result.size());
+                } else {
+                    Assert.assertEquals("Active row should not be resolved", 1, result.size());
+                }
+            }
+        } finally {
+            region.close();
+            testUtility.cleanupTestDir();
+        }
+    }
 }
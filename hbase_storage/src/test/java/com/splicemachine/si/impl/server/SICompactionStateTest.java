@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests around the removal of obsolete versions during compaction.
+ */
+public class SICompactionStateTest{
+    private static final byte[] ROW=Bytes.toBytes("row");
+    private static final long WATERMARK=100L;
+
+    private final Map<Long,TxnView> txns=new HashMap<>();
+
+    @Test
+    public void keepsAllVersionsWithoutWatermark() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        List<Cell> row=cells(userData(1,"a","b",1),userData(3,null,"c",null));
+
+        List<Cell> results=compact(row,0L);
+        Assert.assertEquals("Incorrect user data versions",versions(3,1),versionsOf(results,CellType.USER_DATA));
+    }
+
+    @Test
+    public void collapsesUpdatesVisibleToAll() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        List<Cell> row=cells(userData(1,"a","b",1),userData(3,null,"c",null),userData(5,null,null,7));
+
+        List<Cell> results=compact(row,WATERMARK);
+        Assert.assertEquals("Incorrect user data versions",versions(5),versionsOf(results,CellType.USER_DATA));
+        Assert.assertArrayEquals("Incorrect collapsed row",new Object[]{"a","c",7},decode(only(results,CellType.USER_DATA)));
+        Assert.assertEquals("Incorrect commit timestamps",versions(5),versionsOf(results,CellType.COMMIT_TIMESTAMP));
+    }
+
+    @Test
+    public void doesNotCollapsePastVersionsNotVisibleToAll() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,WATERMARK+1);
+        committed(7,8); //can't have a write-write conflict with 5, but tests the ordering
+        active(9);
+        List<Cell> row=cells(userData(1,"a","b",1),userData(3,null,"c",null),
+                userData(5,"d",null,null),userData(7,null,null,8),userData(9,"e",null,null));
+
+        List<Cell> results=compact(row,WATERMARK);
+        Assert.assertEquals("Incorrect user data versions",versions(9,7,5,3),versionsOf(results,CellType.USER_DATA));
+        Assert.assertArrayEquals("Incorrect collapsed row",new Object[]{"a","c",1},decode(version(results,CellType.USER_DATA,3)));
+    }
+
+    @Test
+    public void removesRowDeletedBeforeWatermark() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        List<Cell> row=cells(userData(1,"a","b",1),tombstone(3));
+
+        List<Cell> results=compact(row,WATERMARK);
+        Assert.assertTrue("Deleted row should have been removed, but found "+results,results.isEmpty());
+    }
+
+    @Test
+    public void keepsRowDeletedAfterWatermark() throws Exception{
+        committed(1,2);
+        committed(3,WATERMARK+1);
+        List<Cell> row=cells(userData(1,"a","b",1),tombstone(3));
+
+        List<Cell> results=compact(row,WATERMARK);
+        Assert.assertEquals("Incorrect user data versions",versions(1),versionsOf(results,CellType.USER_DATA));
+        Assert.assertEquals("Incorrect tombstones",versions(3),versionsOf(results,CellType.TOMBSTONE));
+    }
+
+    @Test
+    public void removesVersionsBelowReinsert() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        List<Cell> row=cells(userData(1,"a","b",1),tombstone(3),userData(5,"d","e",2),antiTombstone(5));
+
+        List<Cell> results=compact(row,WATERMARK);
+        Assert.assertEquals("Incorrect user data versions",versions(5),versionsOf(results,CellType.USER_DATA));
+        Assert.assertEquals("Incorrect tombstones",versions(),versionsOf(results,CellType.TOMBSTONE));
+        Assert.assertEquals("Incorrect anti-tombstones",versions(5),versionsOf(results,CellType.ANTI_TOMBSTONE));
+        Assert.assertEquals("Incorrect commit timestamps",versions(5),versionsOf(results,CellType.COMMIT_TIMESTAMP));
+        Assert.assertArrayEquals("Incorrect row",new Object[]{"d","e",2},decode(only(results,CellType.USER_DATA)));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private List<Cell> compact(List<Cell> row,long watermark) throws IOException{
+        SICompactionState state=new SICompactionState(new MapTxnSupplier(),NoopRollForward.INSTANCE,16,watermark);
+        List<Cell> results=new ArrayList<>();
+        state.mutate(row,results);
+        for(int i=1;i<results.size();i++){
+            Assert.assertTrue("Results are not sorted",KeyValue.COMPARATOR.compare(results.get(i-1),results.get(i))<0);
+        }
+        return results;
+    }
+
+    private void committed(long txnId,long commitTs){
+        txns.put(txnId,new CommittedTxn(txnId,commitTs));
+    }
+
+    private void active(long txnId){
+        txns.put(txnId,new InheritingTxnView(Txn.ROOT_TRANSACTION,txnId,txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE));
+    }
+
+    private static List<Cell> cells(Cell... cells){
+        List<Cell> row=new ArrayList<>();
+        Collections.addAll(row,cells);
+        Collections.sort(row,KeyValue.COMPARATOR);
+        return row;
+    }
+
+    private static Cell userData(long txnId,String first,String second,Integer third) throws IOException{
+        BitSet setCols=new BitSet();
+        BitSet scalarCols=new BitSet();
+        if(first!=null) setCols.set(0);
+        if(second!=null) setCols.set(1);
+        if(third!=null){
+            setCols.set(2);
+            scalarCols.set(2);
+        }
+        EntryEncoder ee=EntryEncoder.create(null,3,setCols,scalarCols,new BitSet(),new BitSet());
+        MultiFieldEncoder encoder=ee.getEntryEncoder();
+        if(first!=null) encoder.encodeNext(first);
+        if(second!=null) encoder.encodeNext(second);
+        if(third!=null) encoder.encodeNext(third);
+        return cell(SIConstants.PACKED_COLUMN_BYTES,txnId,ee.encode());
+    }
+
+    private static Cell tombstone(long txnId){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId,SIConstants.EMPTY_BYTE_ARRAY);
+    }
+
+    private static Cell antiTombstone(long txnId){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES);
+    }
+
+    private static Cell cell(byte[] qualifier,long txnId,byte[] value){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,qualifier,txnId,KeyValue.Type.Put,value);
+    }
+
+    private static Object[] decode(Cell cell) throws IOException{
+        EntryDecoder decoder=new EntryDecoder();
+        decoder.set(CellUtil.cloneValue(cell));
+        MultiFieldDecoder fields=decoder.getEntryDecoder();
+        return new Object[]{
+                decoder.isSet(0)?fields.decodeNextString():null,
+                decoder.isSet(1)?fields.decodeNextString():null,
+                decoder.isSet(2)?fields.decodeNextInt():null
+        };
+    }
+
+    private static List<Long> versions(long... versions){
+        List<Long> list=new ArrayList<>(versions.length);
+        for(long version : versions){
+            list.add(version);
+        }
+        return list;
+    }
+
+    private static List<Long> versionsOf(List<Cell> cells,CellType type){
+        List<Long> versions=new ArrayList<>();
+        SICompactionState state=new SICompactionState(null,NoopRollForward.INSTANCE,1);
+        for(Cell cell : cells){
+            if(state.getKeyValueType(cell)==type)
+                versions.add(cell.getTimestamp());
+        }
+        return versions;
+    }
+
+    private static Cell version(List<Cell> cells,CellType type,long version){
+        SICompactionState state=new SICompactionState(null,NoopRollForward.INSTANCE,1);
+        for(Cell cell : cells){
+            if(state.getKeyValueType(cell)==type && cell.getTimestamp()==version)
+                return cell;
+        }
+        Assert.fail("No "+type+" found at version "+version);
+        return null;
+    }
+
+    private static Cell only(List<Cell> cells,CellType type){
+        List<Long> versions=versionsOf(cells,type);
+        Assert.assertEquals("Expected a single "+type,1,versions.size());
+        return version(cells,type,versions.get(0));
+    }
+
+    private class MapTxnSupplier implements TxnSupplier{
+        @Override
+        public TxnView getTransaction(long txnId) throws IOException{
+            return getTransaction(txnId,false);
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+            TxnView txn=txns.get(txnId);
+            Assert.assertNotNull("Unknown transaction "+txnId,txn);
+            return txn;
+        }
+
+        @Override public boolean transactionCached(long txnId){ return false; }
+        @Override public void cache(TxnView toCache){ }
+        @Override public TxnView getTransactionFromCache(long txnId){ return null; }
+    }
+}
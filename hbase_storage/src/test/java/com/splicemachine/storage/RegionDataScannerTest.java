@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.metrics.Metrics;
+import com.splicemachine.si.constants.SIConstants;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RegionDataScannerTest{
+    private static final byte[] FAMILY=SIConstants.DEFAULT_FAMILY_BYTES;
+    private static final byte[] QUALIFIER=SIConstants.PACKED_COLUMN_BYTES;
+    private static final byte[] COMMIT_QUALIFIER=SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES;
+    private static final int NUM_ROWS=150;
+
+    private static HBaseTestingUtility testUtility;
+    private static HRegion region;
+    private static RegionPartition partition;
+
+    @BeforeClass
+    public static void setUp() throws Exception{
+        testUtility=new HBaseTestingUtility();
+        HTableDescriptor descriptor=new HTableDescriptor(TableName.valueOf("RegionDataScannerTest"));
+        descriptor.addFamily(new HColumnDescriptor(FAMILY));
+        region=testUtility.createLocalHRegion(descriptor,null,null);
+        partition=new RegionPartition(region);
+
+        for(int i=0;i<NUM_ROWS;i++){
+            Put put=new Put(Bytes.toBytes(i));
+            put.add(FAMILY,QUALIFIER,1L,Bytes.toBytes("value"+i));
+            //every other row has a commit timestamp too
+            if(i%2==0)
+                put.add(FAMILY,COMMIT_QUALIFIER,1L,Bytes.toBytes(2L));
+            region.put(put);
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception{
+        if(region!=null)
+            region.close();
+        testUtility.cleanupTestDir();
+    }
+
+    @Test
+    public void batchesMatchSingleRows() throws Exception{
+        List<List<String>> expected=new ArrayList<>();
+        try(DataScanner scanner=newScanner()){
+            List<DataCell> row;
+            while((row=scanner.next(-1)).size()>0){
+                expected.add(describe(row));
+            }
+        }
+        Assert.assertEquals(NUM_ROWS,expected.size());
+
+        List<List<String>> actual=new ArrayList<>();
+        RowBatch batch=new RowBatch(64);
+        try(DataScanner scanner=newScanner()){
+            while(scanner.nextBatch(batch)>0){
+                Assert.assertTrue(batch.size()<=64);
+                for(int i=0;i<batch.size();i++){
+                    actual.add(describe(batch.row(i)));
+                }
+            }
+            Assert.assertTrue(batch.isEmpty());
+            Assert.assertEquals(NUM_ROWS,scanner.getRowsVisited());
+        }
+        Assert.assertEquals(expected,actual);
+    }
+
+    @Test
+    public void cellsAreReusedAcrossBatches() throws Exception{
+        RowBatch batch=new RowBatch(10);
+        try(DataScanner scanner=newScanner()){
+            Assert.assertEquals(10,scanner.nextBatch(batch));
+            Map<DataCell, Boolean> first=new IdentityHashMap<>();
+            for(int i=0;i<batch.size();i++){
+                for(DataCell cell : batch.row(i)){
+                    first.put(cell,Boolean.TRUE);
+                }
+            }
+            //the second batch has the same shape, so every cell should come from the first one
+            Assert.assertEquals(10,scanner.nextBatch(batch));
+            for(int i=0;i<batch.size();i++){
+                for(int j=0;j<batch.rowSize(i);j++){
+                    Assert.assertTrue("Cell was not reused",first.containsKey(batch.cell(i,j)));
+                }
+            }
+            Assert.assertArrayEquals(Bytes.toBytes(10),batch.cell(0,0).key());
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static DataScanner newScanner() throws Exception{
+        return new RegionDataScanner(partition,region.getScanner(new Scan()),Metrics.basicMetricFactory());
+    }
+
+    private static List<String> describe(List<DataCell> row){
+        List<String> cells=new ArrayList<>(row.size());
+        for(DataCell cell : row){
+            cells.add(Bytes.toStringBinary(cell.key())+"/"+cell.dataType()+"/"+Bytes.toStringBinary(cell.value()));
+        }
+        return cells;
+    }
+}
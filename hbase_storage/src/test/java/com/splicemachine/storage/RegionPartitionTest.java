@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.si.constants.SIConstants;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class RegionPartitionTest{
+    private static final byte[] FAMILY=SIConstants.DEFAULT_FAMILY_BYTES;
+    private static final byte[] QUALIFIER=SIConstants.PACKED_COLUMN_BYTES;
+
+    private static HBaseTestingUtility testUtility;
+    private static HRegion region;
+    private static RegionPartition partition;
+
+    @BeforeClass
+    public static void setUp() throws Exception{
+        testUtility=new HBaseTestingUtility();
+        HTableDescriptor descriptor=new HTableDescriptor(TableName.valueOf("RegionPartitionTest"));
+        descriptor.addFamily(new HColumnDescriptor(FAMILY).setMaxVersions(Integer.MAX_VALUE));
+        region=testUtility.createLocalHRegion(descriptor,null,null);
+        partition=new RegionPartition(region);
+
+        //rows 0,2,4,...,98, each with two versions
+        for(int i=0;i<100;i+=2){
+            Put put=new Put(key(i));
+            put.add(FAMILY,QUALIFIER,1L,Bytes.toBytes("old"+i));
+            put.add(FAMILY,QUALIFIER,2L,Bytes.toBytes("new"+i));
+            region.put(put);
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception{
+        if(region!=null)
+            region.close();
+        testUtility.cleanupTestDir();
+    }
+
+    @Test
+    public void batchMatchesIndividualGets() throws Exception{
+        List<byte[]> keys=Arrays.asList(key(0),key(1),key(2),key(2),key(3),key(50),key(97),key(98));
+        DataResult[] results=partition.getLatest(keys);
+        Assert.assertEquals(keys.size(),results.length);
+        for(int i=0;i<keys.size();i++){
+            DataResult single=partition.getLatest(keys.get(i),null);
+            if(single.size()<=0){
+                Assert.assertNull("Found a row for "+Bytes.toStringBinary(keys.get(i)),results[i]);
+            }else{
+                Assert.assertNotNull("Missing row for "+Bytes.toStringBinary(keys.get(i)),results[i]);
+                Assert.assertEquals(1,results[i].size());
+                DataCell cell=results[i].latestCell(FAMILY,QUALIFIER);
+                Assert.assertEquals(2L,cell.version());
+                Assert.assertArrayEquals(single.latestCell(FAMILY,QUALIFIER).value(),cell.value());
+            }
+        }
+    }
+
+    @Test
+    public void batchPastTheLastRow() throws Exception{
+        DataResult[] results=partition.getLatest(Arrays.asList(key(98),key(99),key(120)));
+        Assert.assertNotNull(results[0]);
+        Assert.assertArrayEquals(Bytes.toBytes("new98"),results[0].latestCell(FAMILY,QUALIFIER).value());
+        Assert.assertNull(results[1]);
+        Assert.assertNull(results[2]);
+    }
+
+    @Test
+    public void emptyBatch() throws Exception{
+        Assert.assertEquals(0,partition.getLatest(Arrays.<byte[]>asList()).length);
+    }
+
+    private static byte[] key(int i){
+        return Bytes.toBytes(i);
+    }
+}
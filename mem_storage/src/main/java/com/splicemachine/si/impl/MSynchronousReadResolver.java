@@ -30,6 +30,8 @@ import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -85,11 +87,7 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
                     trafficControl.release(1);
                 }
             }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
-                }
-                if(t==Txn.ROOT_TRANSACTION){
+                if(isCommitted(transaction)){
                     trafficControl.acquire(1);
                     try{
                         MSynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
@@ -113,8 +111,80 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public void resolve(Partition region,ByteSlice[] rowKeys,long[] txnIds,boolean[] resolved,int size,
+                        TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return; //do nothing if we are closing or rollforward is disabled
+
+        DataPut[] commits=new DataPut[size];
+        int[] commitPositions=new int[size];
+        int numCommits=0;
+        for(int i=0;i<size;i++){
+            TxnView transaction;
+            try{
+                transaction=supplier.getTransaction(txnIds[i]);
+            }catch(IOException e){
+                LOG.info("Unable to fetch transaction for id "+txnIds[i]+", will not resolve",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+                continue;
+            }
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK){
+                resolved[i]=resolve(region,rowKeys[i],txnIds[i],supplier,status,failOnError,trafficControl);
+                continue;
+            }
+            if(isCommitted(transaction)){
+                commits[numCommits]=newCommitPut(rowKeys[i],txnIds[i],transaction.getEffectiveCommitTimestamp());
+                commitPositions[numCommits]=i;
+                numCommits++;
+            }
+            status.rowResolved();
+        }
+        if(numCommits<=0) return;
+        if(numCommits<size)
+            commits=Arrays.copyOf(commits,numCommits);
+
+        try{
+            trafficControl.acquire(numCommits);
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try{
+            Iterator<MutationStatus> statuses=region.writeBatch(commits);
+            for(int i=0;i<numCommits && statuses.hasNext();i++){
+                resolved[commitPositions[i]]=statuses.next().isSuccess();
+            }
+        }catch(IOException e){
+            if(failOnError)
+                throw new RuntimeException(e);
+        }finally{
+            trafficControl.release(numCommits);
+        }
+    }
+
     /******************************************************************************************************************/
     /*private helper methods */
+    private static boolean isCommitted(TxnView transaction){
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
+    private static DataPut newCommitPut(ByteSlice rowKey,long txnId,long commitTimestamp){
+        DataPut put=new MPut(rowKey.getByteCopy());
+        put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
+                Bytes.toBytes(commitTimestamp));
+        put.addAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
+        put.addAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        return put;
+    }
+
     private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
         /*
          * Resolve the row as committed directly.
@@ -124,12 +194,7 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
-        DataPut put=new MPut(rowKey.getByteCopy());
-        put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,
-                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
-                Bytes.toBytes(commitTimestamp));
-        put.addAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
-        put.addAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        DataPut put=newCommitPut(rowKey,txnId,commitTimestamp);
         try{
             region.put(put);
         }catch(IOException e){
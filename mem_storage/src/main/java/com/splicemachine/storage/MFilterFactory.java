@@ -15,7 +15,10 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.utils.Pair;
+
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @author Scott Fines
@@ -51,4 +54,9 @@ public class MFilterFactory implements DataFilterFactory{
             }
         };
     }
+
+    @Override
+    public DataFilter multiRowRangeFilter(List<Pair<byte[],byte[]>> ranges) throws IOException{
+        return new MRowRangeFilter(ranges);
+    }
 }
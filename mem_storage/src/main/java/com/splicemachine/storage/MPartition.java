@@ -286,6 +286,17 @@ public class MPartition implements Partition{
         return new MResult(results);
     }
 
+    @Override
+    public DataResult[] getLatest(List<byte[]> sortedKeys) throws IOException{
+        DataResult[] results=new DataResult[sortedKeys.size()];
+        for(int i=0;i<results.length;i++){
+            DataResult result=getLatest(sortedKeys.get(i),null);
+            if(result.size()>0)
+                results[i]=result;
+        }
+        return results;
+    }
+
     @Override
     public Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException{
         final ByteBuffer wrap=ByteBuffer.wrap(key,keyOff,keyLen);
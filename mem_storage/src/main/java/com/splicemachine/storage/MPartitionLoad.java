@@ -45,4 +45,9 @@ public class MPartitionLoad implements PartitionLoad{
     public String getPartitionName(){
         return partitionName;
     }
+
+    @Override
+    public long getWriteRequestCount(){
+        return -1l;
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Accepts the rows whose key is in one of a list of ranges.
+ *
+ * @see DataFilterFactory#multiRowRangeFilter(List)
+ */
+class MRowRangeFilter implements DataFilter{
+    private final byte[][] startKeys;
+    private final byte[][] stopKeys;
+
+    MRowRangeFilter(List<Pair<byte[],byte[]>> ranges){
+        this.startKeys=new byte[ranges.size()][];
+        this.stopKeys=new byte[ranges.size()][];
+        for(int i=0;i<ranges.size();i++){
+            startKeys[i]=ranges.get(i).getFirst();
+            stopKeys[i]=ranges.get(i).getSecond();
+        }
+    }
+
+    @Override
+    public ReturnCode filterCell(DataCell keyValue) throws IOException{
+        byte[] key=keyValue.keyArray();
+        int offset=keyValue.keyOffset();
+        int length=keyValue.keyLength();
+        for(int i=0;i<startKeys.length;i++){
+            if(!Bytes.empty(startKeys[i])
+                    && Bytes.BASE_COMPARATOR.compare(startKeys[i],0,startKeys[i].length,key,offset,length)>0)
+                continue;
+            if(Bytes.empty(stopKeys[i])
+                    || Bytes.BASE_COMPARATOR.compare(stopKeys[i],0,stopKeys[i].length,key,offset,length)>0)
+                return ReturnCode.INCLUDE;
+        }
+        return ReturnCode.NEXT_ROW;
+    }
+
+    @Override
+    public boolean filterRow() throws IOException{
+        return false;
+    }
+
+    @Override
+    public void reset() throws IOException{
+    }
+}
@@ -90,6 +90,21 @@ class SetScanner implements DataScanner{
         return currentRow;
     }
 
+    @Override
+    public int nextBatch(RowBatch batch) throws IOException{
+        batch.clear();
+        while(!batch.isFull()){
+            List<DataCell> row = next(-1);
+            if(row.size()<=0) break;
+            //the row list is reused, but the cells themselves are not
+            for(int i=0;i<row.size();i++){
+                batch.addCell(row.get(i));
+            }
+            batch.endRow();
+        }
+        return batch.size();
+    }
+
     private boolean fillNextRow(int limit) throws IOException{
         currentRow.clear();
         DataCell n;
@@ -79,8 +79,10 @@ public abstract class PipelineLoadService<TableNameInfo> implements DatabaseLife
 
     @Override
     public void shutdown() throws Exception{
-        if(ctxLoader!=null)
+        if(ctxLoader!=null){
+            ctxLoader.partitionClosed(basePartition);
             ctxLoader.close();
+        }
     }
 
     public PipelineCompressor getCompressor(){
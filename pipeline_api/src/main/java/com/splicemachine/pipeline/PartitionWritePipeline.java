@@ -19,7 +19,6 @@ import com.splicemachine.access.api.NotServingPartitionException;
 import com.splicemachine.access.api.RegionBusyException;
 import com.splicemachine.access.api.ServerControl;
 import com.splicemachine.kvpair.KVPair;
-import com.splicemachine.pipeline.api.Code;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.PipelineMeter;
 import com.splicemachine.pipeline.api.PipelineTooBusy;
@@ -36,7 +35,6 @@ import com.splicemachine.storage.Partition;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Map;
 
 /**
  * The entry/starting point for BulkWrites remotely (on the region server for the table they will mutate).
@@ -135,31 +133,12 @@ public class PartitionWritePipeline{
         }
         try{
             ctx.flush();
-            Map<KVPair, WriteResult> rowResultMap=ctx.close();
-            BulkWriteResult response=new BulkWriteResult();
-            int failed=0;
-            int size=write.getSize();
-            Collection<KVPair> kvPairs=write.getMutations();
-            int i=0;
-            for(KVPair kvPair : kvPairs){
-                WriteResult result=rowResultMap.get(kvPair);
-                if(result==null){
-                    /* in case a kvPair is of CANCEL type, it may be ignored and no result is returned.
-                     * Mark the result as SUCCESS
-                     * */
-                    result=new WriteResult(Code.SUCCESS);
-                }
-                if(!result.isSuccess())
-                    failed++;
-                response.addResult(i,result);
-                i++;
-            }
-            if(failed>0){
-                response.setGlobalStatus(WriteResult.partial());
-            }else
-                response.setGlobalStatus(WriteResult.success());
-
-            pipelineMeters.mark(size-failed,failed);
+            /*
+             * Mutations without a result (e.g. a CANCEL, which may be ignored) are successful
+             */
+            BulkWriteResult response=ctx.close();
+            int failed=response.getFailedRows().size()+response.getNotRunRows().size();
+            pipelineMeters.mark(write.getSize()-failed,failed);
             return response;
         }catch(IOException nsre){
             Throwable throwable=exceptionFactory.processPipelineException(nsre);
@@ -38,6 +38,7 @@ import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
 import com.splicemachine.pipeline.traffic.SynchronousWriteControl;
+import com.splicemachine.pipeline.utils.AdaptivePipelineCompressor;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 
 /**
@@ -134,6 +135,10 @@ public class PipelineDriver{
         if(jmxRegistered.compareAndSet(false,true)){
             ObjectName coordinatorName=new ObjectName("com.splicemachine.derby.hbase:type=ActiveWriteHandlers");
             mbs.registerMBean(handlerMeter,coordinatorName);
+            if(compressor instanceof AdaptivePipelineCompressor){
+                ObjectName compressionName=new ObjectName(PipelineConfiguration.COMPRESSION_STATUS_LOCATION);
+                mbs.registerMBean(((AdaptivePipelineCompressor)compressor).getStatistics(),compressionName);
+            }
         }
     }
 
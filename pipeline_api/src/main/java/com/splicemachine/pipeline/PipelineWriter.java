@@ -62,7 +62,7 @@ public class PipelineWriter{
         Collection<BulkWrite> bws = bulkWrites.getBulkWrites();
         int numBulkWrites = bulkWrites.getBulkWrites().size();
         List<BulkWriteResult> result = new ArrayList<>(numBulkWrites);
-        SharedCallBufferFactory indexWriteBufferFactory = new SharedCallBufferFactory(writeCoordinator);
+        SharedCallBufferFactory indexWriteBufferFactory = new SharedCallBufferFactory(writeCoordinator,writePipelineFactory);
 
         if (numBulkWrites==0) {
             throw exceptionFactory.doNotRetry("Should Never Send Empty Call to Endpoint");
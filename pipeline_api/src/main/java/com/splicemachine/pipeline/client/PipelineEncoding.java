@@ -33,10 +33,24 @@ import java.util.*;
  *         Date: 1/19/15
  */
 public class PipelineEncoding {
+    /*
+     * The first byte of a front-coded BulkWrites. The original encoding starts with the (order-preserving)
+     * encoded length of the transaction bytes, whose first byte always has the high bit set, so the two
+     * can be told apart.
+     */
+    static final byte FRONT_CODED_VERSION = 0x01;
 
     public static byte[] encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites){
+        return encode(operationFactory,bulkWrites,0);
+    }
+
+    /**
+     * Encode a BulkWrites after {@code headerSize} leading bytes, which are left for the caller to fill in.
+     */
+    public static byte[] encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites,int headerSize){
         /*
          * The encoding for a BulkWrites is as follows:
+         * Version (1 byte)
          * Txn (1-N bytes)
          * # of BulkWrites (1-N bytes)
          * for 1...# of BulkWrites:
@@ -51,11 +65,29 @@ public class PipelineEncoding {
          * sequence of KVPairs. This means that we can decode the necessary metadata eagerly,
          * but deserialize the KVPairs on an as-needed basis.
          *
+         * The KVPairs of a BulkWrite are encoded as follows:
+         * # of KVPairs
+         * # of type runs
+         * for 1...# of type runs:
+         *  type (1 byte), # of KVPairs of that type
+         * total length of the row keys and values which share a prefix with their predecessor
+         * for 1...# of KVPairs:
+         *  # of leading bytes shared with the previous row key, remainder of the row key
+         *  # of leading bytes shared with the previous value, remainder of the value
+         *
+         * The mutations in a BulkWrite are sorted by row key, and are usually all of the same type, so
+         * row keys share their salt, table prefix and leading primary key columns, and the types collapse to
+         * a single run. Values of the same table usually share their index header, which is what the value
+         * prefix picks up.
          */
         byte[] txnBytes = operationFactory.encode(bulkWrites.getTxn());
 
         int heapSize = bulkWrites.getBufferHeapSize();
-        ExpandingEncoder buffer = new ExpandingEncoder(heapSize+txnBytes.length);
+        ExpandingEncoder buffer = new ExpandingEncoder(headerSize+heapSize+txnBytes.length+1);
+        for(int i=0;i<headerSize;i++){
+            buffer.rawEncode((byte)0);
+        }
+        buffer.rawEncode(FRONT_CODED_VERSION);
         buffer.rawEncode(txnBytes);
 
         //encode BulkWrite metadata
@@ -70,21 +102,24 @@ public class PipelineEncoding {
         }
 
         for(BulkWrite bw:bws){
-            Collection<KVPair> mutations = bw.getMutations();
-            buffer.encode(mutations.size());
-            for(KVPair kvPair:mutations){
-                //TODO -sf- use a run-length encoding for type information here?
-                buffer.rawEncode(kvPair.getType().asByte());
-                buffer.rawEncode(kvPair.rowKeySlice());
-                buffer.rawEncode(kvPair.valueSlice());
-            }
+            encodeMutations(buffer,bw.getMutations());
         }
         return buffer.getBuffer();
     }
 
 
     public static BulkWrites decode(TxnOperationFactory operationFactory,byte[] data){
-        ExpandedDecoder decoder = new ExpandedDecoder(data);
+        return decode(operationFactory,data,0,data.length);
+    }
+
+    /**
+     * Decode a BulkWrites which is encoded in {@code length} bytes of {@code data}, starting at {@code offset}.
+     * The mutations are decoded from {@code data} lazily, so it must not be changed afterwards.
+     */
+    public static BulkWrites decode(TxnOperationFactory operationFactory,byte[] data,int offset,int length){
+        boolean frontCoded = length>0 && data[offset]==FRONT_CODED_VERSION;
+        int start = frontCoded?offset+1:offset;
+        ExpandedDecoder decoder = new ExpandedDecoder(data,start,offset+length-start);
         byte[] txnBytes = decoder.rawBytes();
         TxnView txn = operationFactory.decode(txnBytes,0,txnBytes.length);
         int bwSize = decoder.decodeInt();
@@ -97,9 +132,82 @@ public class PipelineEncoding {
             skipIndexWrites[i] = decoder.decodeByte();
         }
 
-        return new BulkWrites(new BulkWriteCol(skipIndexWrites,data,decoder.currentOffset(),stringNames),txn);
+        return new BulkWrites(new BulkWriteCol(skipIndexWrites,data,decoder.currentOffset(),stringNames,frontCoded),txn);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void encodeMutations(ExpandingEncoder buffer,Collection<KVPair> mutations){
+        int size = mutations.size();
+        buffer.encode(size);
+
+        int[] sharedLengths = new int[2*size];
+        int numRuns = 0;
+        int sharedBytes = 0;
+        KVPair.Type lastType = null;
+        ByteSlice lastRowKey = null;
+        ByteSlice lastValue = null;
+        int i = 0;
+        for(KVPair kvPair:mutations){
+            if(kvPair.getType()!=lastType){
+                numRuns++;
+                lastType = kvPair.getType();
+            }
+            ByteSlice rowKey = kvPair.rowKeySlice();
+            ByteSlice value = kvPair.valueSlice();
+            int sharedKey = lastRowKey==null?0:sharedPrefixLength(lastRowKey,rowKey);
+            int sharedValue = lastValue==null?0:sharedPrefixLength(lastValue,value);
+            sharedLengths[i++] = sharedKey;
+            sharedLengths[i++] = sharedValue;
+            if(sharedKey>0) sharedBytes+=rowKey.length();
+            if(sharedValue>0) sharedBytes+=value.length();
+            lastRowKey = rowKey;
+            lastValue = value;
+        }
+
+        //run-length encode the types
+        buffer.encode(numRuns);
+        if(numRuns>0){
+            Iterator<KVPair> iter = mutations.iterator();
+            lastType = iter.next().getType();
+            int runLength = 1;
+            while(iter.hasNext()){
+                KVPair.Type type = iter.next().getType();
+                if(type==lastType)
+                    runLength++;
+                else{
+                    buffer.rawEncode(lastType.asByte()).encode(runLength);
+                    lastType = type;
+                    runLength = 1;
+                }
+            }
+            buffer.rawEncode(lastType.asByte()).encode(runLength);
+        }
+
+        buffer.encode(sharedBytes);
+        i = 0;
+        for(KVPair kvPair:mutations){
+            encodeSuffix(buffer,sharedLengths[i++],kvPair.rowKeySlice());
+            encodeSuffix(buffer,sharedLengths[i++],kvPair.valueSlice());
+        }
     }
 
+    private static void encodeSuffix(ExpandingEncoder buffer,int shared,ByteSlice slice){
+        buffer.encode(shared);
+        buffer.rawEncode(slice.array(),slice.offset()+shared,slice.length()-shared);
+    }
+
+    private static int sharedPrefixLength(ByteSlice previous,ByteSlice current){
+        byte[] pArray = previous.array();
+        byte[] cArray = current.array();
+        int pOffset = previous.offset();
+        int cOffset = current.offset();
+        int max = Math.min(previous.length(),current.length());
+        int shared = 0;
+        while(shared<max && pArray[pOffset+shared]==cArray[cOffset+shared])
+            shared++;
+        return shared;
+    }
 
     /***********************************************************************************************************/
     /*private helper classes*/
@@ -108,6 +216,7 @@ public class PipelineEncoding {
         private final List<String> encodedStringNames;
         private final byte[] skipIndexWrites;
         private final byte[] buffer;
+        private final boolean frontCoded;
         /*
          * we keep a cache of previously created BulkWrites, so that we can have
          * deterministic iteration (i.e. returning the same objects instead of
@@ -117,11 +226,12 @@ public class PipelineEncoding {
         private transient ExpandedDecoder decoder;
         private transient int lastIndex = 0;
 
-        public BulkWriteCol(byte[] skipIndexWrites, byte[] buffer,int kvOffset, List<String> encodedStringNames) {
+        public BulkWriteCol(byte[] skipIndexWrites, byte[] buffer,int kvOffset, List<String> encodedStringNames,boolean frontCoded) {
             this.kvOffset = kvOffset;
             this.encodedStringNames = encodedStringNames;
             this.buffer = buffer;
             this.skipIndexWrites = skipIndexWrites;
+            this.frontCoded = frontCoded;
         }
 
         @Override
@@ -165,6 +275,15 @@ public class PipelineEncoding {
                 String esN = encodedStrings.next();
                 byte skipIndexWrite = skipIndexWrites[index++];
                 int size = decoder.decodeInt();
+                Collection<KVPair> kvPairs = frontCoded?decodeFrontCoded(size):decodeRaw(size);
+
+                BulkWrite bulkWrite = new BulkWrite(kvPairs, esN, skipIndexWrite);
+                cache.add(bulkWrite);
+                lastIndex=index;
+                return bulkWrite;
+            }
+
+            private Collection<KVPair> decodeRaw(int size){
                 Collection<KVPair> kvPairs = new ArrayList<>(size);
                 KVPair template = new KVPair();
                 ByteSlice rowKeySlice = template.rowKeySlice();
@@ -175,12 +294,57 @@ public class PipelineEncoding {
                     decoder.sliceNext(valueSlice);
                     kvPairs.add(template.shallowClone());
                 }
+                return kvPairs;
+            }
 
+            private Collection<KVPair> decodeFrontCoded(int size){
+                Collection<KVPair> kvPairs = new ArrayList<>(size);
+                int numRuns = decoder.decodeInt();
+                KVPair.Type[] types = new KVPair.Type[numRuns];
+                int[] runLengths = new int[numRuns];
+                for(int i=0;i<numRuns;i++){
+                    types[i] = KVPair.Type.decode(decoder.rawByte());
+                    runLengths[i] = decoder.decodeInt();
+                }
+                /*
+                 * Row keys and values which share nothing with their predecessor are sliced straight
+                 * out of the buffer, as before. Only those which do are rebuilt, all into one array.
+                 */
+                byte[] rebuilt = new byte[decoder.decodeInt()];
+                int rebuiltOffset = 0;
+                ByteSlice suffix = new ByteSlice();
+                KVPair template = new KVPair();
+                ByteSlice rowKeySlice = template.rowKeySlice();
+                ByteSlice valueSlice = template.valueSlice();
+                int run = 0;
+                int remainingInRun = numRuns>0?runLengths[0]:0;
+                for(int i=0;i<size;i++){
+                    while(remainingInRun==0)
+                        remainingInRun = runLengths[++run];
+                    remainingInRun--;
+                    template.setType(types[run]);
+                    rebuiltOffset = decodeSuffix(rowKeySlice,suffix,rebuilt,rebuiltOffset);
+                    rebuiltOffset = decodeSuffix(valueSlice,suffix,rebuilt,rebuiltOffset);
+                    kvPairs.add(template.shallowClone());
+                }
+                return kvPairs;
+            }
 
-                BulkWrite bulkWrite = new BulkWrite(kvPairs, esN, skipIndexWrite);
-                cache.add(bulkWrite);
-                lastIndex=index;
-                return bulkWrite;
+            /*
+             * replaces the previous row key (or value) held in the slice with the next one
+             */
+            private int decodeSuffix(ByteSlice slice,ByteSlice suffix,byte[] rebuilt,int rebuiltOffset){
+                int shared = decoder.decodeInt();
+                if(shared==0){
+                    decoder.sliceNext(slice);
+                    return rebuiltOffset;
+                }
+                decoder.sliceNext(suffix);
+                int length = shared+suffix.length();
+                System.arraycopy(slice.array(),slice.offset(),rebuilt,rebuiltOffset,shared);
+                System.arraycopy(suffix.array(),suffix.offset(),rebuilt,rebuiltOffset+shared,suffix.length());
+                slice.set(rebuilt,rebuiltOffset,length);
+                return rebuiltOffset+length;
             }
         }
     }
@@ -32,6 +32,7 @@ import com.splicemachine.metrics.MetricFactory;
 import com.splicemachine.metrics.Metrics;
 import com.splicemachine.pipeline.api.BulkWriterFactory;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
+import com.splicemachine.pipeline.api.WritePipelineFactory;
 import com.splicemachine.pipeline.api.Writer;
 import com.splicemachine.pipeline.callbuffer.BufferConfiguration;
 import com.splicemachine.pipeline.callbuffer.PipingCallBuffer;
@@ -43,6 +44,7 @@ import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.threadpool.MonitoredThreadPool;
 import com.splicemachine.pipeline.utils.PipelineUtils;
 import com.splicemachine.pipeline.writer.AsyncBucketingWriter;
+import com.splicemachine.pipeline.writer.CoLocatedFirstWriter;
 import com.splicemachine.pipeline.writer.SynchronousBucketingWriter;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
@@ -190,6 +192,19 @@ public class WriteCoordinator {
         return new MonitoredPipingCallBuffer(partition, txn, asynchronousWriter, flushHook, writeConfiguration, monitor, false);
     }
 
+    /**
+     * Get a buffer for writes made from within the write pipeline of a partition on this server (e.g. index writes).
+     * Writes to partitions which are hosted on this server are applied in the flushing thread, the rest are
+     * written asynchronously.
+     */
+    public RecordingCallBuffer<KVPair> coLocatedWriteBuffer(Partition partition, TxnView txn,
+                                                            PreFlushHook flushHook, WriteConfiguration writeConfiguration,
+                                                            WritePipelineFactory localPipelines) {
+        monitor.outstandingBuffers.incrementAndGet();
+        Writer writer = new CoLocatedFirstWriter(synchronousWriter, asynchronousWriter, localPipelines);
+        return new MonitoredPipingCallBuffer(partition, txn, writer, flushHook, writeConfiguration, monitor, false);
+    }
+
     public RecordingCallBuffer<KVPair> writeBuffer(Partition partition, TxnView txn, final int maxEntries) {
         BufferConfiguration config = new BufferConfiguration() {
             @Override public long getMaxHeapSize() { return Long.MAX_VALUE; }
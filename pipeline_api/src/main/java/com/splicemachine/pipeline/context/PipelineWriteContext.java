@@ -21,7 +21,7 @@ import com.splicemachine.access.util.CachedPartitionFactory;
 import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.callbuffer.CallBuffer;
-import com.splicemachine.pipeline.api.Code;
+import com.splicemachine.pipeline.client.BulkWriteResult;
 import com.splicemachine.pipeline.writehandler.WriteHandler;
 import com.splicemachine.pipeline.client.WriteResult;
 import com.splicemachine.pipeline.writehandler.SharedCallBufferFactory;
@@ -33,8 +33,9 @@ import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 import org.spark_project.guava.collect.Maps;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -46,7 +47,16 @@ public class PipelineWriteContext implements WriteContext, Comparable<PipelineWr
     private static final Logger LOG = Logger.getLogger(PipelineWriteContext.class);
     private static final AtomicInteger idGen = new AtomicInteger(0);
 
-    private final Map<KVPair, WriteResult> resultsMap;
+    /*
+     * The mutations sent through this context, in the order they were sent (the order of the BulkWrite),
+     * so that a mutation's position in this list is its position in the BulkWrite.
+     */
+    private final List<KVPair> mutations;
+    /*
+     * The results of the mutations which did not succeed. Nearly every mutation succeeds, so rather than
+     * recording a result for every mutation, any mutation without an entry here is successful.
+     */
+    private final Map<KVPair, WriteResult> failures;
     private final TransactionalRegion rce;
     private final CachedPartitionFactory partitionFactory;
     private final TxnView txn;
@@ -63,13 +73,15 @@ public class PipelineWriteContext implements WriteContext, Comparable<PipelineWr
                                  CachedPartitionFactory partitionFactory,
                                  TxnView txn,
                                  TransactionalRegion rce,
+                                 int expectedWrites,
                                  boolean skipIndexWrites,
                                  ServerControl env,
                                 PipelineExceptionFactory pef) {
         this.indexSharedCallBuffer = indexSharedCallBuffer;
         this.env = env;
         this.rce = rce;
-        this.resultsMap = Maps.newIdentityHashMap();
+        this.mutations = new ArrayList<>(expectedWrites);
+        this.failures = Maps.newIdentityHashMap();
         this.txn = txn;
         this.skipIndexWrites = skipIndexWrites;
         this.head = this.tail = new WriteNode(null, this);
@@ -86,39 +98,43 @@ public class PipelineWriteContext implements WriteContext, Comparable<PipelineWr
 
     @Override
     public void notRun(KVPair mutation) {
-        resultsMap.put(mutation, WriteResult.notRun());
+        failures.put(mutation, WriteResult.notRun());
     }
 
     @Override
     public void sendUpstream(KVPair mutation) {
+        mutations.add(mutation);
         head.sendUpstream(mutation);
     }
 
     @Override
     public void failed(KVPair put, WriteResult mutationResult) {
-        resultsMap.put(put, mutationResult);
+        result(put, mutationResult);
     }
 
     @Override
     public void success(KVPair put) {
-        resultsMap.put(put, WriteResult.success());
+        if (!failures.isEmpty())
+            failures.remove(put);
     }
 
     @Override
     public void result(KVPair put, WriteResult result) {
-        resultsMap.put(put, result);
+        if (result.isSuccess())
+            success(put);
+        else
+            failures.put(put, result);
     }
 
     @Override
     public void result(byte[] resultRowKey, WriteResult result) {
-        for (KVPair kvPair : resultsMap.keySet()) {
-            byte[] currentRowKey = kvPair.getRowKey();
-            if (Arrays.equals(currentRowKey, resultRowKey)) {
-                resultsMap.put(kvPair, result);
+        for (KVPair kvPair : mutations) {
+            if (kvPair.rowKeySlice().equals(resultRowKey, 0, resultRowKey.length)) {
+                result(kvPair, result);
                 return;
             }
         }
-        throw new IllegalArgumentException("expected existing value in resultsMap");
+        throw new IllegalArgumentException("expected existing mutation in context");
     }
 
     @Override
@@ -173,8 +189,7 @@ public class PipelineWriteContext implements WriteContext, Comparable<PipelineWr
 
     @Override
     public boolean canRun(KVPair input) {
-        WriteResult result = resultsMap.get(input);
-        return result == null || result.getCode() == Code.SUCCESS;
+        return failures.isEmpty() || !failures.containsKey(input);
     }
 
     @Override
@@ -183,13 +198,27 @@ public class PipelineWriteContext implements WriteContext, Comparable<PipelineWr
     }
 
     @Override
-    public Map<KVPair, WriteResult> close() throws IOException {
-        return resultsMap;
+    public BulkWriteResult close() throws IOException {
+        BulkWriteResult response = new BulkWriteResult();
+        if (!failures.isEmpty()) {
+            int i = 0;
+            for (KVPair mutation : mutations) {
+                WriteResult result = failures.get(mutation);
+                if (result != null)
+                    response.addResult(i, result);
+                i++;
+            }
+        }
+        if (response.getFailedRows().size() > 0 || response.getNotRunRows().size() > 0)
+            response.setGlobalStatus(WriteResult.partial());
+        else
+            response.setGlobalStatus(WriteResult.success());
+        return response;
     }
 
     @Override
     public Map<KVPair, WriteResult> currentResults(){
-        return resultsMap;
+        return failures;
     }
 
     @Override
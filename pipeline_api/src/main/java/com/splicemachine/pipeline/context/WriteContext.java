@@ -19,6 +19,7 @@ import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.callbuffer.CallBuffer;
+import com.splicemachine.pipeline.client.BulkWriteResult;
 import com.splicemachine.pipeline.client.WriteResult;
 import com.splicemachine.access.api.ServerControl;
 import com.splicemachine.si.api.server.TransactionalRegion;
@@ -93,10 +94,15 @@ public interface WriteContext {
     void flush() throws IOException;
 
     /**
-     * Close
+     * Close, returning the results of the mutations sent through this context, by their
+     * position in the BulkWrite
      */
-    Map<KVPair, WriteResult> close() throws IOException;
+    BulkWriteResult close() throws IOException;
 
+    /**
+     * @return the results of the mutations which have not succeeded (so far). Mutations without
+     * a result are successful.
+     */
     Map<KVPair,WriteResult> currentResults();
     /**
      * CanRun
@@ -24,6 +24,7 @@ import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.callbuffer.CallBuffer;
 import com.splicemachine.pipeline.writehandler.WriteHandler;
+import com.splicemachine.pipeline.client.BulkWriteResult;
 import com.splicemachine.pipeline.client.WriteResult;
 import com.splicemachine.si.api.server.TransactionalRegion;
 import com.splicemachine.si.api.txn.TxnView;
@@ -57,7 +58,7 @@ public class WriteNode implements WriteContext {
     }
 
     @Override
-    public Map<KVPair, WriteResult> close() throws IOException {
+    public BulkWriteResult close() throws IOException {
         handler.close(this);
         return null; //ignored
     }
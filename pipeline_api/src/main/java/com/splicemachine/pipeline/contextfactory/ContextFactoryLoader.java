@@ -17,6 +17,7 @@ package com.splicemachine.pipeline.contextfactory;
 
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.Partition;
 
 import java.io.IOException;
 import java.util.Set;
@@ -39,5 +40,13 @@ public interface ContextFactoryLoader extends AutoCloseable{
 
     void ddlChange(DDLMessage.DDLChange ddlChange);
 
+    /**
+     * Called when a partition of the conglomerate is closed on this server (e.g. because it is moved or split), so
+     * that any state kept about the partition can be dropped.
+     *
+     * @param partition the partition which was closed
+     */
+    void partitionClosed(Partition partition);
+
     void close();
 }
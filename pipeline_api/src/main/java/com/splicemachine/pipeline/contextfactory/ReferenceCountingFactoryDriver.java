@@ -17,6 +17,7 @@ package com.splicemachine.pipeline.contextfactory;
 
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.Partition;
 
 import java.io.IOException;
 import java.util.Set;
@@ -104,5 +105,10 @@ public abstract class ReferenceCountingFactoryDriver implements ContextFactoryDr
             if(!loaded) return; //ignore changes that occur before we have a chance to load them
             delegate.ddlChange(ddlChange);
         }
+
+        @Override
+        public void partitionClosed(Partition partition){
+            delegate.partitionClosed(partition);
+        }
     }
 }
@@ -17,6 +17,7 @@ package com.splicemachine.pipeline.contextfactory;
 
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.Partition;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -41,6 +42,11 @@ public class UnmanagedFactoryLoader implements ContextFactoryLoader{
         //no-op
     }
 
+    @Override
+    public void partitionClosed(Partition partition){
+        //no-op
+    }
+
     @Override
     public void load(TxnView txn) throws IOException, InterruptedException{
         //no-op
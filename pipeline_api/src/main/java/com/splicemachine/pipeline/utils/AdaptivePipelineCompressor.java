@@ -0,0 +1,228 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import com.splicemachine.pipeline.client.BulkWrites;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PipelineCompressor which LZ4-compresses the BulkWrites encoded by another compressor.
+ *
+ * LZ4 uses the native library when it can be loaded, and a pure Java implementation otherwise, so
+ * compression doesn't depend on the native codecs installed on the node.
+ *
+ * Payloads smaller than the minimum size aren't worth compressing and are sent as is. Neither are payloads
+ * which recently did not compress well: when one shrinks by less than {@link #MAX_COMPRESSED_RATIO}, the next
+ * {@link #SAMPLE_INTERVAL} payloads are sent uncompressed before compression is tried again.
+ *
+ * A compressed payload starts with the {@link #LZ4} marker. Anything else is sent exactly as the delegate
+ * encoded it, which is what nodes without this compressor send and expect. The PipelineEncoding of a
+ * BulkWrites never starts with the marker, so the two can be told apart, and nodes of both kinds can read
+ * each other's uncompressed writes. Nodes without this compressor can't read compressed writes though, so
+ * compression should be disabled until every node of the cluster runs it.
+ *
+ * Other objects (the results of the writes, mostly) are small, and their encoding has no such property, so
+ * they are never compressed.
+ */
+public class AdaptivePipelineCompressor implements PipelineCompressor{
+    private static final Logger LOG=Logger.getLogger(AdaptivePipelineCompressor.class);
+    /*
+     * PipelineEncoding starts with its version (0x01), or with the encoded transaction length, whose high bit
+     * is always set
+     */
+    static final byte LZ4=0x02;
+    /*
+     * The compressed header is the marker byte, followed by the uncompressed length
+     */
+    private static final int LZ4_HEADER_SIZE=5;
+
+    static final double MAX_COMPRESSED_RATIO=0.9d;
+    static final int SAMPLE_INTERVAL=64;
+
+    private final PipelineCompressor delegate;
+    private final int minCompressionSize;
+    private final LZ4Factory lz4;
+    private final LZ4Compressor lz4Compressor;
+    private final LZ4FastDecompressor lz4Decompressor;
+
+    private final AtomicInteger uncompressedRemaining=new AtomicInteger(0);
+    private final Metrics metrics=new Metrics();
+
+    /**
+     * @param delegate the compressor which encodes the objects to bytes
+     * @param minCompressionSize the minimum size (in bytes) of a payload to compress. When negative, nothing
+     *                           is compressed.
+     */
+    public AdaptivePipelineCompressor(PipelineCompressor delegate,int minCompressionSize){
+        this.delegate=delegate;
+        this.minCompressionSize=minCompressionSize;
+        this.lz4=LZ4Factory.fastestInstance();
+        this.lz4Compressor=lz4.fastCompressor();
+        this.lz4Decompressor=lz4.fastDecompressor();
+        if(LOG.isInfoEnabled())
+            LOG.info("Write Pipeline will compress data over the wire using "+lz4);
+    }
+
+    @Override
+    public InputStream compressedInput(InputStream input) throws IOException{
+        return delegate.compressedInput(input);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream output) throws IOException{
+        return delegate.compress(output);
+    }
+
+    @Override
+    public byte[] compress(Object o) throws IOException{
+        return compress(o,0);
+    }
+
+    @Override
+    public byte[] compress(Object o,int headerSize) throws IOException{
+        byte[] data=delegate.compress(o,headerSize);
+        if(!(o instanceof BulkWrites))
+            return data;
+        int dataLength=data.length-headerSize;
+        if(!shouldCompress(dataLength))
+            return uncompressed(data);
+
+        long start=System.nanoTime();
+        int compressedOffset=headerSize+LZ4_HEADER_SIZE;
+        byte[] compressed=new byte[compressedOffset+lz4Compressor.maxCompressedLength(dataLength)];
+        int compressedLength=lz4Compressor.compress(data,headerSize,dataLength,compressed,compressedOffset,compressed.length-compressedOffset);
+        metrics.compressionNanos.addAndGet(System.nanoTime()-start);
+
+        if(compressedLength>dataLength*MAX_COMPRESSED_RATIO){
+            /*
+             * This payload didn't compress well, and the ones which follow it probably won't either, so
+             * skip compressing them for a while
+             */
+            uncompressedRemaining.set(SAMPLE_INTERVAL);
+            return uncompressed(data);
+        }
+        metrics.compressedPayloads.incrementAndGet();
+        metrics.bytesIn.addAndGet(dataLength);
+        metrics.bytesOut.addAndGet(compressedLength);
+
+        compressed[headerSize]=LZ4;
+        writeInt(dataLength,compressed,headerSize+1);
+        return Arrays.copyOf(compressed,compressedOffset+compressedLength);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
+        return decompress(bytes,0,bytes.length,clazz);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,int offset,int length,Class<T> clazz) throws IOException{
+        if(length<=0 || bytes[offset]!=LZ4 || !clazz.isAssignableFrom(BulkWrites.class))
+            return delegate.decompress(bytes,offset,length,clazz);
+
+        long start=System.nanoTime();
+        byte[] decompressed=new byte[readInt(bytes,offset+1)];
+        try{
+            lz4Decompressor.decompress(bytes,offset+LZ4_HEADER_SIZE,decompressed,0,decompressed.length);
+        }catch(LZ4Exception e){
+            throw new IOException(e);
+        }
+        metrics.decompressionNanos.addAndGet(System.nanoTime()-start);
+        return delegate.decompress(decompressed,clazz);
+    }
+
+    public CompressionStatistics getStatistics(){
+        return metrics;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean shouldCompress(int length){
+        if(minCompressionSize<0 || length<minCompressionSize) return false;
+        int remaining;
+        do{
+            remaining=uncompressedRemaining.get();
+            if(remaining<=0) return true;
+        }while(!uncompressedRemaining.compareAndSet(remaining,remaining-1));
+        return false;
+    }
+
+    private byte[] uncompressed(byte[] data){
+        metrics.uncompressedPayloads.incrementAndGet();
+        return data;
+    }
+
+    private static void writeInt(int value,byte[] buffer,int offset){
+        buffer[offset]=(byte)(value>>>24);
+        buffer[offset+1]=(byte)(value>>>16);
+        buffer[offset+2]=(byte)(value>>>8);
+        buffer[offset+3]=(byte)value;
+    }
+
+    private static int readInt(byte[] buffer,int offset){
+        return (buffer[offset]&0xFF)<<24
+                |(buffer[offset+1]&0xFF)<<16
+                |(buffer[offset+2]&0xFF)<<8
+                |(buffer[offset+3]&0xFF);
+    }
+
+    private class Metrics implements CompressionStatistics{
+        private final AtomicLong compressedPayloads=new AtomicLong(0l);
+        private final AtomicLong uncompressedPayloads=new AtomicLong(0l);
+        private final AtomicLong bytesIn=new AtomicLong(0l);
+        private final AtomicLong bytesOut=new AtomicLong(0l);
+        private final AtomicLong compressionNanos=new AtomicLong(0l);
+        private final AtomicLong decompressionNanos=new AtomicLong(0l);
+
+        @Override public String getImplementation(){ return lz4.toString(); }
+
+        @Override public long getTotalCompressedPayloads(){ return compressedPayloads.get(); }
+
+        @Override public long getTotalUncompressedPayloads(){ return uncompressedPayloads.get(); }
+
+        @Override public long getTotalBytesIn(){ return bytesIn.get(); }
+
+        @Override public long getTotalBytesOut(){ return bytesOut.get(); }
+
+        @Override
+        public double getCompressionRatio(){
+            long in=bytesIn.get();
+            return in==0?1d:((double)bytesOut.get())/in;
+        }
+
+        @Override
+        public long getTotalCompressionTimeMs(){
+            return TimeUnit.NANOSECONDS.toMillis(compressionNanos.get());
+        }
+
+        @Override
+        public long getTotalDecompressionTimeMs(){
+            return TimeUnit.NANOSECONDS.toMillis(decompressionNanos.get());
+        }
+    }
+}
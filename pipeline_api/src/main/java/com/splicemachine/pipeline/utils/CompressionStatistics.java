@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import javax.management.MXBean;
+
+/**
+ * Exposes how much the write pipeline's compression saves, and what it costs, via JMX.
+ */
+@MXBean
+public interface CompressionStatistics{
+
+    /**
+     * @return the name of the LZ4 implementation in use (native or pure Java)
+     */
+    String getImplementation();
+
+    /**
+     * @return the number of payloads which were sent compressed
+     */
+    long getTotalCompressedPayloads();
+
+    /**
+     * @return the number of payloads which were sent uncompressed, because they were too small or
+     * recent payloads did not compress well
+     */
+    long getTotalUncompressedPayloads();
+
+    /**
+     * @return the total size (in bytes) of the compressed payloads before compression
+     */
+    long getTotalBytesIn();
+
+    /**
+     * @return the total size (in bytes) of the compressed payloads after compression
+     */
+    long getTotalBytesOut();
+
+    /**
+     * @return the size of the compressed payloads after compression, relative to their size before
+     */
+    double getCompressionRatio();
+
+    /**
+     * @return the total time (in milliseconds) spent compressing payloads
+     */
+    long getTotalCompressionTimeMs();
+
+    /**
+     * @return the total time (in milliseconds) spent decompressing payloads
+     */
+    long getTotalDecompressionTimeMs();
+}
@@ -31,5 +31,16 @@ public interface PipelineCompressor{
 
    byte[] compress(Object o) throws IOException;
 
+   /**
+    * Encode an object after {@code headerSize} leading bytes, which are left for the caller to fill in. This
+    * lets a wrapping compressor add its own header without copying the encoded object.
+    */
+   byte[] compress(Object o, int headerSize) throws IOException;
+
    <T> T decompress(byte[] bytes, Class<T> clazz) throws IOException;
+
+   /**
+    * Decode an object which is encoded in {@code length} bytes of {@code bytes}, starting at {@code offset}.
+    */
+   <T> T decompress(byte[] bytes, int offset, int length, Class<T> clazz) throws IOException;
 }
@@ -53,11 +53,17 @@ public class SimplePipelineCompressor implements PipelineCompressor{
 
     @Override
     public byte[] compress(Object o) throws IOException{
+        return compress(o,0);
+    }
+
+    @Override
+    public byte[] compress(Object o,int headerSize) throws IOException{
         if(o instanceof BulkWrites){
             BulkWrites bw = (BulkWrites)o;
-            return PipelineEncoding.encode(txnOperationFactory,bw);
+            return PipelineEncoding.encode(txnOperationFactory,bw,headerSize);
         }else {
-            Output out = new Output(128,-1);
+            Output out = new Output(128+headerSize,-1);
+            out.setPosition(headerSize);
             Kryo kryo = kp.get();
             try{
                 kryo.writeObject(out,o);
@@ -71,10 +77,15 @@ public class SimplePipelineCompressor implements PipelineCompressor{
 
     @Override
     public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
+        return decompress(bytes,0,bytes.length,clazz);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,int offset,int length,Class<T> clazz) throws IOException{
         if(clazz.isAssignableFrom(BulkWrites.class))
-            return (T)PipelineEncoding.decode(txnOperationFactory,bytes);
+            return (T)PipelineEncoding.decode(txnOperationFactory,bytes,offset,length);
         else{
-            Input input = new Input(bytes);
+            Input input = new Input(bytes,offset,length);
             Kryo kryo = kp.get();
             try{
                 return kryo.readObject(input,clazz);
@@ -18,6 +18,7 @@ package com.splicemachine.pipeline.writehandler;
 import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 import com.splicemachine.access.api.PartitionFactory;
 import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.api.WritePipelineFactory;
 import com.splicemachine.pipeline.callbuffer.CallBuffer;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.context.WriteContext;
@@ -33,6 +34,9 @@ import java.io.IOException;
  * there will be N WriteContexts and N IndexWriteHandlers. We don't want N CallBuffers for remotely sending the index
  * writes. Thus this class.
  *
+ * Index writes to regions on this same region server are applied directly through the index region's write
+ * pipeline in the flushing thread, rather than being handed off to the writer pool.
+ *
  * This class is NOT thread safe.
  */
 @NotThreadSafe
@@ -42,10 +46,12 @@ public class SharedCallBufferFactory{
     private ObjectObjectOpenHashMap<byte[], CallBuffer<KVPair>> sharedCallBufferMap = new ObjectObjectOpenHashMap<>();
     private final WriteCoordinator writerPool;
     private final PartitionFactory partitionFactory;
+    private final WritePipelineFactory localPipelines;
 
-    public SharedCallBufferFactory(WriteCoordinator writerPool){
+    public SharedCallBufferFactory(WriteCoordinator writerPool,WritePipelineFactory localPipelines){
         this.writerPool=writerPool;
         this.partitionFactory = writerPool.getPartitionFactory();
+        this.localPipelines = localPipelines;
     }
 
     public CallBuffer<KVPair> getWriteBuffer(byte[] conglomBytes,
@@ -80,7 +86,7 @@ public class SharedCallBufferFactory{
         wc.registerContext(context, indexToMainMutationMap);
         CallBuffer<KVPair> writeBuffer;
         if (useAsyncWriteBuffers) {
-            writeBuffer = writerPool.writeBuffer(partitionFactory.getTable(conglomBytes), txn, hook, wc);
+            writeBuffer = writerPool.coLocatedWriteBuffer(partitionFactory.getTable(conglomBytes), txn, hook, wc, localPipelines);
         } else {
             writeBuffer = writerPool.synchronousWriteBuffer(partitionFactory.getTable(conglomBytes), txn, hook, wc, maxSize);
         }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.writer;
+
+import com.splicemachine.pipeline.api.WritePipelineFactory;
+import com.splicemachine.pipeline.api.WriteStats;
+import com.splicemachine.pipeline.api.Writer;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.config.WriteConfiguration;
+
+import javax.management.*;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Writer for the region-side writes a partition makes to other partitions (e.g. index writes), which applies
+ * writes destined for partitions hosted on this server in the calling thread, and hands the rest off
+ * to the asynchronous writer.
+ *
+ * A co-located write is already applied through the partition's write pipeline without an RPC, so handing it to
+ * another thread only adds a context switch for a write the caller will wait on anyway. The write still runs as a
+ * {@link com.splicemachine.pipeline.client.BulkWriteAction}, so it is retried (and re-routed, if the partition
+ * has moved in the meantime) just as an asynchronous write would be.
+ */
+public class CoLocatedFirstWriter implements Writer{
+    private final Writer localWriter;
+    private final Writer remoteWriter;
+    private final WritePipelineFactory pipelineFactory;
+
+    public CoLocatedFirstWriter(Writer localWriter,Writer remoteWriter,WritePipelineFactory pipelineFactory){
+        this.localWriter=localWriter;
+        this.remoteWriter=remoteWriter;
+        this.pipelineFactory=pipelineFactory;
+    }
+
+    @Override
+    public Future<WriteStats> write(byte[] tableName,BulkWrites bulkWrites,WriteConfiguration writeConfiguration) throws ExecutionException{
+        if(isCoLocated(bulkWrites))
+            return localWriter.write(tableName,bulkWrites,writeConfiguration);
+        return remoteWriter.write(tableName,bulkWrites,writeConfiguration);
+    }
+
+    @Override
+    public void stopWrites(){
+        //no-op, the underlying writers are owned by the WriteCoordinator
+    }
+
+    @Override
+    public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        //no-op, the underlying writers are registered by the WriteCoordinator
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * BulkWrites are bucketed by server, so if we host one of the partitions, we host them all
+     */
+    private boolean isCoLocated(BulkWrites bulkWrites){
+        Iterator<BulkWrite> bws=bulkWrites.getBulkWrites().iterator();
+        if(!bws.hasNext()) return false;
+        String encodedName=bws.next().getEncodedStringName();
+        return encodedName!=null && pipelineFactory.getPipeline(encodedName)!=null;
+    }
+}
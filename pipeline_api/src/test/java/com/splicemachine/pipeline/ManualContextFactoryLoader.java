@@ -18,6 +18,7 @@ package com.splicemachine.pipeline;
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.pipeline.contextfactory.*;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.Partition;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -64,6 +65,11 @@ public class ManualContextFactoryLoader implements ContextFactoryLoader{
         throw new UnsupportedOperationException("IMPLEMENT");
     }
 
+    @Override
+    public void partitionClosed(Partition partition){
+        //no-op
+    }
+
     @Override
     public void close(){
         //no-op
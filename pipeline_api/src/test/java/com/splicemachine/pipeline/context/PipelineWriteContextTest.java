@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.context;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.api.Code;
+import com.splicemachine.pipeline.client.BulkWriteResult;
+import com.splicemachine.pipeline.client.WriteResult;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class PipelineWriteContextTest{
+
+    @Test
+    public void closeWithOnlySuccesses() throws Exception{
+        PipelineWriteContext context=newContext(10);
+        for(KVPair kvPair : mutations(10)){
+            context.sendUpstream(kvPair);
+            context.success(kvPair);
+        }
+
+        BulkWriteResult result=context.close();
+        Assert.assertEquals(Code.SUCCESS,result.getGlobalResult().getCode());
+        Assert.assertTrue("Unexpected failed rows",result.getFailedRows().isEmpty());
+        Assert.assertTrue("Unexpected not run rows",result.getNotRunRows().isEmpty());
+    }
+
+    @Test
+    public void closeReportsFailuresByPosition() throws Exception{
+        List<KVPair> kvPairs=mutations(10);
+        PipelineWriteContext context=newContext(kvPairs.size());
+        for(KVPair kvPair : kvPairs){
+            context.sendUpstream(kvPair);
+        }
+        context.failed(kvPairs.get(0),WriteResult.failed("first"));
+        context.failed(kvPairs.get(4),WriteResult.failed("middle"));
+        context.failed(kvPairs.get(9),WriteResult.failed("last"));
+
+        BulkWriteResult result=context.close();
+        Assert.assertEquals(Code.PARTIAL,result.getGlobalResult().getCode());
+        Assert.assertEquals("Incorrect number of failed rows",3,result.getFailedRows().size());
+        Assert.assertEquals("first",result.getFailedRows().get(0).getErrorMessage());
+        Assert.assertEquals("middle",result.getFailedRows().get(4).getErrorMessage());
+        Assert.assertEquals("last",result.getFailedRows().get(9).getErrorMessage());
+        Assert.assertTrue("Unexpected not run rows",result.getNotRunRows().isEmpty());
+    }
+
+    @Test
+    public void closeReportsNotRunRows() throws Exception{
+        List<KVPair> kvPairs=mutations(5);
+        PipelineWriteContext context=newContext(kvPairs.size());
+        for(KVPair kvPair : kvPairs){
+            context.sendUpstream(kvPair);
+        }
+        context.notRun(kvPairs.get(1));
+        context.notRun(kvPairs.get(3));
+        Assert.assertFalse("Not run mutation can run",context.canRun(kvPairs.get(1)));
+        Assert.assertTrue("Mutation cannot run",context.canRun(kvPairs.get(2)));
+
+        BulkWriteResult result=context.close();
+        Assert.assertEquals(Code.PARTIAL,result.getGlobalResult().getCode());
+        Assert.assertEquals("Incorrect number of not run rows",2,result.getNotRunRows().size());
+        Assert.assertTrue(result.getNotRunRows().contains(1));
+        Assert.assertTrue(result.getNotRunRows().contains(3));
+        Assert.assertTrue("Unexpected failed rows",result.getFailedRows().isEmpty());
+    }
+
+    @Test
+    public void laterSuccessOverwritesFailure() throws Exception{
+        List<KVPair> kvPairs=mutations(3);
+        PipelineWriteContext context=newContext(kvPairs.size());
+        for(KVPair kvPair : kvPairs){
+            context.sendUpstream(kvPair);
+        }
+        context.failed(kvPairs.get(1),WriteResult.failed("retried"));
+        context.result(kvPairs.get(1),WriteResult.success());
+
+        BulkWriteResult result=context.close();
+        Assert.assertEquals(Code.SUCCESS,result.getGlobalResult().getCode());
+        Assert.assertTrue("Unexpected failed rows",result.getFailedRows().isEmpty());
+        Assert.assertNull("Unexpected result",context.currentResults().get(kvPairs.get(1)));
+    }
+
+    @Test
+    public void duplicateRowKeysAreTrackedSeparately() throws Exception{
+        KVPair first=new KVPair(Bytes.toBytes(1),Bytes.toBytes(1));
+        KVPair second=new KVPair(Bytes.toBytes(1),Bytes.toBytes(1));
+        PipelineWriteContext context=newContext(2);
+        context.sendUpstream(first);
+        context.sendUpstream(second);
+        context.failed(second,WriteResult.failed("second"));
+
+        BulkWriteResult result=context.close();
+        Assert.assertEquals(1,result.getFailedRows().size());
+        Assert.assertTrue("Failure recorded at the wrong position",result.getFailedRows().containsKey(1));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static PipelineWriteContext newContext(int expectedWrites){
+        return new PipelineWriteContext(null,null,null,null,expectedWrites,false,null,null);
+    }
+
+    private static List<KVPair> mutations(int size){
+        List<KVPair> kvPairs=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            kvPairs.add(new KVPair(Bytes.toBytes(i),Bytes.toBytes(i)));
+        }
+        return kvPairs;
+    }
+}
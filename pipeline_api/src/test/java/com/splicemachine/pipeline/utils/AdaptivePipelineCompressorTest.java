@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.PipelineEncoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class AdaptivePipelineCompressorTest{
+    private final TxnOperationFactory operationFactory=new SimpleTxnOperationFactory(null,null);
+    private final SimplePipelineCompressor encoder=new SimplePipelineCompressor(new KryoPool(1),operationFactory);
+
+    @Test
+    public void compressesLargePayloads() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,1024);
+        BulkWrites writes=compressible(200);
+        byte[] encoded=encoder.compress(writes);
+
+        byte[] compressed=compressor.compress(writes);
+        Assert.assertEquals(AdaptivePipelineCompressor.LZ4,compressed[0]);
+        Assert.assertTrue("Payload was not compressed",compressed.length<encoded.length/2);
+        assertMatches(writes,compressor.decompress(compressed,BulkWrites.class));
+        Assert.assertEquals(1l,compressor.getStatistics().getTotalCompressedPayloads());
+        Assert.assertTrue(compressor.getStatistics().getCompressionRatio()<0.5d);
+    }
+
+    @Test
+    public void doesNotCompressSmallPayloads() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,1024);
+        BulkWrites writes=compressible(2);
+
+        byte[] compressed=compressor.compress(writes);
+        Assert.assertArrayEquals("Payload was changed",encoder.compress(writes),compressed);
+        assertMatches(writes,compressor.decompress(compressed,BulkWrites.class));
+        Assert.assertEquals(1l,compressor.getStatistics().getTotalUncompressedPayloads());
+    }
+
+    @Test
+    public void uncompressedPayloadsAreNotCopied() throws Exception{
+        final byte[][] lastEncoded=new byte[1][];
+        PipelineCompressor delegate=new SimplePipelineCompressor(new KryoPool(1),operationFactory){
+            @Override
+            public byte[] compress(Object o,int headerSize) throws IOException{
+                return lastEncoded[0]=super.compress(o,headerSize);
+            }
+        };
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(delegate,-1);
+        BulkWrites writes=compressible(200);
+
+        byte[] compressed=compressor.compress(writes,2);
+        Assert.assertSame("Payload was copied",lastEncoded[0],compressed);
+        assertMatches(writes,compressor.decompress(compressed,2,compressed.length-2,BulkWrites.class));
+    }
+
+    @Test
+    public void compressesAfterTheCallersHeader() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,1024);
+        BulkWrites writes=compressible(200);
+
+        byte[] compressed=compressor.compress(writes,2);
+        Assert.assertEquals(AdaptivePipelineCompressor.LZ4,compressed[2]);
+        Assert.assertTrue("Payload was not compressed",compressed.length<encoder.compress(writes).length/2);
+        assertMatches(writes,compressor.decompress(compressed,2,compressed.length-2,BulkWrites.class));
+    }
+
+    @Test
+    public void doesNotCompressWhenDisabled() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,-1);
+        BulkWrites writes=compressible(200);
+
+        Assert.assertArrayEquals("Payload was compressed",encoder.compress(writes),compressor.compress(writes));
+    }
+
+    @Test
+    public void readsPayloadsOfNodesWhichDoNotCompress() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,1024);
+        BulkWrites writes=compressible(200);
+
+        assertMatches(writes,compressor.decompress(encoder.compress(writes),BulkWrites.class));
+        byte[] header=PipelineEncoding.encode(operationFactory,writes,3);
+        assertMatches(writes,compressor.decompress(header,3,header.length-3,BulkWrites.class));
+    }
+
+    @Test
+    public void doesNotCompressOtherObjects() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,0);
+        char[] text=new char[4096];
+        Arrays.fill(text,'a');
+        String result=new String(text);
+
+        byte[] compressed=compressor.compress(result);
+        Assert.assertArrayEquals("Payload was compressed",encoder.compress(result),compressed);
+        Assert.assertEquals(result,compressor.decompress(compressed,String.class));
+        Assert.assertEquals(0l,compressor.getStatistics().getTotalCompressedPayloads());
+    }
+
+    @Test
+    public void skipsCompressionAfterPoorRatio() throws Exception{
+        AdaptivePipelineCompressor compressor=new AdaptivePipelineCompressor(encoder,1024);
+        BulkWrites random=incompressible(200);
+
+        byte[] compressed=compressor.compress(random);
+        Assert.assertArrayEquals("Incompressible payload was compressed",encoder.compress(random),compressed);
+        assertMatches(random,compressor.decompress(compressed,BulkWrites.class));
+
+        BulkWrites writes=compressible(200);
+        byte[] encoded=encoder.compress(writes);
+        for(int i=0;i<AdaptivePipelineCompressor.SAMPLE_INTERVAL;i++){
+            Assert.assertEquals("Compression was not skipped",encoded.length,compressor.compress(writes).length);
+        }
+        Assert.assertTrue("Compression was not tried again",compressor.compress(writes).length<encoded.length/2);
+    }
+
+    /*
+     * Front coding removes what consecutive rows share at the start, so the repetition the compressor
+     * finds is in the tail of each value
+     */
+    private static BulkWrites compressible(int rows){
+        byte[] tail=Bytes.toBytes("CUSTOMER|ADDRESS|PHONE|NOTES|CUSTOMER|ADDRESS|PHONE|NOTES|");
+        List<KVPair> kvPairs=new ArrayList<>(rows);
+        for(int i=0;i<rows;i++){
+            kvPairs.add(new KVPair(Bytes.toBytes(i),Bytes.concat(Arrays.asList(Bytes.toBytes(rows-i),tail))));
+        }
+        return bulkWrites(kvPairs);
+    }
+
+    private static BulkWrites incompressible(int rows){
+        Random random=new Random(0l);
+        List<KVPair> kvPairs=new ArrayList<>(rows);
+        for(int i=0;i<rows;i++){
+            byte[] value=new byte[64];
+            random.nextBytes(value);
+            kvPairs.add(new KVPair(Bytes.toBytes(i),value));
+        }
+        return bulkWrites(kvPairs);
+    }
+
+    private static BulkWrites bulkWrites(List<KVPair> kvPairs){
+        return new BulkWrites(Collections.singletonList(new BulkWrite(kvPairs,"region")),
+                new ActiveWriteTxn(1l,1l,Txn.ROOT_TRANSACTION,true,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+    }
+
+    private static void assertMatches(BulkWrites correct,BulkWrites actual){
+        Assert.assertEquals("Incorrect transaction",correct.getTxn().getTxnId(),actual.getTxn().getTxnId());
+        Assert.assertEquals("Incorrect number of bulk writes",correct.getBulkWrites().size(),actual.getBulkWrites().size());
+        BulkWrite correctWrite=correct.getBulkWrites().iterator().next();
+        BulkWrite actualWrite=actual.getBulkWrites().iterator().next();
+        List<KVPair> correctPairs=new ArrayList<>(correctWrite.getMutations());
+        List<KVPair> actualPairs=new ArrayList<>(actualWrite.getMutations());
+        Assert.assertEquals("Incorrect mutations",correctPairs,actualPairs);
+        for(int i=0;i<correctPairs.size();i++){
+            Assert.assertEquals("Incorrect value",correctPairs.get(i).valueSlice(),actualPairs.get(i).valueSlice());
+        }
+    }
+}
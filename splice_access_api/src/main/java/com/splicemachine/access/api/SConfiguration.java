@@ -101,6 +101,8 @@ public interface SConfiguration {
     // OperationConfiguration
     int getSequenceBlockSize();
 
+    int getSequenceMaxBlockSize();
+
     // PipelineConfiguration
     int getCoreWriterThreads();
 
@@ -118,6 +120,8 @@ public interface SConfiguration {
 
     int getPipelineKryoPoolSize();
 
+    int getPipelineCompressionMinSize();
+
     int getWriteMaxFlushesPerRegion();
 
     long getClientPause();
@@ -136,6 +140,10 @@ public interface SConfiguration {
     // SIConfigurations
     int getActiveTransactionCacheSize();
 
+    boolean getCompactionPurgeVersions();
+
+    long getActiveTransactionWatermarkRefreshInterval();
+
     int getCompletedTxnCacheSize();
 
     int getCompletedTxnConcurrency();
@@ -181,6 +189,8 @@ public interface SConfiguration {
 
     int getImportMaxQuotedColumnLines();
 
+    int getImportParserThreads();
+
     int getIndexBatchSize();
 
     int getIndexLookupBlocks();
@@ -197,6 +207,10 @@ public interface SConfiguration {
 
     long getBroadcastRegionRowThreshold();
 
+    long getControlSideAggregateMbThreshold();
+
+    long getBroadcastJoinOffHeapMbLimit();
+
     long getOptimizerPlanMaximumTimeout();
 
     long getOptimizerPlanMinimumTimeout();
@@ -209,11 +223,21 @@ public interface SConfiguration {
 
     int getNestedLoopJoinBatchSize();
 
+    boolean getNestedLoopJoinBatchedProbes();
+
+    int getNestedLoopJoinMaxBufferedRows();
+
+    int getNestedLoopJoinMaxThreads();
+
     // StatsConfiguration
     double getFallbackNullFraction();
 
     double getOptimizerExtraQualifierMultiplier();
 
+    double getCollectionSampleFraction();
+
+    double getStaleWriteFraction();
+
     int getCardinalityPrecision();
 
     int getFallbackRowWidth();
@@ -259,4 +283,8 @@ public interface SConfiguration {
     int getReservedSlotsTimeout();
 
     int getOlapServerTickLimit();
+
+    int getOlapServerMaxQueuedJobs();
+
+    String getOlapServerQueues();
 }
@@ -27,6 +27,8 @@ import com.splicemachine.access.api.SConfiguration;
 public class ConfigurationBuilder {
     // SIConfigurations
     public int activeTransactionCacheSize;
+    public boolean compactionPurgeVersions;
+    public long activeTransactionWatermarkRefreshInterval;
     public int completedTxnCacheSize;
     public int completedTxnConcurrency;
     public int readResolverQueueSize;
@@ -40,6 +42,7 @@ public class ConfigurationBuilder {
 
     // OperationConfiguration
     public int sequenceBlockSize;
+    public int sequenceMaxBlockSize;
 
     // DDLConfiguration
     public long ddlDrainingInitialWait;
@@ -61,6 +64,8 @@ public class ConfigurationBuilder {
     // StatsConfiguration
     public double fallbackNullFraction;
     public double optimizerExtraQualifierMultiplier;
+    public double collectionSampleFraction;
+    public double staleWriteFraction;
     public int cardinalityPrecision;
     public int fallbackRowWidth;
     public int indexFetchSampleSize;
@@ -98,6 +103,7 @@ public class ConfigurationBuilder {
     public boolean upgradeForced;
     public int batchOnceBatchSize;
     public int importMaxQuotedColumnLines;
+    public int importParserThreads;
     public int indexBatchSize;
     public int indexLookupBlocks;
     public int kryoPoolSize;
@@ -107,16 +113,23 @@ public class ConfigurationBuilder {
     public int olapServerBindPort;
     public int olapServerThreads;
     public int olapServerTickLimit;
+    public int olapServerMaxQueuedJobs;
     public int partitionserverJmxPort;
     public int partitionserverPort;
     public long broadcastRegionMbThreshold;
     public long broadcastRegionRowThreshold;
+    public long controlSideAggregateMbThreshold;
+    public long broadcastJoinOffHeapMbLimit;
     public long optimizerPlanMaximumTimeout;
     public long optimizerPlanMinimumTimeout;
     public String networkBindAddress;
     public String upgradeForcedFrom;
+    public String olapServerQueues;
     public String storageFactoryHome;
     public int nestedLoopJoinBatchSize;
+    public boolean nestedLoopJoinBatchedProbes;
+    public int nestedLoopJoinMaxBufferedRows;
+    public int nestedLoopJoinMaxThreads;
 
     // PipelineConfiguration
     public int coreWriterThreads;
@@ -127,6 +140,7 @@ public class ConfigurationBuilder {
     public int maxRetries;
     public int maxWriterThreads;
     public int pipelineKryoPoolSize;
+    public int pipelineCompressionMinSize;
     public int writeMaxFlushesPerRegion;
     public long clientPause;
     public long maxBufferHeapSize;
@@ -48,8 +48,22 @@ public class OperationConfiguration implements ConfigurationDefault {
     public static final String SEQUENCE_BLOCK_SIZE = "splice.sequence.allocationBlockSize";
     private static final int DEFAULT_SEQUENCE_BLOCK_SIZE = 1000;
 
+    /**
+     * The largest block a sequence may reserve at once.
+     *
+     * Sequences which are used at a high rate (such as identity columns during a bulk insert) grow their
+     * blocks from {@link #SEQUENCE_BLOCK_SIZE} up to this size, so that a block lasts for about a second,
+     * and shrink them again as the rate drops. Setting it to the same value as {@link #SEQUENCE_BLOCK_SIZE}
+     * always reserves blocks of that size.
+     *
+     * Defaults to 128000
+     */
+    public static final String SEQUENCE_MAX_BLOCK_SIZE = "splice.sequence.maxAllocationBlockSize";
+    private static final int DEFAULT_SEQUENCE_MAX_BLOCK_SIZE = 128000;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.sequenceBlockSize = configurationSource.getInt(SEQUENCE_BLOCK_SIZE, DEFAULT_SEQUENCE_BLOCK_SIZE);
+        builder.sequenceMaxBlockSize = configurationSource.getInt(SEQUENCE_MAX_BLOCK_SIZE, DEFAULT_SEQUENCE_MAX_BLOCK_SIZE);
     }
 }
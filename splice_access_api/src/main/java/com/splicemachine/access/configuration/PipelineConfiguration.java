@@ -23,6 +23,7 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String WRITE_COORDINATOR_OBJECT_LOCATION = "com.splicemachine.writer:type=WriteCoordinatorStatus";
     public static final String WRITER_STATUS_OBJECT_LOCATION = "com.splicemachine.writer.async:type=WriterStatus";
     public static final String THREAD_POOL_STATUS_LOCATION = "com.splicemachine.writer.async:type=ThreadPoolStatus";
+    public static final String COMPRESSION_STATUS_LOCATION = "com.splicemachine.writer:type=CompressionStatistics";
 
     public static final String MAX_BUFFER_ENTRIES= "splice.client.write.buffer.maxentries";
     public static final int DEFAULT_MAX_BUFFER_ENTRIES = 1000;
@@ -157,6 +158,19 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String PIPELINE_KRYO_POOL_SIZE= "splice.writer.kryoPoolSize";
     private static final int DEFAULT_PIPELINE_KRYO_POOL_SIZE=1024;
 
+    /**
+     * The minimum size (in bytes) of a write pipeline request to compress before sending it over the
+     * wire. Smaller payloads gain too little from compression to be worth the CPU. Set to a negative value to
+     * disable compression entirely.
+     *
+     * Nodes which don't compress can still read the uncompressed requests, but not the compressed ones, so
+     * compression must be disabled while a rolling upgrade from such a version is in progress.
+     *
+     * Defaults to 1024 (1 KB).
+     */
+    public static final String PIPELINE_COMPRESSION_MIN_SIZE= "splice.writer.compression.minSize";
+    public static final int DEFAULT_PIPELINE_COMPRESSION_MIN_SIZE=1024;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.ipcThreads = configurationSource.getInt(IPC_THREADS, DEFAULT_IPC_THREADS);
@@ -168,6 +182,7 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.maxRetries = configurationSource.getInt(MAX_RETRIES, DEFAULT_HBASE_CLIENT_RETRIES_NUMBER);
         builder.maxBufferEntries = configurationSource.getInt(MAX_BUFFER_ENTRIES, DEFAULT_MAX_BUFFER_ENTRIES);
         builder.pipelineKryoPoolSize = configurationSource.getInt(PIPELINE_KRYO_POOL_SIZE, DEFAULT_PIPELINE_KRYO_POOL_SIZE);
+        builder.pipelineCompressionMinSize = configurationSource.getInt(PIPELINE_COMPRESSION_MIN_SIZE, DEFAULT_PIPELINE_COMPRESSION_MIN_SIZE);
 
         builder.threadKeepaliveTime = configurationSource.getLong(THREAD_KEEPALIVE_TIME, DEFAULT_THREAD_KEEPALIVE_TIME);
         builder.clientPause = configurationSource.getLong(CLIENT_PAUSE, DEFAULT_CLIENT_PAUSE);
@@ -78,6 +78,7 @@ public final class SConfigurationImpl implements SConfiguration {
 
     // OperationConfiguration
     private final  int sequenceBlockSize;
+    private final  int sequenceMaxBlockSize;
 
     // PipelineConfiguration
     private final  int coreWriterThreads;
@@ -88,6 +89,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int maxRetries;
     private final  int maxWriterThreads;
     private final  int pipelineKryoPoolSize;
+    private final  int pipelineCompressionMinSize;
     private final  int writeMaxFlushesPerRegion;
     private final  long clientPause;
     private final  long maxBufferHeapSize;
@@ -102,6 +104,8 @@ public final class SConfigurationImpl implements SConfiguration {
 
     // SIConfigurations
     private final  int activeTransactionCacheSize;
+    private final  boolean compactionPurgeVersions;
+    private final  long activeTransactionWatermarkRefreshInterval;
     private final  int completedTxnCacheSize;
     private final  int completedTxnConcurrency;
     private final int olapClientWaitTime;
@@ -109,6 +113,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final int olapServerBindPort;
     private final int olapServerThreads;
     private final int olapServerTickLimit;
+    private final int olapServerMaxQueuedJobs;
+    private final String olapServerQueues;
     private final  int readResolverQueueSize;
     private final  int readResolverThreads;
     private final  int timestampClientWaitTime;
@@ -127,6 +133,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  boolean upgradeForced;
     private final  int batchOnceBatchSize;
     private final  int importMaxQuotedColumnLines;
+    private final  int importParserThreads;
     private final  int indexBatchSize;
     private final  int indexLookupBlocks;
     private final  int kryoPoolSize;
@@ -135,16 +142,23 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int partitionserverPort;
     private final  long broadcastRegionMbThreshold;
     private final  long broadcastRegionRowThreshold;
+    private final  long controlSideAggregateMbThreshold;
+    private final  long broadcastJoinOffHeapMbLimit;
     private final  long optimizerPlanMaximumTimeout;
     private final  long optimizerPlanMinimumTimeout;
     private final  String networkBindAddress;
     private final  String upgradeForcedFrom;
     private final String storageFactoryHome;
     private final int nestedLoopJoinBatchSize;
+    private final boolean nestedLoopJoinBatchedProbes;
+    private final int nestedLoopJoinMaxBufferedRows;
+    private final int nestedLoopJoinMaxThreads;
 
     // StatsConfiguration
     private final  double fallbackNullFraction;
     private final  double optimizerExtraQualifierMultiplier;
+    private final  double collectionSampleFraction;
+    private final  double staleWriteFraction;
     private final  int cardinalityPrecision;
     private final  int fallbackRowWidth;
     private final  int indexFetchSampleSize;
@@ -283,6 +297,10 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getSequenceBlockSize() {
         return sequenceBlockSize;
     }
+    @Override
+    public int getSequenceMaxBlockSize() {
+        return sequenceMaxBlockSize;
+    }
 
     // PipelineConfiguration
     @Override
@@ -318,6 +336,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return pipelineKryoPoolSize;
     }
     @Override
+    public int getPipelineCompressionMinSize() {
+        return pipelineCompressionMinSize;
+    }
+    @Override
     public int getWriteMaxFlushesPerRegion() {
         return writeMaxFlushesPerRegion;
     }
@@ -358,6 +380,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return activeTransactionCacheSize;
     }
     @Override
+    public boolean getCompactionPurgeVersions() {
+        return compactionPurgeVersions;
+    }
+    @Override
+    public long getActiveTransactionWatermarkRefreshInterval() {
+        return activeTransactionWatermarkRefreshInterval;
+    }
+    @Override
     public int getCompletedTxnCacheSize() {
         return completedTxnCacheSize;
     }
@@ -448,6 +478,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return importMaxQuotedColumnLines;
     }
     @Override
+    public int getImportParserThreads() {
+        return importParserThreads;
+    }
+    @Override
     public int getIndexBatchSize() {
         return indexBatchSize;
     }
@@ -480,6 +514,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return broadcastRegionRowThreshold;
     }
     @Override
+    public long getControlSideAggregateMbThreshold() {
+        return controlSideAggregateMbThreshold;
+    }
+    @Override
+    public long getBroadcastJoinOffHeapMbLimit() {
+        return broadcastJoinOffHeapMbLimit;
+    }
+    @Override
     public long getOptimizerPlanMaximumTimeout() {
         return optimizerPlanMaximumTimeout;
     }
@@ -499,6 +541,18 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getNestedLoopJoinBatchSize() {
         return nestedLoopJoinBatchSize;
     }
+    @Override
+    public boolean getNestedLoopJoinBatchedProbes() {
+        return nestedLoopJoinBatchedProbes;
+    }
+    @Override
+    public int getNestedLoopJoinMaxBufferedRows() {
+        return nestedLoopJoinMaxBufferedRows;
+    }
+    @Override
+    public int getNestedLoopJoinMaxThreads() {
+        return nestedLoopJoinMaxThreads;
+    }
 
     // StatsConfiguration
     @Override
@@ -510,6 +564,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return optimizerExtraQualifierMultiplier;
     }
     @Override
+    public double getCollectionSampleFraction() {
+        return collectionSampleFraction;
+    }
+    @Override
+    public double getStaleWriteFraction() {
+        return staleWriteFraction;
+    }
+    @Override
     public int getCardinalityPrecision() {
         return cardinalityPrecision;
     }
@@ -583,6 +645,8 @@ public final class SConfigurationImpl implements SConfiguration {
     SConfigurationImpl(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         configSource = configurationSource;
         activeTransactionCacheSize = builder.activeTransactionCacheSize;
+        compactionPurgeVersions = builder.compactionPurgeVersions;
+        activeTransactionWatermarkRefreshInterval = builder.activeTransactionWatermarkRefreshInterval;
         completedTxnCacheSize = builder.completedTxnCacheSize;
         completedTxnConcurrency = builder.completedTxnConcurrency;
         readResolverQueueSize = builder.readResolverQueueSize;
@@ -594,6 +658,7 @@ public final class SConfigurationImpl implements SConfiguration {
         transactionKeepAliveInterval = builder.transactionKeepAliveInterval;
         transactionTimeout = builder.transactionTimeout;
         sequenceBlockSize = builder.sequenceBlockSize;
+        sequenceMaxBlockSize = builder.sequenceMaxBlockSize;
         ddlDrainingInitialWait = builder.ddlDrainingInitialWait;
         ddlDrainingMaximumWait = builder.ddlDrainingMaximumWait;
         ddlRefreshInterval = builder.ddlRefreshInterval;
@@ -609,6 +674,8 @@ public final class SConfigurationImpl implements SConfiguration {
         authenticationNativeAlgorithm = builder.authenticationNativeAlgorithm;
         fallbackNullFraction = builder.fallbackNullFraction;
         optimizerExtraQualifierMultiplier = builder.optimizerExtraQualifierMultiplier;
+        collectionSampleFraction = builder.collectionSampleFraction;
+        staleWriteFraction = builder.staleWriteFraction;
         cardinalityPrecision = builder.cardinalityPrecision;
         fallbackRowWidth = builder.fallbackRowWidth;
         topkSize = builder.topkSize;
@@ -638,6 +705,7 @@ public final class SConfigurationImpl implements SConfiguration {
         ignoreSavePoints = builder.ignoreSavePoints;
         upgradeForced = builder.upgradeForced;
         importMaxQuotedColumnLines = builder.importMaxQuotedColumnLines;
+        importParserThreads = builder.importParserThreads;
         indexBatchSize = builder.indexBatchSize;
         indexLookupBlocks = builder.indexLookupBlocks;
         kryoPoolSize = builder.kryoPoolSize;
@@ -646,6 +714,8 @@ public final class SConfigurationImpl implements SConfiguration {
         partitionserverPort = builder.partitionserverPort;
         broadcastRegionMbThreshold = builder.broadcastRegionMbThreshold;
         broadcastRegionRowThreshold = builder.broadcastRegionRowThreshold;
+        controlSideAggregateMbThreshold = builder.controlSideAggregateMbThreshold;
+        broadcastJoinOffHeapMbLimit = builder.broadcastJoinOffHeapMbLimit;
         optimizerPlanMaximumTimeout = builder.optimizerPlanMaximumTimeout;
         optimizerPlanMinimumTimeout = builder.optimizerPlanMinimumTimeout;
         networkBindAddress = builder.networkBindAddress;
@@ -658,6 +728,7 @@ public final class SConfigurationImpl implements SConfiguration {
         maxRetries = builder.maxRetries;
         maxWriterThreads = builder.maxWriterThreads;
         pipelineKryoPoolSize = builder.pipelineKryoPoolSize;
+        pipelineCompressionMinSize = builder.pipelineCompressionMinSize;
         writeMaxFlushesPerRegion = builder.writeMaxFlushesPerRegion;
         clientPause = builder.clientPause;
         maxBufferHeapSize = builder.maxBufferHeapSize;
@@ -671,6 +742,8 @@ public final class SConfigurationImpl implements SConfiguration {
         olapServerBindPort = builder.olapServerBindPort;
         olapServerThreads = builder.olapServerThreads;
         olapServerTickLimit = builder.olapServerTickLimit;
+        olapServerMaxQueuedJobs = builder.olapServerMaxQueuedJobs;
+        olapServerQueues = builder.olapServerQueues;
         sparkResultStreamingBatches = builder.sparkResultStreamingBatches;
         sparkResultStreamingBatchSize = builder.sparkResultStreamingBatchSize;
         compactionReservedSlots = builder.compactionReservedSlots;
@@ -678,6 +751,9 @@ public final class SConfigurationImpl implements SConfiguration {
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
         nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
+        nestedLoopJoinBatchedProbes = builder.nestedLoopJoinBatchedProbes;
+        nestedLoopJoinMaxBufferedRows = builder.nestedLoopJoinMaxBufferedRows;
+        nestedLoopJoinMaxThreads = builder.nestedLoopJoinMaxThreads;
 
     }
 
@@ -729,4 +805,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return olapServerTickLimit;
     }
 
+    @Override
+    public int getOlapServerMaxQueuedJobs(){
+        return olapServerMaxQueuedJobs;
+    }
+
+    @Override
+    public String getOlapServerQueues(){
+        return olapServerQueues;
+    }
+
 }
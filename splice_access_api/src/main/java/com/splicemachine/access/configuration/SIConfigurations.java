@@ -146,9 +146,51 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String OLAP_SERVER_TICK_LIMIT = "splice.olap_server.tickLimit";
     private static final int DEFAULT_OLAP_SERVER_TICK_LIMIT = 120;
 
+    /**
+     * The maximum number of Olap jobs which may wait for a free thread. Jobs which are submitted
+     * once this many are waiting are rejected, and fail on the client.
+     *
+     * Defaults to 1024
+     */
+    public static final String OLAP_SERVER_MAX_QUEUED_JOBS = "splice.olap_server.maxQueuedJobs";
+    private static final int DEFAULT_OLAP_SERVER_MAX_QUEUED_JOBS = 1024;
+
+    /**
+     * The queues which Olap jobs are scheduled from, as a comma-separated list of
+     * {@code name:weight[:maxConcurrentJobs]} entries. A query is placed in the queue named after its current
+     * role if there is one, otherwise in the queue named after its user, otherwise in the {@code default}
+     * queue (which may also be configured here). Role and user names are matched as stored, which is normally
+     * upper case. When threads are free, queues are served in proportion to their weights. The queue name is
+     * also used as the Spark fair scheduler pool for the query.
+     *
+     * Defaults to "" (every job is scheduled from the default queue)
+     */
+    public static final String OLAP_SERVER_QUEUES = "splice.olap_server.queues";
+    private static final String DEFAULT_OLAP_SERVER_QUEUES = "";
+
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
+    /**
+     * Whether compactions should physically remove versions of data which are older than every
+     * active transaction and are shadowed by a newer version (or a delete). Only write transactions
+     * are recorded in the transaction table, so this should only be enabled when long-running
+     * read-only transactions are not a concern.
+     * Defaults to false
+     */
+    public static final String COMPACTION_PURGE_VERSIONS="splice.txn.compaction.purgeVersions";
+    private static final boolean DEFAULT_COMPACTION_PURGE_VERSIONS = false;
+
+    /**
+     * The number of milliseconds for which the oldest active transaction is remembered before the
+     * transaction table is scanned again to find it. This is also how long a transaction which has begun has
+     * to be recorded in the transaction table before the watermark can move past it, so it should be well
+     * above the time that takes.
+     * Defaults to 60000 (1 minute)
+     */
+    public static final String ACTIVE_TRANSACTION_WATERMARK_REFRESH_INTERVAL="splice.txn.activeWatermarkRefreshIntervalMs";
+    private static final long DEFAULT_ACTIVE_TRANSACTION_WATERMARK_REFRESH_INTERVAL = 60000L;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -160,11 +202,15 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.timestampClientWaitTime  = configurationSource.getInt(TIMESTAMP_CLIENT_WAIT_TIME, DEFAULT_TIMESTAMP_CLIENT_WAIT_TIME);
         builder.timestampServerBindPort  = configurationSource.getInt(TIMESTAMP_SERVER_BIND_PORT, DEFAULT_TIMESTAMP_SERVER_BIND_PORT);
         builder.activeTransactionCacheSize  = configurationSource.getInt(ACTIVE_TRANSACTION_CACHE_SIZE, DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE);
+        builder.compactionPurgeVersions  = configurationSource.getBoolean(COMPACTION_PURGE_VERSIONS, DEFAULT_COMPACTION_PURGE_VERSIONS);
+        builder.activeTransactionWatermarkRefreshInterval  = configurationSource.getLong(ACTIVE_TRANSACTION_WATERMARK_REFRESH_INTERVAL, DEFAULT_ACTIVE_TRANSACTION_WATERMARK_REFRESH_INTERVAL);
         builder.olapServerBindPort  = configurationSource.getInt(OLAP_SERVER_BIND_PORT, DEFAULT_OLAP_SERVER_BIND_PORT);
         builder.olapClientWaitTime  = configurationSource.getInt(OLAP_CLIENT_WAIT_TIME, DEFAULT_OLAP_CLIENT_WAIT_TIME);
         builder.olapClientTickTime  = configurationSource.getInt(OLAP_CLIENT_TICK_TIME, DEFAULT_OLAP_CLIENT_TICK_TIME);
         builder.olapServerThreads = configurationSource.getInt(OLAP_SERVER_THREADS, DEFAULT_OLAP_SERVER_THREADS);
         builder.olapServerTickLimit = configurationSource.getInt(OLAP_SERVER_TICK_LIMIT,DEFAULT_OLAP_SERVER_TICK_LIMIT);
+        builder.olapServerMaxQueuedJobs = configurationSource.getInt(OLAP_SERVER_MAX_QUEUED_JOBS,DEFAULT_OLAP_SERVER_MAX_QUEUED_JOBS);
+        builder.olapServerQueues = configurationSource.getString(OLAP_SERVER_QUEUES,DEFAULT_OLAP_SERVER_QUEUES);
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
         builder.transactionKeepAliveInterval = configurationSource.getLong(TRANSACTION_KEEP_ALIVE_INTERVAL, DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL);
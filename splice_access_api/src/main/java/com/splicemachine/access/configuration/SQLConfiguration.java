@@ -63,6 +63,17 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String IMPORT_MAX_QUOTED_COLUMN_LINES="splice.import.maxQuotedColumnLines";
     private static final int DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES = 50000;
 
+    /**
+     * The number of threads used to decode a single import file. The file is read in blocks which end on
+     * record boundaries, and when this is greater than 1 up to this many blocks are tokenized and converted
+     * into rows concurrently. Only applies to files read with the byte-level parser (UTF-8, US-ASCII and
+     * ISO-8859-1 encodings).
+     *
+     * Defaults to 1
+     */
+    public static final String IMPORT_PARSER_THREADS = "splice.import.parserThreads";
+    private static final int DEFAULT_IMPORT_PARSER_THREADS = 1;
+
     public static final String BATCH_ONCE_BATCH_SIZE = "splice.batchonce.batchsize";
     private static final int DEFAULT_BATCH_ONCE_BATCH_SIZE = 50_000;
 
@@ -110,6 +121,25 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String BROADCAST_REGION_ROW_THRESHOLD = "splice.optimizer.broadcastRegionRowThreshold";
     private static final int DEFAULT_BROADCAST_REGION_ROW_THRESHOLD = 1000000;
 
+    /**
+     * Threshold in megabytes of partial aggregates that a grouped aggregation running on the control
+     * side may hold in memory before it spills them to local disk. Defaults to 10% of the heap.
+     *
+     */
+    public static final String CONTROL_SIDE_AGGREGATE_MB_THRESHOLD = "splice.dataset.control.aggregateMBThreshold";
+    private static final long DEFAULT_CONTROL_SIDE_AGGREGATE_MB_THRESHOLD = Runtime.getRuntime().maxMemory() / (1024l * 1024l * 10l);
+
+    /**
+     * Maximum size in megabytes of the off-heap tables built for the inner sides of broadcast joins, shared
+     * by all the joins running in the process. When an inner side does not fit in what is left, the join
+     * falls back to a merge sort join. A value of 0 or less keeps the inner rows on the heap instead, with
+     * no limit.
+     *
+     * Defaults to 256 MB
+     */
+    public static final String BROADCAST_JOIN_OFFHEAP_MB_LIMIT = "splice.broadcastJoin.offHeapMBLimit";
+    private static final long DEFAULT_BROADCAST_JOIN_OFFHEAP_MB_LIMIT = 256L;
+
     /**
      * Minimum fixed duration (in millisecomds) that should be allowed to lapse
      * before the optimizer can determine that it should stop trying to find
@@ -203,6 +233,36 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String NESTEDLOOPJOIN_BATCH_SIZE = "splice.nestedLoopJoin.batchSize";
     private static final int DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE = 10;
 
+    /**
+     * When enabled, a nested loop join whose right side is a plain table or index scan collects a batch
+     * of left rows (see {@link #NESTEDLOOPJOIN_BATCH_SIZE}), evaluates their probe ranges, and scans each
+     * distinct range once for all the left rows which share it, instead of re-opening the right side
+     * for every left row. When the right side is a table scan, all the ranges of a batch are read by a
+     * single scan.
+     *
+     * Defaults to false
+     */
+    public static final String NESTEDLOOPJOIN_BATCHED_PROBES = "splice.nestedLoopJoin.batchedProbes";
+    private static final boolean DEFAULT_NESTEDLOOPJOIN_BATCHED_PROBES = false;
+
+    /**
+     * The maximum number of right side rows a batched nested loop join keeps in memory for each probe
+     * range. The rows of a range which has more are read again for each left row which probes it.
+     *
+     * Defaults to 1000
+     */
+    public static final String NESTEDLOOPJOIN_MAX_BUFFERED_ROWS = "splice.nestedLoopJoin.maxBufferedRowsPerProbe";
+    private static final int DEFAULT_NESTEDLOOPJOIN_MAX_BUFFERED_ROWS = 1000;
+
+    /**
+     * The maximum number of threads shared by all the nested loop joins of a JVM to read their right
+     * sides. When they are all busy, a join reads its right side in its own thread.
+     *
+     * Defaults to 64
+     */
+    public static final String NESTEDLOOPJOIN_MAX_THREADS = "splice.nestedLoopJoin.maxThreads";
+    private static final int DEFAULT_NESTEDLOOPJOIN_MAX_THREADS = 64;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -212,10 +272,14 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.indexBatchSize = configurationSource.getInt(INDEX_BATCH_SIZE, DEFAULT_INDEX_BATCH_SIZE);
         builder.indexLookupBlocks = configurationSource.getInt(INDEX_LOOKUP_BLOCKS, DEFAULT_INDEX_LOOKUP_BLOCKS);
         builder.importMaxQuotedColumnLines = configurationSource.getInt(IMPORT_MAX_QUOTED_COLUMN_LINES, DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES);
+        builder.importParserThreads = configurationSource.getInt(IMPORT_PARSER_THREADS, DEFAULT_IMPORT_PARSER_THREADS);
         builder.batchOnceBatchSize = configurationSource.getInt(BATCH_ONCE_BATCH_SIZE, DEFAULT_BATCH_ONCE_BATCH_SIZE);
         builder.partitionserverJmxPort = configurationSource.getInt(PARTITIONSERVER_JMX_PORT, DEFAULT_PARTITIONSERVER_JMX_PORT);
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
         builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
+        builder.nestedLoopJoinBatchedProbes = configurationSource.getBoolean(NESTEDLOOPJOIN_BATCHED_PROBES, DEFAULT_NESTEDLOOPJOIN_BATCHED_PROBES);
+        builder.nestedLoopJoinMaxBufferedRows = configurationSource.getInt(NESTEDLOOPJOIN_MAX_BUFFERED_ROWS, DEFAULT_NESTEDLOOPJOIN_MAX_BUFFERED_ROWS);
+        builder.nestedLoopJoinMaxThreads = configurationSource.getInt(NESTEDLOOPJOIN_MAX_THREADS, DEFAULT_NESTEDLOOPJOIN_MAX_THREADS);
 
         // Where to place jar files...
         String defaultStorageFactoryHome;
@@ -228,6 +292,8 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.optimizerPlanMinimumTimeout = configurationSource.getLong(OPTIMIZER_PLAN_MINIMUM_TIMEOUT, DEFAULT_OPTIMIZER_PLAN_MINIMUM_TIMEOUT);
         builder.broadcastRegionMbThreshold = configurationSource.getLong(BROADCAST_REGION_MB_THRESHOLD, DEFAULT_BROADCAST_REGION_MB_THRESHOLD);
         builder.broadcastRegionRowThreshold = configurationSource.getLong(BROADCAST_REGION_ROW_THRESHOLD, DEFAULT_BROADCAST_REGION_ROW_THRESHOLD);
+        builder.controlSideAggregateMbThreshold = configurationSource.getLong(CONTROL_SIDE_AGGREGATE_MB_THRESHOLD, DEFAULT_CONTROL_SIDE_AGGREGATE_MB_THRESHOLD);
+        builder.broadcastJoinOffHeapMbLimit = configurationSource.getLong(BROADCAST_JOIN_OFFHEAP_MB_LIMIT, DEFAULT_BROADCAST_JOIN_OFFHEAP_MB_LIMIT);
 
         //always disable debug statements by default
         builder.debugLogStatementContext = configurationSource.getBoolean(DEBUG_LOG_STATEMENT_CONTEXT, DEFAULT_LOG_STATEMENT_CONTEXT);
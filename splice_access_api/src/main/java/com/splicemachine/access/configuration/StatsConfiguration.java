@@ -125,6 +125,22 @@ public class StatsConfiguration implements ConfigurationDefault {
     public static final String FALLBACK_ROW_WIDTH="splice.statistics.fallbackMinimumRowWidth";
     public static final int DEFAULT_FALLBACK_ROW_WIDTH=170;
 
+    /**
+     * The fraction of rows in each partition which are fed to the column sketches during statistics collection.
+     * Row counts are still exact; null counts, selectivities and cardinalities are scaled up from the sample
+     * when the statistics are read. Must be in (0,1]; 1 (the default) collects statistics from every row.
+     */
+    public static final String COLLECTION_SAMPLE_FRACTION="splice.statistics.sampleFraction";
+    private static final double DEFAULT_COLLECTION_SAMPLE_FRACTION=1.0d;
+
+    /**
+     * When collecting only stale statistics, a partition is re-collected if the number of writes it has received
+     * since its last collection exceeds this fraction of its row count. Partitions without previous
+     * statistics (or without a recorded write count, e.g. after a restart) are always collected.
+     */
+    public static final String STALE_WRITE_FRACTION="splice.statistics.staleWriteFraction";
+    private static final double DEFAULT_STALE_WRITE_FRACTION=0.1d;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -147,5 +163,7 @@ public class StatsConfiguration implements ConfigurationDefault {
 //        builder.fallbackCardinalityFraction = configurationSource.getDouble(FALLBACK_CARDINALITY_FRACTION, DEFAULT_FALLBACK_CARDINALITY_FRACTION);
 //        builder.fallbackIndexSelectivityFraction = configurationSource.getDouble(FALLBACK_INDEX_SELECTIVITY_FRACTION, DEFAULT_FALLBACK_INDEX_SELECTIVITY_FRACTION);
         builder.optimizerExtraQualifierMultiplier = configurationSource.getDouble(OPTIMIZER_EXTRA_QUALIFIER_MULTIPLIER, DEFAULT_OPTIMIZER_EXTRA_QUALIFIER_MULTIPLIER);
+        builder.collectionSampleFraction = configurationSource.getDouble(COLLECTION_SAMPLE_FRACTION, DEFAULT_COLLECTION_SAMPLE_FRACTION);
+        builder.staleWriteFraction = configurationSource.getDouble(STALE_WRITE_FRACTION, DEFAULT_STALE_WRITE_FRACTION);
     }
 }
@@ -15,6 +15,11 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.utils.Pair;
+
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Factory for creating different DataFilters. Each architecture is expected to provide an architecture
  * specific version of this.
@@ -35,4 +40,15 @@ public interface DataFilterFactory{
     DataFilter singleColumnEqualsValueFilter(byte[] family,byte[] qualifier,byte[] value);
 
     DataFilter allocatedFilter(byte[] localAddress);
+
+    /**
+     * Filter rows based on whether or not their key is in one of the specified ranges, so that a single scan
+     * can read many disjoint ranges of keys.
+     *
+     * @param ranges the {@code (start, stop)} keys of the ranges. Start keys are inclusive, stop keys are
+     *               exclusive, and an empty key leaves that end of the range unbounded.
+     * @return a DataFilter which only accepts the rows in the ranges
+     * @throws IOException if the ranges are invalid
+     */
+    DataFilter multiRowRangeFilter(List<Pair<byte[],byte[]>> ranges) throws IOException;
 }
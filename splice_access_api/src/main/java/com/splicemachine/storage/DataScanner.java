@@ -30,6 +30,14 @@ public interface DataScanner extends AutoCloseable{
 
     @Nonnull List<DataCell> next(int limit) throws IOException;
 
+    /**
+     * Fill {@code batch} with the next rows of the scan, up to its capacity. The batch is cleared first, and
+     * the cells it holds may be reused by the scanner, so they are only valid until the next call.
+     *
+     * @return the number of rows added to the batch, 0 if the scan is exhausted
+     */
+    int nextBatch(RowBatch batch) throws IOException;
+
     TimeView getReadTime();
 
     long getBytesOutput();
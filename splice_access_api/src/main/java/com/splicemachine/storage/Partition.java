@@ -104,6 +104,20 @@ public interface Partition extends AutoCloseable{
      */
     DataResult getLatest(byte[] key,DataResult previous) throws IOException;
 
+    /**
+     * Get the latest value of all present cells for each of a batch of row keys.
+     * <p>
+     * This is equivalent to calling {@link #getLatest(byte[], DataResult)} for each key, but allows the
+     * implementation to resolve the whole batch in a single forward pass over the underlying storage, instead
+     * of seeking to each row independently.
+     * </p>
+     * @param sortedKeys the row keys to fetch, sorted in ascending byte order. Duplicate keys are allowed.
+     * @return an array with one entry per key, in the same order as {@code sortedKeys}. The entry is {@code null}
+     * if there are no cells for that key; otherwise, it is a distinct DataResult which is safe to hold on to.
+     * @throws IOException if something goes wrong
+     */
+    DataResult[] getLatest(List<byte[]> sortedKeys) throws IOException;
+
     Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException;
 
     DataResultScanner openResultScanner(DataScan scan,MetricFactory metricFactory) throws IOException;
@@ -27,4 +27,10 @@ public interface PartitionLoad{
     int getStorefileIndexSizeMB();
 
     String getPartitionName();
+
+    /**
+     * @return the number of write requests the partition has served since it was opened, or {@code -1}
+     * if that is not known.
+     */
+    long getWriteRequestCount();
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A reusable batch of rows filled by {@link DataScanner#nextBatch(RowBatch)}.
+ *
+ * The cells of all rows are held in a single array, with the end of each row recorded separately. Neither the
+ * arrays nor the cell objects are released when the batch is cleared, so that a scanner can reuse the cell
+ * stored in a slot (see {@link #reusableCell()}) instead of allocating a new one for every cell it returns.
+ *
+ * As a consequence, the cells (and the lists returned by {@link #row(int)}) are only valid until the next
+ * time the batch is filled.
+ */
+@NotThreadSafe
+public class RowBatch{
+    private final int capacity;
+    private DataCell[] cells;
+    private final int[] rowEnds;
+    private int numCells;
+    private int size;
+
+    private final RowView rowView = new RowView();
+
+    public RowBatch(int capacity){
+        this(capacity,4*capacity);
+    }
+
+    public RowBatch(int capacity,int initialCells){
+        assert capacity>0: "A batch must hold at least one row";
+        this.capacity=capacity;
+        this.rowEnds=new int[capacity];
+        this.cells=new DataCell[Math.max(1,initialCells)];
+    }
+
+    /**
+     * @return the maximum number of rows this batch can hold
+     */
+    public int capacity(){
+        return capacity;
+    }
+
+    /**
+     * @return the number of rows in this batch
+     */
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size==0;
+    }
+
+    public boolean isFull(){
+        return size>=capacity;
+    }
+
+    /**
+     * Remove all rows from the batch. The cell objects are kept so that they can be reused.
+     */
+    public void clear(){
+        size=0;
+        numCells=0;
+    }
+
+    /**
+     * @return the cell object previously held at the next position of this batch, or {@code null} if there
+     * is none. Scanners can reset and {@link #addCell(DataCell)} it back, if it is of the right type.
+     */
+    public DataCell reusableCell(){
+        return numCells<cells.length?cells[numCells]:null;
+    }
+
+    /**
+     * Add a cell to the row currently being filled.
+     */
+    public void addCell(DataCell cell){
+        if(numCells==cells.length)
+            cells=Arrays.copyOf(cells,2*cells.length);
+        cells[numCells++]=cell;
+    }
+
+    /**
+     * Finish the row currently being filled. Rows without cells are discarded.
+     */
+    public void endRow(){
+        assert size<capacity: "Batch is full";
+        int start=size==0?0:rowEnds[size-1];
+        if(numCells>start)
+            rowEnds[size++]=numCells;
+    }
+
+    /**
+     * @return the number of cells in row {@code row}
+     */
+    public int rowSize(int row){
+        return rowEnds[row]-rowStart(row);
+    }
+
+    /**
+     * @return the {@code position}-th cell of row {@code row}
+     */
+    public DataCell cell(int row,int position){
+        return cells[rowStart(row)+position];
+    }
+
+    /**
+     * @return a view of the cells of row {@code row}. The same view object is returned on every call,
+     * so it is only valid until the next call to this method.
+     */
+    public List<DataCell> row(int row){
+        rowView.set(rowStart(row),rowEnds[row]);
+        return rowView;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private int rowStart(int row){
+        assert row<size: "Row "+row+" is not in the batch";
+        return row==0?0:rowEnds[row-1];
+    }
+
+    private class RowView extends AbstractList<DataCell> implements RandomAccess{
+        private int start;
+        private int end;
+
+        void set(int start,int end){
+            this.start=start;
+            this.end=end;
+        }
+
+        @Override
+        public DataCell get(int index){
+            assert index<end-start: "Index out of bounds";
+            return cells[start+index];
+        }
+
+        @Override
+        public int size(){
+            return end-start;
+        }
+    }
+}
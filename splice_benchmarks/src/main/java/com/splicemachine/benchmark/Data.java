@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.storage.EntryEncoder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Generators for the row shapes shared between benchmarks.
+ *
+ * The "standard" row is a packed row of {@code (BIGINT, INTEGER, VARCHAR, DECIMAL, DOUBLE)}, with
+ * every column populated, which is roughly what a narrow fact table looks like on disk.
+ */
+final class Data{
+    static final int NUM_COLUMNS=5;
+    static final int LONG_COLUMN=0;
+    static final int INT_COLUMN=1;
+    static final int STRING_COLUMN=2;
+    static final int DECIMAL_COLUMN=3;
+    static final int DOUBLE_COLUMN=4;
+
+    private static final char[] ALPHABET="abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ".toCharArray();
+
+    private Data(){ }
+
+    static String randomString(Random random,int length){
+        char[] chars=new char[length];
+        for(int i=0;i<length;i++){
+            chars[i]=ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    static byte[] randomRow(Random random) throws IOException{
+        BitSet setCols=new BitSet(NUM_COLUMNS);
+        setCols.set(0,NUM_COLUMNS);
+        BitSet scalarCols=new BitSet(NUM_COLUMNS);
+        scalarCols.set(LONG_COLUMN);
+        scalarCols.set(INT_COLUMN);
+        BitSet doubleCols=new BitSet(NUM_COLUMNS);
+        doubleCols.set(DOUBLE_COLUMN);
+        EntryEncoder entryEncoder=EntryEncoder.create(null,NUM_COLUMNS,setCols,scalarCols,new BitSet(),doubleCols);
+        MultiFieldEncoder encoder=entryEncoder.getEntryEncoder();
+        encoder.encodeNext(random.nextLong())
+                .encodeNext(random.nextInt(1000))
+                .encodeNext(randomString(random,8+random.nextInt(24)))
+                .encodeNext(BigDecimal.valueOf(random.nextInt(1000000),2))
+                .encodeNext(random.nextDouble());
+        return entryEncoder.encode();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of individual fields, and of whole rows through MultiFieldEncoder/MultiFieldDecoder.
+ *
+ * Each invocation works on the next value of a pre-generated pool, so that the JIT can't specialize on a
+ * single constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EncodingBenchmark{
+    private static final int POOL_SIZE=1024;
+
+    private long[] longs;
+    private String[] strings;
+    private BigDecimal[] decimals;
+    private double[] doubles;
+
+    private byte[][] encodedLongs;
+    private byte[][] encodedStrings;
+    private byte[][] encodedDecimals;
+    private byte[][] encodedRows;
+
+    private MultiFieldEncoder rowEncoder;
+    private MultiFieldDecoder rowDecoder;
+    private int pos;
+
+    @Setup
+    public void setup(){
+        Random random=new Random(0L);
+        longs=new long[POOL_SIZE];
+        strings=new String[POOL_SIZE];
+        decimals=new BigDecimal[POOL_SIZE];
+        doubles=new double[POOL_SIZE];
+        encodedLongs=new byte[POOL_SIZE][];
+        encodedStrings=new byte[POOL_SIZE][];
+        encodedDecimals=new byte[POOL_SIZE][];
+        encodedRows=new byte[POOL_SIZE][];
+        rowEncoder=MultiFieldEncoder.create(5);
+        rowEncoder.mark();
+        for(int i=0;i<POOL_SIZE;i++){
+            longs[i]=random.nextLong()>>>random.nextInt(64);
+            strings[i]=Data.randomString(random,4+random.nextInt(28));
+            decimals[i]=BigDecimal.valueOf(random.nextInt(),random.nextInt(8));
+            doubles[i]=random.nextDouble();
+
+            encodedLongs[i]=Encoding.encode(longs[i],false);
+            encodedStrings[i]=Encoding.encode(strings[i],false);
+            encodedDecimals[i]=Encoding.encode(decimals[i],false);
+            encodedRows[i]=encodeRow(i);
+        }
+        rowDecoder=MultiFieldDecoder.create();
+    }
+
+    @Benchmark
+    public byte[] encodeScalar(){
+        return Encoding.encode(longs[next()],false);
+    }
+
+    @Benchmark
+    public long decodeScalar(){
+        return Encoding.decodeLong(encodedLongs[next()],false);
+    }
+
+    @Benchmark
+    public byte[] encodeString(){
+        return Encoding.encode(strings[next()],false);
+    }
+
+    @Benchmark
+    public String decodeString(){
+        return Encoding.decodeString(encodedStrings[next()],false);
+    }
+
+    @Benchmark
+    public byte[] encodeDecimal(){
+        return Encoding.encode(decimals[next()],false);
+    }
+
+    @Benchmark
+    public BigDecimal decodeDecimal(){
+        return Encoding.decodeBigDecimal(encodedDecimals[next()],false);
+    }
+
+    @Benchmark
+    public byte[] encodeRow(){
+        return encodeRow(next());
+    }
+
+    @Benchmark
+    public void decodeRow(Blackhole bh){
+        rowDecoder.set(encodedRows[next()]);
+        bh.consume(rowDecoder.decodeNextLong());
+        bh.consume(rowDecoder.decodeNextInt());
+        bh.consume(rowDecoder.decodeNextString());
+        bh.consume(rowDecoder.decodeNextBigDecimal());
+        bh.consume(rowDecoder.decodeNextDouble());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private int next(){
+        pos=(pos+1)&(POOL_SIZE-1);
+        return pos;
+    }
+
+    private byte[] encodeRow(int i){
+        rowEncoder.reset();
+        return rowEncoder.encodeNext(longs[i])
+                .encodeNext((int)longs[i])
+                .encodeNext(strings[i])
+                .encodeNext(decimals[i])
+                .encodeNext(doubles[i])
+                .build();
+    }
+}
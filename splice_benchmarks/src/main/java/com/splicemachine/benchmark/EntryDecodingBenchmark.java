@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.storage.EntryAccumulator;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.predicate.CompareOp;
+import com.splicemachine.storage.predicate.FieldType;
+import com.splicemachine.storage.predicate.ValuePredicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of packed rows through EntryDecoder and EntryPredicateFilter, as done for every row
+ * returned by a scan.
+ *
+ * <ul>
+ *     <li>{@code all}: every column is returned</li>
+ *     <li>{@code projected}: only the VARCHAR and DECIMAL columns are returned</li>
+ *     <li>{@code predicate}: the projection, plus a pushed-down {@code INTEGER < 500} predicate
+ *     which filters out about half the rows</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EntryDecodingBenchmark{
+    private static final int POOL_SIZE=1024;
+
+    @Param({"all","projected","predicate"})
+    public String filter;
+
+    private byte[][] rows;
+    private EntryDecoder decoder;
+    private EntryPredicateFilter predicateFilter;
+    private EntryAccumulator accumulator;
+    private int pos;
+
+    @Setup
+    public void setup() throws IOException{
+        Random random=new Random(0L);
+        rows=new byte[POOL_SIZE][];
+        for(int i=0;i<POOL_SIZE;i++){
+            rows[i]=Data.randomRow(random);
+        }
+        decoder=new EntryDecoder();
+
+        BitSet projection=new BitSet(Data.NUM_COLUMNS);
+        switch(filter){
+            case "all":
+                predicateFilter=new EntryPredicateFilter(new BitSet());
+                break;
+            case "projected":
+                projection.set(Data.STRING_COLUMN);
+                projection.set(Data.DECIMAL_COLUMN);
+                predicateFilter=new EntryPredicateFilter(projection);
+                break;
+            case "predicate":
+                projection.set(Data.STRING_COLUMN);
+                projection.set(Data.DECIMAL_COLUMN);
+                predicateFilter=new EntryPredicateFilter(projection,false,
+                        new ValuePredicate(Data.INT_COLUMN,FieldType.SCALAR,CompareOp.LESS_THAN,Encoding.encode(500),false));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter "+filter);
+        }
+        accumulator=predicateFilter.newAccumulator();
+    }
+
+    @Benchmark
+    public byte[] decode() throws IOException{
+        pos=(pos+1)&(POOL_SIZE-1);
+        decoder.set(rows[pos]);
+        accumulator.reset();
+        predicateFilter.reset();
+        if(!predicateFilter.match(decoder,accumulator))
+            return null;
+        return accumulator.finish();
+    }
+}
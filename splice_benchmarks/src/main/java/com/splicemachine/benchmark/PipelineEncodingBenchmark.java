@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.concurrent.SystemClock;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.PipelineEncoding;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.impl.MOperationFactory;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of BulkWrites as they are sent between the write pipeline client and server.
+ *
+ * Each request contains {@link #NUM_REGIONS} BulkWrites of {@code rowsPerWrite} inserts with sequential
+ * (and therefore shared-prefix) row keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelineEncodingBenchmark{
+    private static final int NUM_REGIONS=4;
+
+    @Param({"10","1000"})
+    public int rowsPerWrite;
+
+    private TxnOperationFactory operationFactory;
+    private BulkWrites bulkWrites;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException{
+        operationFactory=new SimpleTxnOperationFactory(MExceptionFactory.INSTANCE,new MOperationFactory(new SystemClock()));
+        Random random=new Random(0L);
+        List<BulkWrite> writes=new ArrayList<>(NUM_REGIONS);
+        long rowId=random.nextInt(1<<20);
+        for(int r=0;r<NUM_REGIONS;r++){
+            Collection<KVPair> mutations=new ArrayList<>(rowsPerWrite);
+            for(int i=0;i<rowsPerWrite;i++){
+                mutations.add(new KVPair(Encoding.encode(rowId++),Data.randomRow(random),KVPair.Type.INSERT));
+            }
+            writes.add(new BulkWrite(mutations,Integer.toHexString(random.nextInt())));
+        }
+        bulkWrites=new BulkWrites(writes,new ActiveWriteTxn(1L,1L,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        encoded=PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        return PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh){
+        //the mutations are decoded lazily, so we have to look at them to get the full cost
+        BulkWrites decoded=PipelineEncoding.decode(operationFactory,encoded);
+        for(BulkWrite bulkWrite : decoded.getBulkWrites()){
+            for(KVPair kvPair : bulkWrite.getMutations()){
+                bh.consume(kvPair);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.utils.IntArrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion between ExecRows and their stored form: row key construction for a composite
+ * {@code (BIGINT, INTEGER)} primary key, and encoding/decoding of the remaining columns as a packed row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RowMarshallingBenchmark{
+    private static final int POOL_SIZE=1024;
+    private static final int[] KEY_COLUMNS={Data.LONG_COLUMN,Data.INT_COLUMN};
+
+    private ExecRow[] rows;
+    private byte[][] encodedRows;
+    private ExecRow template;
+
+    private KeyEncoder keyEncoder;
+    private EntryDataHash rowEncoder;
+    private EntryDataDecoder rowDecoder;
+    private int pos;
+
+    @Setup
+    public void setup() throws StandardException, IOException{
+        Random random=new Random(0L);
+        rows=new ExecRow[POOL_SIZE];
+        for(int i=0;i<POOL_SIZE;i++){
+            ExecRow row=new ValueRow(Data.NUM_COLUMNS);
+            row.setColumn(Data.LONG_COLUMN+1,new SQLLongint(random.nextLong()));
+            row.setColumn(Data.INT_COLUMN+1,new SQLInteger(random.nextInt(1000)));
+            row.setColumn(Data.STRING_COLUMN+1,new SQLVarchar(Data.randomString(random,8+random.nextInt(24))));
+            row.setColumn(Data.DECIMAL_COLUMN+1,new SQLDecimal(BigDecimal.valueOf(random.nextInt(1000000),2)));
+            row.setColumn(Data.DOUBLE_COLUMN+1,new SQLDouble(random.nextDouble()));
+            rows[i]=row;
+        }
+        template=rows[0].getNewNullRow();
+
+        //keys must use the dense serializers, the packed row the sparse ones
+        DescriptorSerializer[] keySerializers=VersionedSerializers.latestVersion(false).getSerializers(template);
+        DescriptorSerializer[] rowSerializers=VersionedSerializers.latestVersion(true).getSerializers(template);
+        keyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,BareKeyHash.encoder(KEY_COLUMNS,null,keySerializers),NoOpPostfix.INSTANCE);
+
+        int[] rowColumns=IntArrays.count(Data.NUM_COLUMNS);
+        for(int keyColumn : KEY_COLUMNS){
+            rowColumns[keyColumn]=-1;
+        }
+        rowEncoder=new EntryDataHash(rowColumns,null,rowSerializers);
+        rowDecoder=new EntryDataDecoder(rowColumns,null,rowSerializers);
+
+        encodedRows=new byte[POOL_SIZE][];
+        for(int i=0;i<POOL_SIZE;i++){
+            rowEncoder.setRow(rows[i]);
+            encodedRows[i]=rowEncoder.encode();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeKey() throws StandardException, IOException{
+        return keyEncoder.getKey(rows[next()]);
+    }
+
+    @Benchmark
+    public byte[] encodeRow() throws StandardException, IOException{
+        rowEncoder.setRow(rows[next()]);
+        return rowEncoder.encode();
+    }
+
+    @Benchmark
+    public ExecRow decodeRow() throws StandardException{
+        byte[] row=encodedRows[next()];
+        rowDecoder.set(row,0,row.length);
+        rowDecoder.decode(template);
+        return template;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private int next(){
+        pos=(pos+1)&(POOL_SIZE-1);
+        return pos;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.SimpleTxnFilter;
+import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataFilter;
+import com.splicemachine.storage.MCell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot isolation filtering of a single row through SimpleTxnFilter, cell by cell in storage order.
+ *
+ * Each row has {@code versions} committed versions of user data. When {@code resolved} is true, every
+ * version also has a commit timestamp cell (i.e. the row has been read-resolved), so the filter can
+ * determine visibility without looking up the writing transaction; otherwise every version requires a
+ * transaction lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TxnFilterBenchmark{
+    private static final int POOL_SIZE=256;
+
+    @Param({"1","4","16"})
+    public int versions;
+
+    @Param({"true","false"})
+    public boolean resolved;
+
+    private DataCell[][] rows;
+    private SimpleTxnFilter txnFilter;
+    private int pos;
+
+    @Setup
+    public void setup() throws IOException{
+        Random random=new Random(0L);
+        MapTxnSupplier txnSupplier=new MapTxnSupplier();
+        rows=new DataCell[POOL_SIZE][];
+        long txnId=1L;
+        for(int i=0;i<POOL_SIZE;i++){
+            byte[] key=Bytes.toBytes(i);
+            List<DataCell> commitTimestamps=new ArrayList<>(versions);
+            List<DataCell> userData=new ArrayList<>(versions);
+            for(int v=0;v<versions;v++){
+                long beginTs=txnId++;
+                long commitTs=txnId++;
+                txnSupplier.put(new CommittedTxn(beginTs,commitTs));
+                commitTimestamps.add(0,new MCell(key,SIConstants.DEFAULT_FAMILY_BYTES,
+                        SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,beginTs,Bytes.toBytes(commitTs),CellType.COMMIT_TIMESTAMP));
+                userData.add(0,new MCell(key,SIConstants.DEFAULT_FAMILY_BYTES,
+                        SIConstants.PACKED_COLUMN_BYTES,beginTs,Data.randomRow(random),CellType.USER_DATA));
+            }
+            List<DataCell> row=new ArrayList<>(2*versions);
+            if(resolved)
+                row.addAll(commitTimestamps);
+            row.addAll(userData);
+            rows[i]=row.toArray(new DataCell[row.size()]);
+        }
+
+        TxnView reader=new InheritingTxnView(Txn.ROOT_TRANSACTION,txnId,txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+        txnFilter=new SimpleTxnFilter("benchmark",reader,NoOpReadResolver.INSTANCE,txnSupplier);
+    }
+
+    @Benchmark
+    public void filterRow(Blackhole bh) throws IOException{
+        pos=(pos+1)%POOL_SIZE;
+        txnFilter.nextRow();
+        for(DataCell cell : rows[pos]){
+            DataFilter.ReturnCode returnCode=txnFilter.filterCell(cell);
+            bh.consume(returnCode);
+            if(returnCode==DataFilter.ReturnCode.NEXT_ROW) break;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    private static class MapTxnSupplier implements TxnSupplier{
+        private final LongObjectOpenHashMap<TxnView> txns=new LongObjectOpenHashMap<>();
+
+        void put(TxnView txn){
+            txns.put(txn.getTxnId(),txn);
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId) throws IOException{
+            return getTransaction(txnId,false);
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+            return txns.get(txnId);
+        }
+
+        @Override public boolean transactionCached(long txnId){ return false; }
+        @Override public void cache(TxnView toCache){ }
+        @Override public TxnView getTransactionFromCache(long txnId){ return null; }
+    }
+}
@@ -17,6 +17,9 @@ package com.splicemachine.storage;
 
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.predicate.FieldValues;
+import com.splicemachine.storage.predicate.Predicate;
+import com.splicemachine.storage.predicate.Predicates;
 import com.splicemachine.utils.Pair;
 import java.io.IOException;
 import com.carrotsearch.hppc.BitSet;
@@ -30,6 +33,13 @@ public class EntryPredicateFilter {
     public static final EntryPredicateFilter EMPTY_PREDICATE = new EntryPredicateFilter(new BitSet());
     private BitSet fieldsToReturn;
     private boolean returnIndex;
+    /*
+     * A predicate which is evaluated directly against the encoded row, before anything is
+     * accumulated, so that rows which cannot match are rejected without being decoded.
+     */
+    private final Predicate predicate;
+    private BitSet predicateColumns;
+    private FieldValues predicateValues;
     public static EntryPredicateFilter emptyPredicate(){ return EMPTY_PREDICATE; }
 
     public EntryPredicateFilter(BitSet fieldsToReturn){
@@ -37,8 +47,18 @@ public class EntryPredicateFilter {
     }
 
     public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex){
+        this(fieldsToReturn,returnIndex,null);
+    }
+
+    public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex, Predicate predicate){
         this.fieldsToReturn = fieldsToReturn;
         this.returnIndex=returnIndex;
+        this.predicate=predicate;
+        if(predicate!=null){
+            this.predicateColumns = new BitSet();
+            predicate.addReferencedColumns(predicateColumns);
+            this.predicateValues = new FieldValues((int)predicateColumns.length());
+        }
     }
 
 		public boolean match(Indexed index,
@@ -90,6 +110,8 @@ public class EntryPredicateFilter {
 
 
 		public boolean match(EntryDecoder entry,EntryAccumulator accumulator) throws IOException {
+				if(predicate!=null && !matchPredicate(entry.getCurrentIndex(),entry.getEntryDecoder(),accumulator.getRemainingFields()))
+						return false;
 				return match(entry.getCurrentIndex(),entry, accumulator);
     }
 
@@ -98,7 +120,12 @@ public class EntryPredicateFilter {
     }
 
     public void reset(){
+        if(predicateValues!=null)
+            predicateValues.reset();
+    }
 
+    public Predicate getPredicate(){
+        return predicate;
     }
 
     public EntryAccumulator newAccumulator() {
@@ -107,18 +134,21 @@ public class EntryPredicateFilter {
 
     public byte[] toBytes() {
         //if we dont have any distinguishing information, just send over an empty byte array
-        if(fieldsToReturn.length()==0 && !returnIndex)
+        if(fieldsToReturn.length()==0 && !returnIndex && predicate==null)
             return new byte[]{};
 
         /*
          * Format is as follows:
          * BitSet bytes
          * 1-byte returnIndex
+         * Predicate bytes (optional)
          */
         byte[] bitSetBytes = Bytes.toByteArray(fieldsToReturn);
-        byte[] finalData = new byte[bitSetBytes.length+1];
+        byte[] predicateBytes = predicate==null? Bytes.EMPTY_BYTE_ARRAY: Predicates.toBytes(predicate);
+        byte[] finalData = new byte[bitSetBytes.length+1+predicateBytes.length];
         System.arraycopy(bitSetBytes,0,finalData,0,bitSetBytes.length);
         finalData[bitSetBytes.length] = returnIndex? (byte)0x01: 0x00;
+        System.arraycopy(predicateBytes,0,finalData,bitSetBytes.length+1,predicateBytes.length);
         return finalData;
     }
 
@@ -126,8 +156,43 @@ public class EntryPredicateFilter {
         if(data==null||data.length==0) return EMPTY_PREDICATE;
 
         Pair<BitSet,Integer> fieldsToReturn = Bytes.fromByteArray(data, 0);
-        boolean returnIndex = data[fieldsToReturn.getSecond()] > 0;
-        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex);
+        int returnIndexPos = fieldsToReturn.getSecond();
+        boolean returnIndex = data[returnIndexPos] > 0;
+        Predicate predicate = null;
+        int predicateOffset = returnIndexPos+1;
+        if(data.length>predicateOffset)
+            predicate = Predicates.fromBytes(data,predicateOffset,data.length-predicateOffset);
+        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex,predicate);
+    }
+
+    /*
+     * Collects the fields which the predicate needs from the encoded row, and evaluates the predicate
+     * against them. Only fields which this row version will actually contribute (i.e. which haven't
+     * already been filled by a newer version) are considered, and values seen in newer versions of
+     * the same row are retained until reset() is called.
+     */
+    private boolean matchPredicate(Indexed index,MultiFieldDecoder decoder,BitSet remainingFields){
+        boolean sawField = false;
+        long predicateLength = predicateColumns.length();
+        byte[] array = decoder.array();
+        for(int encodedPos=index.nextSetBit(0);
+            encodedPos>=0 && encodedPos<predicateLength && decoder.available();
+            encodedPos=index.nextSetBit(encodedPos+1)){
+            int offset = decoder.offset();
+            skipField(decoder,encodedPos,index);
+            if(!predicateColumns.get(encodedPos) || !remainingFields.get(encodedPos)) continue;
+
+            int limit = decoder.offset()-1-offset;
+            if(limit<=0){
+                //we have an implicit null field
+                limit=0;
+            }else if(offset+limit>array.length){
+                limit = array.length-offset;
+            }
+            predicateValues.set(encodedPos,array,offset,limit);
+            sawField = true;
+        }
+        return !sawField || predicate.match(predicateValues);
     }
 
     private void skipField(MultiFieldDecoder decoder, int position, Indexed index) {
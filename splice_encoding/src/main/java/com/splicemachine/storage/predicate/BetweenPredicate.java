@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Restricts a single column to a range of values. A {@code null} column value never matches.
+ */
+public class BetweenPredicate implements Predicate{
+    private final int column;
+    private final FieldType type;
+    private final byte[] lower;
+    private final boolean lowerInclusive;
+    private final byte[] upper;
+    private final boolean upperInclusive;
+
+    public BetweenPredicate(int column,FieldType type,
+                            byte[] lower,boolean lowerInclusive,
+                            byte[] upper,boolean upperInclusive){
+        this.column=column;
+        this.type=type;
+        this.lower=lower;
+        this.lowerInclusive=lowerInclusive;
+        this.upper=upper;
+        this.upperInclusive=upperInclusive;
+    }
+
+    @Override
+    public boolean match(FieldValues row){
+        if(!row.isSet(column)) return true;
+        byte[] data = row.array(column);
+        int offset = row.offset(column);
+        int length = row.length(column);
+        if(type.isNull(data,offset,length)) return false;
+
+        int compare = type.compare(data,offset,length,lower);
+        if(compare<0 ||(compare==0 && !lowerInclusive)) return false;
+        compare = type.compare(data,offset,length,upper);
+        return compare<0 || (compare==0 && upperInclusive);
+    }
+
+    @Override
+    public void addReferencedColumns(BitSet columns){
+        columns.set(column);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException{
+        out.writeByte(Predicates.BETWEEN);
+        out.writeInt(column);
+        out.writeByte(type.ordinal());
+        out.writeBoolean(lowerInclusive);
+        Predicates.writeBytes(out,lower);
+        out.writeBoolean(upperInclusive);
+        Predicates.writeBytes(out,upper);
+    }
+
+    static BetweenPredicate read(DataInput in) throws IOException{
+        int column = in.readInt();
+        FieldType type = FieldType.values()[in.readByte()];
+        boolean lowerInclusive = in.readBoolean();
+        byte[] lower = Predicates.readBytes(in);
+        boolean upperInclusive = in.readBoolean();
+        byte[] upper = Predicates.readBytes(in);
+        return new BetweenPredicate(column,type,lower,lowerInclusive,upper,upperInclusive);
+    }
+
+    @Override
+    public String toString(){
+        return "("+column+" in "+(lowerInclusive?"[":"(")+Arrays.toString(lower)+","
+                +Arrays.toString(upper)+(upperInclusive?"]":")")+")";
+    }
+}
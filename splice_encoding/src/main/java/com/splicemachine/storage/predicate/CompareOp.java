@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+/**
+ * Comparison operators for a {@link ValuePredicate}, in the form {@code column <op> value}.
+ *
+ * The ordinal is part of the serialized form, so entries must only ever be appended.
+ */
+public enum CompareOp {
+    EQUALS{
+        @Override public boolean apply(int compare){ return compare==0; }
+        @Override public CompareOp negate(){ return NOT_EQUALS; }
+    },
+    NOT_EQUALS{
+        @Override public boolean apply(int compare){ return compare!=0; }
+        @Override public CompareOp negate(){ return EQUALS; }
+    },
+    LESS_THAN{
+        @Override public boolean apply(int compare){ return compare<0; }
+        @Override public CompareOp negate(){ return GREATER_OR_EQUALS; }
+    },
+    LESS_OR_EQUALS{
+        @Override public boolean apply(int compare){ return compare<=0; }
+        @Override public CompareOp negate(){ return GREATER_THAN; }
+    },
+    GREATER_THAN{
+        @Override public boolean apply(int compare){ return compare>0; }
+        @Override public CompareOp negate(){ return LESS_OR_EQUALS; }
+    },
+    GREATER_OR_EQUALS{
+        @Override public boolean apply(int compare){ return compare>=0; }
+        @Override public CompareOp negate(){ return LESS_THAN; }
+    };
+
+    /**
+     * @param compare the result of comparing the column value to the predicate value
+     * @return true if the comparison satisfies this operator
+     */
+    public abstract boolean apply(int compare);
+
+    /**
+     * @return the operator which accepts exactly the (non-null) values this operator rejects
+     */
+    public abstract CompareOp negate();
+
+    public boolean isLowerBound(){
+        return this==GREATER_THAN || this==GREATER_OR_EQUALS;
+    }
+
+    public boolean isUpperBound(){
+        return this==LESS_THAN || this==LESS_OR_EQUALS;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.primitives.Bytes;
+
+/**
+ * The encoding family of a field, which determines how nulls are recognized and how two encoded
+ * values of that field are compared.
+ *
+ * All of the supported encodings are order-preserving, so comparing the (ascending) encoded bytes
+ * is equivalent to comparing the decoded values.
+ *
+ * The ordinal is part of the serialized form, so entries must only ever be appended.
+ */
+public enum FieldType {
+    /** Integral types, encoded with {@link com.splicemachine.encoding.ScalarEncoding}*/
+    SCALAR,
+    FLOAT{
+        @Override
+        public boolean isNull(byte[] data,int offset,int length){
+            return length<=0 || isNullMarker(Encoding.encodedNullFloat(),data,offset,length);
+        }
+    },
+    DOUBLE{
+        @Override
+        public boolean isNull(byte[] data,int offset,int length){
+            return length<=0 || isNullMarker(Encoding.encodedNullDouble(),data,offset,length);
+        }
+    },
+    /** Decimals, encoded with a normalized scale so that numerically equal values are byte-equal */
+    DECIMAL,
+    /**
+     * Character types. SQL compares character strings as if the shorter one were padded with spaces,
+     * so the comparison treats missing trailing bytes as an encoded space instead of ordering the
+     * shorter value first.
+     */
+    STRING{
+        /* StringEncoding adds 2 to every UTF-8 byte, and uses 0x01 to represent the empty string */
+        private static final byte ENCODED_SPACE = (byte)(' '+2);
+        private static final byte ENCODED_EMPTY = 0x01;
+
+        @Override
+        public int compare(byte[] left,int leftOffset,int leftLength,byte[] right,int rightOffset,int rightLength){
+            if(leftLength==1 && left[leftOffset]==ENCODED_EMPTY) leftLength=0;
+            if(rightLength==1 && right[rightOffset]==ENCODED_EMPTY) rightLength=0;
+
+            int commonLength = Math.min(leftLength,rightLength);
+            for(int i=0;i<commonLength;i++){
+                int l = left[leftOffset+i] & 0xff;
+                int r = right[rightOffset+i] & 0xff;
+                if(l!=r) return l-r;
+            }
+            for(int i=commonLength;i<leftLength;i++){
+                int compare = (left[leftOffset+i] & 0xff)-ENCODED_SPACE;
+                if(compare!=0) return compare;
+            }
+            for(int i=commonLength;i<rightLength;i++){
+                int compare = ENCODED_SPACE-(right[rightOffset+i] & 0xff);
+                if(compare!=0) return compare;
+            }
+            return 0;
+        }
+    };
+
+    public boolean isNull(byte[] data,int offset,int length){
+        return length<=0;
+    }
+
+    public int compare(byte[] left,int leftOffset,int leftLength,byte[] right,int rightOffset,int rightLength){
+        return Bytes.BASE_COMPARATOR.compare(left,leftOffset,leftLength,right,rightOffset,rightLength);
+    }
+
+    public int compare(byte[] left,int leftOffset,int leftLength,byte[] right){
+        return compare(left,leftOffset,leftLength,right,0,right.length);
+    }
+
+    private static boolean isNullMarker(byte[] nullBytes,byte[] data,int offset,int length){
+        return length==nullBytes.length && Bytes.equals(nullBytes,0,nullBytes.length,data,offset,length);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+/**
+ * The encoded field values of a single row which are needed to evaluate a {@link Predicate}.
+ *
+ * Fields are not copied--this only holds references into the underlying row buffers, so it is only
+ * valid for as long as those buffers are (i.e. for the duration of a single row).
+ */
+public class FieldValues {
+    private final BitSet setFields = new BitSet();
+    private byte[][] arrays;
+    private int[] offsets;
+    private int[] lengths;
+
+    public FieldValues(int numFields){
+        this.arrays = new byte[numFields][];
+        this.offsets = new int[numFields];
+        this.lengths = new int[numFields];
+    }
+
+    public void set(int position,byte[] data,int offset,int length){
+        if(position>=arrays.length)
+            grow(position+1);
+        arrays[position] = data;
+        offsets[position] = offset;
+        lengths[position] = length;
+        setFields.set(position);
+    }
+
+    public boolean isSet(int position){
+        return setFields.get(position);
+    }
+
+    public byte[] array(int position){ return arrays[position]; }
+
+    public int offset(int position){ return offsets[position]; }
+
+    public int length(int position){ return lengths[position]; }
+
+    public void reset(){
+        if(setFields.isEmpty()) return;
+        for(int i=setFields.nextSetBit(0);i>=0;i=setFields.nextSetBit(i+1)){
+            arrays[i] = null;
+        }
+        setFields.clear();
+    }
+
+    /*****************************************************************************************************************/
+    /*private helper methods*/
+    private void grow(int size){
+        byte[][] newArrays = new byte[size][];
+        System.arraycopy(arrays,0,newArrays,0,arrays.length);
+        int[] newOffsets = new int[size];
+        System.arraycopy(offsets,0,newOffsets,0,offsets.length);
+        int[] newLengths = new int[size];
+        System.arraycopy(lengths,0,newLengths,0,lengths.length);
+        this.arrays = newArrays;
+        this.offsets = newOffsets;
+        this.lengths = newLengths;
+    }
+}
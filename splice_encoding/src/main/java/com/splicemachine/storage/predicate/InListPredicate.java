@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Matches a single column against a list of values, as in {@code column IN (v1,v2,...)}. A
+ * {@code null} column value never matches.
+ */
+public class InListPredicate implements Predicate{
+    private final int column;
+    private final FieldType type;
+    private final byte[][] values;
+
+    public InListPredicate(int column,final FieldType type,byte[][] values){
+        this.column=column;
+        this.type=type;
+        this.values=Arrays.copyOf(values,values.length);
+        //sort the values, so that we can binary search them
+        Arrays.sort(this.values,new Comparator<byte[]>(){
+            @Override
+            public int compare(byte[] o1,byte[] o2){
+                return type.compare(o1,0,o1.length,o2);
+            }
+        });
+    }
+
+    @Override
+    public boolean match(FieldValues row){
+        if(!row.isSet(column)) return true;
+        byte[] data = row.array(column);
+        int offset = row.offset(column);
+        int length = row.length(column);
+        if(type.isNull(data,offset,length)) return false;
+
+        int low = 0;
+        int high = values.length-1;
+        while(low<=high){
+            int mid = (low+high)>>>1;
+            int compare = type.compare(data,offset,length,values[mid]);
+            if(compare==0) return true;
+            else if(compare>0) low = mid+1;
+            else high = mid-1;
+        }
+        return false;
+    }
+
+    @Override
+    public void addReferencedColumns(BitSet columns){
+        columns.set(column);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException{
+        out.writeByte(Predicates.IN_LIST);
+        out.writeInt(column);
+        out.writeByte(type.ordinal());
+        out.writeInt(values.length);
+        for(byte[] value:values){
+            Predicates.writeBytes(out,value);
+        }
+    }
+
+    static InListPredicate read(DataInput in) throws IOException{
+        int column = in.readInt();
+        FieldType type = FieldType.values()[in.readByte()];
+        byte[][] values = new byte[in.readInt()][];
+        for(int i=0;i<values.length;i++){
+            values[i] = Predicates.readBytes(in);
+        }
+        return new InListPredicate(column,type,values);
+    }
+
+    @Override
+    public String toString(){
+        return "("+column+" in "+Arrays.deepToString(values)+")";
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * {@code column IS NULL} or {@code column IS NOT NULL}.
+ *
+ * Note that a column which is absent from a row version may still be populated by an older version,
+ * so only fields which are explicitly present are evaluated here.
+ */
+public class NullPredicate implements Predicate{
+    private final int column;
+    private final FieldType type;
+    private final boolean matchNull;
+
+    /**
+     * @param column the storage position of the column
+     * @param type the encoding type of the column
+     * @param matchNull {@code true} for {@code IS NULL}, {@code false} for {@code IS NOT NULL}
+     */
+    public NullPredicate(int column,FieldType type,boolean matchNull){
+        this.column=column;
+        this.type=type;
+        this.matchNull=matchNull;
+    }
+
+    @Override
+    public boolean match(FieldValues row){
+        if(!row.isSet(column)) return true;
+        return type.isNull(row.array(column),row.offset(column),row.length(column))==matchNull;
+    }
+
+    @Override
+    public void addReferencedColumns(BitSet columns){
+        columns.set(column);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException{
+        out.writeByte(Predicates.NULL);
+        out.writeInt(column);
+        out.writeByte(type.ordinal());
+        out.writeBoolean(matchNull);
+    }
+
+    static NullPredicate read(DataInput in) throws IOException{
+        int column = in.readInt();
+        FieldType type = FieldType.values()[in.readByte()];
+        boolean matchNull = in.readBoolean();
+        return new NullPredicate(column,type,matchNull);
+    }
+
+    @Override
+    public String toString(){
+        return "("+column+(matchNull?" is null)":" is not null)");
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches if any of its children match.
+ */
+public class OrPredicate implements Predicate{
+    private final Predicate[] predicates;
+
+    public OrPredicate(List<Predicate> predicates){
+        this.predicates=predicates.toArray(new Predicate[predicates.size()]);
+    }
+
+    @Override
+    public boolean match(FieldValues row){
+        for(Predicate predicate:predicates){
+            if(predicate.match(row)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void addReferencedColumns(BitSet columns){
+        for(Predicate predicate:predicates){
+            predicate.addReferencedColumns(columns);
+        }
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException{
+        out.writeByte(Predicates.OR);
+        out.writeInt(predicates.length);
+        for(Predicate predicate:predicates){
+            predicate.write(out);
+        }
+    }
+
+    static OrPredicate read(DataInput in) throws IOException{
+        int size = in.readInt();
+        List<Predicate> predicates = new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            predicates.add(Predicates.read(in));
+        }
+        return new OrPredicate(predicates);
+    }
+
+    @Override
+    public String toString(){
+        return Predicates.join(" or ",predicates);
+    }
+}
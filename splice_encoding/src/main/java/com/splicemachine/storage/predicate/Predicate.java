@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A serializable predicate which is evaluated directly against the encoded bytes of a row,
+ * before that row is decoded.
+ *
+ * Predicates are only allowed to reject a row when it is <em>known</em> that the row cannot
+ * match. A column which has not been seen yet (because it lives in an older version of the row,
+ * or is absent from the row entirely) must be treated as a match, so that the full qualifier
+ * evaluation performed after decoding remains the authority on what is returned.
+ */
+public interface Predicate {
+
+    /**
+     * @param row the field values seen so far for the current row.
+     * @return {@code false} if the row is known not to match, {@code true} otherwise.
+     */
+    boolean match(FieldValues row);
+
+    /**
+     * Set the columns that this predicate needs to be evaluated.
+     *
+     * @param columns the set to add the referenced columns to
+     */
+    void addReferencedColumns(BitSet columns);
+
+    /**
+     * Write this predicate (including its type header) to the output.
+     *
+     * @param out the output to write to
+     * @throws IOException if something goes wrong writing
+     */
+    void write(DataOutput out) throws IOException;
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Utilities for constructing and (de)serializing {@link Predicate} trees.
+ */
+public class Predicates{
+    /* type headers for the serialized form*/
+    static final byte VALUE = 0x01;
+    static final byte BETWEEN = 0x02;
+    static final byte IN_LIST = 0x03;
+    static final byte NULL = 0x04;
+    static final byte AND = 0x05;
+    static final byte OR = 0x06;
+
+    private Predicates(){}
+
+    /**
+     * Combine the list of predicates, so that a row must match all of them.
+     *
+     * @param predicates the predicates to combine
+     * @return a predicate which matches only when all of {@code predicates} match, or {@code null} if
+     * there are no predicates
+     */
+    public static Predicate and(List<Predicate> predicates){
+        if(predicates==null || predicates.size()<=0) return null;
+        if(predicates.size()==1) return predicates.get(0);
+        return new AndPredicate(predicates);
+    }
+
+    /**
+     * Combine the list of predicates, so that a row must match any one of them.
+     *
+     * @param predicates the predicates to combine
+     * @return a predicate which matches when any of {@code predicates} match, or {@code null} if
+     * there are no predicates
+     */
+    public static Predicate or(List<Predicate> predicates){
+        if(predicates==null || predicates.size()<=0) return null;
+        if(predicates.size()==1) return predicates.get(0);
+        return new OrPredicate(predicates);
+    }
+
+    public static byte[] toBytes(Predicate predicate){
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        try{
+            predicate.write(out);
+            out.flush();
+        }catch(IOException e){
+            //should never happen, since we are writing to memory
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    public static Predicate fromBytes(byte[] data,int offset,int length) throws IOException{
+        return read(new DataInputStream(new ByteArrayInputStream(data,offset,length)));
+    }
+
+    static Predicate read(DataInput in) throws IOException{
+        byte type = in.readByte();
+        switch(type){
+            case VALUE: return ValuePredicate.read(in);
+            case BETWEEN: return BetweenPredicate.read(in);
+            case IN_LIST: return InListPredicate.read(in);
+            case NULL: return NullPredicate.read(in);
+            case AND: return AndPredicate.read(in);
+            case OR: return OrPredicate.read(in);
+            default:
+                throw new IOException("Unknown predicate type: "+type);
+        }
+    }
+
+    static void writeBytes(DataOutput out,byte[] bytes) throws IOException{
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInput in) throws IOException{
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static String join(String separator,Predicate[] predicates){
+        StringBuilder sb = new StringBuilder("(");
+        boolean isFirst = true;
+        for(Predicate predicate:predicates){
+            if(isFirst) isFirst = false;
+            else sb.append(separator);
+            sb.append(predicate);
+        }
+        return sb.append(")").toString();
+    }
+}
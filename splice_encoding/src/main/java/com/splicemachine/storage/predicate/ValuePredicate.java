@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage.predicate;
+
+import com.carrotsearch.hppc.BitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compares a single column against a constant value: {@code column <op> value}.
+ */
+public class ValuePredicate implements Predicate{
+    private final int column;
+    private final FieldType type;
+    private final CompareOp op;
+    private final byte[] value;
+    private final boolean nullMatches;
+
+    /**
+     * @param column the storage position of the column
+     * @param type the encoding type of the column
+     * @param op the comparison operator
+     * @param value the (ascending) encoded value to compare against
+     * @param nullMatches whether a {@code null} column value satisfies this predicate
+     */
+    public ValuePredicate(int column,FieldType type,CompareOp op,byte[] value,boolean nullMatches){
+        this.column=column;
+        this.type=type;
+        this.op=op;
+        this.value=value;
+        this.nullMatches=nullMatches;
+    }
+
+    @Override
+    public boolean match(FieldValues row){
+        if(!row.isSet(column)) return true;
+        byte[] data = row.array(column);
+        int offset = row.offset(column);
+        int length = row.length(column);
+        if(type.isNull(data,offset,length)) return nullMatches;
+        return op.apply(type.compare(data,offset,length,value));
+    }
+
+    @Override
+    public void addReferencedColumns(BitSet columns){
+        columns.set(column);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException{
+        out.writeByte(Predicates.VALUE);
+        out.writeInt(column);
+        out.writeByte(type.ordinal());
+        out.writeByte(op.ordinal());
+        out.writeBoolean(nullMatches);
+        Predicates.writeBytes(out,value);
+    }
+
+    static ValuePredicate read(DataInput in) throws IOException{
+        int column = in.readInt();
+        FieldType type = FieldType.values()[in.readByte()];
+        CompareOp op = CompareOp.values()[in.readByte()];
+        boolean nullMatches = in.readBoolean();
+        byte[] value = Predicates.readBytes(in);
+        return new ValuePredicate(column,type,op,value,nullMatches);
+    }
+
+    public int getColumn(){ return column; }
+
+    public FieldType getType(){ return type; }
+
+    public CompareOp getOp(){ return op; }
+
+    public byte[] getValue(){ return value; }
+
+    public boolean nullMatches(){ return nullMatches; }
+
+    @Override
+    public String toString(){
+        return "("+column+" "+op+" "+Arrays.toString(value)+")";
+    }
+}
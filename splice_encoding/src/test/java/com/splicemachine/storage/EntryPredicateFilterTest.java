@@ -19,10 +19,19 @@ import com.carrotsearch.hppc.BitSet;
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.storage.index.BitIndex;
 import com.splicemachine.storage.index.BitIndexing;
+import com.splicemachine.storage.predicate.CompareOp;
+import com.splicemachine.storage.predicate.FieldType;
+import com.splicemachine.storage.predicate.InListPredicate;
+import com.splicemachine.storage.predicate.NullPredicate;
+import com.splicemachine.storage.predicate.Predicate;
+import com.splicemachine.storage.predicate.Predicates;
+import com.splicemachine.storage.predicate.ValuePredicate;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.utils.kryo.KryoPool;
 import org.junit.Assert;
 import org.junit.Test;
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 /**
  * @author Scott Fines
@@ -140,4 +149,125 @@ public class EntryPredicateFilterTest {
         Assert.assertEquals("Incorrect string returned!",testType1,decodedField);
         Assert.assertTrue("more than one field available in field decoder!",fieldDecoder.nextIsNull());
     }
+
+    @Test
+    public void testValuePredicateRejectsRowBeforeAccumulating() throws Exception {
+        byte[] data = encodeRow(25L,"test");
+
+        EntryPredicateFilter predicateFilter = new EntryPredicateFilter(new BitSet(),true,
+                new ValuePredicate(0,FieldType.SCALAR,CompareOp.LESS_THAN,Encoding.encode(20L),false));
+        EntryPredicateFilter copy = EntryPredicateFilter.fromBytes(predicateFilter.toBytes());
+
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(data);
+        EntryAccumulator accumulator = copy.newAccumulator();
+        Assert.assertFalse("Row should not have matched!",copy.match(decoder,accumulator));
+        Assert.assertFalse("Rejected row should not have accumulated any fields!",accumulator.hasField(0));
+
+        copy.reset();
+        copy = EntryPredicateFilter.fromBytes(new EntryPredicateFilter(new BitSet(),true,
+                new ValuePredicate(0,FieldType.SCALAR,CompareOp.GREATER_OR_EQUALS,Encoding.encode(25L),false)).toBytes());
+        accumulator = copy.newAccumulator();
+        Assert.assertTrue("Row should have matched!",copy.match(decoder,accumulator));
+        Assert.assertTrue("Matched row should have accumulated fields!",accumulator.hasField(1));
+    }
+
+    @Test
+    public void testStringPredicateIgnoresTrailingBlanks() throws Exception {
+        byte[] data = encodeRow(1L,"test  ");
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(data);
+
+        EntryPredicateFilter predicateFilter = new EntryPredicateFilter(new BitSet(),true,
+                new ValuePredicate(1,FieldType.STRING,CompareOp.EQUALS,Encoding.encode("test"),false));
+        Assert.assertTrue("Padded string should have matched!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+
+        predicateFilter = new EntryPredicateFilter(new BitSet(),true,
+                new ValuePredicate(1,FieldType.STRING,CompareOp.LESS_THAN,Encoding.encode("test\t"),false));
+        Assert.assertFalse("'test' is greater than 'test\\t' when blank padded!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+    }
+
+    @Test
+    public void testInListAndNullPredicates() throws Exception {
+        byte[] data = encodeRow(3L,null);
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(data);
+
+        Predicate inList = new InListPredicate(0,FieldType.SCALAR,
+                new byte[][]{Encoding.encode(7L),Encoding.encode(3L),Encoding.encode(5L)});
+        EntryPredicateFilter predicateFilter = EntryPredicateFilter.fromBytes(new EntryPredicateFilter(new BitSet(),true,inList).toBytes());
+        Assert.assertTrue("Row should have matched the in list!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+
+        Predicate notIn = new InListPredicate(0,FieldType.SCALAR, new byte[][]{Encoding.encode(7L),Encoding.encode(5L)});
+        predicateFilter = new EntryPredicateFilter(new BitSet(),true,notIn);
+        Assert.assertFalse("Row should not have matched the in list!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+
+        Predicate isNotNull = Predicates.and(Arrays.asList(inList,new NullPredicate(1,FieldType.STRING,false)));
+        predicateFilter = EntryPredicateFilter.fromBytes(new EntryPredicateFilter(new BitSet(),true,isNotNull).toBytes());
+        Assert.assertFalse("Null field should not have matched IS NOT NULL!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+
+        Predicate either = Predicates.or(Arrays.asList(notIn,new NullPredicate(1,FieldType.STRING,true)));
+        predicateFilter = EntryPredicateFilter.fromBytes(new EntryPredicateFilter(new BitSet(),true,either).toBytes());
+        Assert.assertTrue("Null field should have matched IS NULL!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+    }
+
+    @Test
+    public void testNullPredicatesOnTypedFields() throws Exception {
+        BitSet setCols = new BitSet(3);
+        setCols.set(0,3);
+        BitSet floatFields = new BitSet(3);
+        floatFields.set(1);
+        BitSet doubleFields = new BitSet(3);
+        doubleFields.set(2);
+        BitIndex index = BitIndexing.getBestIndex(setCols,new BitSet(3),floatFields,doubleFields);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,index);
+        encoder.getEntryEncoder().encodeNext(new BigDecimal("1.5")).encodeEmptyFloat().encodeNext(2.5d);
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(encoder.encode());
+
+        FieldType[] types = {FieldType.DECIMAL,FieldType.FLOAT,FieldType.DOUBLE};
+        boolean[] nulls = {false,true,false};
+        for(int i=0;i<types.length;i++){
+            for(boolean matchNull : new boolean[]{true,false}){
+                EntryPredicateFilter predicateFilter = EntryPredicateFilter.fromBytes(
+                        new EntryPredicateFilter(new BitSet(),true,new NullPredicate(i,types[i],matchNull)).toBytes());
+                Assert.assertEquals("Incorrect match of "+types[i]+" field "+i+(matchNull?" IS NULL":" IS NOT NULL"),
+                        nulls[i]==matchNull,predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+            }
+        }
+    }
+
+    @Test
+    public void testNullPredicatesAcceptFieldsAbsentFromTheRow() throws Exception {
+        BitSet setCols = new BitSet(2);
+        setCols.set(0);
+        BitIndex index = BitIndexing.getBestIndex(setCols,new BitSet(2),new BitSet(2),new BitSet(2));
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,index);
+        encoder.getEntryEncoder().encodeNext("test");
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(encoder.encode());
+
+        //an absent field may still be set by an older version of the row, so it must not be filtered out
+        for(boolean matchNull : new boolean[]{true,false}){
+            EntryPredicateFilter predicateFilter = new EntryPredicateFilter(new BitSet(),true,new NullPredicate(1,FieldType.STRING,matchNull));
+            Assert.assertTrue("Absent field should have matched!",predicateFilter.match(decoder,predicateFilter.newAccumulator()));
+        }
+    }
+
+    private byte[] encodeRow(long scalar,String string) throws Exception{
+        BitSet setCols = new BitSet(3);
+        setCols.set(0,3);
+        BitSet scalarFields = new BitSet(3);
+        scalarFields.set(0);
+        scalarFields.set(2);
+        BitIndex index = BitIndexing.getBestIndex(setCols,scalarFields,new BitSet(3),new BitSet(3));
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,index);
+        encoder.getEntryEncoder().encodeNext(scalar);
+        if(string==null)
+            encoder.getEntryEncoder().encodeEmpty();
+        else
+            encoder.getEntryEncoder().encodeNext(string);
+        encoder.getEntryEncoder().encodeNext(scalar);
+        return encoder.encode();
+    }
 }
@@ -42,6 +42,14 @@ public abstract class DistributedJob implements Serializable{
 
     public abstract String getName();
 
+    /**
+     * @return the name of the queue the Olap server should schedule this job from, or {@code null} to
+     * schedule it from the default queue.
+     */
+    public String getQueue() {
+        return null;
+    }
+
     public final String getUniqueName() {
         return getName() + "-" + uuid.toString();
     }
@@ -66,6 +66,7 @@ import com.splicemachine.db.impl.sql.execute.IndexColumnOrder;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLWatcher;
 import com.splicemachine.derby.impl.sql.catalog.upgrade.SpliceCatalogUpgradeScripts;
+import com.splicemachine.derby.impl.sql.catalog.upgrade.UpgradeScriptForStatsWriteCount;
 import com.splicemachine.derby.impl.sql.depend.SpliceDependencyManager;
 import com.splicemachine.derby.impl.sql.execute.sequence.SequenceKey;
 import com.splicemachine.derby.impl.sql.execute.sequence.SpliceSequence;
@@ -468,8 +469,12 @@ public class SpliceDataDictionary extends DataDictionaryImpl{
             SIDriver siDriver =SIDriver.driver();
             PartitionFactory partFactory = siDriver.getTableFactory();
             TxnOperationFactory txnOpFactory = siDriver.getOperationFactory();
+            SConfiguration config=siDriver.getConfiguration();
             SpliceSequence sequence=EngineDriver.driver().sequencePool().
-                    get(new SequenceKey(sequenceRowLocationBytes,useBatch?SIDriver.driver().getConfiguration().getSequenceBlockSize():1l,start,increment,partFactory,txnOpFactory));
+                    get(new SequenceKey(sequenceRowLocationBytes,
+                            useBatch?config.getSequenceBlockSize():1l,
+                            useBatch?config.getSequenceMaxBlockSize():1l,
+                            start,increment,partFactory,txnOpFactory));
             return sequence;
         }catch(Exception e){
             throw Exceptions.parseException(e);
@@ -522,6 +527,9 @@ public class SpliceDataDictionary extends DataDictionaryImpl{
             scripts.run();
             tc.setProperty(SPLICE_DATA_DICTIONARY_VERSION,spliceSoftwareVersion,true);
             tc.commit();
+        }else if(new UpgradeScriptForStatsWriteCount(this,tc).addWriteCountIfAbsent()){
+            //SYSTABLESTATS.WRITECOUNT came without a catalog version bump, so check for it on every boot
+            tc.commit();
         }
     }
 
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.derby.impl.sql.catalog.upgrade;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptorList;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.impl.sql.catalog.SYSTABLESTATISTICSRowFactory;
+import com.splicemachine.derby.impl.sql.catalog.SpliceDataDictionary;
+import com.splicemachine.pipeline.ErrorState;
+
+import java.sql.Types;
+
+/**
+ * Adds the WRITECOUNT column to SYSTABLESTATS, which records the write request count of a partition when its
+ * statistics were collected. Statistics collected before the upgrade have no count, and are considered stale
+ * by the next incremental collection.
+ * <p>
+ * The column was added without bumping the catalog version, so a catalog that is already at the current version
+ * never runs this script through {@link SpliceCatalogUpgradeScripts}. The data dictionary therefore also calls
+ * {@link #addWriteCountIfAbsent()} on every boot.
+ */
+public class UpgradeScriptForStatsWriteCount extends UpgradeScriptBase {
+    public UpgradeScriptForStatsWriteCount(SpliceDataDictionary sdd, TransactionController tc) {
+        super(sdd, tc);
+    }
+
+    @Override
+    protected void upgradeSystemTables() throws StandardException {
+        super.upgradeSystemTables();
+        addWriteCountIfAbsent();
+    }
+
+    /**
+     * Adds WRITECOUNT to SYSTABLESTATS unless it is already there. The transaction is only elevated when the
+     * column is actually missing, so the check is cheap enough to run on every boot.
+     *
+     * @return true if the column was added by this call
+     */
+    public boolean addWriteCountIfAbsent() throws StandardException {
+        TableDescriptor tableStats = sdd.getTableDescriptor(SYSTABLESTATISTICSRowFactory.TABLENAME_STRING,sdd.getSystemSchemaDescriptor(),tc);
+        if(tableStats==null)
+            return false; //the table is created with the column
+        ColumnDescriptorList columnDescriptorList=tableStats.getColumnDescriptorList();
+        for(ColumnDescriptor cd:columnDescriptorList){
+            //another region server may have added it while starting up at the same time
+            if("WRITECOUNT".equalsIgnoreCase(cd.getColumnName()))
+                return false;
+        }
+
+        tc.elevate("dictionary");
+
+        SQLLongint template_column = new SQLLongint();
+        DataTypeDescriptor dtd = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT,true);
+        tc.addColumnToConglomerate(tableStats.getHeapConglomerateId(),SYSTABLESTATISTICSRowFactory.WRITECOUNT-1,template_column,dtd.getCollationType());
+
+        ColumnDescriptor cd = new ColumnDescriptor("WRITECOUNT",
+                SYSTABLESTATISTICSRowFactory.WRITECOUNT,
+                SYSTABLESTATISTICSRowFactory.WRITECOUNT,
+                dtd,
+                null,
+                null,
+                tableStats,
+                null,
+                0,
+                0,SYSTABLESTATISTICSRowFactory.WRITECOUNT);
+        try{
+            sdd.addDescriptor(cd,tableStats,DataDictionary.SYSCOLUMNS_CATALOG_NUM,false,tc);
+        }catch(StandardException se){
+            //same cluster race as in LassenUpgradeScript: the column already exists, which is what we want
+            if(!ErrorState.LANG_OBJECT_ALREADY_EXISTS_IN_OBJECT.getSqlState().equals(se.getSQLState()))
+                throw se;
+        }
+        columnDescriptorList.add(cd);
+        return true;
+    }
+}
@@ -15,28 +15,45 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
+import org.apache.log4j.Logger;
 import org.spark_project.guava.cache.Cache;
 import org.spark_project.guava.cache.CacheBuilder;
+import org.spark_project.guava.cache.RemovalListener;
+import org.spark_project.guava.cache.RemovalNotification;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.stream.Stream;
+import com.splicemachine.utils.SpliceLogUtils;
 
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a Cache of records for use in a Broadcast Join.
  *
+ * By default, the inner rows are held off-heap, up to the limit set by
+ * {@link com.splicemachine.access.configuration.SQLConfiguration#BROADCAST_JOIN_OFFHEAP_MB_LIMIT}, which is
+ * shared by all the tables in the process. When that limit is not positive, the rows are held on the heap
+ * instead, and the cache only holds soft references to them.
+ *
+ * Each table is loaded once, and stays cached for as long as a join is using it. An off-heap table's memory
+ * is returned to the budget once it has been removed from the cache and the last join using it has closed.
+ *
  * @author Scott Fines
  *         Date: 10/27/15
  */
 public class BroadcastJoinCache{
+    private static final Logger LOG=Logger.getLogger(BroadcastJoinCache.class);
+    /*
+     * How long a table which was loaded ahead of the join (see tryLoad()) is kept if no join uses it
+     */
+    private static final long UNREFERENCED_EXPIRY_MS=10000L;
     private final Cache<Long,ReferenceCountingFactory> cache;
     private final JoinTableLoader tableLoader;
 
@@ -48,16 +65,31 @@ public class BroadcastJoinCache{
     }
 
     public BroadcastJoinCache(){
-       this(ByteBufferMapTableLoader.INSTANCE);
+       this(EngineDriver.driver().getConfiguration().getBroadcastJoinOffHeapMbLimit());
+    }
+
+    private BroadcastJoinCache(long offHeapMbLimit){
+        this(offHeapMbLimit>0?new OffHeapMapTableLoader(OffHeapMemoryBudget.shared(offHeapMbLimit*1024*1024)):ByteBufferMapTableLoader.INSTANCE,
+                offHeapMbLimit<=0);
     }
 
     public BroadcastJoinCache(JoinTableLoader tableLoader){
+        this(tableLoader,true);
+    }
+
+    public BroadcastJoinCache(JoinTableLoader tableLoader,boolean softValues){
         this.tableLoader = tableLoader;
-        this.cache =CacheBuilder.newBuilder()
-                .maximumSize(1000)
-                .expireAfterAccess(2,TimeUnit.SECONDS)
-                .softValues()
-                .build();
+        CacheBuilder<Object,Object> builder=CacheBuilder.newBuilder().maximumSize(1000);
+        if(softValues)
+            builder=builder.softValues();
+        this.cache =builder.removalListener(new RemovalListener<Long,ReferenceCountingFactory>(){
+            @Override
+            public void onRemoval(RemovalNotification<Long,ReferenceCountingFactory> notification){
+                ReferenceCountingFactory joinTable=notification.getValue();
+                if(joinTable!=null) //soft values may already have been collected
+                    joinTable.markRemoved();
+            }
+        }).build();
     }
 
     public JoinTable.Factory get(Long operationId,
@@ -65,27 +97,77 @@ public class BroadcastJoinCache{
                          int[] rightHashKeys,
                          int[] leftHashKeys,
                          ExecRow leftTemplateRow) throws IOException, StandardException{
+        expireUnreferenced();
         try{
-            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
-            ReferenceCountingFactory joinTable=cache.get(operationId,callable);
-            joinTable.refCount.incrementAndGet();
-            return joinTable;
+            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader,true);
+            while(true){
+                ReferenceCountingFactory joinTable=cache.get(operationId,callable);
+                if(joinTable.acquire())
+                    return joinTable;
+                //the table was released between getting it and acquiring it, so load it again
+            }
         }catch(ExecutionException e){
-            Throwable c = e.getCause();
-            if(c instanceof StandardException)
-                throw (StandardException)c;
-            else if(c instanceof IOException)
-                throw (IOException)c;
-            else throw Exceptions.getIOException(c);
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Loads the table for {@code operationId} into the cache (if it isn't already there), without
+     * falling back to an on-heap table when it does not fit in the loader's memory limit. This
+     * allows the caller to choose a different join strategy before any rows have been joined.
+     *
+     * @return {@code false} if the table does not fit in memory
+     */
+    public boolean tryLoad(Long operationId,
+                           Callable<Stream<ExecRow>> loader,
+                           int[] rightHashKeys,
+                           int[] leftHashKeys,
+                           ExecRow leftTemplateRow) throws IOException, StandardException{
+        expireUnreferenced();
+        try{
+            cache.get(operationId,new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader,false));
+            return true;
+        }catch(ExecutionException e){
+            if(unwrap(e) instanceof OffHeapMappedJoinTable.TableTooLargeException)
+                return false;
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Remove the tables which were loaded ahead of a join that never used them, so they can be released.
+     */
+    private void expireUnreferenced(){
+        long expiredBefore=System.currentTimeMillis()-UNREFERENCED_EXPIRY_MS;
+        for(ReferenceCountingFactory joinTable : cache.asMap().values()){
+            if(joinTable.refCount.get()==0 && joinTable.loadTime<expiredBefore)
+                cache.asMap().remove(joinTable.id,joinTable);
         }
     }
 
+    private static Throwable unwrap(ExecutionException e){
+        Throwable c = e.getCause();
+        while(c instanceof ExecutionException && c.getCause()!=null)
+            c = c.getCause();
+        return c;
+    }
+
+    private static IOException rethrow(ExecutionException e) throws StandardException{
+        Throwable c = unwrap(e);
+        if(c instanceof StandardException)
+            throw (StandardException)c;
+        else if(c instanceof IOException)
+            return (IOException)c;
+        else return Exceptions.getIOException(c);
+    }
+
     private class Loader implements Callable<ReferenceCountingFactory>{
         private final JoinTableLoader loader;
         private final int[] innerHashKeys;
         private final int[] outerHashKeys;
         private final ExecRow outerTemplateRow;
         private final Callable<Stream<ExecRow>> streamLoader;
+        private final boolean fallBackToHeap;
 
         private final Long operationId;
 
@@ -94,18 +176,32 @@ public class BroadcastJoinCache{
                       int[] innerHashKeys,
                       int[] outerHashKeys,
                       ExecRow outerTemplateRow,
-                      Callable<Stream<ExecRow>> streamLoader){
+                      Callable<Stream<ExecRow>> streamLoader,
+                      boolean fallBackToHeap){
             this.loader=loader;
             this.operationId=operationId;
             this.innerHashKeys=innerHashKeys;
             this.outerHashKeys=outerHashKeys;
             this.outerTemplateRow=outerTemplateRow;
             this.streamLoader=streamLoader;
+            this.fallBackToHeap=fallBackToHeap;
         }
 
         @Override
         public ReferenceCountingFactory call() throws Exception{
-            JoinTable.Factory load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
+            JoinTable.Factory load;
+            try{
+                load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
+            }catch(ExecutionException e){
+                if(!fallBackToHeap || !(unwrap(e) instanceof OffHeapMappedJoinTable.TableTooLargeException))
+                    throw e;
+                /*
+                 * Whoever is asking for the table is already committed to a broadcast join, so the best we
+                 * can do is to re-read the inner side onto the heap.
+                 */
+                SpliceLogUtils.warn(LOG,"Broadcast join table for operation %d does not fit off-heap, loading it on the heap",operationId);
+                load=ByteBufferMapTableLoader.INSTANCE.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
+            }
             return new ReferenceCountingFactory(load,operationId);
         }
     }
@@ -135,7 +231,12 @@ public class BroadcastJoinCache{
     private class ReferenceCountingFactory implements JoinTable.Factory{
         private final JoinTable.Factory delegate;
         private final Long id;
-        private AtomicInteger refCount = new AtomicInteger(0);
+        private final long loadTime=System.currentTimeMillis();
+        /*
+         * The number of joins using the table, or -1 once it has been released
+         */
+        private final AtomicInteger refCount = new AtomicInteger(0);
+        private volatile boolean removed=false;
 
         public ReferenceCountingFactory(JoinTable.Factory delegate,Long id){
             this.delegate=delegate;
@@ -147,10 +248,35 @@ public class BroadcastJoinCache{
             return new ReferenceCountedJoinTable(delegate.newTable(),this);
         }
 
+        /**
+         * @return false if the table has already been released, and can't be used
+         */
+        boolean acquire(){
+            int refC;
+            do{
+                refC=refCount.get();
+                if(refC<0) return false;
+            }while(!refCount.compareAndSet(refC,refC+1));
+            return true;
+        }
+
         public void markClosed(){
             int refC=refCount.decrementAndGet();
-            if(refC<=0)
-                cache.invalidate(id);
+            if(refC==0){
+                cache.asMap().remove(id,this);
+                //we may have been removed already, while in use
+                releaseIfUnused();
+            }
+        }
+
+        void markRemoved(){
+            removed=true;
+            releaseIfUnused();
+        }
+
+        private void releaseIfUnused(){
+            if(removed && refCount.compareAndSet(0,-1) && delegate instanceof OffHeapMappedJoinTable.Factory)
+                ((OffHeapMappedJoinTable.Factory)delegate).release();
         }
     }
 }
@@ -17,6 +17,7 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.derby.iapi.sql.execute.*;
 import com.splicemachine.derby.stream.function.*;
+import com.splicemachine.derby.stream.function.broadcast.AbstractBroadcastJoinFlatMapFunction;
 import com.splicemachine.derby.stream.function.broadcast.BroadcastJoinFlatMapFunction;
 import com.splicemachine.derby.stream.function.broadcast.CogroupBroadcastJoinFunction;
 import com.splicemachine.derby.stream.function.broadcast.SubtractByKeyBroadcastJoinFunction;
@@ -197,6 +198,18 @@ public class BroadcastJoinOperation extends JoinOperation{
                 result = leftDataSet.join(operationContext,rightDataSet, DataSet.JoinType.INNER,true)
                         .filter(new JoinRestrictionPredicateFunction(operationContext));
         }
+        else if (dsp.getType().equals(DataSetProcessor.Type.LOCAL) &&
+                !AbstractBroadcastJoinFlatMapFunction.loadRightSide(operationContext, this)) {
+            // The right side doesn't fit in the broadcast join memory limit, join by key instead
+            if (LOG.isDebugEnabled())
+                SpliceLogUtils.debug(LOG, "getDataSet right side exceeds the broadcast join memory limit, falling back to a keyed join");
+            if (!isOuterJoin)
+                leftDataSet = leftDataSet.filter(new InnerJoinNullFilterFunction(operationContext,this.leftHashKeys));
+            rightDataSet = rightDataSet.filter(new InnerJoinNullFilterFunction(operationContext,this.rightHashKeys));
+            result = getKeyedJoinedDataSet(operationContext,
+                    leftDataSet.keyBy(new KeyerFunction<LocatedRow,JoinOperation>(operationContext, leftHashKeys)),
+                    rightDataSet.keyBy(new KeyerFunction<LocatedRow,JoinOperation>(operationContext, rightHashKeys)));
+        }
         else {
             if (isOuterJoin) { // Outer Join with and without restriction
                 result = leftDataSet.mapPartitions(new CogroupBroadcastJoinFunction(operationContext))
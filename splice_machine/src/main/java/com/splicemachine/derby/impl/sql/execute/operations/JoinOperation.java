@@ -22,6 +22,10 @@ import java.util.ArrayList;
 import java.util.List;
 import com.splicemachine.derby.iapi.sql.execute.*;
 import com.splicemachine.derby.impl.SpliceMethod;
+import com.splicemachine.derby.stream.function.*;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableIntHolder;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
@@ -346,6 +350,47 @@ public abstract class JoinOperation extends SpliceBaseOperation {
 		return keyRow;
 	}
 
+    /**
+     * Joins the left and right sides once they have been keyed by their join columns, without relying on
+     * either side having been broadcast or sorted.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected DataSet<LocatedRow> getKeyedJoinedDataSet(
+        OperationContext operationContext,
+        PairDataSet<ExecRow, LocatedRow> leftDataSet,
+        PairDataSet<ExecRow, LocatedRow> rightDataSet) {
+
+        if (isOuterJoin) { // Outer Join
+            return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right")
+                        .flatmap(new CogroupOuterJoinRestrictionFlatMapFunction<SpliceOperation>(operationContext))
+                        .map(new SetCurrentLocatedRowFunction<>(operationContext));
+        }
+        else {
+            if (this.notExistsRightSide) { // antijoin
+                if (restriction !=null) { // with restriction
+                    return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right").values()
+                        .flatMap(new CogroupAntiJoinRestrictionFlatMapFunction(operationContext));
+                } else { // No Restriction
+                    return leftDataSet.subtractByKey(rightDataSet)
+                            .map(new AntiJoinFunction(operationContext));
+                }
+            } else { // Inner Join
+                if (isOneRowRightSide()) {
+                    return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right").values()
+                        .flatMap(new CogroupInnerJoinRestrictionFlatMapFunction(operationContext));
+                }
+                if (restriction !=null) { // with restriction
+                    return leftDataSet.hashJoin(rightDataSet)
+                            .map(new InnerJoinFunction<SpliceOperation>(operationContext))
+                            .filter(new JoinRestrictionPredicateFunction(operationContext));
+                } else { // No Restriction
+                    return leftDataSet.hashJoin(rightDataSet)
+                            .map(new InnerJoinFunction<SpliceOperation>(operationContext));
+                }
+            }
+        }
+    }
+
 	public int[] getLeftHashKeys() {
 		throw new UnsupportedOperationException();
 	}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.StreamException;
+import com.splicemachine.utils.IntArrays;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads the inner side of a broadcast join into an {@link OffHeapMappedJoinTable}, encoding each row
+ * instead of cloning it.
+ *
+ * Memory is reserved from a budget as the table grows. If the budget runs out, loading stops, the
+ * memory reserved so far is returned, and the load fails with an
+ * {@link OffHeapMappedJoinTable.TableTooLargeException}.
+ */
+@ThreadSafe
+class OffHeapMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
+    private static final Logger LOG=Logger.getLogger(OffHeapMapTableLoader.class);
+    private static final int DEFAULT_CHUNK_SIZE=1<<20;
+
+    private final OffHeapMemoryBudget budget;
+    private final int chunkSize;
+
+    OffHeapMapTableLoader(long maxBytes){
+        this(new OffHeapMemoryBudget(maxBytes));
+    }
+
+    OffHeapMapTableLoader(OffHeapMemoryBudget budget){
+        //keep chunks small relative to the limit, so that a partly filled chunk can't use up most of it
+        this(budget,(int)Math.max(1L,Math.min(DEFAULT_CHUNK_SIZE,budget.getMaxBytes()/16)));
+    }
+
+    OffHeapMapTableLoader(OffHeapMemoryBudget budget,int chunkSize){
+        this.budget=budget;
+        this.chunkSize=chunkSize;
+    }
+
+    @Override
+    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys,ExecRow outerTemplateRow) throws ExecutionException{
+        OffHeapMappedJoinTable.Table table=null;
+        KeyEncoder innerKeyEncoder=null;
+        EntryDataHash innerRowEncoder=null;
+        try(Stream<ExecRow> innerRows=streamLoader.call()){
+            table=new OffHeapMappedJoinTable.Table(budget,chunkSize);
+            ExecRow right;
+            while((right=innerRows.next())!=null){
+                if(innerKeyEncoder==null){
+                    innerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                            BareKeyHash.encoder(innerHashKeys,null,VersionedSerializers.latestVersion(false).getSerializers(right)),
+                            NoOpPostfix.INSTANCE);
+                    innerRowEncoder=new EntryDataHash(IntArrays.count(right.nColumns()),null,
+                            VersionedSerializers.latestVersion(true).getSerializers(right));
+                    table.setInnerTemplateRow(right.getNewNullRow());
+                }
+
+                byte[] key=innerKeyEncoder.getKey(right);
+                innerRowEncoder.setRow(right);
+                table.add(key,innerRowEncoder.encode());
+            }
+        }catch(StreamException e){
+            release(table);
+            throw new ExecutionException(e.getCause());
+        }catch(Exception e){
+            release(table);
+            if(e instanceof ExecutionException) throw (ExecutionException)e;
+            else throw new ExecutionException(e);
+        }
+
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Loaded broadcast join table with %d distinct keys in %d bytes",table.size(),table.memoryUsed());
+        return new OffHeapMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow);
+    }
+
+    private static void release(OffHeapMappedJoinTable.Table table){
+        //the caller may fall back to another table, so don't keep the partly loaded one's memory from it
+        if(table!=null)
+            table.release();
+    }
+}
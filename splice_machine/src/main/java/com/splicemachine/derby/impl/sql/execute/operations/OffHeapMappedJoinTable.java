@@ -0,0 +1,338 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+import com.splicemachine.utils.IntArrays;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A JoinTable whose inner rows are held in their encoded form in direct ByteBuffers, rather than as
+ * ExecRows on the heap.
+ *
+ * Each inner row is appended to an arena of fixed-size direct buffers as
+ * {@code [next entry (8)][key length (4)][row length (4)][key][row]}, and is addressed by
+ * {@code (chunk << 32) | offset}. Rows are indexed by an open-addressing hash table of primitive arrays,
+ * which holds the address of the most recently added row for each distinct key; rows with the same key
+ * are chained together through the {@code next} field. The only heap cost is therefore the index
+ * (12 bytes per slot), and matching rows are only decoded when they are returned from {@link #fetchInner}.
+ *
+ * @see OffHeapMapTableLoader
+ */
+class OffHeapMappedJoinTable implements JoinTable{
+    private static final Hash32 HASH=HashFunctions.murmur3(0);
+
+    private final Table table;
+    private final KeyEncoder outerKeyEncoder;
+    private final EntryDataDecoder innerRowDecoder;
+
+    OffHeapMappedJoinTable(Table table,int[] outerHashKeys,ExecRow outerTemplateRow){
+        this.table=table;
+        DescriptorSerializer[] outerSerializers=VersionedSerializers.latestVersion(false).getSerializers(outerTemplateRow);
+        this.outerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                BareKeyHash.encoder(outerHashKeys,null,outerSerializers),NoOpPostfix.INSTANCE);
+        if(table.innerTemplateRow!=null){
+            DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(true).getSerializers(table.innerTemplateRow);
+            this.innerRowDecoder=new EntryDataDecoder(IntArrays.count(table.innerTemplateRow.nColumns()),null,innerSerializers);
+        }else
+            this.innerRowDecoder=null; //the inner side is empty
+    }
+
+    @Override
+    public Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException{
+        if(table.size()==0)
+            return Collections.emptyIterator();
+        byte[] outerKey=outerKeyEncoder.getKey(outer);
+        assert outerKey!=null: "Programmer error: outer row does not have row key";
+        final long first=table.get(outerKey);
+        if(first<0)
+            return Collections.emptyIterator();
+        return new Iterator<ExecRow>(){
+            private long next=first;
+
+            @Override
+            public boolean hasNext(){
+                return next>=0;
+            }
+
+            @Override
+            public ExecRow next(){
+                if(next<0) throw new NoSuchElementException();
+                byte[] row=table.row(next);
+                next=table.next(next);
+                //the caller may hold on to the row, so we decode into a new one each time
+                ExecRow inner=table.innerTemplateRow.getNewNullRow();
+                innerRowDecoder.set(row,0,row.length);
+                try{
+                    innerRowDecoder.decode(inner);
+                }catch(StandardException e){
+                    throw new RuntimeException(e);
+                }
+                return inner;
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void close(){
+        //the table is shared by all users, so it's released by the cache once they have all closed it
+    }
+
+    static class Factory implements JoinTable.Factory{
+        private final Table table;
+        private final int[] outerHashKeys;
+        private final ExecRow outerTemplateRow;
+
+        Factory(Table table,int[] outerHashKeys,ExecRow outerTemplateRow){
+            this.table=table;
+            this.outerHashKeys=outerHashKeys;
+            this.outerTemplateRow=outerTemplateRow;
+        }
+
+        @Override
+        public JoinTable newTable(){
+            return new OffHeapMappedJoinTable(table,outerHashKeys,outerTemplateRow);
+        }
+
+        /**
+         * Return the table's memory to the budget. No tables may be created or used afterwards.
+         */
+        void release(){
+            table.release();
+        }
+    }
+
+    /**
+     * Thrown when the inner side of a join does not fit in what is left of the memory budget.
+     */
+    static class TableTooLargeException extends IOException{
+        TableTooLargeException(long maxBytes){
+            super("Broadcast join inner tables exceed the off-heap memory limit of "+maxBytes+" bytes");
+        }
+    }
+
+    /**
+     * The arena and index for the inner rows. Rows can only be added by the loading thread; once loaded,
+     * the table is immutable and can be read by many threads, since all reads are absolute.
+     *
+     * Memory for each chunk (and for the index) is reserved from the budget before it is allocated, and is
+     * returned by {@link #release()}.
+     */
+    static class Table{
+        private static final int HEADER_SIZE=16;
+        private static final float LOAD_FACTOR=0.5f;
+
+        private final OffHeapMemoryBudget budget;
+        private final int chunkSize;
+        private final List<ByteBuffer> chunks=new ArrayList<>();
+        private ByteBuffer current;
+        private long memoryUsed;
+
+        private long[] heads;
+        private int[] hashes;
+        private int size;
+
+        private ExecRow innerTemplateRow;
+
+        Table(long maxBytes,int chunkSize) throws TableTooLargeException{
+            this(new OffHeapMemoryBudget(maxBytes),chunkSize);
+        }
+
+        Table(OffHeapMemoryBudget budget,int chunkSize) throws TableTooLargeException{
+            this.budget=budget;
+            this.chunkSize=chunkSize;
+            ensureCapacity(indexSize(16));
+            this.heads=new long[16];
+            this.hashes=new int[16];
+            Arrays.fill(heads,-1L);
+        }
+
+        void setInnerTemplateRow(ExecRow innerTemplateRow){
+            this.innerTemplateRow=innerTemplateRow;
+        }
+
+        /**
+         * @return the number of distinct keys in the table
+         */
+        int size(){
+            return size;
+        }
+
+        long memoryUsed(){
+            return memoryUsed;
+        }
+
+        /**
+         * Drop the rows, and return the memory reserved for them to the budget. The direct buffers are
+         * freed once they are garbage collected.
+         */
+        void release(){
+            chunks.clear();
+            current=null;
+            heads=null;
+            hashes=null;
+            budget.release(memoryUsed);
+            memoryUsed=0;
+        }
+
+        void add(byte[] key,byte[] row) throws TableTooLargeException{
+            int hash=HASH.hash(key,0,key.length);
+            int slot=find(key,hash);
+            long address=allocate(HEADER_SIZE+key.length+row.length);
+            ByteBuffer chunk=chunks.get(chunk(address));
+            int offset=offset(address);
+            chunk.putLong(offset,heads[slot]); //chain onto the rows we already have for this key (or -1)
+            chunk.putInt(offset+8,key.length);
+            chunk.putInt(offset+12,row.length);
+            ByteBuffer dest=chunk.duplicate();
+            dest.position(offset+HEADER_SIZE);
+            dest.put(key);
+            dest.put(row);
+
+            boolean newKey=heads[slot]<0;
+            heads[slot]=address;
+            if(newKey){
+                hashes[slot]=hash;
+                size++;
+                if(size>heads.length*LOAD_FACTOR)
+                    resize();
+            }
+        }
+
+        /**
+         * @return the address of the first row with the specified key, or -1 if there are no such rows
+         */
+        long get(byte[] key){
+            return heads[find(key,HASH.hash(key,0,key.length))];
+        }
+
+        /**
+         * @return the address of the next row with the same key as the row at {@code address}, or -1
+         */
+        long next(long address){
+            return chunks.get(chunk(address)).getLong(offset(address));
+        }
+
+        byte[] row(long address){
+            ByteBuffer chunk=chunks.get(chunk(address));
+            int offset=offset(address);
+            int keyLength=chunk.getInt(offset+8);
+            byte[] row=new byte[chunk.getInt(offset+12)];
+            ByteBuffer src=chunk.duplicate();
+            src.position(offset+HEADER_SIZE+keyLength);
+            src.get(row);
+            return row;
+        }
+
+        /* ************************************************************************************************************/
+        /*private helper methods*/
+
+        private int find(byte[] key,int hash){
+            int mask=heads.length-1;
+            int slot=hash&mask;
+            while(heads[slot]>=0){
+                if(hashes[slot]==hash && keyEquals(heads[slot],key))
+                    return slot;
+                slot=(slot+1)&mask;
+            }
+            return slot;
+        }
+
+        private boolean keyEquals(long address,byte[] key){
+            ByteBuffer chunk=chunks.get(chunk(address));
+            int offset=offset(address);
+            if(chunk.getInt(offset+8)!=key.length) return false;
+            int keyOffset=offset+HEADER_SIZE;
+            for(int i=0;i<key.length;i++){
+                if(chunk.get(keyOffset+i)!=key[i]) return false;
+            }
+            return true;
+        }
+
+        private long allocate(int length) throws TableTooLargeException{
+            if(current==null || current.remaining()<length){
+                int size=Math.max(chunkSize,length);
+                ensureCapacity(size);
+                current=ByteBuffer.allocateDirect(size);
+                chunks.add(current);
+            }
+            long address=((long)(chunks.size()-1)<<32)|current.position();
+            current.position(current.position()+length);
+            return address;
+        }
+
+        private void resize() throws TableTooLargeException{
+            int newLength=heads.length<<1;
+            ensureCapacity(indexSize(newLength)-indexSize(heads.length));
+            long[] oldHeads=heads;
+            int[] oldHashes=hashes;
+            heads=new long[newLength];
+            hashes=new int[newLength];
+            Arrays.fill(heads,-1L);
+            int mask=newLength-1;
+            for(int i=0;i<oldHeads.length;i++){
+                if(oldHeads[i]<0) continue;
+                int slot=oldHashes[i]&mask;
+                while(heads[slot]>=0)
+                    slot=(slot+1)&mask;
+                heads[slot]=oldHeads[i];
+                hashes[slot]=oldHashes[i];
+            }
+        }
+
+        private void ensureCapacity(long additionalBytes) throws TableTooLargeException{
+            if(!budget.reserve(additionalBytes))
+                throw new TableTooLargeException(budget.getMaxBytes());
+            memoryUsed+=additionalBytes;
+        }
+
+        private static long indexSize(int slots){
+            return slots*12L;
+        }
+
+        private static int chunk(long address){
+            return (int)(address>>>32);
+        }
+
+        private static int offset(long address){
+            return (int)address;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The memory which the off-heap broadcast join tables of a process may use between them. Tables reserve
+ * memory from it as they grow, and return it once they are released.
+ */
+@ThreadSafe
+class OffHeapMemoryBudget{
+    private static volatile OffHeapMemoryBudget shared;
+
+    private final long maxBytes;
+    private final AtomicLong reserved=new AtomicLong(0l);
+
+    OffHeapMemoryBudget(long maxBytes){
+        this.maxBytes=maxBytes;
+    }
+
+    /**
+     * @return the budget shared by the whole process. It is created with {@code maxBytes} by the first caller;
+     * later callers get the same budget, whatever limit they pass.
+     */
+    static OffHeapMemoryBudget shared(long maxBytes){
+        OffHeapMemoryBudget budget=shared;
+        if(budget==null){
+            synchronized(OffHeapMemoryBudget.class){
+                budget=shared;
+                if(budget==null)
+                    shared=budget=new OffHeapMemoryBudget(maxBytes);
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * @return true if {@code bytes} were reserved, false if that would exceed the budget, in which case
+     * nothing is reserved.
+     */
+    boolean reserve(long bytes){
+        long current;
+        do{
+            current=reserved.get();
+            if(current+bytes>maxBytes) return false;
+        }while(!reserved.compareAndSet(current,current+bytes));
+        return true;
+    }
+
+    void release(long bytes){
+        reserved.addAndGet(-bytes);
+    }
+
+    long getMaxBytes(){
+        return maxBytes;
+    }
+
+    long getReservedBytes(){
+        return reserved.get();
+    }
+}
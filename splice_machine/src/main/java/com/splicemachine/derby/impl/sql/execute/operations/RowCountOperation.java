@@ -65,6 +65,11 @@ public class RowCountOperation extends SpliceBaseOperation {
 
 
     protected static final String NAME = RowCountOperation.class.getSimpleName().replaceAll("Operation","");
+    /*
+     * The largest limit (including the offset) which is pushed down into a sort beneath us as a top-N;
+     * past this, holding that many rows per partition costs more than the full sort saves.
+     */
+    private static final long MAX_TOP_N_ROWS = 100_000;
 
 	@Override
 	public String getName() {
@@ -197,7 +202,13 @@ public class RowCountOperation extends SpliceBaseOperation {
         final long fetchLimit = getFetchLimit();
         long offset = getTotalOffset();
         OperationContext operationContext = dsp.createOperationContext(this);
-        DataSet<LocatedRow> sourceSet = source.getDataSet(dsp);
+        DataSet<LocatedRow> sourceSet;
+        if (source instanceof SortOperation && fetchLimit > 0 && offset + fetchLimit <= MAX_TOP_N_ROWS) {
+            // we will never read past the first offset+fetchLimit rows, so the sort doesn't need to produce any more
+            sourceSet = ((SortOperation) source).getTopNDataSet(dsp, (int) (offset + fetchLimit));
+        } else {
+            sourceSet = source.getDataSet(dsp);
+        }
         return sourceSet.zipWithIndex().mapPartitions(new OffsetFunction<SpliceOperation, LocatedRow>(operationContext, offset, fetchLimit));
     }
 
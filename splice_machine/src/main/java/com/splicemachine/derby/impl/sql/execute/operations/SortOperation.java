@@ -27,6 +27,7 @@ import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.function.KeyerFunction;
 import com.splicemachine.derby.stream.function.RowComparator;
 import com.splicemachine.derby.stream.function.SetCurrentLocatedRowFunction;
+import com.splicemachine.derby.stream.function.TopNFlatMapFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -199,19 +200,7 @@ public class SortOperation extends SpliceBaseOperation{
     @SuppressWarnings({"rawtypes","unchecked"})
     public DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException{
         OperationContext operationContext=dsp.createOperationContext(this);
-        DataSet dataSet=source.getDataSet(dsp);
-
-        if (distinct) {
-            dataSet = dataSet.distinct(OperationContext.Scope.DISTINCT.displayName(),
-                false, operationContext, true, OperationContext.Scope.DISTINCT.displayName());
-            try {
-                //operationContext.pushScopeForOp(OperationContext.Scope.LOCATE);
-                dataSet = dataSet.map(new SetCurrentLocatedRowFunction(operationContext), true);
-
-            } finally {
-               // operationContext.popScope();
-            }
-        }
+        DataSet dataSet=getSourceDataSet(dsp,operationContext);
 
         //operationContext.pushScopeForOp(OperationContext.Scope.SORT_KEYER);
         KeyerFunction f=new KeyerFunction(operationContext,keyColumns);
@@ -235,6 +224,46 @@ public class SortOperation extends SpliceBaseOperation{
         }
     }
 
+    /**
+     * Get only the first {@code n} rows of the sorted output, which is all that a row limit above
+     * this sort will ever read.
+     *
+     * Instead of sorting (and on Spark, shuffling) the entire source, each partition keeps only its own
+     * first {@code n} rows, and only those are shuffled to a single partition to be merged.
+     *
+     * @param dsp the processor to use
+     * @param n the number of rows needed, including any offset
+     * @return the first {@code n} rows, in sorted order
+     * @throws StandardException if something goes wrong
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    public DataSet<LocatedRow> getTopNDataSet(DataSetProcessor dsp,int n) throws StandardException{
+        OperationContext operationContext=dsp.createOperationContext(this);
+        DataSet dataSet=getSourceDataSet(dsp,operationContext);
+
+        TopNFlatMapFunction topN=new TopNFlatMapFunction(operationContext,keyColumns,
+                new RowComparator(descColumns,nullsOrderedLow),n);
+        return topN.firstRows(dataSet).map(new SetCurrentLocatedRowFunction(operationContext),true);
+    }
+
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private DataSet getSourceDataSet(DataSetProcessor dsp,OperationContext operationContext) throws StandardException{
+        DataSet dataSet=source.getDataSet(dsp);
+
+        if (distinct) {
+            dataSet = dataSet.distinct(OperationContext.Scope.DISTINCT.displayName(),
+                false, operationContext, true, OperationContext.Scope.DISTINCT.displayName());
+            try {
+                //operationContext.pushScopeForOp(OperationContext.Scope.LOCATE);
+                dataSet = dataSet.map(new SetCurrentLocatedRowFunction(operationContext), true);
+
+            } finally {
+               // operationContext.popScope();
+            }
+        }
+        return dataSet;
+    }
+
     public String getScopeName(){
         return (distinct ? "Sort Distinct" : "Sort");
     }
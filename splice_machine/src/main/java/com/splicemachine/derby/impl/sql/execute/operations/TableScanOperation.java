@@ -21,6 +21,7 @@ import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.store.access.StaticCompiledOpenConglomInfo;
 import com.splicemachine.db.impl.sql.compile.ActivationClassBuilder;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
@@ -29,6 +30,7 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -315,6 +317,31 @@ public class TableScanOperation extends ScanOperation{
         }
     }
 
+    /**
+     *
+     * Whether the rows of this scan only depend on its start and stop keys. This is the case when it reads
+     * a native table and none of its qualifiers can change during the query (they do not reference
+     * the rows of an outer table), so that scans with the same keys can be shared.
+     *
+     * @return true if scans with the same start and stop keys return the same rows
+     * @throws StandardException
+     */
+    public boolean isDeterminedByScanKeys() throws StandardException{
+        if(storedAs!=null || pin)
+            return false;
+        Qualifier[][] qualifiers=scanInformation.getScanQualifiers();
+        if(qualifiers==null)
+            return true;
+        for(Qualifier[] qualifierList : qualifiers){
+            if(qualifierList==null) continue;
+            for(Qualifier qualifier : qualifierList){
+                if(qualifier.getVariantType()<Qualifier.QUERY_INVARIANT)
+                    return false;
+            }
+        }
+        return true;
+    }
+
     /**
      *
      * Retrieve the Table Scan Builder for creating the actual data set from a scan.
@@ -324,12 +351,26 @@ public class TableScanOperation extends ScanOperation{
      * @throws StandardException
      */
     public DataSet<LocatedRow> getTableScannerBuilder(DataSetProcessor dsp) throws StandardException{
+        return getTableScannerBuilder(dsp,getNonSIScan());
+    }
+
+    /**
+     *
+     * Retrieve the Table Scan Builder for creating the actual data set from a scan which was computed
+     * earlier, e.g. the probe of a batched nested loop join.
+     *
+     * @param dsp
+     * @param scan the non-SI scan to read
+     * @return
+     * @throws StandardException
+     */
+    public DataSet<LocatedRow> getTableScannerBuilder(DataSetProcessor dsp,DataScan scan) throws StandardException{
         TxnView txn=getCurrentTransaction();
         return dsp.<TableScanOperation,LocatedRow>newScanSet(this,tableName)
                 .tableDisplayName(tableDisplayName)
                 .activation(activation)
                 .transaction(txn)
-                .scan(getNonSIScan())
+                .scan(scan)
                 .template(currentTemplate)
                 .tableVersion(tableVersion)
                 .indexName(indexName)
@@ -46,8 +46,6 @@ import com.splicemachine.utils.SpliceLogUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.List;
 
 /**
  * TableScanner which applies SI to generate a row
@@ -62,6 +60,11 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         }
     };
     private static Logger LOG = Logger.getLogger(SITableScanner.class);
+    /*
+     * The number of rows read from the region scanner at a time. Rows are read ahead, so this is kept small
+     * to avoid reading much more than we need when the scan is not consumed entirely.
+     */
+    private static final int ROW_BATCH_SIZE = 64;
     private final Counter filterCounter;
     private DataScanner regionScanner;
     private final TransactionalRegion region;
@@ -89,6 +92,8 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private final Counter outputBytesCounter;
     private long demarcationPoint;
     private DataValueDescriptor optionalProbeValue;
+    private final RowBatch rowBatch = new RowBatch(ROW_BATCH_SIZE);
+    private int batchPosition;
 
     protected SITableScanner(DataScanner scanner,
                              final TransactionalRegion region,
@@ -187,32 +192,32 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         SIFilter filter = getSIFilter();
         do{
             template.resetRowArray(); //necessary to deal with null entries--maybe make the underlying call faster?
-            List<DataCell> keyValues=regionScanner.next(-1);
-
-            if(keyValues.size()<=0){
-                currentRowLocation = null;
-                return null;
-            }else{
-                DataCell currentKeyValue = keyValues.get(0);
-                if(template.nColumns()>0){
-                    if(!filterRowKey(currentKeyValue)||!filterRow(filter,keyValues)){
-                        //filter the row first, then filter the row key
-                        filterCounter.increment();
-                        continue;
-                    }
-                }else if(!filterRow(filter,keyValues)){
-                    //still need to filter rows to deal with transactional issues
+            if(batchPosition>=rowBatch.size()){
+                batchPosition = 0;
+                if(regionScanner.nextBatch(rowBatch)<=0){
+                    currentRowLocation = null;
+                    return null;
+                }
+            }
+            int row = batchPosition++;
+            DataCell currentKeyValue = rowBatch.cell(row,0);
+            if(template.nColumns()>0){
+                if(!filterRowKey(currentKeyValue)||!filterRow(filter,row)){
+                    //filter the row first, then filter the row key
                     filterCounter.increment();
                     continue;
-                } else {
-                    if (LOG.isTraceEnabled())
-                        SpliceLogUtils.trace(LOG,"miss columns=%d",template.nColumns());
                 }
-                measureOutputSize(keyValues);
-                currentKeyValue = keyValues.get(0);
-                setRowLocation(currentKeyValue);
-                return template;
+            }else if(!filterRow(filter,row)){
+                //still need to filter rows to deal with transactional issues
+                filterCounter.increment();
+                continue;
+            } else {
+                if (LOG.isTraceEnabled())
+                    SpliceLogUtils.trace(LOG,"miss columns=%d",template.nColumns());
             }
+            measureOutputSize(row);
+            setRowLocation(currentKeyValue);
+            return template;
         }while(true); //TODO -sf- this doesn't seem quite right
     }
 
@@ -220,10 +225,11 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         return outputBytesCounter.getTotal();
     }
 
-    private void measureOutputSize(List<DataCell> keyValues){
+    private void measureOutputSize(int row){
         if(outputBytesCounter.isActive()){
-            for(DataCell cell:keyValues){
-                outputBytesCounter.add(cell.encodedLength());
+            int numCells = rowBatch.rowSize(row);
+            for(int i=0;i<numCells;i++){
+                outputBytesCounter.add(rowBatch.cell(row,i).encodedLength());
             }
         }
 
@@ -410,12 +416,12 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     }
 
     @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT",justification = "Intentional")
-    private boolean filterRow(SIFilter filter,List<DataCell> keyValues) throws IOException {
+    private boolean filterRow(SIFilter filter,int row) throws IOException {
         filter.nextRow();
-        Iterator<DataCell> kvIter = keyValues.iterator();
-        int numCells = keyValues.size();
-        while(kvIter.hasNext()){
-            DataCell kv = kvIter.next();
+        int rowSize = rowBatch.rowSize(row);
+        int numCells = rowSize;
+        for(int i=0;i<rowSize;i++){
+            DataCell kv = rowBatch.cell(row,i);
             DataFilter.ReturnCode returnCode = filter.filterCell(kv);
             switch(returnCode){
                 case NEXT_COL:
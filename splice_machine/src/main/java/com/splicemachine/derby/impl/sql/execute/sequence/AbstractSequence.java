@@ -17,38 +17,80 @@ package com.splicemachine.derby.impl.sql.execute.sequence;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.pipeline.Exceptions;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 
 import java.io.Externalizable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * A sequence which hands out values from blocks that it reserves in the sequence table.
+ *
+ * Once a quarter of the current block is left, the next block is reserved in the background, so that callers
+ * don't have to wait for the sequence table when the current block runs out. When the sequence may use blocks
+ * larger than {@code blockAllocationSize}, the size of each block is chosen from the rate at which the previous
+ * one was used, so that a block lasts for about a second: blocks grow while values are used quickly (such as
+ * during a bulk insert), and shrink back when they aren't, to limit the values which are lost when the sequence
+ * is dropped from the cache.
+ */
 public abstract class AbstractSequence implements Sequence, Externalizable{
+    private static final Logger LOG=Logger.getLogger(AbstractSequence.class);
+    private static final long TARGET_BLOCK_NANOS=TimeUnit.SECONDS.toNanos(1);
+    private static final ExecutorService PREFETCHER=Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("sequence-prefetch-%d").setDaemon(true).build());
+
     protected final AtomicLong remaining=new AtomicLong(0l);
     protected final AtomicLong currPosition=new AtomicLong(0l);
     protected long blockAllocationSize;
+    protected long maxBlockAllocationSize;
     protected long incrementSteps;
     protected final Lock updateLock=new ReentrantLock();
     protected long startingValue;
 
+    /*guarded by updateLock*/
+    private long blockSize;
+    private long blockLength;
+    private long blockStartedAt;
+    private Future<Block> nextBlock;
+    /*the remaining count at which the next block is reserved, 0 if it is reserved when it's needed*/
+    private volatile long prefetchAt;
+
     public AbstractSequence(){
 
     }
 
     public AbstractSequence(long blockAllocationSize,long incrementSteps,long startingValue){
+        this(blockAllocationSize,blockAllocationSize,incrementSteps,startingValue);
+    }
+
+    public AbstractSequence(long blockAllocationSize,long maxBlockAllocationSize,long incrementSteps,long startingValue){
         if(incrementSteps>blockAllocationSize)
             blockAllocationSize=incrementSteps;
         this.blockAllocationSize=blockAllocationSize;
+        this.maxBlockAllocationSize=Math.max(blockAllocationSize,maxBlockAllocationSize);
         this.incrementSteps=incrementSteps;
         this.startingValue=startingValue;
+        this.blockSize=blockAllocationSize;
     }
 
     public long getNext() throws StandardException{
-        if(remaining.getAndDecrement()<=0)
+        long left=remaining.getAndDecrement();
+        if(left<=0)
             allocateBlock(false);
+        else if(left==prefetchAt)
+            prefetchBlock();
         return currPosition.getAndAdd(incrementSteps);
     }
 
@@ -60,35 +102,113 @@ public abstract class AbstractSequence implements Sequence, Externalizable{
 
     protected abstract long getCurrentValue() throws IOException;
 
-    protected abstract boolean atomicIncrement(long nextValue) throws IOException;
+    /**
+     * Reserve the values up to {@code nextValue}, provided no one else has reserved any since
+     * {@code currentValue} was read.
+     *
+     * @return true if the values were reserved
+     */
+    protected abstract boolean atomicIncrement(long currentValue,long nextValue) throws IOException;
 
     public abstract void close() throws IOException;
 
+    protected long nanoTime(){
+        return System.nanoTime();
+    }
+
     private void allocateBlock(boolean peek) throws StandardException{
-        boolean success=false;
-        while(!success){
-            updateLock.lock();
-            try{
-                if(remaining.getAndDecrement()>0)
-                    return;
-                currPosition.set(getCurrentValue());
-                success=atomicIncrement(currPosition.get()+(incrementSteps>blockAllocationSize?incrementSteps:blockAllocationSize));
-                if(success){
-                    long v = blockAllocationSize/incrementSteps;
-                    remaining.set(peek?v:v-1);
-                }
-            }catch(IOException e){
-                throw Exceptions.parseException(e);
-            }finally{
-                updateLock.unlock();
+        updateLock.lock();
+        try{
+            if(remaining.getAndDecrement()>0)
+                return;
+            long start=nanoTime();
+            Block block=null;
+            boolean stalled=true;
+            if(nextBlock!=null){
+                Future<Block> prefetched=nextBlock;
+                nextBlock=null;
+                stalled=!prefetched.isDone();
+                block=waitFor(prefetched);
+            }
+            if(block==null){
+                stalled=true;
+                block=reserveBlock(nextBlockSize(blockLength));
             }
+            long now=nanoTime();
+            if(stalled)
+                SequenceMetrics.INSTANCE.recordStall(now-start);
+            SequenceMetrics.INSTANCE.recordRefill(!stalled);
+
+            blockLength=block.length;
+            blockStartedAt=now;
+            prefetchAt=blockLength/4;
+            currPosition.set(block.start);
+            remaining.set(peek?blockLength:blockLength-1);
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }finally{
+            updateLock.unlock();
+        }
+    }
+
+    private void prefetchBlock(){
+        //if the lock is held, the block is being replaced anyway
+        if(!updateLock.tryLock())
+            return;
+        try{
+            if(nextBlock!=null)
+                return;
+            final long size=nextBlockSize(blockLength-prefetchAt);
+            nextBlock=PREFETCHER.submit(new Callable<Block>(){
+                @Override
+                public Block call() throws Exception{
+                    return reserveBlock(size);
+                }
+            });
+        }finally{
+            updateLock.unlock();
         }
     }
 
+    private Block waitFor(Future<Block> prefetched) throws IOException{
+        try{
+            return prefetched.get();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }catch(ExecutionException e){
+            LOG.warn("Unable to reserve a block of sequence values in the background",e.getCause());
+            return null;
+        }
+    }
+
+    private Block reserveBlock(long size) throws IOException{
+        while(true){
+            long current=getCurrentValue();
+            if(atomicIncrement(current,current+size))
+                return new Block(current,size/incrementSteps);
+        }
+    }
+
+    /*
+     * Adjust the block size so that the next block lasts about as long as TARGET_BLOCK_NANOS, judging
+     * from how long it took to use the given number of values from the current block.
+     */
+    private long nextBlockSize(long consumed){
+        if(maxBlockAllocationSize>blockAllocationSize && consumed>0 && blockLength>0){
+            double blockNanos=(double)(nanoTime()-blockStartedAt)*blockLength/consumed;
+            if(blockNanos<TARGET_BLOCK_NANOS/2)
+                blockSize=Math.min(blockSize*2,maxBlockAllocationSize);
+            else if(blockNanos>TARGET_BLOCK_NANOS*4)
+                blockSize=Math.max(blockSize/2,blockAllocationSize);
+        }
+        return blockSize;
+    }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
         out.writeLong(blockAllocationSize);
+        out.writeLong(maxBlockAllocationSize);
         out.writeLong(incrementSteps);
         out.writeLong(startingValue);
     }
@@ -96,7 +216,19 @@ public abstract class AbstractSequence implements Sequence, Externalizable{
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
         blockAllocationSize=in.readLong();
+        maxBlockAllocationSize=in.readLong();
         incrementSteps=in.readLong();
         startingValue=in.readLong();
+        blockSize=blockAllocationSize;
+    }
+
+    private static final class Block{
+        private final long start;
+        private final long length;
+
+        Block(long start,long length){
+            this.start=start;
+            this.length=length;
+        }
     }
 }
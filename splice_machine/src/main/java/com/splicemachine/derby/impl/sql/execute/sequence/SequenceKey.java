@@ -29,6 +29,7 @@ public class SequenceKey implements ResourcePool.Key{
     private final TxnOperationFactory opFactory;
     protected final byte[] sysColumnsRow;
     protected final long blockAllocationSize;
+    protected final long maxBlockAllocationSize;
     protected long autoIncStart;
     protected long autoIncrement;
 
@@ -36,6 +37,7 @@ public class SequenceKey implements ResourcePool.Key{
     public SequenceKey(
             byte[] sysColumnsRow,
             long blockAllocationSize,
+            long maxBlockAllocationSize,
             long autoIncStart,
             long autoIncrement,
             PartitionFactory partitionFactory,
@@ -45,6 +47,7 @@ public class SequenceKey implements ResourcePool.Key{
         this.opFactory = opFactory;
         this.sysColumnsRow=sysColumnsRow;
         this.blockAllocationSize=blockAllocationSize;
+        this.maxBlockAllocationSize=maxBlockAllocationSize;
         this.autoIncStart=autoIncStart;
         this.autoIncrement=autoIncrement;
     }
@@ -56,6 +59,7 @@ public class SequenceKey implements ResourcePool.Key{
         SequenceKey key=(SequenceKey)o;
         return Arrays.equals(sysColumnsRow,key.sysColumnsRow)
                 && blockAllocationSize==key.blockAllocationSize &&
+                maxBlockAllocationSize==key.maxBlockAllocationSize &&
                 autoIncStart==key.autoIncStart &&
                 autoIncrement==key.autoIncrement;
     }
@@ -70,7 +74,7 @@ public class SequenceKey implements ResourcePool.Key{
     }
 
     public SpliceSequence makeNew() throws StandardException{
-        return new SpliceSequence(blockAllocationSize,sysColumnsRow,
+        return new SpliceSequence(blockAllocationSize,maxBlockAllocationSize,sysColumnsRow,
                 autoIncStart, autoIncrement,partitionFactory,opFactory);
     }
 }
\ No newline at end of file
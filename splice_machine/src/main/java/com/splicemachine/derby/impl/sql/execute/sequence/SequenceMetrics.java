@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.sequence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Block allocation statistics for all the sequences on this server.
+ */
+public final class SequenceMetrics implements SequenceStatistics{
+    public static final SequenceMetrics INSTANCE=new SequenceMetrics();
+
+    private final AtomicLong blockRefills=new AtomicLong(0l);
+    private final AtomicLong prefetchedBlocks=new AtomicLong(0l);
+    private final AtomicLong stalls=new AtomicLong(0l);
+    private final AtomicLong stallTime=new AtomicLong(0l);
+
+    private SequenceMetrics(){ }
+
+    void recordRefill(boolean prefetched){
+        blockRefills.incrementAndGet();
+        if(prefetched)
+            prefetchedBlocks.incrementAndGet();
+    }
+
+    void recordStall(long stallNanos){
+        stalls.incrementAndGet();
+        stallTime.addAndGet(stallNanos);
+    }
+
+    @Override public long getTotalBlockRefills(){ return blockRefills.get(); }
+
+    @Override public long getTotalPrefetchedBlocks(){ return prefetchedBlocks.get(); }
+
+    @Override public long getTotalStalls(){ return stalls.get(); }
+
+    @Override
+    public long getTotalStallTimeMs(){
+        return TimeUnit.NANOSECONDS.toMillis(stallTime.get());
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.sequence;
+
+import javax.management.MXBean;
+
+/**
+ * Exposes how the sequences on this server reserve their blocks via JMX.
+ */
+@MXBean
+public interface SequenceStatistics{
+
+    /**
+     * @return the number of blocks the sequences have started to use
+     */
+    long getTotalBlockRefills();
+
+    /**
+     * @return the number of blocks which had been reserved in the background before they were needed
+     */
+    long getTotalPrefetchedBlocks();
+
+    /**
+     * @return the number of times a caller had to wait for a block to be reserved
+     */
+    long getTotalStalls();
+
+    /**
+     * @return the total time (in milliseconds) callers have waited for blocks to be reserved
+     */
+    long getTotalStallTimeMs();
+}
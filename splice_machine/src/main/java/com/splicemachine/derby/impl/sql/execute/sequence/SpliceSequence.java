@@ -38,12 +38,14 @@ public class SpliceSequence extends AbstractSequence{
     }
 
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
-    public SpliceSequence(long blockAllocationSize,byte[] sysColumnsRow,
+    public SpliceSequence(long blockAllocationSize,
+                          long maxBlockAllocationSize,
+                          byte[] sysColumnsRow,
                           long startingValue,
                           long incrementSteps,
                           PartitionFactory partitionFactory,
                           TxnOperationFactory operationFactory){
-        super(blockAllocationSize,incrementSteps,startingValue);
+        super(blockAllocationSize,maxBlockAllocationSize,incrementSteps,startingValue);
         this.sysColumnsRow=sysColumnsRow;
         this.partitionFactory = partitionFactory;
         this.opFactory = operationFactory;
@@ -65,13 +67,13 @@ public class SpliceSequence extends AbstractSequence{
     }
 
     @Override
-    protected boolean atomicIncrement(long next) throws IOException{
+    protected boolean atomicIncrement(long current,long next) throws IOException{
         try(Partition sysColumnTable = partitionFactory.getTable(OperationConfiguration.SEQUENCE_TABLE_NAME_BYTES)){
             DataPut put=opFactory.newDataPut(null,sysColumnsRow);
             put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,autoIncrementValueQualifier,Encoding.encode(next));
             return sysColumnTable.checkAndPut(sysColumnsRow,
                     SIConstants.DEFAULT_FAMILY_BYTES,
-                    autoIncrementValueQualifier,currPosition.get()==startingValue?null:Encoding.encode(currPosition.get()),put);
+                    autoIncrementValueQualifier,current==startingValue?null:Encoding.encode(current),put);
         }
     }
 
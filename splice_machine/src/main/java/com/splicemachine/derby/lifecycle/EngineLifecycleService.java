@@ -32,6 +32,7 @@ import com.splicemachine.db.impl.jdbc.EmbedConnection;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLEnvironmentLoader;
 import com.splicemachine.derby.impl.db.SpliceDatabase;
+import com.splicemachine.derby.impl.sql.execute.sequence.SequenceMetrics;
 import com.splicemachine.derby.impl.store.access.SpliceAccessManager;
 import com.splicemachine.lifecycle.DatabaseLifecycleService;
 import com.splicemachine.pipeline.ContextFactoryDriverService;
@@ -129,6 +130,7 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
         try{
             ObjectName on=new ObjectName("com.splicemachine.utils.logging:type=LogManager");
             mbs.registerMBean(logging,on);
+            mbs.registerMBean(SequenceMetrics.INSTANCE,new ObjectName("com.splicemachine.derby.sequence:type=SequenceStatistics"));
         }catch(InstanceAlreadyExistsException ignored){
             /*
              * For most purposes, this should never happen. However, it's possible to happen
@@ -46,7 +46,6 @@ import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
 
-import static com.splicemachine.derby.stream.control.ControlUtils.entryToTuple;
 
 /**
  *
@@ -147,7 +146,20 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     @Override
     public <Op extends SpliceOperation, K> PairDataSet<K, V> keyBy(final SpliceFunction<Op, V, K> function) {
-        return new ControlPairDataSet<>(entryToTuple(Multimaps.index(iterator,function).entries()));
+        /*
+         * Keys are computed as the pairs are read, in input order, so that a reduceByKey can stream the input
+         * instead of holding all of it. The pairs are no longer grouped by key, which no consumer relies on:
+         * groupByKey, cogroup and the build side of the hash joins index the pairs themselves, sortByKey sorts
+         * them, and reduceByKey and the probe side of the hash joins take them one at a time. Like every
+         * control side data set, the pairs can only be read once.
+         */
+        return new ControlPairDataSet<>(Iterators.transform(iterator,new Function<V, Tuple2<K, V>>() {
+            @Nullable
+            @Override
+            public Tuple2<K, V> apply(@Nullable V v) {
+                return new Tuple2<>(function.apply(v),v);
+            }
+        }));
     }
 
     @Override
@@ -40,12 +40,16 @@ import org.spark_project.guava.base.Charsets;
 import scala.Tuple2;
 import com.splicemachine.access.api.DistributedFileSystem;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
 import com.splicemachine.derby.stream.function.Partitioner;
+import com.splicemachine.derby.stream.function.TableScanQualifierFunction;
+import com.splicemachine.derby.vti.SpliceFileVTI;
 import com.splicemachine.derby.stream.iterator.TableScannerIterator;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.data.TxnOperationFactory;
@@ -110,6 +114,8 @@ public class ControlDataSetProcessor implements DataSetProcessor{
         return new TableScannerBuilder<V>(){
             @Override
             public DataSet<V> buildDataSet() throws StandardException{
+                if(storedAs!=null)
+                    return readExternalTable();
                 Partition p;
                 try{
                     p =SIDriver.driver().getTableFactory().getTable(tableName);
@@ -127,6 +133,29 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     throw Exceptions.parseException(e);
                 }
             }
+
+            @SuppressWarnings("unchecked")
+            private DataSet<V> readExternalTable() throws StandardException{
+                ScanOperation operation=(ScanOperation)spliceOperation;
+                OperationContext context=operation==null?createOperationContext(activation):createOperationContext(operation);
+                ExecRow execRow=operation==null?template:operation.getExecRowDefinition();
+                Qualifier[][] qualifiers=operation==null?null:operation.getScanInformation().getScanQualifiers();
+                DataSet dataSet;
+                switch(storedAs){
+                    case "T":
+                        dataSet=readTextFile(operation,location,escaped,delimited,baseColumnMap,context,execRow);
+                        break;
+                    case "P":
+                        dataSet=readParquetFile(baseColumnMap,location,context,qualifiers,optionalProbeValue,execRow);
+                        break;
+                    case "O":
+                        dataSet=readORCFile(baseColumnMap,location,context,qualifiers,optionalProbeValue,execRow);
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("storedAs Type not supported -> "+storedAs);
+                }
+                return dataSet.flatMap(new TableScanQualifierFunction(context,optionalProbeValue));
+            }
         };
     }
 
@@ -312,8 +341,21 @@ public class ControlDataSetProcessor implements DataSetProcessor{
 
     @Override
     public <V> DataSet<V> readParquetFile(int[] baseColumnMap, String location, OperationContext context,Qualifier[][] qualifiers,DataValueDescriptor probeValue, ExecRow execRow) throws StandardException {
-            DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
-            return new ControlDataSet(proc.readParquetFile(baseColumnMap, location, context, qualifiers, probeValue,execRow).toLocalIterator());
+        try {
+            ParquetFileIterator iterator = ParquetFileIterator.open(location, baseColumnMap, qualifiers, probeValue, execRow,
+                    context == null ? null : context.getOperation());
+            if (iterator != null) {
+                if (context != null)
+                    context.getOperation().registerCloseable(iterator);
+                return new ControlDataSet(iterator);
+            }
+        } catch (Exception e) {
+            throw StandardException.newException(
+                    SQLState.EXTERNAL_TABLES_READ_FAILURE,e.getMessage());
+        }
+        // Partitioned tables and empty directories are left to Spark
+        DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
+        return new ControlDataSet(proc.readParquetFile(baseColumnMap, location, context, qualifiers, probeValue,execRow).toLocalIterator());
    }
 
     @Override
@@ -324,8 +366,12 @@ public class ControlDataSetProcessor implements DataSetProcessor{
 
     @Override
     public <V> DataSet<LocatedRow> readTextFile(SpliceOperation op, String location, String characterDelimiter, String columnDelimiter, int[] baseColumnMap, OperationContext context, ExecRow execRow) throws StandardException{
-        DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
-        return new ControlDataSet(proc.readTextFile(op,location,characterDelimiter,columnDelimiter,baseColumnMap,context,execRow).toLocalIterator());
+        try {
+            return SpliceFileVTI.getSpliceFileVTI(location, characterDelimiter, columnDelimiter, baseColumnMap).getDataSet(op, this, execRow);
+        } catch (Exception e) {
+            throw StandardException.newException(
+                    SQLState.EXTERNAL_TABLES_READ_FAILURE,e.getMessage());
+        }
     }
 
     @Override
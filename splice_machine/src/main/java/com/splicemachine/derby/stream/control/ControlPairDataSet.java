@@ -17,6 +17,7 @@ package com.splicemachine.derby.stream.control;
 
 import org.apache.spark.api.java.Optional;
 import org.spark_project.guava.base.Function;
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
@@ -45,7 +46,6 @@ import scala.Tuple2;
 import javax.annotation.Nullable;
 import java.util.*;
 
-import static com.splicemachine.derby.stream.control.ControlUtils.entryToTuple;
 import static com.splicemachine.derby.stream.control.ControlUtils.multimapFromIterator;
 import static org.spark_project.guava.collect.Maps.*;
 
@@ -100,22 +100,13 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
-        Multimap<K,V> newMap = multimapFromIterator(source);
-        return new ControlPairDataSet<>(entryToTuple(Multimaps.<K,V>forMap(transformValues(newMap.asMap(),
-                new Function<Collection<V>, V>() {
-            @Override
-            public V apply(@Nullable Collection<V> vs) {
-                try {
-                    V returnValue = null;
-                    for (V v : vs) {
-                        returnValue = function2.call(returnValue, v);
-                    }
-                    return returnValue;
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        })).entries()));
+        // Merge values as they stream in, spilling partial results to local disk if they outgrow the threshold
+        long memoryThreshold = EngineDriver.driver().getConfiguration().getControlSideAggregateMbThreshold()*1024*1024;
+        try {
+            return new ControlPairDataSet<>(new SpillingHashReducer<K, V>(function2, memoryThreshold, null).reduce(source));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.DistributedFileSystem;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataType;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLBoolean;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLReal;
+import com.splicemachine.db.iapi.types.SQLSmallint;
+import com.splicemachine.db.iapi.types.SQLTinyint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.si.impl.driver.SIDriver;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Reads the Parquet files of an external table on the control side, without starting a Spark job.
+ *
+ * Only the columns of the base column map are read, and the qualifiers which can be expressed on the
+ * Parquet columns are pushed down, so that row groups whose statistics exclude them are skipped. Values
+ * are converted the same way Spark converts them, so the rows match the ones of the distributed reader.
+ * The qualifiers still have to be applied to the returned rows.
+ *
+ */
+public class ParquetFileIterator implements Iterator<LocatedRow>, Closeable {
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588L;
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Configuration conf;
+    private final List<Path> files;
+    private final int[] baseColumnMap;
+    private final Qualifier[][] qualifiers;
+    private final DataValueDescriptor probeValue;
+    private final ExecRow execRow;
+    private final SpliceOperation op;
+    private int fileIndex;
+    private ParquetReader<Group> reader;
+    private PrimitiveType[] columnTypes;
+    private Group nextGroup;
+
+    private ParquetFileIterator(Configuration conf, List<Path> files, int[] baseColumnMap, Qualifier[][] qualifiers,
+                                DataValueDescriptor probeValue, ExecRow execRow, SpliceOperation op) {
+        this.conf = conf;
+        this.files = files;
+        this.baseColumnMap = baseColumnMap;
+        this.qualifiers = qualifiers;
+        this.probeValue = probeValue;
+        this.execRow = execRow;
+        this.op = op;
+    }
+
+    /**
+     *
+     * @return an iterator over the rows of the files at the location, or null if they cannot be read on the
+     * control side (e.g. the table is partitioned into sub directories)
+     */
+    public static ParquetFileIterator open(String location, int[] baseColumnMap, Qualifier[][] qualifiers,
+                                           DataValueDescriptor probeValue, ExecRow execRow,
+                                           SpliceOperation op) throws IOException {
+        DistributedFileSystem dfs = SIDriver.driver().fileSystem();
+        List<Path> files = new ArrayList<>();
+        if (dfs.getInfo(location).isDirectory()) {
+            for (String fileName : dfs.getExistingFiles(location, "*")) {
+                if (fileName == null || fileName.startsWith("_") || fileName.startsWith("."))
+                    continue; // _SUCCESS, _metadata, checksums...
+                Path file = new Path(location, fileName);
+                if (dfs.getInfo(file.toString()).isDirectory())
+                    return null;
+                files.add(file);
+            }
+            if (files.isEmpty())
+                return null;
+        } else {
+            files.add(new Path(location));
+        }
+        Configuration conf;
+        Object delegate = EngineDriver.driver().getConfiguration().getConfigSource().unwrapDelegate();
+        if (delegate instanceof Configuration)
+            conf = new Configuration((Configuration) delegate);
+        else
+            conf = new Configuration();
+        return new ParquetFileIterator(conf, files, baseColumnMap, qualifiers, probeValue, execRow, op);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (nextGroup == null) {
+                if (reader == null) {
+                    if (fileIndex >= files.size())
+                        return false;
+                    openReader(files.get(fileIndex++));
+                }
+                nextGroup = reader.read();
+                if (nextGroup == null) {
+                    reader.close();
+                    reader = null;
+                }
+            }
+            return true;
+        } catch (IOException | StandardException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public LocatedRow next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Group group = nextGroup;
+        nextGroup = null;
+        Object[] values = new Object[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            if (group.getFieldRepetitionCount(i) > 0)
+                values[i] = getValue(group, i, columnTypes[i]);
+        }
+        Row row = RowFactory.create(values);
+        LocatedRow locatedRow = new LocatedRow(execRow.getNewNullRow().fromSparkRow(row));
+        if (op != null)
+            op.setCurrentLocatedRow(locatedRow);
+        return locatedRow;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        fileIndex = files.size();
+    }
+
+    private void openReader(Path file) throws IOException, StandardException {
+        MessageType fileSchema = ParquetFileReader.readFooter(conf, file).getFileMetaData().getSchema();
+        List<Type> fields = fileSchema.getFields();
+        List<Type> projection = new ArrayList<>();
+        for (int i = 0; i < baseColumnMap.length && i < fields.size(); i++) {
+            if (baseColumnMap[i] != -1)
+                projection.add(fields.get(i));
+        }
+        columnTypes = new PrimitiveType[projection.size()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = projection.get(i).asPrimitiveType();
+        }
+        Configuration readConf = new Configuration(conf);
+        readConf.set(ReadSupport.PARQUET_READ_SCHEMA, new MessageType(fileSchema.getName(), projection).toString());
+        ParquetReader.Builder<Group> builder = ParquetReader.builder(new GroupReadSupport(), file).withConf(readConf);
+        FilterPredicate predicate = getPredicate(fileSchema);
+        if (predicate != null)
+            builder = builder.withFilter(FilterCompat.get(predicate));
+        reader = builder.build();
+    }
+
+    /**
+     * Convert a value to the Java type Spark uses for its Parquet type, see {@link ValueRow#fromSparkRow(Row)}.
+     */
+    static Object getValue(Group group, int field, PrimitiveType type) {
+        OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+            case BOOLEAN:
+                return group.getBoolean(field, 0);
+            case INT32:
+                int intValue = group.getInteger(field, 0);
+                if (originalType == OriginalType.INT_8)
+                    return (byte) intValue;
+                if (originalType == OriginalType.INT_16)
+                    return (short) intValue;
+                if (originalType == OriginalType.DATE)
+                    return toDate(intValue);
+                if (originalType == OriginalType.DECIMAL)
+                    return BigDecimal.valueOf(intValue, type.getDecimalMetadata().getScale());
+                return intValue;
+            case INT64:
+                long longValue = group.getLong(field, 0);
+                if (originalType == OriginalType.DECIMAL)
+                    return BigDecimal.valueOf(longValue, type.getDecimalMetadata().getScale());
+                if (originalType == OriginalType.TIMESTAMP_MILLIS)
+                    return new Timestamp(longValue);
+                return longValue;
+            case FLOAT:
+                return group.getFloat(field, 0);
+            case DOUBLE:
+                return group.getDouble(field, 0);
+            case INT96:
+                return toTimestamp(group.getInt96(field, 0));
+            case BINARY:
+            case FIXED_LEN_BYTE_ARRAY:
+                Binary binary = group.getBinary(field, 0);
+                if (originalType == OriginalType.DECIMAL)
+                    return new BigDecimal(new BigInteger(binary.getBytes()), type.getDecimalMetadata().getScale());
+                if (originalType == OriginalType.UTF8 || originalType == OriginalType.ENUM)
+                    return binary.toStringUsingUTF8();
+                return binary.getBytes();
+            default:
+                throw new UnsupportedOperationException("Unsupported Parquet type " + type);
+        }
+    }
+
+    /**
+     * Days since the epoch, as a date of the default time zone.
+     */
+    private static Date toDate(int days) {
+        long millisUtc = days * MILLIS_PER_DAY;
+        return new Date(millisUtc - TimeZone.getDefault().getOffset(millisUtc));
+    }
+
+    /**
+     * Nanoseconds of the day and julian day (little endian), as written by Spark and Hive.
+     */
+    private static Timestamp toTimestamp(Binary binary) {
+        ByteBuffer buffer = ByteBuffer.wrap(binary.getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long nanosOfDay = buffer.getLong();
+        long julianDay = buffer.getInt();
+        long millis = (julianDay - JULIAN_DAY_OF_EPOCH) * MILLIS_PER_DAY + nanosOfDay / NANOS_PER_MILLI;
+        Timestamp timestamp = new Timestamp(millis);
+        timestamp.setNanos((int) (nanosOfDay % NANOS_PER_SECOND));
+        return timestamp;
+    }
+
+    /**
+     * The conjunction of the qualifiers which can be evaluated on the Parquet columns, the same ones the
+     * distributed reader pushes down to Spark.
+     */
+    private FilterPredicate getPredicate(MessageType fileSchema) throws StandardException {
+        if (qualifiers == null || qualifiers.length == 0 || qualifiers[0] == null)
+            return null;
+        FilterPredicate predicate = null;
+        for (int i = 0; i < qualifiers[0].length; i++) {
+            Qualifier q = qualifiers[0][i];
+            if (q.getVariantType() == Qualifier.VARIANT)
+                continue; // Cannot Push Down Qualifier
+            String column = ValueRow.getNamedColumn(q.getStoragePosition());
+            if (!fileSchema.containsField(column) || !fileSchema.getType(column).isPrimitive())
+                continue;
+            q.clearOrderableCache();
+            DataValueDescriptor value = probeValue == null || i != 0 ? q.getOrderable() : probeValue;
+            FilterPredicate p = getPredicate(fileSchema.getType(column).asPrimitiveType(), column, q, value);
+            if (p != null)
+                predicate = predicate == null ? p : FilterApi.and(predicate, p);
+        }
+        return predicate;
+    }
+
+    static FilterPredicate getPredicate(PrimitiveType type, String column, Qualifier q, DataValueDescriptor value) throws StandardException {
+        if (value == null)
+            return null;
+        boolean isNull = value.isNull();
+        int operator = q.getOperator();
+        boolean negate = q.negateCompareResult();
+        if (isNull && operator != DataType.ORDER_OP_EQUALS)
+            return null;
+        OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+            case BOOLEAN:
+                if (!isNull && !(value instanceof SQLBoolean))
+                    return null;
+                if (operator != DataType.ORDER_OP_EQUALS)
+                    return null;
+                Boolean b = isNull ? null : value.getBoolean();
+                return negate ? FilterApi.notEq(FilterApi.booleanColumn(column), b) : FilterApi.eq(FilterApi.booleanColumn(column), b);
+            case INT32:
+                if (originalType != null && originalType != OriginalType.INT_8 && originalType != OriginalType.INT_16 && originalType != OriginalType.INT_32)
+                    return null;
+                if (!isNull && !(value instanceof SQLInteger || value instanceof SQLSmallint || value instanceof SQLTinyint))
+                    return null;
+                return compare(FilterApi.intColumn(column), isNull ? null : value.getInt(), operator, negate);
+            case INT64:
+                if (originalType != null && originalType != OriginalType.INT_64)
+                    return null;
+                if (!isNull && !(value instanceof SQLLongint || value instanceof SQLInteger || value instanceof SQLSmallint || value instanceof SQLTinyint))
+                    return null;
+                return compare(FilterApi.longColumn(column), isNull ? null : value.getLong(), operator, negate);
+            case FLOAT:
+                if (!isNull && !(value instanceof SQLReal))
+                    return null;
+                return compare(FilterApi.floatColumn(column), isNull ? null : value.getFloat(), operator, negate);
+            case DOUBLE:
+                if (!isNull && !(value instanceof SQLDouble))
+                    return null;
+                return compare(FilterApi.doubleColumn(column), isNull ? null : value.getDouble(), operator, negate);
+            case BINARY:
+                /*
+                 * Only equality on VARCHAR values: CHAR comparisons ignore trailing blanks, and the
+                 * ordering of the binary statistics does not match the collation of strings.
+                 */
+                if (originalType != OriginalType.UTF8 || operator != DataType.ORDER_OP_EQUALS)
+                    return null;
+                if (!isNull && value.getClass() != SQLVarchar.class)
+                    return null;
+                Binary binary = isNull ? null : Binary.fromString(value.getString());
+                return negate ? FilterApi.notEq(FilterApi.binaryColumn(column), binary) : FilterApi.eq(FilterApi.binaryColumn(column), binary);
+            default:
+                return null;
+        }
+    }
+
+    private static <T extends Comparable<T>, C extends org.apache.parquet.filter2.predicate.Operators.Column<T> & org.apache.parquet.filter2.predicate.Operators.SupportsLtGt>
+    FilterPredicate compare(C column, T value, int operator, boolean negate) {
+        switch (operator) {
+            case DataType.ORDER_OP_LESSTHAN:
+                return negate ? FilterApi.gtEq(column, value) : FilterApi.lt(column, value);
+            case DataType.ORDER_OP_LESSOREQUALS:
+                return negate ? FilterApi.gt(column, value) : FilterApi.ltEq(column, value);
+            case DataType.ORDER_OP_GREATERTHAN:
+                return negate ? FilterApi.ltEq(column, value) : FilterApi.gt(column, value);
+            case DataType.ORDER_OP_GREATEROREQUALS:
+                return negate ? FilterApi.lt(column, value) : FilterApi.gtEq(column, value);
+            case DataType.ORDER_OP_EQUALS:
+                return negate ? FilterApi.notEq(column, value) : FilterApi.eq(column, value);
+            default:
+                return null;
+        }
+    }
+}
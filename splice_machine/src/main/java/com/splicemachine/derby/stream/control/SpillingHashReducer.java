@@ -0,0 +1,357 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.function.ZipperFunction;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.collect.Iterators;
+import scala.Tuple2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Reduces a stream of key-value pairs by key, using a bounded amount of memory.
+ *
+ * Values are merged into an open-addressing table of partial results as they stream in, so the input is never
+ * held in memory. Whenever the (estimated) size of the table exceeds the memory threshold, the partial results
+ * are sorted by the hash of their key and spilled to a file on local disk, and the table is cleared. Once the input
+ * is exhausted, the spilled runs and the remaining in-memory table are merged by hash, combining the partial results
+ * for each key with the same reduce function. This requires that the reduce function can merge two partial results,
+ * which is true of the aggregate merge functions.
+ *
+ * @see com.splicemachine.derby.stream.function.MergeAllAggregatesFunction
+ * @see com.splicemachine.derby.stream.function.MergeNonDistinctAggregatesFunction
+ */
+public class SpillingHashReducer<K,V>{
+    private static final Logger LOG=Logger.getLogger(SpillingHashReducer.class);
+    /*
+     * Rough per-entry cost of the table slots and the entry objects themselves, on top of the key and value
+     */
+    private static final long ENTRY_OVERHEAD=64;
+    /*
+     * What we assume an entry costs when we don't know how to look inside it
+     */
+    private static final long UNKNOWN_SIZE=128;
+
+    private final ZipperFunction<V,V,V> reduceFunction;
+    private final long memoryThreshold;
+    private final File spillDirectory;
+
+    private final ObjectObjectOpenHashMap<K,V> table=new ObjectObjectOpenHashMap<>();
+    private final List<File> spillFiles=new ArrayList<>();
+    private long estimatedSize;
+
+    /**
+     * @param reduceFunction the function which merges two values with the same key
+     * @param memoryThreshold the (estimated) number of bytes which may be held in memory before spilling
+     * @param spillDirectory the directory to spill to, or {@code null} to use the default temporary directory
+     */
+    public SpillingHashReducer(ZipperFunction<V,V,V> reduceFunction,long memoryThreshold,File spillDirectory){
+        this.reduceFunction=reduceFunction;
+        this.memoryThreshold=memoryThreshold;
+        this.spillDirectory=spillDirectory;
+    }
+
+    /**
+     * Consume the entire source, and return an iterator over the reduced value for each distinct key. The order
+     * of the keys is undefined.
+     */
+    public Iterator<Tuple2<K,V>> reduce(Iterator<Tuple2<K,V>> source) throws Exception{
+        try{
+            while(source.hasNext()){
+                Tuple2<K,V> next=source.next();
+                K key=next._1();
+                if(table.containsKey(key)){
+                    table.lset(reduceFunction.call(table.lget(),next._2()));
+                }else{
+                    V value=reduceFunction.call(null,next._2());
+                    table.put(key,value);
+                    estimatedSize+=ENTRY_OVERHEAD+estimateSize(key)+estimateSize(value);
+                    if(estimatedSize>memoryThreshold)
+                        spill();
+                }
+            }
+        }catch(Exception e){
+            for(File spillFile : spillFiles){
+                if(!spillFile.delete())
+                    LOG.warn("Unable to delete spill file "+spillFile);
+            }
+            throw e;
+        }
+
+        if(spillFiles.isEmpty()){
+            return Iterators.transform(table.iterator(),new org.spark_project.guava.base.Function<ObjectObjectCursor<K,V>, Tuple2<K,V>>(){
+                @Override
+                public Tuple2<K,V> apply(ObjectObjectCursor<K,V> cursor){
+                    return new Tuple2<>(cursor.key,cursor.value);
+                }
+            });
+        }
+        return new MergingIterator();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void spill() throws IOException{
+        HashedEntry<K,V>[] entries=sortedEntries();
+        File spillFile=File.createTempFile("splice-reduce",".spill",spillDirectory);
+        spillFiles.add(spillFile);
+        try(ObjectOutputStream out=new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)))){
+            out.writeInt(entries.length);
+            for(HashedEntry<K,V> entry : entries){
+                out.writeInt(entry.hash);
+                out.writeObject(entry.key);
+                out.writeObject(entry.value);
+                /*
+                 * Keys and values may share objects (e.g. the grouping columns), which is preserved within a
+                 * single entry. Resetting between entries keeps the stream from remembering every object it
+                 * has ever written.
+                 */
+                out.reset();
+            }
+        }
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Spilled %d entries (approximately %d bytes) to %s",entries.length,estimatedSize,spillFile);
+        table.clear();
+        estimatedSize=0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashedEntry<K,V>[] sortedEntries(){
+        HashedEntry<K,V>[] entries=new HashedEntry[table.size()];
+        int i=0;
+        for(ObjectObjectCursor<K,V> cursor : table){
+            entries[i++]=new HashedEntry<>(cursor.key.hashCode(),cursor.key,cursor.value);
+        }
+        Arrays.sort(entries,new Comparator<HashedEntry<K,V>>(){
+            @Override
+            public int compare(HashedEntry<K,V> o1,HashedEntry<K,V> o2){
+                return Integer.compare(o1.hash,o2.hash);
+            }
+        });
+        return entries;
+    }
+
+    private static long estimateSize(Object o){
+        if(o instanceof LocatedRow)
+            o=((LocatedRow)o).getRow();
+        if(!(o instanceof ExecRow)) return UNKNOWN_SIZE;
+
+        DataValueDescriptor[] dvds=((ExecRow)o).getRowArray();
+        long size=0;
+        for(DataValueDescriptor dvd : dvds){
+            if(dvd!=null)
+                size+=dvd.estimateMemoryUsage();
+        }
+        return size;
+    }
+
+    private static class HashedEntry<K,V>{
+        private final int hash;
+        private final K key;
+        private V value;
+
+        HashedEntry(int hash,K key,V value){
+            this.hash=hash;
+            this.key=key;
+            this.value=value;
+        }
+    }
+
+    /*
+     * A sorted run of entries, either in memory or spilled to disk
+     */
+    private interface Run<K,V> extends Closeable{
+        /**
+         * @return the next entry in the run, or {@code null} if the run is exhausted
+         */
+        HashedEntry<K,V> next() throws IOException;
+    }
+
+    private static class MemoryRun<K,V> implements Run<K,V>{
+        private final HashedEntry<K,V>[] entries;
+        private int position;
+
+        MemoryRun(HashedEntry<K,V>[] entries){
+            this.entries=entries;
+        }
+
+        @Override
+        public HashedEntry<K,V> next(){
+            if(position>=entries.length) return null;
+            HashedEntry<K,V> next=entries[position];
+            entries[position++]=null;
+            return next;
+        }
+
+        @Override public void close(){ }
+    }
+
+    private static class FileRun<K,V> implements Run<K,V>{
+        private final File file;
+        private final ObjectInputStream in;
+        private final boolean deleted;
+        private int remaining;
+
+        FileRun(File file) throws IOException{
+            this.file=file;
+            this.in=new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            this.remaining=in.readInt();
+            /*
+             * The open stream keeps the contents readable, and unlinking the file now means that nothing is
+             * left behind if the iterator is never exhausted.
+             */
+            this.deleted=file.delete();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public HashedEntry<K,V> next() throws IOException{
+            if(remaining<=0) return null;
+            remaining--;
+            try{
+                int hash=in.readInt();
+                K key=(K)in.readObject();
+                V value=(V)in.readObject();
+                return new HashedEntry<>(hash,key,value);
+            }catch(ClassNotFoundException e){
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException{
+            in.close();
+            if(!deleted && !file.delete())
+                LOG.warn("Unable to delete spill file "+file);
+        }
+    }
+
+    private static class RunHead<K,V>{
+        private final Run<K,V> run;
+        private HashedEntry<K,V> current;
+
+        RunHead(Run<K,V> run){
+            this.run=run;
+        }
+
+        boolean advance() throws IOException{
+            current=run.next();
+            return current!=null;
+        }
+    }
+
+    /*
+     * Merges all of the runs in hash order. Entries with the same hash are pulled from every run at once
+     * and combined (by key) before any of them are returned, so each key is returned exactly once.
+     */
+    private class MergingIterator implements Iterator<Tuple2<K,V>>{
+        private final PriorityQueue<RunHead<K,V>> heads;
+        private final List<HashedEntry<K,V>> group=new ArrayList<>();
+        private int groupPosition;
+
+        MergingIterator() throws IOException{
+            heads=new PriorityQueue<>(spillFiles.size()+1,new Comparator<RunHead<K,V>>(){
+                @Override
+                public int compare(RunHead<K,V> o1,RunHead<K,V> o2){
+                    return Integer.compare(o1.current.hash,o2.current.hash);
+                }
+            });
+            addRun(new MemoryRun<>(sortedEntries()));
+            table.clear();
+            for(File spillFile : spillFiles){
+                addRun(new FileRun<K,V>(spillFile));
+            }
+            spillFiles.clear();
+        }
+
+        @Override
+        public boolean hasNext(){
+            if(groupPosition<group.size()) return true;
+            group.clear();
+            groupPosition=0;
+            if(heads.isEmpty()) return false;
+            try{
+                int hash=heads.peek().current.hash;
+                while(!heads.isEmpty() && heads.peek().current.hash==hash){
+                    RunHead<K,V> head=heads.poll();
+                    merge(head.current);
+                    if(head.advance())
+                        heads.add(head);
+                    else
+                        head.run.close();
+                }
+            }catch(Exception e){
+                throw new RuntimeException(e);
+            }
+            return true;
+        }
+
+        @Override
+        public Tuple2<K,V> next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            HashedEntry<K,V> next=group.get(groupPosition);
+            group.set(groupPosition++,null);
+            return new Tuple2<>(next.key,next.value);
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+        private void merge(HashedEntry<K,V> entry) throws Exception{
+            //hash collisions are rare, so the group is almost always a single entry
+            for(HashedEntry<K,V> existing : group){
+                if(existing.key.equals(entry.key)){
+                    existing.value=reduceFunction.call(existing.value,entry.value);
+                    return;
+                }
+            }
+            group.add(entry);
+        }
+
+        private void addRun(Run<K,V> run) throws IOException{
+            RunHead<K,V> head=new RunHead<>(run);
+            if(head.advance())
+                heads.add(head);
+            else
+                run.close();
+        }
+    }
+}
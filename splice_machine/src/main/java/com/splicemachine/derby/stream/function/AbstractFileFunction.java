@@ -18,11 +18,16 @@ package com.splicemachine.derby.stream.function;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
 
 import com.splicemachine.db.iapi.types.DateTimeDataValue;
+import com.splicemachine.db.iapi.types.SQLDate;
+import com.splicemachine.db.iapi.types.SQLTime;
+import com.splicemachine.db.iapi.types.SQLTimestamp;
 import com.splicemachine.derby.stream.utils.BooleanList;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.supercsv.prefs.CsvPreference;
@@ -132,41 +137,15 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
                 throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, execRow.nColumns(), 0);
             for (int i = 1; i <= returnRow.nColumns(); i++) {
                 DataValueDescriptor dvd = returnRow.getColumn(i);
-                int type = dvd.getTypeFormatId();
                 if (values.size()<=i-1) {
                     throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, execRow.nColumns(),values.size());
                 }
                 String value = values.get(i - 1);
                 if (shouldBeNull(value,quotedColumns.valueAt(i-1)))
                     value = null;
-                switch(type){
-                    case StoredFormatIds.SQL_TIME_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (timeFormat == null || value==null){
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        }else
-                            dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
-                        break;
-                    case StoredFormatIds.SQL_DATE_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (dateTimeFormat == null || value == null)
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        else
-                            dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
-                        break;
-                    case StoredFormatIds.SQL_TIMESTAMP_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (timestampFormat == null || value==null)
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        else
-                            dvd.setValue(SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat),calendar);
-                        break;
-                    default:
-                        dvd.setValue(value);
-                }
+                if(calendar==null)
+                    calendar = new GregorianCalendar();
+                setValue(dvd,value,calendar);
             }
             return new LocatedRow(returnRow);
         } catch (Exception e) {
@@ -179,6 +158,62 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
     }
 
 
+    /**
+     * Convert the current record of a {@link ByteCsvTokenizer} into a row. Integer, decimal, and (when no custom
+     * format is specified) ISO date and timestamp columns are decoded directly from the bytes of the column;
+     * all other columns, and values which are not in the simple form those fast paths understand, are set
+     * in the same way as {@link #call(List, BooleanList)} would set them.
+     *
+     * This does not use the operation context or any other shared state, so it may be called concurrently
+     * with a different calendar for each thread.
+     */
+    ExecRow decodeRow(ByteCsvTokenizer tokenizer,Charset charset,Calendar calendar) throws Exception {
+        ExecRow returnRow = execRow.getClone();
+        int nColumns = returnRow.nColumns();
+        if (tokenizer.getColumnCount()<nColumns)
+            throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, execRow.nColumns(),tokenizer.getColumnCount());
+        for (int i = 1; i <= nColumns; i++) {
+            DataValueDescriptor dvd = returnRow.getColumn(i);
+            int column = i-1;
+            if (shouldBeNull(tokenizer,column)) {
+                setValue(dvd,null,calendar);
+                continue;
+            }
+            byte[] buffer = tokenizer.getBuffer(column);
+            int offset = tokenizer.getOffset(column);
+            int length = tokenizer.getLength(column);
+            boolean decoded;
+            switch(dvd.getTypeFormatId()){
+                case StoredFormatIds.SQL_TINYINT_ID:
+                    decoded = decodeInteger(dvd,buffer,offset,length,Byte.MIN_VALUE,Byte.MAX_VALUE);
+                    break;
+                case StoredFormatIds.SQL_SMALLINT_ID:
+                    decoded = decodeInteger(dvd,buffer,offset,length,Short.MIN_VALUE,Short.MAX_VALUE);
+                    break;
+                case StoredFormatIds.SQL_INTEGER_ID:
+                    decoded = decodeInteger(dvd,buffer,offset,length,Integer.MIN_VALUE,Integer.MAX_VALUE);
+                    break;
+                case StoredFormatIds.SQL_LONGINT_ID:
+                    decoded = decodeInteger(dvd,buffer,offset,length,Long.MIN_VALUE,Long.MAX_VALUE);
+                    break;
+                case StoredFormatIds.SQL_DECIMAL_ID:
+                    decoded = decodeDecimal(dvd,buffer,offset,length);
+                    break;
+                case StoredFormatIds.SQL_DATE_ID:
+                    decoded = dateTimeFormat==null && decodeDate(dvd,buffer,offset,length);
+                    break;
+                case StoredFormatIds.SQL_TIMESTAMP_ID:
+                    decoded = timestampFormat==null && decodeTimestamp(dvd,buffer,offset,length);
+                    break;
+                default:
+                    decoded = false;
+            }
+            if (!decoded)
+                setValue(dvd,new String(buffer,offset,length,charset),calendar);
+        }
+        return returnRow;
+    }
+
     void checkPreference() {
         if (preference==null){
             SConfiguration config =EngineDriver.driver().getConfiguration();
@@ -192,6 +227,169 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    private void setValue(DataValueDescriptor dvd,String value,Calendar calendar) throws Exception {
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TIME_ID:
+                if (timeFormat == null || value==null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else
+                    dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
+                break;
+            case StoredFormatIds.SQL_DATE_ID:
+                if (dateTimeFormat == null || value == null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else
+                    dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
+                break;
+            case StoredFormatIds.SQL_TIMESTAMP_ID:
+                if (timestampFormat == null || value==null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else
+                    dvd.setValue(SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat),calendar);
+                break;
+            default:
+                dvd.setValue(value);
+        }
+    }
+
+    private static boolean shouldBeNull(ByteCsvTokenizer tokenizer,int column){
+        int length = tokenizer.getLength(column);
+        if(length==0) return true;
+        else if(tokenizer.wasQuoted(column) || length!=4) return false;
+        byte[] buffer = tokenizer.getBuffer(column);
+        int offset = tokenizer.getOffset(column);
+        return (buffer[offset]|0x20)=='n' && (buffer[offset+1]|0x20)=='u'
+                && (buffer[offset+2]|0x20)=='l' && (buffer[offset+3]|0x20)=='l';
+    }
+
+    /**
+     * Decode an optionally signed run of digits. Anything else (including surrounding spaces, which the String
+     * conversion trims) and values out of range are left to the String conversion, so that it reports the error.
+     */
+    private static boolean decodeInteger(DataValueDescriptor dvd,byte[] buffer,int offset,int length,long min,long max) throws StandardException {
+        int end = offset+length;
+        int p = offset;
+        boolean negative = false;
+        if (buffer[p]=='-' || buffer[p]=='+') {
+            negative = buffer[p]=='-';
+            p++;
+        }
+        if (p==end || end-p>18)
+            return false;
+        long value = 0;
+        for (; p<end; p++) {
+            int digit = buffer[p]-'0';
+            if (digit<0 || digit>9)
+                return false;
+            value = value*10+digit;
+        }
+        if (negative)
+            value = -value;
+        if (value<min || value>max)
+            return false;
+        if (max==Long.MAX_VALUE)
+            dvd.setValue(value);
+        else
+            dvd.setValue((int)value);
+        return true;
+    }
+
+    private static boolean decodeDecimal(DataValueDescriptor dvd,byte[] buffer,int offset,int length) throws StandardException {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[offset+i];
+            if (b<=' ')
+                return false;
+            chars[i] = (char)b;
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(chars);
+        } catch (NumberFormatException nfe) {
+            return false;
+        }
+        dvd.setBigDecimal(value);
+        return true;
+    }
+
+    /**
+     * Decode a date of the form yyyy-mm-dd.
+     */
+    private static boolean decodeDate(DataValueDescriptor dvd,byte[] buffer,int offset,int length) {
+        if (length!=10)
+            return false;
+        int encodedDate = encodeDate(buffer,offset);
+        if (encodedDate<0)
+            return false;
+        ((SQLDate)dvd).setValue(encodedDate);
+        return true;
+    }
+
+    /**
+     * Decode a timestamp of the form yyyy-mm-dd hh:mm:ss, optionally followed by a fraction of up to
+     * nanosecond precision.
+     */
+    private static boolean decodeTimestamp(DataValueDescriptor dvd,byte[] buffer,int offset,int length) {
+        if (length<19 || length==20 || length>29 || buffer[offset+10]!=' '
+                || buffer[offset+13]!=':' || buffer[offset+16]!=':')
+            return false;
+        int encodedDate = encodeDate(buffer,offset);
+        int hour = twoDigits(buffer,offset+11);
+        int minute = twoDigits(buffer,offset+14);
+        int second = twoDigits(buffer,offset+17);
+        if (encodedDate<0 || hour<0 || minute<0 || second<0)
+            return false;
+        int nanos = 0;
+        if (length>19) {
+            if (buffer[offset+19]!='.')
+                return false;
+            for (int p = offset+20; p < offset+29; p++) {
+                int digit = 0;
+                if (p<offset+length) {
+                    digit = buffer[p]-'0';
+                    if (digit<0 || digit>9)
+                        return false;
+                }
+                nanos = nanos*10+digit;
+            }
+        }
+        int encodedTime;
+        try {
+            encodedTime = SQLTime.computeEncodedTime(hour,minute,second);
+        } catch (StandardException se) {
+            return false;
+        }
+        ((SQLTimestamp)dvd).setValue(encodedDate,encodedTime,nanos);
+        return true;
+    }
+
+    /**
+     * @return the encoded date for the yyyy-mm-dd date at {@code offset}, or -1 if it is not a valid date
+     */
+    private static int encodeDate(byte[] buffer,int offset) {
+        if (buffer[offset+4]!='-' || buffer[offset+7]!='-')
+            return -1;
+        int high = twoDigits(buffer,offset);
+        int low = twoDigits(buffer,offset+2);
+        int month = twoDigits(buffer,offset+5);
+        int day = twoDigits(buffer,offset+8);
+        if (high<0 || low<0 || month<0 || day<0)
+            return -1;
+        try {
+            return SQLDate.computeEncodedDate(high*100+low,month,day);
+        } catch (StandardException se) {
+            return -1;
+        }
+    }
+
+    private static int twoDigits(byte[] buffer,int offset) {
+        int tens = buffer[offset]-'0';
+        int ones = buffer[offset+1]-'0';
+        if (tens<0 || tens>9 || ones<0 || ones>9)
+            return -1;
+        return tens*10+ones;
+    }
+
     @SuppressWarnings("SimplifiableIfStatement") //the logic is clearer this way, without a performance penalty
     private boolean shouldBeNull(String value,boolean wasQuoted){
         if(value==null) return true;
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a CSV stream into blocks of bytes which contain only whole records, so that each block can be
+ * tokenized independently (and concurrently) with a {@link ByteCsvTokenizer}.
+ *
+ * The end of each block is found by running the tokenizer over the bytes read so far without recording any
+ * columns, so quote state is tracked exactly and a block never ends inside a quoted line break. The bytes after
+ * the last whole record are moved to a new buffer and carried over to the next block, so a block which has been
+ * returned is never modified again.
+ */
+public class ByteCsvBlockReader implements Closeable{
+
+    private final InputStream in;
+    private final ByteCsvTokenizer scanner;
+    private final int blockSize;
+
+    private byte[] buffer;
+    private int filled;
+    private boolean endOfInput;
+    private int lineNumber;
+
+    public ByteCsvBlockReader(InputStream in,CsvPreference preferences,int blockSize){
+        this.in=in;
+        this.scanner=new ByteCsvTokenizer(preferences);
+        this.blockSize=blockSize;
+        this.buffer=new byte[blockSize];
+    }
+
+    /**
+     * @return the next block of whole records, or {@code null} if the end of the stream has been reached.
+     */
+    public Block nextBlock() throws IOException{
+        while(true){
+            fill();
+            if(filled==0)
+                return null;
+            if(endOfInput){
+                Block block=new Block(buffer,filled,lineNumber);
+                buffer=new byte[0];
+                filled=0;
+                return block;
+            }
+            scanner.reset(buffer,0,filled,lineNumber,false);
+            int end=0;
+            int endLine=lineNumber;
+            while(scanner.skipRecord()){
+                end=scanner.getPosition();
+                endLine=scanner.getLineNumber();
+            }
+            if(end==0){
+                // a single record is larger than the buffer
+                buffer=Arrays.copyOf(buffer,buffer.length*2);
+                continue;
+            }
+            Block block=new Block(buffer,end,lineNumber);
+            byte[] remainder=new byte[Math.max(blockSize,filled-end)];
+            System.arraycopy(buffer,end,remainder,0,filled-end);
+            buffer=remainder;
+            filled-=end;
+            lineNumber=endLine;
+            return block;
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        in.close();
+    }
+
+    private void fill() throws IOException{
+        while(!endOfInput && filled<buffer.length){
+            int read=in.read(buffer,filled,buffer.length-filled);
+            if(read<0)
+                endOfInput=true;
+            else
+                filled+=read;
+        }
+    }
+
+    /**
+     * A run of whole records, held in {@code buffer[0,length)}.
+     */
+    public static class Block{
+        private final byte[] buffer;
+        private final int length;
+        private final int lineNumber;
+
+        Block(byte[] buffer,int length,int lineNumber){
+            this.buffer=buffer;
+            this.length=length;
+            this.lineNumber=lineNumber;
+        }
+
+        /**
+         * Position the tokenizer at the first record of this block.
+         */
+        public void reset(ByteCsvTokenizer tokenizer){
+            tokenizer.reset(buffer,0,length,lineNumber);
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Tokenizer which works directly on the raw bytes of a CSV file, rather than on decoded lines.
+ *
+ * This follows the same rules as {@link QuoteTrackingTokenizer} (quote tracking, escaped quotes, multi-line
+ * quoted columns, ignoring empty lines, and the same errors for quoted columns which span too many lines),
+ * but instead of building a String for each column it records the byte range of the column. Unquoted columns
+ * and quoted columns without escaped quotes or line breaks refer directly into the source buffer; only the
+ * other quoted columns are copied into a scratch buffer.
+ *
+ * Because the delimiter, the quote character and the line terminators are all single byte ASCII characters,
+ * this is only valid for encodings where no multi-byte sequence can contain an ASCII byte (see
+ * {@link #supports(CsvPreference, Charset)}).
+ */
+public class ByteCsvTokenizer{
+
+    private static final byte NEWLINE='\n';
+
+    private static final byte CARRIAGE_RETURN='\r';
+
+    private static final int RECORD=0;
+    private static final int END=1;
+    private static final int INCOMPLETE=2;
+
+    private final byte quoteChar;
+
+    private final byte delimiterChar;
+
+    private final int maxLinesPerRow;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private int lineNumber;
+
+    /* the columns of the current record */
+    private int columnCount;
+    private int[] offsets=new int[16];
+    private int[] lengths=new int[16];
+    private boolean[] copied=new boolean[16];
+    private boolean[] quoted=new boolean[16];
+
+    /* holds the columns which could not be referenced in place */
+    private byte[] scratch=new byte[128];
+    private int scratchLength;
+
+    /* the column currently being read */
+    private int columnOffset;
+    private int columnLength;
+    private boolean columnCopied;
+
+    public ByteCsvTokenizer(CsvPreference preferences){
+        this.quoteChar=(byte)preferences.getQuoteChar();
+        this.delimiterChar=(byte)preferences.getDelimiterChar();
+        this.maxLinesPerRow=preferences.getMaxLinesPerRow();
+    }
+
+    /**
+     * @return true if files with the specified preferences and encoding can be read with this tokenizer and give
+     * the same results as {@link QuoteTrackingTokenizer}.
+     */
+    public static boolean supports(CsvPreference preferences,Charset charset){
+        if(!(StandardCharsets.UTF_8.equals(charset)
+                || StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.ISO_8859_1.equals(charset)))
+            return false;
+        return isPlainAscii(preferences.getQuoteChar())
+                && isPlainAscii(preferences.getDelimiterChar())
+                && preferences.getQuoteChar()!=preferences.getDelimiterChar()
+                && preferences.isIgnoreEmptyLines()
+                && !preferences.isSurroundingSpacesNeedQuotes()
+                && preferences.getCommentMatcher()==null;
+    }
+
+    /**
+     * Reset the tokenizer to read the records in {@code buffer[start,limit)}, which is treated as the
+     * end of the input.
+     *
+     * @param lineNumber the number of lines which precede {@code start}, used for error messages
+     */
+    public void reset(byte[] buffer,int start,int limit,int lineNumber){
+        reset(buffer,start,limit,lineNumber,true);
+    }
+
+    void reset(byte[] buffer,int start,int limit,int lineNumber,boolean endOfInput){
+        this.buffer=buffer;
+        this.position=start;
+        this.limit=limit;
+        this.lineNumber=lineNumber;
+        this.endOfInput=endOfInput;
+        this.columnCount=0;
+        this.scratchLength=0;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return false if there are no more records
+     * @throws SuperCsvException if the record has a quoted column which spans too many lines, or which is not
+     * terminated before the end of the input. The tokenizer is positioned after the offending lines, so reading
+     * may continue with the next record.
+     */
+    public boolean readColumns(){
+        return nextRecord(true)==RECORD;
+    }
+
+    /**
+     * Skip over the next record without recording its columns. Unlike {@link #readColumns()}, a record which
+     * is not complete before the limit of a buffer which is not the end of the input is not skipped, and
+     * records which are in error are skipped over rather than reported.
+     *
+     * @return true if a complete record was skipped.
+     */
+    boolean skipRecord(){
+        return nextRecord(false)==RECORD;
+    }
+
+    /**
+     * @return the position in the buffer just after the last record which was read or skipped.
+     */
+    int getPosition(){
+        return position;
+    }
+
+    /**
+     * @return the line number of the last line which was read.
+     */
+    public int getLineNumber(){
+        return lineNumber;
+    }
+
+    public int getColumnCount(){
+        return columnCount;
+    }
+
+    /**
+     * @return the buffer holding the bytes of the specified column, starting at {@link #getOffset(int)}.
+     */
+    public byte[] getBuffer(int column){
+        return copied[column]?scratch:buffer;
+    }
+
+    public int getOffset(int column){
+        return offsets[column];
+    }
+
+    /**
+     * @return the length of the column in bytes. Empty columns (quoted or not) have a length of 0,
+     * which corresponds to a {@code null} column from {@link QuoteTrackingTokenizer}.
+     */
+    public int getLength(int column){
+        return lengths[column];
+    }
+
+    public boolean wasQuoted(int column){
+        return quoted[column];
+    }
+
+    /**
+     * @return the specified column decoded as a String, or {@code null} if the column is empty.
+     */
+    public String getColumn(int column,Charset charset){
+        int length=lengths[column];
+        if(length==0) return null;
+        return new String(getBuffer(column),offsets[column],length,charset);
+    }
+
+    /**
+     * @return all the columns of the current record as Strings, as {@link QuoteTrackingTokenizer} would have
+     * returned them.
+     */
+    public List<String> getColumns(Charset charset){
+        List<String> columns=new ArrayList<>(columnCount);
+        for(int i=0;i<columnCount;i++){
+            columns.add(getColumn(i,charset));
+        }
+        return columns;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static boolean isPlainAscii(int c){
+        return c>0 && c<0x80 && c!=NEWLINE && c!=CARRIAGE_RETURN;
+    }
+
+    private int nextRecord(boolean capture){
+        columnCount=0;
+        scratchLength=0;
+
+        // skip empty lines
+        while(true){
+            if(position==limit)
+                return endOfInput?END:INCOMPLETE;
+            int terminator=terminatorLength(position);
+            if(terminator<0)
+                return INCOMPLETE;
+            if(terminator==0)
+                break;
+            lineNumber++;
+            position+=terminator;
+        }
+        lineNumber++;
+
+        boolean inQuotes=false;
+        boolean wasQuoted=false;
+        int quoteScopeStartingLine=-1;
+        startColumn();
+        int p=position;
+        while(true){
+            if(p==limit){
+                if(!endOfInput)
+                    return INCOMPLETE;
+                position=p;
+                if(!inQuotes){
+                    endColumn(wasQuoted);
+                    return RECORD;
+                }
+                if(exceedsMaxLines(quoteScopeStartingLine))
+                    return fail(capture,maxLinesMessage(quoteScopeStartingLine));
+                return fail(capture,endOfFileMessage(quoteScopeStartingLine));
+            }
+            byte b=buffer[p];
+            if(b==NEWLINE || b==CARRIAGE_RETURN){
+                int terminator=terminatorLength(p);
+                if(terminator<0)
+                    return INCOMPLETE;
+                p+=terminator;
+                if(!inQuotes){
+                    position=p;
+                    endColumn(wasQuoted);
+                    return RECORD;
+                }
+                // a line break within quotes is part of the column, and is always read as \n
+                if(capture){
+                    if(b==NEWLINE)
+                        append(p-1,p);
+                    else
+                        appendNewline();
+                }
+                if(exceedsMaxLines(quoteScopeStartingLine)){
+                    position=p;
+                    return fail(capture,maxLinesMessage(quoteScopeStartingLine));
+                }
+                if(p==limit){
+                    if(!endOfInput)
+                        return INCOMPLETE;
+                    position=p;
+                    return fail(capture,endOfFileMessage(quoteScopeStartingLine));
+                }
+                lineNumber++;
+                continue;
+            }
+            if(!inQuotes){
+                if(b==delimiterChar){
+                    if(capture){
+                        endColumn(wasQuoted);
+                        startColumn();
+                    }
+                    wasQuoted=false;
+                    p++;
+                }else if(b==quoteChar){
+                    inQuotes=true;
+                    wasQuoted=true;
+                    quoteScopeStartingLine=lineNumber;
+                    p++;
+                }else{
+                    int start=p++;
+                    while(p<limit){
+                        byte c=buffer[p];
+                        if(c==delimiterChar || c==quoteChar || c==NEWLINE || c==CARRIAGE_RETURN) break;
+                        p++;
+                    }
+                    if(capture) append(start,p);
+                }
+            }else{
+                if(b==quoteChar){
+                    if(p+1==limit && !endOfInput)
+                        return INCOMPLETE;
+                    if(p+1<limit && buffer[p+1]==quoteChar){
+                        // an escaped quote
+                        if(capture) append(p,p+1);
+                        p+=2;
+                    }else{
+                        inQuotes=false;
+                        quoteScopeStartingLine=-1;
+                        p++;
+                    }
+                }else{
+                    int start=p++;
+                    while(p<limit){
+                        byte c=buffer[p];
+                        if(c==quoteChar || c==NEWLINE || c==CARRIAGE_RETURN) break;
+                        p++;
+                    }
+                    if(capture) append(start,p);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the length of the line terminator at {@code p} (0 if there is none), or -1 if that can't be
+     * determined without reading past the limit.
+     */
+    private int terminatorLength(int p){
+        byte b=buffer[p];
+        if(b==NEWLINE) return 1;
+        if(b!=CARRIAGE_RETURN) return 0;
+        if(p+1<limit) return buffer[p+1]==NEWLINE?2:1;
+        return endOfInput?1:-1;
+    }
+
+    private boolean exceedsMaxLines(int quoteScopeStartingLine){
+        return maxLinesPerRow>0 && lineNumber-quoteScopeStartingLine+1>=maxLinesPerRow;
+    }
+
+    private String maxLinesMessage(int quoteScopeStartingLine){
+        return maxLinesPerRow==1?
+                String.format("unexpected end of line while reading quoted column on line %d",lineNumber):
+                String.format("max number of lines to read exceeded while reading quoted column"+
+                        " beginning on line %d and ending on line %d",quoteScopeStartingLine,lineNumber);
+    }
+
+    private String endOfFileMessage(int quoteScopeStartingLine){
+        return String.format("unexpected end of file while reading quoted column beginning on line %d and ending on line %d",
+                quoteScopeStartingLine,lineNumber);
+    }
+
+    private int fail(boolean capture,String message){
+        if(capture)
+            throw new SuperCsvException(message);
+        return RECORD; // when skipping, the erroneous lines are a record of their own
+    }
+
+    private void startColumn(){
+        columnOffset=-1;
+        columnLength=0;
+        columnCopied=false;
+    }
+
+    private void endColumn(boolean wasQuoted){
+        if(columnCount==offsets.length){
+            int newSize=columnCount*2;
+            offsets=Arrays.copyOf(offsets,newSize);
+            lengths=Arrays.copyOf(lengths,newSize);
+            copied=Arrays.copyOf(copied,newSize);
+            quoted=Arrays.copyOf(quoted,newSize);
+        }
+        offsets[columnCount]=columnLength>0?columnOffset:0;
+        lengths[columnCount]=columnLength;
+        copied[columnCount]=columnCopied;
+        quoted[columnCount]=wasQuoted;
+        columnCount++;
+    }
+
+    private void append(int start,int end){
+        if(columnCopied){
+            copy(buffer,start,end-start);
+        }else if(columnOffset<0){
+            columnOffset=start;
+            columnLength=end-start;
+        }else if(columnOffset+columnLength==start){
+            columnLength+=end-start;
+        }else{
+            switchToScratch();
+            copy(buffer,start,end-start);
+        }
+    }
+
+    private void appendNewline(){
+        if(!columnCopied)
+            switchToScratch();
+        ensureScratch(1);
+        scratch[scratchLength++]=NEWLINE;
+        columnLength++;
+    }
+
+    private void switchToScratch(){
+        int length=columnLength;
+        int offset=columnOffset;
+        columnOffset=scratchLength;
+        columnLength=0;
+        columnCopied=true;
+        if(length>0)
+            copy(buffer,offset,length);
+    }
+
+    private void copy(byte[] source,int offset,int length){
+        ensureScratch(length);
+        System.arraycopy(source,offset,scratch,scratchLength,length);
+        scratchLength+=length;
+        columnLength+=length;
+    }
+
+    private void ensureScratch(int length){
+        if(scratchLength+length>scratch.length)
+            scratch=Arrays.copyOf(scratch,Math.max(scratch.length*2,scratchLength+length));
+    }
+}
@@ -21,17 +21,28 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.sql.execute.ExecutionFactory;
 import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.sql.execute.operations.TableScanOperation;
+import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.IterableJoinFunction;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iterator.GetNLJoinIterator;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.utils.Pair;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
 /**
@@ -62,6 +73,20 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
     protected ExecutorCompletionService<Pair<OperationContext, Iterator<LocatedRow>>> completionService;
     protected ExecutorService executorService;
 
+    /*
+     * Batched probes: the left rows of the current batch, and the probe range of each of them.
+     * Left rows with the same probe share the same range, and its right rows.
+     */
+    protected boolean batchedProbes;
+    protected List<LocatedRow> batchLeftRows;
+    protected List<ProbeRange> batchRanges;
+    protected int batchPosition;
+    protected int maxBufferedRows;
+    protected OperationContext probeContext;
+    protected boolean streamingProbe;
+
+    private static volatile ExecutorService probeExecutor;
+
     public NLJoinFunction () {}
 
     public NLJoinFunction(OperationContext<Op> operationContext) {
@@ -75,13 +100,214 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
         batchSize = configuration.getNestedLoopJoinBatchSize();
         nLeftRows = 0;
         leftSideIterator = from;
-        executorService = Executors.newFixedThreadPool(batchSize);
+        batchedProbes = configuration.getNestedLoopJoinBatchedProbes() && isProbeBatchable();
+        if (batchedProbes) {
+            maxBufferedRows = configuration.getNestedLoopJoinMaxBufferedRows();
+            batchLeftRows = new ArrayList<>(batchSize);
+            batchRanges = new ArrayList<>(batchSize);
+            try {
+                probeContext = operationContext.getClone();
+            }
+            catch (Exception e) {
+                throw Exceptions.parseException(e);
+            }
+            loadProbeBatch();
+            return;
+        }
+        executorService = getProbeExecutor(configuration);
         completionService = new ExecutorCompletionService<>(executorService);
 
         initOperationContexts();
         loadBatch();
     }
 
+    /**
+     * The tasks of all nested loop joins of this JVM share one bounded pool, so that a partition does not need
+     * to start (and stop) its own threads. When all of its threads are busy, a task runs in the thread which
+     * submitted it, so a join whose right side is itself a nested loop join can't wait on tasks which have no
+     * thread to run them.
+     */
+    private static ExecutorService getProbeExecutor(SConfiguration configuration) {
+        ExecutorService executor = probeExecutor;
+        if (executor == null) {
+            synchronized (NLJoinFunction.class) {
+                executor = probeExecutor;
+                if (executor == null) {
+                    ThreadFactory factory = new ThreadFactoryBuilder()
+                            .setNameFormat("nested-loop-join-%d")
+                            .setDaemon(true)
+                            .build();
+                    probeExecutor = executor = new ThreadPoolExecutor(0, configuration.getNestedLoopJoinMaxThreads(),
+                            60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), factory,
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Probes can be batched when the right side is a plain table or index scan whose rows only depend on
+     * its start and stop keys, so that the left rows which share a probe range can share its rows.
+     */
+    private boolean isProbeBatchable() throws StandardException {
+        SpliceOperation rightOperation = operationContext.getOperation().getRightOperation();
+        return rightOperation.getClass() == TableScanOperation.class &&
+                ((TableScanOperation) rightOperation).isDeterminedByScanKeys();
+    }
+
+    /**
+     * Read the next batch of left rows, and evaluate their probe ranges.
+     */
+    private void loadProbeBatch() throws StandardException {
+        try {
+            batchLeftRows.clear();
+            batchRanges.clear();
+            batchPosition = 0;
+            SpliceOperation operation = operationContext.getOperation();
+            TableScanOperation rightOperation = (TableScanOperation) operation.getRightOperation();
+            boolean firstRowOnly = joinType == JoinType.ONE_ROW_INNER || joinType == JoinType.ANTI;
+            Map<ProbeRange, ProbeRange> ranges = new HashMap<>();
+            while (batchLeftRows.size() < batchSize && leftSideIterator.hasNext()) {
+                LocatedRow locatedRow = leftSideIterator.next();
+                operation.getLeftOperation().setCurrentLocatedRow(locatedRow);
+                ProbeRange range = new ProbeRange(rightOperation.getNonSIScan(), maxBufferedRows, firstRowOnly);
+                ProbeRange existing = ranges.get(range);
+                if (existing == null)
+                    ranges.put(range, range);
+                else
+                    range = existing;
+                batchLeftRows.add(locatedRow);
+                batchRanges.add(range);
+            }
+            if (!ranges.isEmpty())
+                scanRanges(new ArrayList<>(ranges.keySet()));
+        }
+        catch (Exception e) {
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    /**
+     * Read the rows of the distinct probe ranges of a batch. A table scan reads all of them with one scan over the
+     * sorted ranges, and adds each row to the ranges which contain its key. The rows of an index scan are located
+     * by their base table keys rather than by the keys which were scanned, so it reads each range on its own.
+     */
+    private void scanRanges(List<ProbeRange> ranges) throws Exception {
+        Collections.sort(ranges);
+        TableScanOperation rightOperation = (TableScanOperation) operationContext.getOperation().getRightOperation();
+        ProbeRange first = ranges.get(0);
+        if (ranges.size() == 1 || rightOperation.getIndexName() != null || first.getScan().isDescendingScan()) {
+            for (ProbeRange range : ranges) {
+                Iterator<LocatedRow> rows = scan(range.getScan());
+                try {
+                    while (rows.hasNext() && range.add(cloneRow(rows.next())));
+                }
+                finally {
+                    probeContext.getOperation().close();
+                }
+            }
+            return;
+        }
+
+        List<Pair<byte[], byte[]>> keys = new ArrayList<>(ranges.size());
+        byte[] stopKey = first.getStopKey();
+        for (ProbeRange range : ranges) {
+            keys.add(Pair.newPair(range.getStartKey(), range.getStopKey()));
+            if (stopKey.length > 0 && Bytes.compareBytes(true, range.getStopKey(), stopKey) > 0)
+                stopKey = range.getStopKey();
+        }
+        DataScan scan = rightOperation.getNonSIScan()
+                .startKey(first.getStartKey())
+                .stopKey(stopKey)
+                .filter(SIDriver.driver().filterFactory().multiRowRangeFilter(keys));
+        int incomplete = ranges.size();
+        Iterator<LocatedRow> rows = scan(scan);
+        try {
+            while (incomplete > 0 && rows.hasNext()) {
+                LocatedRow row = cloneRow(rows.next());
+                incomplete -= ProbeRange.addToRanges(ranges, row.getRowLocation().getBytes(), row);
+            }
+        }
+        finally {
+            probeContext.getOperation().close();
+        }
+    }
+
+    /**
+     * Open a scan of the right side with the probe context.
+     */
+    private Iterator<LocatedRow> scan(DataScan scan) throws StandardException {
+        SpliceOperation operation = probeContext.getOperation();
+        TableScanOperation rightOperation = (TableScanOperation) operation.getRightOperation();
+        Activation activation = rightOperation.getActivation();
+        if (!activation.isMaterialized())
+            activation.materialize();
+        DataSetProcessor dsp = EngineDriver.driver().processorFactory().localProcessor(operation.getActivation(), operation);
+        return rightOperation.getTableScannerBuilder(dsp, scan).toLocalIterator();
+    }
+
+    private static LocatedRow cloneRow(LocatedRow row) {
+        return new LocatedRow(row.getRowLocation(), row.getRow().getClone());
+    }
+
+    /**
+     * Move to the next left row of the batch, loading the next batch if needed.
+     *
+     * @return false if all left rows have been consumed
+     */
+    private boolean nextProbedLeftRow() throws StandardException {
+        if (streamingProbe) {
+            streamingProbe = false;
+            probeContext.getOperation().close();
+        }
+        if (batchPosition >= batchLeftRows.size()) {
+            if (batchLeftRows.isEmpty() || !leftSideIterator.hasNext())
+                return false;
+            loadProbeBatch();
+            if (batchLeftRows.isEmpty())
+                return false;
+        }
+        LocatedRow locatedRow = batchLeftRows.get(batchPosition);
+        ProbeRange range = batchRanges.get(batchPosition);
+        batchPosition++;
+        leftRow = locatedRow.getRow();
+        leftRowLocation = locatedRow.getRowLocation();
+        operationContext.getOperation().getLeftOperation().setCurrentLocatedRow(locatedRow);
+        if (range.isOverflowed()) {
+            // too many rows to keep, so read them again while they are joined
+            Iterator<LocatedRow> rows = scan(range.getScan());
+            streamingProbe = true;
+            rightSideNLJIterator = rows.hasNext() ? rows : getProbedRightRows(Collections.<LocatedRow>emptyList()).iterator();
+        }
+        else
+            rightSideNLJIterator = getProbedRightRows(range.getRows()).iterator();
+        return true;
+    }
+
+    /**
+     * Apply the join type to the rows matching the current left row, the same way the
+     * {@link GetNLJoinIterator} implementations do.
+     */
+    private List<LocatedRow> getProbedRightRows(List<LocatedRow> rightRows) throws StandardException {
+        switch (joinType) {
+            case INNER:
+                return rightRows;
+            case ONE_ROW_INNER:
+                return rightRows.isEmpty() ? rightRows : rightRows.subList(0, 1);
+            case LEFT_OUTER:
+                if (!rightRows.isEmpty())
+                    return rightRows;
+                return Collections.singletonList(new LocatedRow(leftRowLocation, ((JoinOperation) operationContext.getOperation()).getEmptyRow()));
+            case ANTI:
+                if (!rightRows.isEmpty())
+                    return Collections.emptyList();
+                return Collections.singletonList(new LocatedRow(leftRowLocation, ((JoinOperation) operationContext.getOperation()).getEmptyRow()));
+            default:
+                throw new RuntimeException("Unrecognized nested loop join type");
+        }
+    }
+
     private void initOperationContexts() throws StandardException {
         try {
             operationContextList = new ArrayList<>(batchSize);
@@ -126,6 +352,13 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
     public boolean hasNext() {
 
         try {
+            if (batchedProbes) {
+                while (rightSideNLJIterator == null || !rightSideNLJIterator.hasNext()) {
+                    if (!nextProbedLeftRow())
+                        return false;
+                }
+                return true;
+            }
             if (rightSideNLJIterator == null)
                 return false;
             while (nLeftRows > 0 && !rightSideNLJIterator.hasNext()) {
@@ -155,10 +388,6 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
                     operationContext.getOperation().getLeftOperation().setCurrentLocatedRow(getLeftLocatedRow());
                 }
             }
-            if (!rightSideNLJIterator.hasNext()) {
-                executorService.shutdownNow();
-            }
-
             return rightSideNLJIterator.hasNext();
         }
         catch (Exception e) {
@@ -213,6 +442,13 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
 
     @Override
     public ExecRow getRightRow() {
+        if (batchedProbes) {
+            LocatedRow locatedRow = rightSideNLJIterator.next();
+            SpliceOperation to = operationContext.getOperation().getRightOperation();
+            to.setCurrentRow(locatedRow.getRow());
+            to.setCurrentRowLocation(locatedRow.getRowLocation());
+            return locatedRow.getRow();
+        }
         ExecRow row = rightSideNLJIterator.next().getRow();
         SpliceOperation from = currentOperationContext.getOperation().getRightOperation();
         SpliceOperation to = operationContext.getOperation().getRightOperation();
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.DataScan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The right side rows of one probe range of a batched nested loop join, which are shared by all the left rows
+ * of the batch with the same range.
+ *
+ * At most {@code maxBufferedRows} rows are kept. When a range has more, its rows are dropped and it is marked
+ * as overflowed, so that it is read again for each left row instead.
+ */
+class ProbeRange implements Comparable<ProbeRange>{
+    private final DataScan scan;
+    private final byte[] startKey;
+    private final byte[] stopKey;
+    private final int maxBufferedRows;
+    private final boolean firstRowOnly;
+
+    private List<LocatedRow> rows=new ArrayList<>();
+    private boolean complete;
+    private boolean overflowed;
+
+    /**
+     * @param scan the scan of the range
+     * @param maxBufferedRows the maximum number of rows to keep
+     * @param firstRowOnly whether only the first row of the range is needed
+     */
+    ProbeRange(DataScan scan,int maxBufferedRows,boolean firstRowOnly){
+        this.scan=scan;
+        this.startKey=scan.getStartKey()==null?Bytes.EMPTY_BYTE_ARRAY:scan.getStartKey();
+        this.stopKey=scan.getStopKey()==null?Bytes.EMPTY_BYTE_ARRAY:scan.getStopKey();
+        this.maxBufferedRows=Math.max(1,maxBufferedRows);
+        this.firstRowOnly=firstRowOnly;
+    }
+
+    DataScan getScan(){
+        return scan;
+    }
+
+    byte[] getStartKey(){
+        return startKey;
+    }
+
+    byte[] getStopKey(){
+        return stopKey;
+    }
+
+    /**
+     * @return true if {@code key} is in the range
+     */
+    boolean contains(byte[] key){
+        return (Bytes.empty(startKey) || Bytes.BASE_COMPARATOR.compare(startKey,key)<=0)
+                && (Bytes.empty(stopKey) || Bytes.BASE_COMPARATOR.compare(key,stopKey)<0);
+    }
+
+    /**
+     * Add the next row of the range.
+     *
+     * @return false if the range doesn't need any more rows
+     */
+    boolean add(LocatedRow row){
+        if(complete)
+            return false;
+        if(rows.size()>=maxBufferedRows){
+            overflowed=true;
+            complete=true;
+            rows=Collections.emptyList();
+            return false;
+        }
+        rows.add(row);
+        if(firstRowOnly)
+            complete=true;
+        return !complete;
+    }
+
+    boolean isComplete(){
+        return complete;
+    }
+
+    /**
+     * @return true if the range has too many rows to keep, and must be read again by each of its left rows
+     */
+    boolean isOverflowed(){
+        return overflowed;
+    }
+
+    List<LocatedRow> getRows(){
+        return rows;
+    }
+
+    /**
+     * Add a row read by a scan over several ranges to each of the ranges which contain its key.
+     *
+     * @param ranges the ranges which were scanned, in order
+     * @param key the key of the row
+     * @param row the row, which is shared by all of the ranges
+     * @return the number of ranges which became complete
+     */
+    static int addToRanges(List<ProbeRange> ranges,byte[] key,LocatedRow row){
+        //find the last range which starts at or before the key, all the ranges after it start after it
+        int low=0, high=ranges.size()-1;
+        while(low<=high){
+            int mid=(low+high)>>>1;
+            ProbeRange range=ranges.get(mid);
+            if(Bytes.empty(range.startKey) || Bytes.BASE_COMPARATOR.compare(range.startKey,key)<=0)
+                low=mid+1;
+            else
+                high=mid-1;
+        }
+        int completed=0;
+        for(int i=high;i>=0;i--){
+            ProbeRange range=ranges.get(i);
+            if(!range.complete && range.contains(key) && !range.add(row))
+                completed++;
+        }
+        return completed;
+    }
+
+    /**
+     * Ranges are ordered by their start keys, then by their stop keys. An empty start key sorts first, and an
+     * empty stop key last.
+     */
+    @Override
+    public int compareTo(ProbeRange o){
+        int c=Bytes.compareBytes(false,startKey,o.startKey);
+        if(c!=0) return c;
+        return Bytes.compareBytes(true,stopKey,o.stopKey);
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this==o) return true;
+        if(!(o instanceof ProbeRange)) return false;
+        ProbeRange other=(ProbeRange)o;
+        return Arrays.equals(startKey,other.startKey) && Arrays.equals(stopKey,other.stopKey);
+    }
+
+    @Override
+    public int hashCode(){
+        return 31*Arrays.hashCode(startKey)+Arrays.hashCode(stopKey);
+    }
+}
@@ -30,7 +30,15 @@ import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
+/**
+ * Collects the statistics of one partition of a table.
+ *
+ * When the sample fraction is less than 1, only a random sample of the rows is fed to the column sketches, which
+ * are by far the most expensive part of the collection. The row count is always exact, so the sampled column
+ * statistics can be scaled to it when they are read (see {@link com.splicemachine.db.iapi.stats.SampledStatistics}).
+ */
 public class StatisticsFlatMapFunction
     extends SpliceFlatMapFunction<ScalarAggregateOperation, Iterator<LocatedRow>, LocatedRow> {
     private static final long serialVersionUID = 844136943916989111L;
@@ -39,15 +47,21 @@ public class StatisticsFlatMapFunction
     protected long conglomId;
     protected int[] columnPositionMap;
     protected ExecRow template;
+    protected double sampleFraction = 1.0d;
 
     public StatisticsFlatMapFunction() {
     }
 
     public StatisticsFlatMapFunction(long conglomId, int[] columnPositionMap, ExecRow template) {
+        this(conglomId,columnPositionMap,template,1.0d);
+    }
+
+    public StatisticsFlatMapFunction(long conglomId, int[] columnPositionMap, ExecRow template, double sampleFraction) {
         assert columnPositionMap != null:"columnPositionMap is null";
         this.conglomId = conglomId;
         this.columnPositionMap = columnPositionMap;
         this.template = template;
+        this.sampleFraction = sampleFraction;
     }
 
     @Override
@@ -55,6 +69,7 @@ public class StatisticsFlatMapFunction
         out.writeLong(conglomId);
         ArrayUtil.writeIntArray(out,columnPositionMap);
         out.writeObject(template);
+        out.writeDouble(sampleFraction);
     }
 
     @Override
@@ -63,6 +78,7 @@ public class StatisticsFlatMapFunction
         conglomId = in.readLong();
         columnPositionMap = ArrayUtil.readIntArray(in);
         template = (ExecRow) in.readObject();
+        sampleFraction = in.readDouble();
     }
 
     @SuppressWarnings("unchecked")
@@ -70,19 +86,25 @@ public class StatisticsFlatMapFunction
     public Iterator<LocatedRow> call(Iterator<LocatedRow> locatedRows) throws Exception {
         List<LocatedRow> rows;
         long rowCount = 0l;
+        long sampledRows = 0l;
         long rowWidth = 0l;
+        boolean sampled = sampleFraction > 0 && sampleFraction < 1;
+        Random random = sampled ? new Random(sampleSeed()) : null;
         while (locatedRows.hasNext()) {
             LocatedRow locatedRow = locatedRows.next();
+            rowCount++;
             if (!initialized) {
                 statisticsRow = new StatisticsRow(locatedRow.getRow());
                 initialized = true;
+            } else if (sampled && random.nextDouble() >= sampleFraction) {
+                continue; // always keep the first row, so the sample is never empty
             }
             rowWidth += locatedRow.getRow().getRowSize();
-            rowCount++;
+            sampledRows++;
             statisticsRow.setExecRow(locatedRow.getRow());
         }
         if (statisticsRow!=null) {
-            int meanRowWidth = (int) ( ((double) rowWidth)/ ((double) rowCount));
+            int meanRowWidth = (int) ( ((double) rowWidth)/ ((double) sampledRows));
             ItemStatistics[] itemStatistics = statisticsRow.getItemStatistics();
             rows = new ArrayList<>(itemStatistics.length+1);
             for(int i=0;i<itemStatistics.length;i++){
@@ -103,4 +125,9 @@ public class StatisticsFlatMapFunction
             return rows.iterator();
         }
     }
+
+    private long sampleSeed() {
+        String regionId = SITableScanner.regionId.get();
+        return 31*conglomId + (regionId == null ? 0 : regionId.hashCode());
+    }
 }
@@ -15,24 +15,40 @@
 
 package com.splicemachine.derby.stream.function;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.load.SpliceCsvReader;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.utils.BooleanList;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+import org.supercsv.exception.SuperCsvException;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  *
  *
  */
     public class StreamFileFunction extends AbstractFileFunction<InputStream> {
+    private static final int BLOCK_SIZE = 1<<20;
+    private static volatile ExecutorService parserExecutor;
+
     private String charset;
 
     public StreamFileFunction() {
@@ -63,6 +79,9 @@ import java.util.NoSuchElementException;
         if (operationContext.isFailed())
             return Collections.<LocatedRow>emptyList().iterator();
         checkPreference();
+        Charset cs = Charset.forName(charset);
+        if (ByteCsvTokenizer.supports(preference,cs))
+            return new BlockIterator(s,cs,EngineDriver.driver().getConfiguration().getImportParserThreads());
 
         return new Iterator<LocatedRow>() {
                     private LocatedRow nextRow;
@@ -121,4 +140,165 @@ import java.util.NoSuchElementException;
                     }
                 };
             }
+
+    private static ExecutorService getParserExecutor() {
+        ExecutorService executor = parserExecutor;
+        if (executor == null) {
+            synchronized (StreamFileFunction.class) {
+                executor = parserExecutor;
+                if (executor == null) {
+                    ThreadFactory factory = new ThreadFactoryBuilder()
+                            .setNameFormat("import-parser-%d")
+                            .setDaemon(true)
+                            .build();
+                    parserExecutor = executor = Executors.newCachedThreadPool(factory);
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * A record which could not be read, or could not be converted into a row.
+     */
+    private static class BadRecord {
+        private final String message;
+        private final Exception cause;
+        private final boolean read;
+
+        BadRecord(String message, Exception cause, boolean read) {
+            this.message = message;
+            this.cause = cause;
+            this.read = read;
+        }
+    }
+
+    /**
+     * Tokenizes and converts the records of a block. This doesn't touch the operation context, so it can run
+     * on any thread; rows and bad records are reported in file order by the consuming iterator.
+     */
+    private List<Object> parseBlock(ByteCsvBlockReader.Block block, Charset cs) {
+        List<Object> results = new ArrayList<>();
+        ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(preference);
+        GregorianCalendar calendar = new GregorianCalendar();
+        block.reset(tokenizer);
+        while (true) {
+            try {
+                if (!tokenizer.readColumns())
+                    return results;
+            } catch (SuperCsvException e) {
+                results.add(new BadRecord(e.getLocalizedMessage(), e, false));
+                continue;
+            }
+            try {
+                results.add(new LocatedRow(decodeRow(tokenizer, cs, calendar)));
+            } catch (Exception e) {
+                results.add(new BadRecord(e.getLocalizedMessage() + tokenizer.getColumns(cs), e, true));
+            }
+        }
+    }
+
+    /**
+     * Reads the stream in blocks of whole records, which are parsed either inline or, when more than one
+     * parser thread is configured, up to that many at a time on the parser pool.
+     */
+    private class BlockIterator implements Iterator<LocatedRow> {
+        private final ByteCsvBlockReader reader;
+        private final Charset cs;
+        private final int parserThreads;
+        private final ArrayDeque<Future<List<Object>>> pending = new ArrayDeque<>();
+        private Iterator<Object> current = Collections.emptyIterator();
+        private boolean endOfInput = false;
+        private LocatedRow nextRow;
+
+        BlockIterator(InputStream s, Charset cs, int parserThreads) {
+            this.reader = new ByteCsvBlockReader(s, preference, BLOCK_SIZE);
+            this.cs = cs;
+            this.parserThreads = parserThreads;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow != null)
+                return true;
+            try {
+                while (true) {
+                    while (!current.hasNext()) {
+                        List<Object> block = nextParsedBlock();
+                        if (block == null)
+                            return false;
+                        current = block.iterator();
+                    }
+                    Object result = current.next();
+                    if (result instanceof LocatedRow) {
+                        operationContext.recordRead();
+                        nextRow = (LocatedRow) result;
+                        return true;
+                    }
+                    BadRecord badRecord = (BadRecord) result;
+                    if (badRecord.read)
+                        operationContext.recordRead();
+                    if (operationContext.isPermissive()) {
+                        operationContext.recordBadRecord(badRecord.message, badRecord.cause);
+                    } else
+                        throw StandardException.plainWrapException(badRecord.cause);
+                }
+            } catch (Exception e) {
+                cancelPending();
+                throw new RuntimeException("Terminal, should have been caught", e);
+            }
+        }
+
+        @Override
+        public LocatedRow next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            LocatedRow row = nextRow;
+            nextRow = null;
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            throw new RuntimeException("not supported");
+        }
+
+        private List<Object> nextParsedBlock() throws IOException, InterruptedException, ExecutionException {
+            if (parserThreads <= 1) {
+                ByteCsvBlockReader.Block block = endOfInput ? null : reader.nextBlock();
+                if (block == null) {
+                    finish();
+                    return null;
+                }
+                return parseBlock(block, cs);
+            }
+            while (!endOfInput && pending.size() < parserThreads) {
+                final ByteCsvBlockReader.Block block = reader.nextBlock();
+                if (block == null) {
+                    finish();
+                    break;
+                }
+                pending.add(getParserExecutor().submit(new Callable<List<Object>>() {
+                    @Override
+                    public List<Object> call() throws Exception {
+                        return parseBlock(block, cs);
+                    }
+                }));
+            }
+            Future<List<Object>> next = pending.poll();
+            return next == null ? null : next.get();
+        }
+
+        private void finish() throws IOException {
+            if (!endOfInput) {
+                endOfInput = true;
+                reader.close();
+            }
+        }
+
+        private void cancelPending() {
+            for (Future<List<Object>> future : pending)
+                future.cancel(true);
+            pending.clear();
+        }
     }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Returns the first {@code n} rows of a partition, in sorted order, without sorting the whole partition.
+ *
+ * The rows are kept in a bounded heap whose head is the greatest row seen so far, so each incoming row
+ * either replaces the head or is discarded. Applying this to each partition, coalescing the (small) results
+ * into a single partition and applying it again gives the first {@code n} rows of the whole data set.
+ */
+public class TopNFlatMapFunction<Op extends SpliceOperation> extends SpliceFlatMapFunction<Op,Iterator<LocatedRow>,LocatedRow>{
+    private int[] keyColumns;
+    private RowComparator comparator;
+    private int n;
+
+    public TopNFlatMapFunction(){
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public TopNFlatMapFunction(OperationContext<Op> operationContext,int[] keyColumns,RowComparator comparator,int n){
+        super(operationContext);
+        this.keyColumns=keyColumns;
+        this.comparator=comparator;
+        this.n=n;
+    }
+
+    /**
+     * Get the first {@code n} rows of a data set: each partition keeps its own first rows, the survivors are
+     * shuffled into a single partition and this is applied to them again.
+     *
+     * The shuffle matters on Spark. Coalescing without one puts no stage boundary between the source and the
+     * final partition, so the source scan and the partial top-N would all run in that partition's single task.
+     * With it, they still run once per source partition, and only their (at most {@code n}) rows are moved.
+     */
+    public DataSet<LocatedRow> firstRows(DataSet<LocatedRow> dataSet){
+        return dataSet.mapPartitions(this)
+                .coalesce(1,true)
+                .mapPartitions(this);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        super.writeExternal(out);
+        out.writeInt(keyColumns.length);
+        for(int keyColumn : keyColumns){
+            out.writeInt(keyColumn);
+        }
+        out.writeObject(comparator);
+        out.writeInt(n);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        super.readExternal(in);
+        keyColumns=new int[in.readInt()];
+        for(int i=0;i<keyColumns.length;i++){
+            keyColumns[i]=in.readInt();
+        }
+        comparator=(RowComparator)in.readObject();
+        n=in.readInt();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<LocatedRow> call(Iterator<LocatedRow> locatedRows) throws Exception{
+        if(n<=0) return Collections.emptyIterator();
+
+        final Comparator<Tuple2<ExecRow,LocatedRow>> byKey=new Comparator<Tuple2<ExecRow,LocatedRow>>(){
+            @Override
+            public int compare(Tuple2<ExecRow,LocatedRow> o1,Tuple2<ExecRow,LocatedRow> o2){
+                return comparator.compare(o1._1(),o2._1());
+            }
+        };
+        PriorityQueue<Tuple2<ExecRow,LocatedRow>> heap=new PriorityQueue<>(Math.min(n,1024),
+                new Comparator<Tuple2<ExecRow,LocatedRow>>(){
+                    @Override
+                    public int compare(Tuple2<ExecRow,LocatedRow> o1,Tuple2<ExecRow,LocatedRow> o2){
+                        return byKey.compare(o2,o1);
+                    }
+                });
+        while(locatedRows.hasNext()){
+            LocatedRow locatedRow=locatedRows.next();
+            ExecRow key=locatedRow.getKeyedExecRow(keyColumns);
+            if(heap.size()>=n){
+                if(comparator.compare(key,heap.peek()._1())>=0) continue;
+                heap.poll();
+            }
+            //the source may re-use its rows, so keep a copy of anything we hold on to
+            ExecRow row=locatedRow.getRow().getClone();
+            heap.add(new Tuple2<>(row.getKeyedExecRow(keyColumns),new LocatedRow(locatedRow.getRowLocation(),row)));
+        }
+
+        Tuple2<ExecRow,LocatedRow>[] sorted=heap.toArray(new Tuple2[heap.size()]);
+        Arrays.sort(sorted,byKey);
+        LocatedRow[] rows=new LocatedRow[sorted.length];
+        for(int i=0;i<sorted.length;i++){
+            rows[i]=sorted[i]._2();
+        }
+        return Arrays.asList(rows).iterator();
+    }
+}
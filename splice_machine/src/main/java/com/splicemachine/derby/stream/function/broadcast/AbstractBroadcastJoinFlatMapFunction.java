@@ -31,7 +31,9 @@ import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.stream.Stream;
 import com.splicemachine.stream.Streams;
+import com.splicemachine.pipeline.Exceptions;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
 
@@ -39,7 +41,7 @@ import java.util.concurrent.Callable;
  * Created by dgomezferro on 11/4/15.
  */
 public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends SpliceFlatMapFunction<JoinOperation, Iterator<In>, Out> {
-    private static final BroadcastJoinCache broadcastJoinCache = new BroadcastJoinCache();
+    private static volatile BroadcastJoinCache broadcastJoinCache;
     private JoinOperation operation;
 
     public AbstractBroadcastJoinFlatMapFunction() {
@@ -53,11 +55,49 @@ public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends Spli
     public final Iterator<Out> call(Iterator<In> locatedRows) throws Exception {
         JoinTable joinTable ;
         operation = getOperation();
-        Callable<Stream<ExecRow>> rhsLoader = new Callable<Stream<ExecRow>>() {
+        Callable<Stream<ExecRow>> rhsLoader = rightSideLoader(operationContext, operation);
+        ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
+        joinTable = getBroadcastJoinCache().get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
+
+        return call(locatedRows, joinTable).iterator();
+    }
+
+    protected abstract Iterable<Out> call(Iterator<In> locatedRows, JoinTable joinTable);
+
+    /**
+     * Loads the right side of {@code operation} into the broadcast join cache, ahead of the join itself.
+     *
+     * @return {@code false} if the right side is too large to be broadcast, in which case the join should
+     * use a different strategy.
+     */
+    public static boolean loadRightSide(OperationContext operationContext,JoinOperation operation) throws StandardException{
+        try{
+            ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
+            return getBroadcastJoinCache().tryLoad(operation.getSequenceId(),rightSideLoader(operationContext,operation),
+                    operation.getRightHashKeys(),operation.getLeftHashKeys(),leftTemplate);
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    private static BroadcastJoinCache getBroadcastJoinCache(){
+        BroadcastJoinCache cache = broadcastJoinCache;
+        if(cache==null){
+            synchronized(AbstractBroadcastJoinFlatMapFunction.class){
+                cache = broadcastJoinCache;
+                if(cache==null)
+                    broadcastJoinCache = cache = new BroadcastJoinCache();
+            }
+        }
+        return cache;
+    }
+
+    private static Callable<Stream<ExecRow>> rightSideLoader(final OperationContext operationContext,final JoinOperation operation){
+        return new Callable<Stream<ExecRow>>() {
             @Override
             public Stream<ExecRow> call() throws Exception {
                 DataSetProcessorFactory dataSetProcessorFactory=EngineDriver.driver().processorFactory();
-                final DataSetProcessor dsp =dataSetProcessorFactory.bulkProcessor(getActivation(),operation.getRightOperation());
+                final DataSetProcessor dsp =dataSetProcessorFactory.bulkProcessor(operationContext.getActivation(),operation.getRightOperation());
                 return Streams.wrap(FluentIterable.from(new Iterable<LocatedRow>(){
                     @Override
                     public Iterator<LocatedRow> iterator(){
@@ -78,11 +118,5 @@ public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends Spli
                 }));
             }
         };
-        ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
-        joinTable = broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
-
-        return call(locatedRows, joinTable).iterator();
     }
-
-    protected abstract Iterable<Out> call(Iterator<In> locatedRows, JoinTable joinTable);
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.utils;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataType;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLLongvarchar;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.storage.predicate.BetweenPredicate;
+import com.splicemachine.storage.predicate.CompareOp;
+import com.splicemachine.storage.predicate.FieldType;
+import com.splicemachine.storage.predicate.InListPredicate;
+import com.splicemachine.storage.predicate.NullPredicate;
+import com.splicemachine.storage.predicate.Predicate;
+import com.splicemachine.storage.predicate.Predicates;
+import com.splicemachine.storage.predicate.ValuePredicate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates scan {@link Qualifier}s into storage {@link Predicate}s, which can be evaluated
+ * directly against the encoded row before it is decoded.
+ *
+ * The translation is deliberately conservative: a storage predicate may accept rows that the qualifiers
+ * would reject (those are still removed when the qualifiers are applied to the decoded row), but it must
+ * never reject a row that the qualifiers would accept. Any qualifier that cannot be expressed exactly
+ * in terms of the encoded bytes is simply left out.
+ */
+public class QualifierPredicates{
+
+    private QualifierPredicates(){}
+
+    /**
+     * @param qualifiers the qualifiers of the scan, in conjunctive normal form
+     * @param columnTypes the format ids of the columns in the stored row
+     * @param keyColumns the storage positions of columns stored in the row key, which cannot be
+     *                   evaluated against the row value
+     * @return a predicate over the encoded row value, or {@code null} if none of the qualifiers can be
+     * pushed down to storage.
+     * @throws StandardException if something goes wrong reading the qualifier values
+     */
+    public static Predicate toPredicate(Qualifier[][] qualifiers,int[] columnTypes,BitSet keyColumns) throws StandardException{
+        if(qualifiers==null || columnTypes==null || qualifiers.length<=0) return null;
+
+        List<Predicate> ands = new ArrayList<>(qualifiers.length);
+        List<ValuePredicate> bounds = new ArrayList<>(qualifiers[0].length);
+        for(Qualifier qualifier:qualifiers[0]){
+            Predicate predicate = toPredicate(qualifier,columnTypes,keyColumns);
+            if(predicate==null) continue;
+            if(isBound(predicate))
+                bounds.add((ValuePredicate)predicate);
+            else
+                ands.add(predicate);
+        }
+        mergeBounds(bounds,ands);
+
+        for(int i=1;i<qualifiers.length;i++){
+            Predicate or = toOrPredicate(qualifiers[i],columnTypes,keyColumns);
+            if(or!=null)
+                ands.add(or);
+        }
+        return Predicates.and(ands);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Combines a lower and an upper bound on the same column into a single BETWEEN predicate, so
+     * that the column is only compared once for each bound.
+     */
+    private static void mergeBounds(List<ValuePredicate> bounds,List<Predicate> ands){
+        boolean[] merged = new boolean[bounds.size()];
+        for(int i=0;i<bounds.size();i++){
+            if(merged[i]) continue;
+            ValuePredicate first = bounds.get(i);
+            for(int j=i+1;j<bounds.size() && !first.nullMatches();j++){
+                ValuePredicate second = bounds.get(j);
+                if(merged[j] || second.nullMatches() || second.getColumn()!=first.getColumn()) continue;
+                if(first.getOp().isLowerBound()==second.getOp().isLowerBound()) continue;
+
+                ValuePredicate lower = first.getOp().isLowerBound()? first: second;
+                ValuePredicate upper = first.getOp().isLowerBound()? second: first;
+                ands.add(new BetweenPredicate(first.getColumn(),first.getType(),
+                        lower.getValue(),lower.getOp()==CompareOp.GREATER_OR_EQUALS,
+                        upper.getValue(),upper.getOp()==CompareOp.LESS_OR_EQUALS));
+                merged[i] = true;
+                merged[j] = true;
+                break;
+            }
+            if(!merged[i])
+                ands.add(first);
+        }
+    }
+
+    private static boolean isBound(Predicate predicate){
+        if(!(predicate instanceof ValuePredicate)) return false;
+        CompareOp op = ((ValuePredicate)predicate).getOp();
+        return op.isLowerBound() || op.isUpperBound();
+    }
+
+    private static Predicate toOrPredicate(Qualifier[] ors,int[] columnTypes,BitSet keyColumns) throws StandardException{
+        if(ors==null || ors.length<=0) return null;
+        List<Predicate> predicates = new ArrayList<>(ors.length);
+        boolean isInList = true;
+        for(Qualifier qualifier:ors){
+            Predicate predicate = toPredicate(qualifier,columnTypes,keyColumns);
+            /*
+             * If we can't push down any one of the ORs, then we can't push down any of them, because
+             * the one we left out may be the one that matches
+             */
+            if(predicate==null) return null;
+            predicates.add(predicate);
+            isInList = isInList
+                    && predicate instanceof ValuePredicate
+                    && ((ValuePredicate)predicate).getOp()==CompareOp.EQUALS
+                    && !((ValuePredicate)predicate).nullMatches()
+                    && ((ValuePredicate)predicate).getColumn()==((ValuePredicate)predicates.get(0)).getColumn();
+        }
+
+        if(isInList && predicates.size()>1){
+            byte[][] values = new byte[predicates.size()][];
+            for(int i=0;i<values.length;i++){
+                values[i] = ((ValuePredicate)predicates.get(i)).getValue();
+            }
+            ValuePredicate first = (ValuePredicate)predicates.get(0);
+            return new InListPredicate(first.getColumn(),first.getType(),values);
+        }
+        return Predicates.or(predicates);
+    }
+
+    private static Predicate toPredicate(Qualifier qualifier,int[] columnTypes,BitSet keyColumns) throws StandardException{
+        int column = qualifier.getStoragePosition();
+        if(column<0 || column>=columnTypes.length || keyColumns.get(column)) return null;
+        if(isNullCheck(qualifier)){
+            FieldType type = fieldType(columnTypes[column]);
+            if(type==null) return null;
+            //IS NOT NULL is generated as a negated IS NULL
+            return new NullPredicate(column,type,!qualifier.negateCompareResult());
+        }
+        /*
+         * Ordered nulls make null comparable to other values, and variant qualifiers can change from
+         * row to row; neither can be expressed as a fixed comparison against the encoded bytes.
+         */
+        if(qualifier.getOrderedNulls() || qualifier.getVariantType()==Qualifier.VARIANT) return null;
+
+        CompareOp op = toCompareOp(qualifier.getOperator());
+        if(op==null) return null;
+
+        DataValueDescriptor orderable = qualifier.getOrderable();
+        if(orderable==null || orderable.isNull()) return null;
+
+        FieldType type = fieldType(columnTypes[column]);
+        if(type==null) return null;
+        byte[] value = encode(type,op,orderable);
+        if(value==null) return null;
+
+        /*
+         * A null column value compares as unknown, which is mapped to getUnknownRV() before
+         * the result is (possibly) negated.
+         */
+        boolean nullMatches = qualifier.getUnknownRV();
+        if(qualifier.negateCompareResult()){
+            op = op.negate();
+            nullMatches = !nullMatches;
+        }
+        return new ValuePredicate(column,type,op,value,nullMatches);
+    }
+
+    /*
+     * IS NULL and IS NOT NULL are generated as an ordered nulls comparison for equality with a null value, so
+     * that null equals null.
+     */
+    private static boolean isNullCheck(Qualifier qualifier) throws StandardException{
+        if(!qualifier.getOrderedNulls() || qualifier.getOperator()!=DataType.ORDER_OP_EQUALS) return false;
+        if(qualifier.getVariantType()==Qualifier.VARIANT) return false;
+        DataValueDescriptor orderable = qualifier.getOrderable();
+        return orderable!=null && orderable.isNull();
+    }
+
+    private static CompareOp toCompareOp(int operator){
+        switch(operator){
+            case DataType.ORDER_OP_EQUALS: return CompareOp.EQUALS;
+            case DataType.ORDER_OP_LESSTHAN: return CompareOp.LESS_THAN;
+            case DataType.ORDER_OP_LESSOREQUALS: return CompareOp.LESS_OR_EQUALS;
+            case DataType.ORDER_OP_GREATERTHAN: return CompareOp.GREATER_THAN;
+            case DataType.ORDER_OP_GREATEROREQUALS: return CompareOp.GREATER_OR_EQUALS;
+            default:
+                return null;
+        }
+    }
+
+    private static FieldType fieldType(int typeFormatId){
+        switch(typeFormatId){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return FieldType.SCALAR;
+            case StoredFormatIds.SQL_REAL_ID:
+                return FieldType.FLOAT;
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return FieldType.DOUBLE;
+            case StoredFormatIds.SQL_DECIMAL_ID:
+                return FieldType.DECIMAL;
+            case StoredFormatIds.SQL_CHAR_ID:
+            case StoredFormatIds.SQL_VARCHAR_ID:
+            case StoredFormatIds.SQL_LONGVARCHAR_ID:
+                return FieldType.STRING;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isScalar(int typeFormatId){
+        return fieldType(typeFormatId)==FieldType.SCALAR;
+    }
+
+    /*
+     * Encode the qualifier value exactly as the column would be stored, or return null if
+     * the value cannot be compared to the stored bytes without a type conversion that might
+     * change the result.
+     */
+    private static byte[] encode(FieldType type,CompareOp op,DataValueDescriptor orderable) throws StandardException{
+        int formatId = orderable.getTypeFormatId();
+        switch(type){
+            case SCALAR:
+                if(!isScalar(formatId)) return null;
+                return Encoding.encode(orderable.getLong());
+            case FLOAT:
+                if(formatId!=StoredFormatIds.SQL_REAL_ID) return null;
+                return Encoding.encode(orderable.getFloat());
+            case DOUBLE:
+                if(formatId!=StoredFormatIds.SQL_DOUBLE_ID) return null;
+                return Encoding.encode(orderable.getDouble());
+            case DECIMAL:
+                if(formatId==StoredFormatIds.SQL_DECIMAL_ID)
+                    return Encoding.encode((BigDecimal)orderable.getObject());
+                else if(isScalar(formatId))
+                    return Encoding.encode(BigDecimal.valueOf(orderable.getLong()));
+                return null;
+            case STRING:
+                Class<?> orderableClass = orderable.getClass();
+                //collated strings don't compare in byte order
+                if(orderableClass!=SQLChar.class && orderableClass!=SQLVarchar.class && orderableClass!=SQLLongvarchar.class)
+                    return null;
+                String value = orderable.getString();
+                if(op!=CompareOp.EQUALS && !isByteOrdered(value)) return null;
+                return Encoding.encode(value);
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * SQL compares strings by UTF-16 code unit, while the encoded bytes sort by code point. The two
+     * orderings agree whenever the first difference involves a character below the surrogate range, so
+     * range comparisons are only safe against values which don't contain any characters at or above it.
+     */
+    private static boolean isByteOrdered(String value){
+        for(int i=0;i<value.length();i++){
+            if(value.charAt(i)>=Character.MIN_SURROGATE) return false;
+        }
+        return true;
+    }
+}
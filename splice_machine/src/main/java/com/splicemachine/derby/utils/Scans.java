@@ -24,6 +24,7 @@ import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.*;
+import com.splicemachine.storage.predicate.Predicate;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.store.access.Qualifier;
@@ -112,7 +113,7 @@ public class Scans extends SpliceUtils {
                     sortOrder, formatIds, startScanKeys, keyTablePositionMap, keyDecodingMap, dataValueFactory, tableVersion, rowIdKey);
 
             if (!rowIdKey) {
-                buildPredicateFilter(qualifiers, scanColumnList, scan, keyDecodingMap);
+                buildPredicateFilter(qualifiers, scanColumnList, scan, keyDecodingMap, formatIds);
             }
 
 
@@ -146,21 +147,50 @@ public class Scans extends SpliceUtils {
                                             int[] columnTypes,
                                             DataScan scan,
                                             String tableVersion) throws StandardException, IOException {
-        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingMap);
+        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingMap, columnTypes);
     }
 
     public static void buildPredicateFilter(Qualifier[][] qualifiers,
                                             FormatableBitSet scanColumnList,
                                             DataScan scan,
                                             int[] keyColumnEncodingOrder) throws StandardException, IOException {
+        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingOrder, null);
+    }
+
+    public static void buildPredicateFilter(Qualifier[][] qualifiers,
+                                            FormatableBitSet scanColumnList,
+                                            DataScan scan,
+                                            int[] keyColumnEncodingOrder,
+                                            int[] columnTypes) throws StandardException, IOException {
         EntryPredicateFilter pqf = getEntryPredicateFilter(qualifiers,
-                scanColumnList, keyColumnEncodingOrder);
+                scanColumnList, keyColumnEncodingOrder, columnTypes);
         scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL, pqf.toBytes());
     }
 
     public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
                                                      FormatableBitSet scanColumnList,
                                                      int[] keyColumnEncodingOrder) throws StandardException {
+        return getEntryPredicateFilter(qualifiers, scanColumnList, keyColumnEncodingOrder, null);
+    }
+
+    /**
+     * Builds the EntryPredicateFilter for a scan.
+     *
+     * If the types of the stored columns are known, then whatever qualifiers can be evaluated directly
+     * against the encoded row are pushed down as well, so that storage can discard non-matching rows
+     * before they are decoded (or sent over the wire).
+     *
+     * @param qualifiers the scan qualifiers, or {@code null} if there are none
+     * @param scanColumnList the columns to return, or {@code null} if all columns are to be returned
+     * @param keyColumnEncodingOrder the key columns, which are not part of the row value
+     * @param columnTypes the format ids of the stored row, or {@code null} if qualifiers are not to be pushed down
+     * @return a predicate filter for the scan
+     * @throws StandardException if something goes wrong reading the qualifiers
+     */
+    public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
+                                                     FormatableBitSet scanColumnList,
+                                                     int[] keyColumnEncodingOrder,
+                                                     int[] columnTypes) throws StandardException {
         BitSet colsToReturn = new BitSet();
         if (qualifiers != null) {
             for (Qualifier[] qualifierList : qualifiers) {
@@ -178,13 +208,17 @@ public class Scans extends SpliceUtils {
         }
 
         //exclude any primary key columns
+        BitSet keyColumns = new BitSet();
         if (keyColumnEncodingOrder != null && keyColumnEncodingOrder.length > 0) {
             for (int col : keyColumnEncodingOrder) {
-                if (col >= 0)
+                if (col >= 0) {
                     colsToReturn.clear(col);
+                    keyColumns.set(col);
+                }
             }
         }
-        return new EntryPredicateFilter(colsToReturn, true);
+        Predicate predicate = QualifierPredicates.toPredicate(qualifiers, columnTypes, keyColumns);
+        return new EntryPredicateFilter(colsToReturn, true, predicate);
     }
 
     private static void attachScanKeys(DataScan scan,
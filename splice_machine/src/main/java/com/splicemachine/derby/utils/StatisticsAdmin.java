@@ -18,9 +18,9 @@ package com.splicemachine.derby.utils;
 import com.splicemachine.db.iapi.stats.ItemStatistics;
 import org.spark_project.guava.base.Function;
 import com.splicemachine.derby.utils.stats.DistributedStatsCollection;
+import com.splicemachine.derby.utils.stats.PartitionWriteTracker;
 import com.splicemachine.derby.utils.stats.StatsResult;
 import org.spark_project.guava.collect.FluentIterable;
-import org.spark_project.guava.collect.Lists;
 import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.PublicAPI;
 import com.splicemachine.db.iapi.error.StandardException;
@@ -45,6 +45,7 @@ import com.splicemachine.db.shared.common.reference.SQLState;
 import com.splicemachine.ddl.DDLMessage.DDLChange;
 import com.splicemachine.derby.ddl.DDLUtils;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.stats.StoreCostControllerImpl;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
 import com.splicemachine.derby.stream.iapi.DataSet;
@@ -57,7 +58,10 @@ import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.storage.PartitionLoad;
 import com.splicemachine.utils.Pair;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -181,7 +185,8 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             authorize(tds);
             TransactionController transactionExecute = lcc.getTransactionExecute();
             transactionExecute.elevate("statistics");
-            dropTableStatistics(tds,dd,tc);
+            if (!staleOnly)
+                dropTableStatistics(tds,dd,tc);
             ddlNotification(tc,tds);
 //            ExecRow templateOutputRow = buildOutputTemplateRow();
             TxnView txn = ((SpliceTransactionManager) transactionExecute).getRawTransaction().getActiveStateTxn();
@@ -190,15 +195,16 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             DataSet<ExecRow> dataSet = null;
 
             HashMap<Long,Pair<String,String>> display = new HashMap<>();
+            Map<String,Long> writeCounts = new HashMap<>();
             List<Future<StatsResult>> futures = new ArrayList(tds.size());
             for (TableDescriptor td : tds) {
                 if (td.getStoredAs() != null)
                     continue; // Cannot run stats currently on external tables.
                 display.put(td.getHeapConglomerateId(),Pair.newPair(schema,td.getName()));
-                futures.add(collectTableStatistics(td, txn, conn));
+                futures.addAll(collectTableStatistics(td, staleOnly, dd, transactionExecute, txn, conn, writeCounts));
             }
             IteratorNoPutResultSet resultsToWrap = wrapResults(conn,
-            displayTableStatistics(futures,dd,transactionExecute,display));
+            displayTableStatistics(futures,dd,transactionExecute,display,writeCounts));
             outputResults[0] = new EmbedResultSet40(conn, resultsToWrap, false, null, true);
         } catch (StandardException se) {
             throw PublicAPI.wrapStandardException(se);
@@ -269,17 +275,17 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             DataDictionary dd = conn.getLanguageConnection().getDataDictionary();
             dd.startWriting(conn.getLanguageConnection());
             TransactionController tc = conn.getLanguageConnection().getTransactionExecute();
-            dropTableStatistics(tds,dd,tc);
+            if (!staleOnly)
+                dropTableStatistics(tds,dd,tc);
             ddlNotification(tc, tds);
             TxnView txn = ((SpliceTransactionManager) tc).getRawTransaction().getActiveStateTxn();
             HashMap<Long,Pair<String,String>> display = new HashMap<>();
             display.put(tableDesc.getHeapConglomerateId(),Pair.newPair(schema,table));
+            Map<String,Long> writeCounts = new HashMap<>();
             IteratorNoPutResultSet resultsToWrap = wrapResults(
                 conn,
-                displayTableStatistics(Lists.newArrayList(
-                    collectTableStatistics(tableDesc, txn, conn)
-                ),
-                dd, tc, display));
+                displayTableStatistics(collectTableStatistics(tableDesc, staleOnly, dd, tc, txn, conn, writeCounts),
+                dd, tc, display, writeCounts));
             outputResults[0] = new EmbedResultSet40(conn, resultsToWrap, false, null, true);
         } catch (StandardException se) {
             throw PublicAPI.wrapStandardException(se);
@@ -338,22 +344,111 @@ public class StatisticsAdmin extends BaseAdminProcedures {
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
-    private static Future<StatsResult> collectTableStatistics(TableDescriptor table,
-                                                             TxnView txn,
-                                                             EmbedConnection conn) throws StandardException, ExecutionException {
 
-       return collectBaseTableStatistics(table, txn, conn);
+    /**
+     * @param writeCounts filled with the write request count of each partition whose statistics are collected, as of
+     *                    the start of the collection, to be stored with its statistics
+     */
+    private static List<Future<StatsResult>> collectTableStatistics(TableDescriptor table,
+                                                                   boolean staleOnly,
+                                                                   DataDictionary dd,
+                                                                   TransactionController tc,
+                                                                   TxnView txn,
+                                                                   EmbedConnection conn,
+                                                                   Map<String,Long> writeCounts) throws StandardException, ExecutionException {
+        if (table.getStoredAs() != null)
+            return Collections.singletonList(collectBaseTableStatistics(table, txn, conn, new byte[0], new byte[0]));
+
+        String conglomerate = Long.toString(table.getHeapConglomerateId());
+        Map<String, PartitionLoad> loads = new HashMap<>();
+        for (PartitionLoad load : EngineDriver.driver().partitionLoadWatcher().tableLoad(conglomerate, false)) {
+            loads.put(load.getPartitionName(), load);
+        }
+        if (!staleOnly) {
+            for (PartitionLoad load : loads.values())
+                writeCounts.put(load.getPartitionName(), PartitionWriteTracker.writeCount(load));
+            return Collections.singletonList(collectBaseTableStatistics(table, txn, conn, new byte[0], new byte[0]));
+        }
+        return collectStaleStatistics(table, loads, dd, tc, txn, conn, writeCounts);
     }
 
+    /**
+     * Collect the statistics of the partitions which were written to enough since their statistics
+     * were last collected (or which have none), keeping the statistics of all other partitions.
+     * Adjacent stale partitions are collected with a single scan.
+     */
+    private static List<Future<StatsResult>> collectStaleStatistics(TableDescriptor table,
+                                                                   Map<String, PartitionLoad> loads,
+                                                                   DataDictionary dd,
+                                                                   TransactionController tc,
+                                                                   TxnView txn,
+                                                                   EmbedConnection conn,
+                                                                   Map<String,Long> writeCounts) throws StandardException, ExecutionException {
+        long conglomerate = table.getHeapConglomerateId();
+        List<Partition> partitions = new ArrayList<>();
+        StoreCostControllerImpl.getPartitions(Long.toString(conglomerate), partitions, true);
+        Collections.sort(partitions, partitionOrder);
+
+        Map<String, PartitionStatisticsDescriptor> existing = new HashMap<>();
+        for (PartitionStatisticsDescriptor stats : dd.getPartitionStatistics(conglomerate, tc)) {
+            existing.put(stats.getPartitionId(), stats);
+        }
+        Set<String> partitionNames = new HashSet<>(partitions.size());
+        for (Partition partition : partitions) {
+            partitionNames.add(partition.getName());
+        }
+        for (String partitionId : existing.keySet()) {
+            if (!partitionNames.contains(partitionId)) {
+                // the partition has been split or merged away
+                dd.deletePartitionStatistics(conglomerate, partitionId, tc);
+            }
+        }
+
+        double staleWriteFraction = EngineDriver.driver().getConfiguration().getStaleWriteFraction();
+        List<Future<StatsResult>> futures = new ArrayList<>();
+        byte[] rangeStart = null;
+        byte[] rangeStop = null;
+        for (Partition partition : partitions) {
+            String name = partition.getName();
+            PartitionStatisticsDescriptor stats = existing.get(name);
+            PartitionLoad load = loads.get(name);
+            if (PartitionWriteTracker.isStale(stats, load, staleWriteFraction)) {
+                if (stats != null)
+                    dd.deletePartitionStatistics(conglomerate, name, tc);
+                writeCounts.put(name, PartitionWriteTracker.writeCount(load));
+                if (rangeStart == null)
+                    rangeStart = partition.getStartKey();
+                rangeStop = partition.getEndKey();
+            } else if (rangeStart != null) {
+                futures.add(collectBaseTableStatistics(table, txn, conn, rangeStart, rangeStop));
+                rangeStart = null;
+            }
+        }
+        if (rangeStart != null)
+            futures.add(collectBaseTableStatistics(table, txn, conn, rangeStart, rangeStop));
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG, "Collecting stale statistics of table %s in %d scans", table.getName(), futures.size());
+        return futures;
+    }
+
+    private static final Comparator<Partition> partitionOrder = new Comparator<Partition>() {
+        @Override
+        public int compare(Partition o1, Partition o2) {
+            return Bytes.startComparator.compare(o1.getStartKey(), o2.getStartKey());
+        }
+    };
+
     private static Future<StatsResult> collectBaseTableStatistics(TableDescriptor table,
                                                                  TxnView txn,
-                                                                 EmbedConnection conn) throws StandardException, ExecutionException {
+                                                                 EmbedConnection conn,
+                                                                 byte[] startKey,
+                                                                 byte[] stopKey) throws StandardException, ExecutionException {
         long heapConglomerateId = table.getHeapConglomerateId();
         Activation activation = conn.getLanguageConnection().getLastActivation();
         DistributedDataSetProcessor dsp = EngineDriver.driver().processorFactory().distributedProcessor();
 
         ScanSetBuilder ssb = dsp.newScanSet(null,Long.toString(heapConglomerateId));
-        ScanSetBuilder scanSetBuilder = createTableScanner(ssb,conn,table,txn);
+        ScanSetBuilder scanSetBuilder = createTableScanner(ssb,conn,table,txn,startKey,stopKey);
         String scope = getScopeName(table);
 
         String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
@@ -370,10 +465,10 @@ public class StatisticsAdmin extends BaseAdminProcedures {
         return String.format(OperationContext.Scope.COLLECT_STATS.displayName(), td.getName());
     }
 
-    private static DataScan createScan (TxnView txn) {
+    private static DataScan createScan (TxnView txn, byte[] startKey, byte[] stopKey) {
         DataScan scan=SIDriver.driver().getOperationFactory().newDataScan(txn);
         scan.returnAllVersions(); //make sure that we read all versions of the data
-        return scan.startKey(new byte[0]).stopKey(new byte[0]);
+        return scan.startKey(startKey).stopKey(stopKey);
     }
 
     public static int[] getFormatIds(EmbedConnection conn, long columnStatsConglomId) throws StandardException{
@@ -386,7 +481,9 @@ public class StatisticsAdmin extends BaseAdminProcedures {
     private static ScanSetBuilder createTableScanner(ScanSetBuilder builder,
                                                      EmbedConnection conn,
                                                      TableDescriptor table,
-                                                     TxnView txn) throws StandardException{
+                                                     TxnView txn,
+                                                     byte[] startKey,
+                                                     byte[] stopKey) throws StandardException{
 
         List<ColumnDescriptor> colsToCollect = getCollectedColumns(table);
         ExecRow row = new ValueRow(colsToCollect.size());
@@ -438,7 +535,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
                 }
             }
         }
-        DataScan scan = createScan(txn);
+        DataScan scan = createScan(txn, startKey, stopKey);
         ExecRow rowTemplate = new ValueRow(execRowFormatIds.length);
         DataValueDescriptor[] dvds = rowTemplate.getRowArray();
         DataValueFactory dataValueFactory=conn.getLanguageConnection().getDataValueFactory();
@@ -615,6 +712,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
         row.setColumn(SYSTABLESTATISTICSRowFactory.ROWCOUNT,new SQLLongint(rowCount));
         row.setColumn(SYSTABLESTATISTICSRowFactory.PARTITION_SIZE,new SQLLongint(partitionSize));
         row.setColumn(SYSTABLESTATISTICSRowFactory.MEANROWWIDTH,new SQLInteger(meanRowWidth));
+        row.setColumn(SYSTABLESTATISTICSRowFactory.WRITECOUNT,new SQLLongint()); // set by the caller, which knows the partition's load
         return row;
     }
 
@@ -638,7 +736,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
     }
 
 
-    public static Iterable displayTableStatistics(List<Future<StatsResult>> futures, final DataDictionary dataDictionary, final TransactionController tc, final HashMap<Long,Pair<String,String>> displayPair) {
+    public static Iterable displayTableStatistics(List<Future<StatsResult>> futures, final DataDictionary dataDictionary, final TransactionController tc, final HashMap<Long,Pair<String,String>> displayPair, final Map<String,Long> writeCounts) {
         return FluentIterable.from(futures).transformAndConcat(new Function<Future<StatsResult>, Iterable<ExecRow>>() {
             @Nullable
             @Override
@@ -651,6 +749,9 @@ public class StatisticsAdmin extends BaseAdminProcedures {
                         if (row.nColumns() == SYSCOLUMNSTATISTICSRowFactory.SYSCOLUMNSTATISTICS_COLUMN_COUNT) {
                             dataDictionary.addColumnStatistics(row,tc);
                         } else {
+                            Long writeCount = writeCounts.get(row.getColumn(SYSTABLESTATISTICSRowFactory.PARTITIONID).getString());
+                            if (writeCount != null && writeCount >= 0)
+                                row.setColumn(SYSTABLESTATISTICSRowFactory.WRITECOUNT, new SQLLongint(writeCount));
                             dataDictionary.addTableStatistics(row, tc);
                             Pair<String,String> pair = displayPair.get(row.getColumn(SYSTABLESTATISTICSRowFactory.CONGLOMID).getLong());
                             outputList.add(generateOutputRow(pair.getFirst(),pair.getSecond(),row));
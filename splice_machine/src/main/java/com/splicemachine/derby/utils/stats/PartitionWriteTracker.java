@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.utils.stats;
+
+import com.splicemachine.db.iapi.sql.dictionary.PartitionStatisticsDescriptor;
+import com.splicemachine.storage.PartitionLoad;
+
+/**
+ * Compares the write request count of a partition with the count stored with its statistics when they were
+ * collected, so that an incremental collection can tell which partitions have changed enough to be collected again.
+ *
+ * A partition whose statistics have no stored count (because they were collected by an older version) is always
+ * considered stale, as is a partition whose write count went backwards (because it was reopened in the meantime).
+ */
+public class PartitionWriteTracker{
+
+    private PartitionWriteTracker(){ }
+
+    /**
+     * @return the write request count to store with the statistics of a partition which are collected now, or -1
+     * if it is not known
+     */
+    public static long writeCount(PartitionLoad load){
+        return load==null?-1l:Math.max(-1l,load.getWriteRequestCount());
+    }
+
+    /**
+     * @param statistics the current statistics of the partition, or {@code null} if there are none
+     * @param load the current load of the partition, or {@code null} if it is not known
+     * @param staleWriteFraction the fraction of the partition's row count which may be written before its
+     *                           statistics are considered stale
+     * @return {@code true} if the statistics of the partition should be collected again
+     */
+    public static boolean isStale(PartitionStatisticsDescriptor statistics,PartitionLoad load,double staleWriteFraction){
+        if(statistics==null || statistics.getWriteCount()<0)
+            return true;
+        long writes = writeCount(load);
+        if(writes<0 || writes<statistics.getWriteCount())
+            return true;
+        return writes-statistics.getWriteCount()>staleWriteFraction*statistics.getRowCount();
+    }
+}
@@ -71,9 +71,10 @@ public class StatsCollectionJob implements Callable<Void> {
                 statsDataSet = request.scanSetBuilder.buildDataSet(request.scope);
             }
 
+            double sampleFraction = EngineDriver.driver().getConfiguration().getCollectionSampleFraction();
             List<LocatedRow> result = statsDataSet
                     .mapPartitions(
-                    new StatisticsFlatMapFunction(request.scanSetBuilder.getBaseTableConglomId(),request.scanSetBuilder.getColumnPositionMap(), request.scanSetBuilder.getTemplate())).collect();
+                    new StatisticsFlatMapFunction(request.scanSetBuilder.getBaseTableConglomId(),request.scanSetBuilder.getColumnPositionMap(), request.scanSetBuilder.getTemplate(), sampleFraction)).collect();
             jobStatus.markCompleted(new StatsResult(result));
             return null;
         } catch (Exception e) {
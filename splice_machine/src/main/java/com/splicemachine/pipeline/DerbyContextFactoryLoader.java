@@ -43,6 +43,7 @@ import com.splicemachine.si.api.data.OperationStatusFactory;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.filter.TransactionReadController;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 
@@ -82,7 +83,7 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
         this.osf=osf;
         this.pef=pef;
         this.trc=trc;
-        this.fkGroup=new FKWriteFactoryHolder(pef,txnOperationFactory);
+        this.fkGroup=new FKWriteFactoryHolder(conglomId,pef,txnOperationFactory);
         //TODO -sf- memory leak
         this.ddlListener=new DDLWatcher.DDLListener(){
             @Override
@@ -176,6 +177,11 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
         return constraintFactories;
     }
 
+    @Override
+    public void partitionClosed(Partition partition){
+        fkGroup.partitionClosed(partition);
+    }
+
     @Override
     public void ddlChange(DDLMessage.DDLChange ddlChange){
         DDLMessage.DDLChangeType ddlChangeType=ddlChange.getDdlChangeType();
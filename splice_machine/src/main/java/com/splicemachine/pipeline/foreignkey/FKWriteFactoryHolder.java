@@ -27,6 +27,7 @@ import com.splicemachine.pipeline.contextfactory.LocalWriteFactory;
 import com.splicemachine.pipeline.contextfactory.WriteFactoryGroup;
 import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.storage.Partition;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class FKWriteFactoryHolder implements WriteFactoryGroup{
 
+    private final long conglomId;
     private final PipelineExceptionFactory exceptionFactory;
     private final TxnOperationFactory txnOperationFactory;
     /*
@@ -49,7 +51,8 @@ public class FKWriteFactoryHolder implements WriteFactoryGroup{
     private volatile Map<Long, ForeignKeyChildInterceptWriteFactory> childInterceptWriteFactories = new ConcurrentHashMap<>();
     private ForeignKeyParentInterceptWriteFactory parentInterceptWriteFactory;
 
-    public FKWriteFactoryHolder(PipelineExceptionFactory exceptionFactory,TxnOperationFactory txnOperationFactory){
+    public FKWriteFactoryHolder(long conglomId,PipelineExceptionFactory exceptionFactory,TxnOperationFactory txnOperationFactory){
+        this.conglomId=conglomId;
         this.exceptionFactory=exceptionFactory;
         this.txnOperationFactory = txnOperationFactory;
     }
@@ -96,7 +99,7 @@ public class FKWriteFactoryHolder implements WriteFactoryGroup{
     public void addParentInterceptWriteFactory(String parentTableName, List<Long> backingIndexConglomIds,List<FKConstraintInfo> fkConstraintInfos) {
         /* One instance handles all FKs that reference this primary key or unique index */
         if (parentInterceptWriteFactory == null) {
-            parentInterceptWriteFactory = new ForeignKeyParentInterceptWriteFactory(parentTableName, backingIndexConglomIds,exceptionFactory,fkConstraintInfos);
+            parentInterceptWriteFactory = new ForeignKeyParentInterceptWriteFactory(conglomId, parentTableName, backingIndexConglomIds,exceptionFactory,fkConstraintInfos);
         }
     }
 
@@ -117,6 +120,8 @@ public class FKWriteFactoryHolder implements WriteFactoryGroup{
         // We are configuring a write context on the CHILD fk backing index.
         if (onConglomerateNumber == tentativeFKAdd.getReferencingConglomerateNumber()) {
             addChildIntercept(tentativeFKAdd.getReferencedConglomerateNumber(), tentativeFKAdd.getFkConstraintInfo());
+            // parent rows may have been deleted while the foreign key wasn't checked
+            ForeignKeyParentCache.conglomerateChanged(Long.toString(onConglomerateNumber));
         }
     }
 
@@ -131,9 +136,18 @@ public class FKWriteFactoryHolder implements WriteFactoryGroup{
         // We are configuring a write context on the CHILD fk backing index.
         if (onConglomerateNumber == tentativeFKAdd.getReferencingConglomerateNumber()) {
             childInterceptWriteFactories.remove(tentativeFKAdd.getReferencedConglomerateNumber());
+            ForeignKeyParentCache.conglomerateChanged(Long.toString(onConglomerateNumber));
         }
     }
 
+    /**
+     * Drops the parent keys cached for a partition of the child backing index, since the deletes of its child rows
+     * are no longer seen once it is closed.
+     */
+    public void partitionClosed(Partition partition) {
+        ForeignKeyParentCache.regionClosed(partition.getName());
+    }
+
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
     //
     // build factories from constraints (used when we are creating the FK from metadata on context startup)
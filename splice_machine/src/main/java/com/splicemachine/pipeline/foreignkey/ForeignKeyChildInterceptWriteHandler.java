@@ -29,6 +29,8 @@ import com.splicemachine.pipeline.client.WriteResult;
 import com.splicemachine.pipeline.constraint.ConstraintContext;
 import com.splicemachine.pipeline.context.WriteContext;
 import com.splicemachine.pipeline.writehandler.WriteHandler;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.SimpleTxnFilter;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
@@ -39,12 +41,14 @@ import com.splicemachine.storage.DataFilter;
 import com.splicemachine.storage.DataResult;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.util.MapAttributes;
+import com.splicemachine.utils.ByteSlice;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Intercepts insert/updates to a FK constraint backing index and sends the rowKey over to the referenced primary-key or
@@ -56,6 +60,10 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     private final ForeignKeyViolationProcessor violationProcessor;
     private Partition table;
     private ObjectArrayList<KVPair> mutations = new ObjectArrayList<>();
+    /* The mutations whose parent row was found, and their parent keys, to cache once the mutations are written */
+    private ObjectArrayList<KVPair> foundMutations = new ObjectArrayList<>();
+    private ObjectArrayList<byte[]> foundParentKeys = new ObjectArrayList<>();
+    private ForeignKeyParentCache parentCache;
     private final int formatIds[];
     private final MultiFieldDecoder multiFieldDecoder;
     private final TypeProvider typeProvider;
@@ -81,6 +89,11 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
         if (isForeignKeyInterceptNecessary(mutation.getType())) {
             mutations.add(mutation);
             ctx.success(mutation);
+        } else if (mutation.getType() == KVPair.Type.DELETE) {
+            // the parent row may no longer be referenced, so it has to be looked up again
+            byte[] checkRowKey = getCheckRowKey(mutation.getRowKey());
+            if (checkRowKey != null)
+                parentCache(ctx).invalidate(referencedConglomerateNumber, checkRowKey);
         }
         ctx.sendUpstream(mutation);
     }
@@ -93,33 +106,46 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     @Override
     public void flush(WriteContext ctx) throws IOException {
         try {
-            initTable();
-            HashSet<byte[]> culledLookups = new HashSet(mutations.size());
+            TxnView txn = ctx.getTxn();
+            ForeignKeyParentCache cache = parentCache(ctx);
+            Map<ByteSlice, Integer> culledLookups = new HashMap<>(mutations.size());
+            List<byte[]> rowKeysToFetch = new ArrayList<>();
+            Map<Long, Boolean> checkingTxns = new HashMap<>();
             int[] locations = new int[mutations.size()];
-            int counter = 0;
             for (int i =0; i<mutations.size();i++) {
                 byte[] checkRowKey = getCheckRowKey(mutations.get(i).getRowKey());
-                if (culledLookups.contains(checkRowKey)) {
-                    locations[i] = counter-1;
-                } else {
-                    culledLookups.add(checkRowKey);
-                    locations[i] = counter;
-                    counter++;
+                if (checkRowKey == null) {
+                    // a column of the foreign key is null, so there is nothing to check
+                    locations[i] = -1;
+                    continue;
+                }
+                ByteSlice lookup = ByteSlice.wrap(checkRowKey);
+                Integer location = culledLookups.get(lookup);
+                if (location == null) {
+                    if (isKnownParent(cache, checkRowKey, txn, checkingTxns)) {
+                        location = -1;
+                    } else {
+                        location = rowKeysToFetch.size();
+                        rowKeysToFetch.add(checkRowKey);
+                    }
+                    culledLookups.put(lookup, location);
                 }
+                locations[i] = location;
             }
 
-            List<byte[]> rowKeysToFetch = new ArrayList<>(culledLookups.size());
-            for (byte[] item: culledLookups) {
-                rowKeysToFetch.add(item);
-            }
+            // All parents are known...
+            if (rowKeysToFetch.isEmpty())
+                return;
+
+            initTable();
             SimpleTxnFilter readUncommittedFilter;
             SimpleTxnFilter readCommittedFilter;
-            if (ctx.getTxn() instanceof ActiveWriteTxn) {
-                readUncommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((ActiveWriteTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-                readCommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((ActiveWriteTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-            }else if (ctx.getTxn() instanceof WritableTxn) {
-                readUncommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((WritableTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-                readCommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((WritableTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+            if (txn instanceof ActiveWriteTxn) {
+                readUncommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((ActiveWriteTxn) txn).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+                readCommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((ActiveWriteTxn) txn).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+            }else if (txn instanceof WritableTxn) {
+                readUncommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((WritableTxn) txn).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+                readCommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((WritableTxn) txn).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
             }else
                 throw new IOException("invalidTxn");
 
@@ -136,21 +162,27 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
                 i++;
             }
 
-            // No Misses...
-            if (misses.isEmpty())
-                return;
             // Assemble failures for the write pipeline with error codes.
             i=0;
             for (int location: locations) {
-                if (misses.get(location))
-                    failWrite(mutations.get(i),ctx);
+                if (location >= 0) {
+                    if (misses.get(location))
+                        failWrite(mutations.get(i), ctx);
+                    else {
+                        foundMutations.add(mutations.get(i));
+                        foundParentKeys.add(rowKeysToFetch.get(location));
+                    }
+                }
                 i++;
             }
         } catch (Exception e) {
+            foundMutations.clear();
+            foundParentKeys.clear();
             violationProcessor.failWrite(e, ctx);
         }finally{
             if(table!=null)
                 table.close();
+            table=null;
             mutations.clear();
         }
 
@@ -160,6 +192,55 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     public void close(WriteContext ctx) throws IOException {
         if (mutations.size() > 0)
             flush(ctx);
+        /*
+         * The region has been written by now, so only parent rows referenced by a child row which was actually
+         * written are cached: a child row which failed (e.g. a unique violation, or a bad record an import
+         * tolerates) doesn't keep its parent row from being deleted.
+         */
+        try {
+            if (foundMutations.isEmpty())
+                return;
+            ForeignKeyParentCache cache = parentCache(ctx);
+            long txnId = ctx.getTxn().getTxnId();
+            for (int i = 0; i < foundMutations.size(); i++) {
+                if (ctx.canRun(foundMutations.get(i)))
+                    cache.put(referencedConglomerateNumber, foundParentKeys.get(i), txnId);
+            }
+        } finally {
+            foundMutations.clear();
+            foundParentKeys.clear();
+        }
+    }
+
+    /*
+     * The parent keys are cached for the region of the backing index we are writing to, since only the deletes of
+     * child rows in this region are seen here.
+     */
+    private ForeignKeyParentCache parentCache(WriteContext ctx) {
+        if (parentCache == null) {
+            Partition region = ctx.getRegion();
+            parentCache = ForeignKeyParentCache.forRegion(region.getTableName(), region.getName());
+        }
+        return parentCache;
+    }
+
+    /*
+     * A parent row found by an earlier check is still there if the transaction which wrote a child row referencing it
+     * hasn't rolled back, since the parent row can't be deleted while it is referenced.
+     */
+    private boolean isKnownParent(ForeignKeyParentCache cache, byte[] checkRowKey, TxnView txn, Map<Long, Boolean> checkingTxns) throws IOException {
+        long checkingTxnId = cache.getCheckingTxnId(referencedConglomerateNumber, checkRowKey);
+        if (checkingTxnId < 0)
+            return false;
+        if (checkingTxnId == txn.getTxnId())
+            return true;
+        Boolean valid = checkingTxns.get(checkingTxnId);
+        if (valid == null) {
+            TxnView checkingTxn = SIDriver.driver().getTxnSupplier().getTransaction(checkingTxnId);
+            valid = checkingTxn != null && checkingTxn.getEffectiveState() != Txn.State.ROLLEDBACK;
+            checkingTxns.put(checkingTxnId, valid);
+        }
+        return valid;
     }
 
     private boolean hasData(DataResult result,SimpleTxnFilter filter) throws IOException {
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parent keys which foreign key checks in a single region of a child backing index have recently found, so that
+ * child rows which reference the same parent rows (such as the rows of a fact table referencing a small dimension
+ * table) don't have to look them up again.
+ *
+ * A parent row can't be deleted while a child row references it, because the delete is checked against the child
+ * backing index. An entry is only added once a child row referencing the parent row has been written to this region,
+ * and records the transaction which wrote it: the entry can be trusted for as long as that transaction hasn't rolled
+ * back and the child rows in this region haven't been deleted. Deletes of child rows in this region pass through this
+ * server, and remove the entry; child rows in other regions (or other child tables) never vouch for it.
+ *
+ * The cache of a region is dropped when the region closes, since deletes of its rows won't be seen once it has moved
+ * to another server.
+ */
+class ForeignKeyParentCache{
+    private static final ConcurrentMap<String,ForeignKeyParentCache> REGION_CACHES=new ConcurrentHashMap<>();
+
+    private final String childConglomerate;
+    private final Cache<ParentKey,Long> parents;
+
+    ForeignKeyParentCache(String childConglomerate,long maxSize,long expiry,TimeUnit expiryUnit){
+        this.childConglomerate=childConglomerate;
+        this.parents=CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expiry,expiryUnit).build();
+    }
+
+    /**
+     * @return the cache for the given region of a child backing index
+     */
+    static ForeignKeyParentCache forRegion(String childConglomerate,String regionName){
+        ForeignKeyParentCache cache=REGION_CACHES.get(regionName);
+        if(cache==null){
+            cache=new ForeignKeyParentCache(childConglomerate,10000,1,TimeUnit.MINUTES);
+            ForeignKeyParentCache old=REGION_CACHES.putIfAbsent(regionName,cache);
+            if(old!=null)
+                cache=old;
+        }
+        return cache;
+    }
+
+    /**
+     * Drop the cache of a region which is no longer served by this server.
+     */
+    static void regionClosed(String regionName){
+        REGION_CACHES.remove(regionName);
+    }
+
+    /**
+     * Drop the caches of all the regions of a child backing index, e.g. when its foreign keys change.
+     */
+    static void conglomerateChanged(String childConglomerate){
+        Iterator<ForeignKeyParentCache> caches=REGION_CACHES.values().iterator();
+        while(caches.hasNext()){
+            if(caches.next().childConglomerate.equals(childConglomerate))
+                caches.remove();
+        }
+    }
+
+    /**
+     * Remove a parent row which is being deleted from the caches of all the regions on this server.
+     */
+    static void invalidateParent(long parentConglomerate,byte[] parentKey){
+        ParentKey key=new ParentKey(parentConglomerate,parentKey);
+        for(ForeignKeyParentCache cache:REGION_CACHES.values()){
+            cache.parents.invalidate(key);
+        }
+    }
+
+    /**
+     * @return the id of the transaction which wrote a child row referencing the parent row, or -1 if the parent row
+     * isn't known to exist
+     */
+    long getCheckingTxnId(long parentConglomerate,byte[] parentKey){
+        Long txnId=parents.getIfPresent(new ParentKey(parentConglomerate,parentKey));
+        return txnId==null?-1l:txnId;
+    }
+
+    void put(long parentConglomerate,byte[] parentKey,long txnId){
+        parents.put(new ParentKey(parentConglomerate,parentKey),txnId);
+    }
+
+    void invalidate(long parentConglomerate,byte[] parentKey){
+        parents.invalidate(new ParentKey(parentConglomerate,parentKey));
+    }
+
+    private static final class ParentKey{
+        private final long conglomerate;
+        private final byte[] key;
+        private final int hashCode;
+
+        ParentKey(long conglomerate,byte[] key){
+            this.conglomerate=conglomerate;
+            this.key=key;
+            this.hashCode=31*Long.hashCode(conglomerate)+Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof ParentKey)) return false;
+            ParentKey that=(ParentKey)o;
+            return conglomerate==that.conglomerate && Arrays.equals(key,that.key);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import java.util.List;
  */
 @NotThreadSafe
 public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
+    private final long parentConglomerateNumber;
     private final List<Long> referencingIndexConglomerateIds;
     private final List<DDLMessage.FKConstraintInfo> constraintInfos;
     private final ForeignKeyViolationProcessor violationProcessor;
@@ -52,11 +53,13 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     private ObjectArrayList<KVPair> mutations = new ObjectArrayList<>();
 
 
-    public ForeignKeyParentInterceptWriteHandler(String parentTableName,
+    public ForeignKeyParentInterceptWriteHandler(long parentConglomerateNumber,
+                                                 String parentTableName,
                                                  List<Long> referencingIndexConglomerateIds,
                                                  PipelineExceptionFactory exceptionFactory,
                                                  List<DDLMessage.FKConstraintInfo> constraintInfos
                                                  ) {
+        this.parentConglomerateNumber = parentConglomerateNumber;
         this.referencingIndexConglomerateIds = referencingIndexConglomerateIds;
         this.violationProcessor = new ForeignKeyViolationProcessor(
                 new ForeignKeyViolationProcessor.ParentFkConstraintContextProvider(parentTableName),exceptionFactory);
@@ -68,6 +71,8 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     @Override
     public void next(KVPair mutation, WriteContext ctx) {
         if (isForeignKeyInterceptNecessary(mutation.getType())) {
+            // child rows checked on this server must look for the parent row again
+            ForeignKeyParentCache.invalidateParent(parentConglomerateNumber, mutation.getRowKey());
             mutations.add(mutation);
         }
         ctx.sendUpstream(mutation);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.catalog.upgrade;
+
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptorList;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.catalog.SYSTABLESTATISTICSRowFactory;
+import com.splicemachine.derby.impl.sql.catalog.SpliceDataDictionary;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.Types;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class UpgradeScriptForStatsWriteCountTest{
+    private static final long HEAP_CONGLOMERATE=1312L;
+
+    private SpliceDataDictionary sdd;
+    private TransactionController tc;
+    private TableDescriptor tableStats;
+    private ColumnDescriptorList columns;
+
+    @Before
+    public void setUp() throws Exception{
+        sdd=mock(SpliceDataDictionary.class);
+        tc=mock(TransactionController.class);
+        tableStats=mock(TableDescriptor.class);
+        when(sdd.getTableDescriptor(eq(SYSTABLESTATISTICSRowFactory.TABLENAME_STRING),any(SchemaDescriptor.class),same(tc)))
+                .thenReturn(tableStats);
+        when(tableStats.getHeapConglomerateId()).thenReturn(HEAP_CONGLOMERATE);
+
+        //a catalog from before WRITECOUNT existed
+        columns=new ColumnDescriptorList();
+        DataTypeDescriptor bigint=DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT,true);
+        for(int i=1;i<SYSTABLESTATISTICSRowFactory.WRITECOUNT;i++){
+            columns.add(new ColumnDescriptor("C"+i,i,i,bigint,null,null,tableStats,null,0,0,i));
+        }
+        when(tableStats.getColumnDescriptorList()).thenReturn(columns);
+    }
+
+    @Test
+    public void addsWriteCountToACatalogWithoutIt() throws Exception{
+        Assert.assertTrue(new UpgradeScriptForStatsWriteCount(sdd,tc).addWriteCountIfAbsent());
+
+        verify(tc).elevate("dictionary");
+        verify(tc).addColumnToConglomerate(eq(HEAP_CONGLOMERATE),eq(SYSTABLESTATISTICSRowFactory.WRITECOUNT-1),
+                any(DataValueDescriptor.class),anyInt());
+        verify(sdd).addDescriptor(any(ColumnDescriptor.class),same(tableStats),eq(DataDictionary.SYSCOLUMNS_CATALOG_NUM),
+                eq(false),same(tc));
+        Assert.assertEquals(SYSTABLESTATISTICSRowFactory.SYSTABLESTATISTICS_COLUMN_COUNT,columns.size());
+        ColumnDescriptor writeCount=columns.get(SYSTABLESTATISTICSRowFactory.WRITECOUNT-1);
+        Assert.assertEquals("WRITECOUNT",writeCount.getColumnName());
+        Assert.assertEquals(SYSTABLESTATISTICSRowFactory.WRITECOUNT,writeCount.getPosition());
+    }
+
+    @Test
+    public void leavesAnUpgradedCatalogAlone() throws Exception{
+        UpgradeScriptForStatsWriteCount script=new UpgradeScriptForStatsWriteCount(sdd,tc);
+        Assert.assertTrue(script.addWriteCountIfAbsent());
+        //the next boot finds the column and must not touch the catalog, or elevate its transaction
+        Assert.assertFalse(new UpgradeScriptForStatsWriteCount(sdd,tc).addWriteCountIfAbsent());
+
+        verify(tc,times(1)).elevate("dictionary");
+        verify(tc,times(1)).addColumnToConglomerate(anyLong(),anyInt(),any(DataValueDescriptor.class),anyInt());
+        Assert.assertEquals(SYSTABLESTATISTICSRowFactory.SYSTABLESTATISTICS_COLUMN_COUNT,columns.size());
+    }
+
+    @Test
+    public void ignoresAMissingStatisticsTable() throws Exception{
+        when(sdd.getTableDescriptor(any(String.class),any(SchemaDescriptor.class),any(TransactionController.class))).thenReturn(null);
+
+        Assert.assertFalse(new UpgradeScriptForStatsWriteCount(sdd,tc).addWriteCountIfAbsent());
+        verify(tc,never()).elevate(any(String.class));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Category(ArchitectureIndependent.class)
+public class BroadcastJoinCacheTest{
+
+    @Test
+    public void concurrentJoinsLoadTheTableOnce() throws Exception{
+        final AtomicInteger loads = new AtomicInteger(0);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final BroadcastJoinCache cache = new BroadcastJoinCache(new OffHeapMapTableLoader(1<<20),false);
+        final Callable<Stream<ExecRow>> slowRows = new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call() throws Exception{
+                loads.incrementAndGet();
+                loading.countDown();
+                Thread.sleep(100);
+                return Streams.wrap(rows(10));
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<JoinTable>> joins = new ArrayList<>();
+            for(int i=0;i<4;i++){
+                joins.add(executor.submit(new Callable<JoinTable>(){
+                    @Override
+                    public JoinTable call() throws Exception{
+                        return cache.get(1L,slowRows,new int[]{0},new int[]{0},row(0)).newTable();
+                    }
+                }));
+                loading.await(10,TimeUnit.SECONDS);
+            }
+            for(Future<JoinTable> join : joins){
+                Assert.assertTrue(join.get(10,TimeUnit.SECONDS).fetchInner(row(3)).hasNext());
+            }
+            Assert.assertEquals("Table was loaded more than once",1,loads.get());
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void tableIsReleasedWhenTheLastJoinCloses() throws Exception{
+        OffHeapMemoryBudget budget = new OffHeapMemoryBudget(1<<20);
+        BroadcastJoinCache cache = new BroadcastJoinCache(new OffHeapMapTableLoader(budget),false);
+        JoinTable first = cache.get(1L,rows(),new int[]{0},new int[]{0},row(0)).newTable();
+        JoinTable second = cache.get(1L,rows(),new int[]{0},new int[]{0},row(0)).newTable();
+        long used = budget.getReservedBytes();
+        Assert.assertTrue("No memory was reserved",used>0);
+
+        first.close();
+        Assert.assertEquals("Table was released while in use",used,budget.getReservedBytes());
+        Assert.assertTrue(second.fetchInner(row(3)).hasNext());
+
+        second.close();
+        Assert.assertEquals("Table was not released",0l,budget.getReservedBytes());
+    }
+
+    @Test
+    public void tableLoadedAheadOfTheJoinIsReused() throws Exception{
+        final AtomicInteger loads = new AtomicInteger(0);
+        Callable<Stream<ExecRow>> countingRows = new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call() throws Exception{
+                loads.incrementAndGet();
+                return Streams.wrap(rows(10));
+            }
+        };
+        BroadcastJoinCache cache = new BroadcastJoinCache(new OffHeapMapTableLoader(1<<20),false);
+        Assert.assertTrue(cache.tryLoad(1L,countingRows,new int[]{0},new int[]{0},row(0)));
+        JoinTable table = cache.get(1L,countingRows,new int[]{0},new int[]{0},row(0)).newTable();
+        Assert.assertTrue(table.fetchInner(row(3)).hasNext());
+        Assert.assertEquals("Table was loaded more than once",1,loads.get());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static ExecRow row(int key){
+        ExecRow row = new ValueRow(1);
+        row.setColumn(1,new SQLInteger(key));
+        return row;
+    }
+
+    private static List<ExecRow> rows(int count){
+        List<ExecRow> rows = new ArrayList<>(count);
+        for(int i=0;i<count;i++){
+            rows.add(row(i));
+        }
+        return rows;
+    }
+
+    private static Callable<Stream<ExecRow>> rows(){
+        return new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call(){
+                return Streams.wrap(rows(10));
+            }
+        };
+    }
+}
@@ -49,10 +49,8 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
 
-import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -287,19 +285,23 @@ public class FixedSITableScannerTest{
         final boolean[] returned=new boolean[]{false};
 
         DataScanner scanner=mock(DataScanner.class);
-        Answer<List<DataCell>> rowReturnAnswer=new Answer<List<DataCell>>(){
+        Answer<Integer> rowReturnAnswer=new Answer<Integer>(){
 
             @Override
-            public List<DataCell> answer(InvocationOnMock invocation) throws Throwable{
-                Assert.assertFalse("Attempted to call next() twice!",returned[0]);
-
-                @SuppressWarnings("unchecked") List<DataCell> kvs=Arrays.asList(siKv,dataKv);
+            public Integer answer(InvocationOnMock invocation) throws Throwable{
+                Assert.assertFalse("Attempted to call nextBatch() twice!",returned[0]);
+
+                RowBatch batch=(RowBatch)invocation.getArguments()[0];
+                batch.clear();
+                batch.addCell(siKv);
+                batch.addCell(dataKv);
+                batch.endRow();
                 returned[0]=true;
-                return kvs;
+                return batch.size();
             }
         };
         //noinspection unchecked
-        when(scanner.next(anyInt())).thenAnswer(rowReturnAnswer);
+        when(scanner.nextBatch(any(RowBatch.class))).thenAnswer(rowReturnAnswer);
 //        when(scanner.internalNextRaw(any(List.class))).thenAnswer(rowReturnAnswer);
         //noinspection unchecked
 //        when(scanner.next(any(List.class))).thenAnswer(rowReturnAnswer);
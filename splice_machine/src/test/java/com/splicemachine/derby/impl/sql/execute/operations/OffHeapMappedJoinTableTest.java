@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+@Category(ArchitectureIndependent.class)
+public class OffHeapMappedJoinTableTest{
+
+    @Test
+    public void chainsRowsWithTheSameKey() throws Exception{
+        OffHeapMappedJoinTable.Table table = new OffHeapMappedJoinTable.Table(1<<20,256);
+        for(int i=0;i<1000;i++){
+            table.add(Bytes.toBytes(i%100),Bytes.toBytes(i));
+        }
+        Assert.assertEquals(100,table.size());
+
+        for(int k=0;k<100;k++){
+            List<Integer> found = new ArrayList<>();
+            for(long address=table.get(Bytes.toBytes(k));address>=0;address=table.next(address)){
+                found.add(Bytes.toInt(table.row(address)));
+            }
+            Collections.sort(found);
+            Assert.assertEquals(10,found.size());
+            for(int j=0;j<10;j++){
+                Assert.assertEquals(k+j*100,(int)found.get(j));
+            }
+        }
+        Assert.assertTrue(table.get(Bytes.toBytes(100))<0);
+    }
+
+    @Test(expected = OffHeapMappedJoinTable.TableTooLargeException.class)
+    public void failsWhenOverTheMemoryLimit() throws Exception{
+        OffHeapMappedJoinTable.Table table = new OffHeapMappedJoinTable.Table(4096,1024);
+        for(int i=0;i<1000;i++){
+            table.add(Bytes.toBytes(i),new byte[64]);
+        }
+    }
+
+    @Test
+    public void loadsAndFetchesRows() throws Exception{
+        List<ExecRow> inner = new ArrayList<>();
+        for(int i=0;i<50;i++){
+            inner.add(row(i%10,"inner"+i));
+        }
+        JoinTable joinTable = new OffHeapMapTableLoader(1<<20).load(rows(inner),new int[]{0},new int[]{0},row(0,"outer")).newTable();
+
+        Iterator<ExecRow> matches = joinTable.fetchInner(row(3,"outer"));
+        List<String> found = new ArrayList<>();
+        while(matches.hasNext()){
+            ExecRow match = matches.next();
+            Assert.assertEquals(3,match.getColumn(1).getInt());
+            found.add(match.getColumn(2).getString());
+        }
+        Collections.sort(found);
+        Assert.assertEquals(5,found.size());
+        Assert.assertEquals("inner13",found.get(0));
+        Assert.assertEquals("inner43",found.get(4));
+
+        Assert.assertFalse(joinTable.fetchInner(row(42,"outer")).hasNext());
+    }
+
+    @Test
+    public void loadsAnEmptyInnerSide() throws Exception{
+        JoinTable joinTable = new OffHeapMapTableLoader(1<<20).load(rows(Collections.<ExecRow>emptyList()),
+                new int[]{0},new int[]{0},row(0,"outer")).newTable();
+        Assert.assertFalse(joinTable.fetchInner(row(1,"outer")).hasNext());
+    }
+
+    @Test
+    public void loadFailsWhenOverTheMemoryLimit() throws Exception{
+        List<ExecRow> inner = new ArrayList<>();
+        for(int i=0;i<1000;i++){
+            inner.add(row(i,"a string long enough to fill the table quickly"));
+        }
+        try{
+            new OffHeapMapTableLoader(8192).load(rows(inner),new int[]{0},new int[]{0},row(0,"outer"));
+            Assert.fail("Expected the load to fail");
+        }catch(ExecutionException e){
+            Assert.assertTrue(e.getCause() instanceof OffHeapMappedJoinTable.TableTooLargeException);
+        }
+    }
+
+    @Test
+    public void tablesShareTheBudget() throws Exception{
+        OffHeapMemoryBudget budget = new OffHeapMemoryBudget(16384);
+        OffHeapMapTableLoader loader = new OffHeapMapTableLoader(budget,1024);
+        List<ExecRow> inner = new ArrayList<>();
+        for(int i=0;i<50;i++){
+            inner.add(row(i,"inner"+i));
+        }
+        OffHeapMappedJoinTable.Factory first = (OffHeapMappedJoinTable.Factory)loader.load(rows(inner),new int[]{0},new int[]{0},row(0,"outer"));
+        long used = budget.getReservedBytes();
+        Assert.assertTrue("No memory was reserved",used>0);
+        try{
+            while(budget.getReservedBytes()+used<=budget.getMaxBytes())
+                loader.load(rows(inner),new int[]{0},new int[]{0},row(0,"outer"));
+            loader.load(rows(inner),new int[]{0},new int[]{0},row(0,"outer"));
+            Assert.fail("Expected the load to fail once the budget is used up");
+        }catch(ExecutionException e){
+            Assert.assertTrue(e.getCause() instanceof OffHeapMappedJoinTable.TableTooLargeException);
+        }
+
+        first.release();
+        Assert.assertNotNull("Released memory was not reused",loader.load(rows(inner),new int[]{0},new int[]{0},row(0,"outer")));
+    }
+
+    @Test
+    public void failedLoadReleasesItsChunks() throws Exception{
+        OffHeapMemoryBudget budget = new OffHeapMemoryBudget(8192);
+        List<ExecRow> inner = new ArrayList<>();
+        for(int i=0;i<1000;i++){
+            inner.add(row(i,"a string long enough to fill the table quickly"));
+        }
+        try{
+            new OffHeapMapTableLoader(budget).load(rows(inner),new int[]{0},new int[]{0},row(0,"outer"));
+            Assert.fail("Expected the load to fail");
+        }catch(ExecutionException e){
+            Assert.assertTrue(e.getCause() instanceof OffHeapMappedJoinTable.TableTooLargeException);
+        }
+        Assert.assertEquals("Partly loaded table kept its memory",0l,budget.getReservedBytes());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static ExecRow row(int key,String value){
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1,new SQLInteger(key));
+        row.setColumn(2,new SQLVarchar(value));
+        return row;
+    }
+
+    private static Callable<Stream<ExecRow>> rows(final List<ExecRow> rows){
+        return new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call(){
+                return Streams.wrap(rows);
+            }
+        };
+    }
+}
@@ -16,6 +16,7 @@
 package com.splicemachine.derby.impl.sql.execute.sequence;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import com.splicemachine.si.testenv.ArchitectureIndependent;
 import org.junit.Assert;
@@ -60,11 +61,57 @@ public class AbstractSequenceTest {
 		}
 	}
 	
+	@Test
+	public void blocksGrowWhileUsedQuickly() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(100,1000,1,0);
+		for (long i = 0; i< 2000; i++) {
+			sequence.nanoTime += 1000;
+			Assert.assertEquals(i, sequence.getNext());
+		}
+		Assert.assertEquals("Blocks should have grown to the maximum size",100+200+400+800+1000, sequence.currentValue);
+	}
+
+	@Test
+	public void blocksShrinkWhenUsedSlowly() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(100,1000,1,0);
+		long i = 0;
+		for (; i< 700; i++) {
+			sequence.nanoTime += 1000;
+			Assert.assertEquals(i, sequence.getNext());
+		}
+		for (; i<= 2500; i++) {
+			sequence.nanoTime += TimeUnit.SECONDS.toNanos(1);
+			Assert.assertEquals(i, sequence.getNext());
+		}
+		Assert.assertEquals("Blocks should have shrunk back to the minimum size", 2600, sequence.currentValue);
+	}
+
+	@Test
+	public void nextBlockIsReservedBeforeItIsNeeded() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(100,1,0);
+		Assert.assertEquals(0, sequence.getNext());
+		long stalls = SequenceMetrics.INSTANCE.getTotalStalls();
+		for (long i = 1; i< 76; i++)
+			Assert.assertEquals(i, sequence.getNext());
+		Thread.sleep(100);
+		Assert.assertEquals("The next block should be reserved once a quarter is left", 2, sequence.reservations);
+		for (long i = 76; i< 200; i++)
+			Assert.assertEquals(i, sequence.getNext());
+		Assert.assertTrue(SequenceMetrics.INSTANCE.getTotalPrefetchedBlocks()>0);
+		Assert.assertEquals(stalls, SequenceMetrics.INSTANCE.getTotalStalls());
+	}
+
 	private class SpliceTestSequence extends AbstractSequence {
-		long currentValue = -1;
+		volatile long currentValue = -1;
+		volatile int reservations;
+		long nanoTime = 1;
 		SpliceTestSequence(long blockAllocationSize, long incrementSteps, long startingValue) {
 			super(blockAllocationSize,incrementSteps,startingValue);
 		}
+
+		SpliceTestSequence(long blockAllocationSize, long maxBlockAllocationSize, long incrementSteps, long startingValue) {
+			super(blockAllocationSize,maxBlockAllocationSize,incrementSteps,startingValue);
+		}
 		
 			@Override
 			protected long getCurrentValue() throws IOException {
@@ -74,11 +121,17 @@ public class AbstractSequenceTest {
 			}
 
 			@Override
-			protected boolean atomicIncrement(long nextValue) throws IOException {
+			protected boolean atomicIncrement(long current, long nextValue) throws IOException {
+				reservations++;
 				currentValue = nextValue;
 				return true;
 			}
 
+			@Override
+			protected long nanoTime() {
+				return nanoTime;
+			}
+
 			@Override
 			public void close() throws IOException {				
 			}
@@ -16,10 +16,23 @@
 package com.splicemachine.derby.stream.control;
 
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.stream.AbstractDataSetTest;
+import com.splicemachine.derby.stream.function.SpliceFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Created by jleach on 4/15/15.
@@ -32,4 +45,69 @@ public class ControlDataSetTest extends AbstractDataSetTest{
         return new ControlDataSet<>(tenRowsTwoDuplicateRecords.iterator());
     }
 
+    @Test
+    public void keyByComputesKeysAsPairsAreRead() throws Exception {
+        FirstLetter keyer = new FirstLetter();
+        PairDataSet<String,String> pairs = new ControlDataSet<>(Arrays.asList("a1","b1","a2").iterator()).keyBy(keyer);
+        Assert.assertTrue("Keys were computed before they were read",keyer.keyed.isEmpty());
+
+        Iterator<Tuple2<String,String>> it = ((ControlPairDataSet<String,String>)pairs).source;
+        Assert.assertEquals(new Tuple2<>("a","a1"),it.next());
+        Assert.assertEquals(Arrays.asList("a1"),keyer.keyed);
+        Assert.assertEquals(new Tuple2<>("b","b1"),it.next());
+        Assert.assertEquals(new Tuple2<>("a","a2"),it.next());
+        Assert.assertFalse(it.hasNext());
+        Assert.assertEquals("Each row should be keyed once, in order",Arrays.asList("a1","b1","a2"),keyer.keyed);
+    }
+
+    @Test
+    public void keyByDoesNotNeedAdjacentKeys() throws Exception {
+        List<String> rows = Arrays.asList("a1","b1","a2","c1","b2","a3");
+
+        Iterator<Tuple2<String,Iterable<String>>> grouped = ((ControlPairDataSet<String,Iterable<String>>)keyBy(rows).groupByKey()).source;
+        List<String> groups = new ArrayList<>();
+        while(grouped.hasNext()){
+            Tuple2<String,Iterable<String>> group = grouped.next();
+            groups.add(group._1()+group._2());
+        }
+        Collections.sort(groups);
+        Assert.assertEquals(Arrays.asList("a[a1, a2, a3]","b[b1, b2]","c[c1]"),groups);
+
+        List<String> joined = new ArrayList<>();
+        Iterator<Tuple2<String,Tuple2<String,String>>> it = ((ControlPairDataSet<String,Tuple2<String,String>>)
+                keyBy(rows).hashJoin(keyBy(Arrays.asList("a0","c0")))).source;
+        while(it.hasNext()){
+            Tuple2<String,String> next = it.next()._2();
+            joined.add(next._1()+next._2());
+        }
+        Assert.assertEquals(Arrays.asList("a1a0","a2a0","c1c0","a3a0"),joined);
+
+        List<String> sorted = new ArrayList<>();
+        Iterator<Tuple2<String,String>> sortedIt = ((ControlPairDataSet<String,String>)keyBy(rows).sortByKey(new Comparator<String>(){
+            @Override
+            public int compare(String o1,String o2){
+                return o1.compareTo(o2);
+            }
+        })).source;
+        while(sortedIt.hasNext()){
+            sorted.add(sortedIt.next()._2());
+        }
+        Assert.assertEquals("Rows with the same key should keep their input order",
+                Arrays.asList("a1","a2","a3","b1","b2","c1"),sorted);
+    }
+
+    private static PairDataSet<String,String> keyBy(List<String> rows){
+        return new ControlDataSet<>(rows.iterator()).keyBy(new FirstLetter());
+    }
+
+    private static class FirstLetter extends SpliceFunction<SpliceOperation,String,String>{
+        private final List<String> keyed = new ArrayList<>();
+
+        @Override
+        public String call(String row) throws Exception{
+            keyed.add(row);
+            return row.substring(0,1);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataType;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.NanoTime;
+import org.apache.parquet.example.data.simple.SimpleGroup;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.apache.parquet.schema.PrimitiveType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class ParquetFileIteratorTest{
+    private static final MessageType schema = MessageTypeParser.parseMessageType("message test {\n" +
+            "  required int96 ts;\n" +
+            "  required int32 day (DATE);\n" +
+            "  required int32 intDecimal (DECIMAL(9,2));\n" +
+            "  required int64 longDecimal (DECIMAL(18,4));\n" +
+            "  required binary binaryDecimal (DECIMAL(30,3));\n" +
+            "  required fixed_len_byte_array(16) fixedDecimal (DECIMAL(38,5));\n" +
+            "  required int32 i;\n" +
+            "  required binary s (UTF8);\n" +
+            "  required binary b;\n" +
+            "}");
+
+    @Test
+    public void int96IsReadAsATimestamp() throws Exception{
+        long nanosOfDay = TimeUnit.HOURS.toNanos(1)+123456789l;
+        Group group = group();
+        group.add(0,new NanoTime(2440588+1,nanosOfDay)); //the day after the epoch
+        Timestamp timestamp = (Timestamp)ParquetFileIterator.getValue(group,0,type(0));
+        Assert.assertEquals(TimeUnit.DAYS.toMillis(1)+TimeUnit.HOURS.toMillis(1)+123,timestamp.getTime());
+        Assert.assertEquals(123456789,timestamp.getNanos());
+    }
+
+    @Test
+    public void dateIsReadInTheDefaultTimeZone() throws Exception{
+        Group group = group();
+        group.add(1,17000);
+        Assert.assertEquals(Date.valueOf("2016-07-18"),ParquetFileIterator.getValue(group,1,type(1)));
+    }
+
+    @Test
+    public void decimalsAreReadWithTheirScale() throws Exception{
+        BigDecimal big = new BigDecimal("-123456789012345678901.234");
+        BigDecimal fixed = new BigDecimal("-98765.43210");
+        Group group = group();
+        group.add(2,12345);
+        group.add(3,-1234567l);
+        group.add(4,Binary.fromByteArray(big.unscaledValue().toByteArray()));
+        group.add(5,Binary.fromByteArray(signExtend(fixed.unscaledValue(),16)));
+
+        Assert.assertEquals(new BigDecimal("123.45"),ParquetFileIterator.getValue(group,2,type(2)));
+        Assert.assertEquals(new BigDecimal("-123.4567"),ParquetFileIterator.getValue(group,3,type(3)));
+        Assert.assertEquals(big,ParquetFileIterator.getValue(group,4,type(4)));
+        Assert.assertEquals(fixed,ParquetFileIterator.getValue(group,5,type(5)));
+    }
+
+    @Test
+    public void comparisonsArePushedDown() throws Exception{
+        Assert.assertEquals(FilterApi.lt(FilterApi.intColumn("i"),3),
+                ParquetFileIterator.getPredicate(type(6),"i",qualifier(DataType.ORDER_OP_LESSTHAN,false),new SQLInteger(3)));
+        Assert.assertEquals(FilterApi.eq(FilterApi.binaryColumn("s"),Binary.fromString("a")),
+                ParquetFileIterator.getPredicate(type(7),"s",qualifier(DataType.ORDER_OP_EQUALS,false),new SQLVarchar("a")));
+    }
+
+    @Test
+    public void negatedComparisonsArePushedDownInverted() throws Exception{
+        Assert.assertEquals(FilterApi.gtEq(FilterApi.intColumn("i"),3),
+                ParquetFileIterator.getPredicate(type(6),"i",qualifier(DataType.ORDER_OP_LESSTHAN,true),new SQLInteger(3)));
+        Assert.assertEquals(FilterApi.notEq(FilterApi.binaryColumn("s"),Binary.fromString("a")),
+                ParquetFileIterator.getPredicate(type(7),"s",qualifier(DataType.ORDER_OP_EQUALS,true),new SQLVarchar("a")));
+    }
+
+    @Test
+    public void nullChecksArePushedDown() throws Exception{
+        Assert.assertEquals(FilterApi.eq(FilterApi.intColumn("i"),(Integer)null),
+                ParquetFileIterator.getPredicate(type(6),"i",qualifier(DataType.ORDER_OP_EQUALS,false),new SQLInteger()));
+        Assert.assertEquals(FilterApi.notEq(FilterApi.binaryColumn("s"),(Binary)null),
+                ParquetFileIterator.getPredicate(type(7),"s",qualifier(DataType.ORDER_OP_EQUALS,true),new SQLVarchar()));
+    }
+
+    @Test
+    public void unsupportedComparisonsAreNotPushedDown() throws Exception{
+        //ordering of strings, and null with anything but equality
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(7),"s",qualifier(DataType.ORDER_OP_LESSTHAN,false),new SQLVarchar("a")));
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(6),"i",qualifier(DataType.ORDER_OP_LESSTHAN,false),new SQLInteger()));
+        //values which would have to be converted, and types without a supported encoding
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(6),"i",qualifier(DataType.ORDER_OP_EQUALS,false),new SQLLongint(3)));
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(2),"intDecimal",qualifier(DataType.ORDER_OP_EQUALS,false),new SQLInteger(3)));
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(8),"b",qualifier(DataType.ORDER_OP_EQUALS,false),new SQLVarchar("a")));
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(0),"ts",qualifier(DataType.ORDER_OP_EQUALS,false),new SQLInteger(3)));
+        //an operator which is not a comparison
+        Assert.assertNull(ParquetFileIterator.getPredicate(type(6),"i",qualifier(-1,false),new SQLInteger(3)));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static Group group(){
+        return new SimpleGroup(schema);
+    }
+
+    private static PrimitiveType type(int field){
+        return schema.getType(field).asPrimitiveType();
+    }
+
+    private static Qualifier qualifier(int operator,boolean negate){
+        Qualifier qualifier = mock(Qualifier.class);
+        when(qualifier.getOperator()).thenReturn(operator);
+        when(qualifier.negateCompareResult()).thenReturn(negate);
+        return qualifier;
+    }
+
+    private static byte[] signExtend(BigInteger value,int length){
+        byte[] bytes = value.toByteArray();
+        byte[] extended = new byte[length];
+        Arrays.fill(extended,0,length-bytes.length,(byte)(value.signum()<0?0xFF:0));
+        System.arraycopy(bytes,0,extended,length-bytes.length,bytes.length);
+        return extended;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.LongBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.GenericAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.stream.function.KeyerFunction;
+import com.splicemachine.derby.stream.function.MergeAllAggregatesFunction;
+import com.splicemachine.derby.stream.function.ZipperFunction;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class SpillingHashReducerTest{
+
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void reducesInMemory() throws Exception{
+        File spillDir = tempFolder.newFolder();
+        SpillingHashReducer<Integer,Long> reducer = new SpillingHashReducer<>(new Sum(),Long.MAX_VALUE,spillDir);
+
+        Map<Integer,Long> results = collect(reducer.reduce(input(1000,10)));
+        assertCorrect(1000,10,results);
+        Assert.assertEquals("Should not have spilled",0,spillDir.list().length);
+    }
+
+    @Test
+    public void reducesAcrossSpills() throws Exception{
+        File spillDir = tempFolder.newFolder();
+        //small enough to spill every few hundred keys
+        SpillingHashReducer<Integer,Long> reducer = new SpillingHashReducer<>(new Sum(),50_000,spillDir);
+
+        Map<Integer,Long> results = collect(reducer.reduce(input(5000,7)));
+        assertCorrect(5000,7,results);
+        Assert.assertEquals("Spill files were not cleaned up",0,spillDir.list().length);
+    }
+
+    @Test
+    public void reducesCollidingKeysAcrossSpills() throws Exception{
+        File spillDir = tempFolder.newFolder();
+        SpillingHashReducer<CollidingKey,Long> reducer = new SpillingHashReducer<>(new Sum(),1,spillDir);
+
+        List<Tuple2<CollidingKey,Long>> input = new ArrayList<>();
+        for(int i=0;i<100;i++){
+            input.add(new Tuple2<>(new CollidingKey(i%10),(long)i));
+        }
+        Iterator<Tuple2<CollidingKey,Long>> reduced = reducer.reduce(input.iterator());
+        Map<Integer,Long> results = new HashMap<>();
+        while(reduced.hasNext()){
+            Tuple2<CollidingKey,Long> next = reduced.next();
+            Assert.assertNull("Key returned more than once",results.put(next._1().value,next._2()));
+        }
+        Assert.assertEquals(10,results.size());
+        for(int key=0;key<10;key++){
+            long expected = 0;
+            for(int i=key;i<100;i+=10) expected+=i;
+            Assert.assertEquals("Incorrect value for key "+key,expected,results.get(key).longValue());
+        }
+    }
+
+    @Test
+    public void mergesAggregatePartialsAcrossSpills() throws Exception{
+        File spillDir = tempFolder.newFolder();
+        /*
+         * Rows of SELECT g, SUM(v), COUNT(v) ... GROUP BY g, the way the grouped aggregate lays them out:
+         * g, v, the SUM aggregator, the COUNT aggregator, and the two results
+         */
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[]{
+                new SpliceGenericAggregator(new LongBufferedSumAggregator(64),3,2,5),
+                new SpliceGenericAggregator(new CountAggregator(),4,2,6)
+        };
+        OperationContext context = mock(OperationContext.class);
+        GenericAggregateOperation op = mock(GenericAggregateOperation.class);
+        op.aggregates = aggregates;
+        when(context.getOperation()).thenReturn(op);
+
+        int numGroups = 500;
+        int rowsPerGroup = 6;
+        List<LocatedRow> rows = new ArrayList<>();
+        /*
+         * Each half of the input has several rows of a group in a row, so the spilled partials hold accumulated
+         * aggregators, which are merged with the partials of the other half when the runs are read back
+         */
+        int half = rowsPerGroup/2;
+        for(int start=0;start<rowsPerGroup;start+=half){
+            for(int g=0;g<numGroups;g++){
+                for(int i=start;i<start+half;i++){
+                    rows.add(aggregateRow(g,g*10+i));
+                }
+            }
+        }
+
+        //small enough to spill every few dozen groups
+        final MergeAllAggregatesFunction<GenericAggregateOperation> merge = new MergeAllAggregatesFunction<>(context);
+        final File dir = spillDir;
+        final int[] maxSpills = new int[1];
+        SpillingHashReducer<ExecRow,LocatedRow> reducer = new SpillingHashReducer<>(new ZipperFunction<LocatedRow,LocatedRow,LocatedRow>(){
+            @Override
+            public LocatedRow call(LocatedRow first,LocatedRow second) throws Exception{
+                maxSpills[0] = Math.max(maxSpills[0],dir.list().length);
+                return merge.call(first,second);
+            }
+
+            @Override public void writeExternal(ObjectOutput out){ }
+            @Override public void readExternal(ObjectInput in){ }
+        },20_000,spillDir);
+        ControlPairDataSet<ExecRow,LocatedRow> keyed = (ControlPairDataSet<ExecRow,LocatedRow>)
+                new ControlDataSet<>(rows.iterator()).keyBy(new KeyerFunction<LocatedRow,GenericAggregateOperation>(context,new int[]{0}));
+        Iterator<Tuple2<ExecRow,LocatedRow>> reduced = reducer.reduce(keyed.source);
+
+        Map<Integer,ExecRow> results = new HashMap<>();
+        while(reduced.hasNext()){
+            Tuple2<ExecRow,LocatedRow> next = reduced.next();
+            ExecRow row = next._2().getRow();
+            for(SpliceGenericAggregator aggregate : aggregates){
+                aggregate.finish(row);
+            }
+            Assert.assertEquals("Key does not match its row",next._1().getColumn(1),row.getColumn(1));
+            Assert.assertNull("Group returned more than once",results.put(row.getColumn(1).getInt(),row));
+        }
+        Assert.assertTrue("Should have spilled more than once",maxSpills[0]>1);
+        Assert.assertEquals("Incorrect number of groups",numGroups,results.size());
+        Assert.assertEquals("Spill files were not cleaned up",0,spillDir.list().length);
+        for(int g=0;g<numGroups;g++){
+            long expectedSum = 0;
+            for(int i=0;i<rowsPerGroup;i++) expectedSum+=g*10+i;
+            ExecRow row = results.get(g);
+            Assert.assertEquals("Incorrect SUM for group "+g,expectedSum,row.getColumn(5).getLong());
+            Assert.assertEquals("Incorrect COUNT for group "+g,rowsPerGroup,row.getColumn(6).getLong());
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static LocatedRow aggregateRow(int group,long value){
+        ValueRow row = new ValueRow(6);
+        row.setColumn(1,new SQLInteger(group));
+        row.setColumn(2,new SQLLongint(value));
+        row.setColumn(3,new UserType());
+        row.setColumn(4,new UserType());
+        row.setColumn(5,new SQLLongint());
+        row.setColumn(6,new SQLLongint());
+        return new LocatedRow(row);
+    }
+
+    private static Iterator<Tuple2<Integer,Long>> input(int numKeys,int valuesPerKey){
+        List<Tuple2<Integer,Long>> input = new ArrayList<>(numKeys*valuesPerKey);
+        for(int i=0;i<valuesPerKey;i++){
+            for(int key=0;key<numKeys;key++){
+                input.add(new Tuple2<>(key,(long)i));
+            }
+        }
+        return input.iterator();
+    }
+
+    private static <K> Map<K,Long> collect(Iterator<Tuple2<K,Long>> reduced){
+        Map<K,Long> results = new HashMap<>();
+        while(reduced.hasNext()){
+            Tuple2<K,Long> next = reduced.next();
+            Assert.assertNull("Key returned more than once",results.put(next._1(),next._2()));
+        }
+        return results;
+    }
+
+    private static void assertCorrect(int numKeys,int valuesPerKey,Map<Integer,Long> results){
+        Assert.assertEquals("Incorrect number of keys",numKeys,results.size());
+        long expected = ((long)valuesPerKey*(valuesPerKey-1))/2;
+        for(int key=0;key<numKeys;key++){
+            Assert.assertEquals("Incorrect value for key "+key,expected,results.get(key).longValue());
+        }
+    }
+
+    private static class Sum implements ZipperFunction<Long,Long,Long>{
+        @Override
+        public Long call(Long first,Long second){
+            return first==null? second: first+second;
+        }
+
+        @Override public void writeExternal(ObjectOutput out){ }
+        @Override public void readExternal(ObjectInput in){ }
+    }
+
+    private static class CollidingKey implements java.io.Serializable{
+        private final int value;
+
+        CollidingKey(int value){
+            this.value=value;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof CollidingKey && ((CollidingKey)o).value==value;
+        }
+
+        @Override
+        public int hashCode(){
+            return value%3;
+        }
+    }
+}
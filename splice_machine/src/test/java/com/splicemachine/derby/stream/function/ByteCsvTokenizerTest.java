@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.stream.utils.BooleanList;
+import org.junit.Assert;
+import org.junit.Test;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that {@link ByteCsvTokenizer} and {@link ByteCsvBlockReader} read the same records as
+ * {@link QuoteTrackingTokenizer}.
+ */
+public class ByteCsvTokenizerTest{
+    private static final CsvPreference PREFERENCE=new CsvPreference.Builder('"',',',"\n").maxLinesPerRow(3).build();
+
+    @Test
+    public void readsUnquotedColumnsInPlace() throws Exception{
+        byte[] bytes="hello,goodbye,,boots\n".getBytes(StandardCharsets.UTF_8);
+        ByteCsvTokenizer tokenizer=new ByteCsvTokenizer(PREFERENCE);
+        tokenizer.reset(bytes,0,bytes.length,0);
+        Assert.assertTrue("Did not properly read the columns!",tokenizer.readColumns());
+        Assert.assertEquals(Arrays.asList("hello","goodbye",null,"boots"),tokenizer.getColumns(StandardCharsets.UTF_8));
+        Assert.assertSame("Unquoted column should not be copied",bytes,tokenizer.getBuffer(1));
+        Assert.assertEquals(6,tokenizer.getOffset(1));
+        Assert.assertFalse(tokenizer.readColumns());
+    }
+
+    @Test
+    public void matchesQuotedColumns() throws Exception{
+        checkMatches("\"hello\",goodbye,parseThis!,boots\n");
+        checkMatches("a,\"b\"\"c\",\"\",d\"e\"f, \"g\" \n\"\"\"\"");
+        checkMatches("\"hello\",goodbye,parseThis!,\"boots\nmagoo\"");
+    }
+
+    @Test
+    public void matchesLineTerminatorsAndEmptyLines() throws Exception{
+        checkMatches("a,b\r\nc,d\re,f\n\n\r\n\ng,h");
+        checkMatches("\"a\r\nb\",c\r\n\r\n\"d\r\re\"\n");
+        checkMatches("\n\na,b\n\n");
+        checkMatches("\u00e9,\u00fc,\"\u4e2d\u6587\"\n");
+    }
+
+    @Test
+    public void matchesErrorsForBadQuotes() throws Exception{
+        checkMatches("a,\"b\nc\nd\ne\nf\",g\nh,i\n");
+        checkMatches("a,b\nc,\"d\ne");
+        checkMatches("a,b\nc,\"d");
+    }
+
+    @Test
+    public void blocksEndOnRecordBoundaries() throws Exception{
+        String csv="1,\"one\ntwo\",x\r\n2,\"\"\"quoted\"\"\",y\n\n3,plain,z\r4,\"a,b\",\"\"\n5,\"bad\n\n\n\",w\n6,end,\"open";
+        List<String> expected=readAll(new QuoteTrackingTokenizer(new StringReader(csv),PREFERENCE));
+        byte[] bytes=csv.getBytes(StandardCharsets.UTF_8);
+        for(int blockSize=1;blockSize<=bytes.length+1;blockSize++){
+            List<String> actual=new ArrayList<>();
+            ByteCsvBlockReader reader=new ByteCsvBlockReader(new ByteArrayInputStream(bytes),PREFERENCE,blockSize);
+            ByteCsvTokenizer tokenizer=new ByteCsvTokenizer(PREFERENCE);
+            ByteCsvBlockReader.Block block;
+            while((block=reader.nextBlock())!=null){
+                block.reset(tokenizer);
+                actual.addAll(readAll(tokenizer));
+            }
+            Assert.assertEquals("Incorrect records for block size "+blockSize,expected,actual);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void checkMatches(String csv) throws IOException{
+        List<String> expected=readAll(new QuoteTrackingTokenizer(new StringReader(csv),PREFERENCE));
+        byte[] bytes=csv.getBytes(StandardCharsets.UTF_8);
+        ByteCsvTokenizer tokenizer=new ByteCsvTokenizer(PREFERENCE);
+        tokenizer.reset(bytes,0,bytes.length,0);
+        Assert.assertEquals("Did not return the same records",expected,readAll(tokenizer));
+    }
+
+    private static List<String> readAll(QuoteTrackingTokenizer tokenizer) throws IOException{
+        List<String> records=new ArrayList<>();
+        List<String> columns=new ArrayList<>();
+        BooleanList quotes=new BooleanList();
+        while(true){
+            try{
+                if(!tokenizer.readColumns(columns,quotes))
+                    return records;
+                StringBuilder quoted=new StringBuilder();
+                for(int i=0;i<quotes.size();i++){
+                    quoted.append(quotes.valueAt(i)?'Q':'-');
+                }
+                records.add(columns+" "+quoted);
+            }catch(SuperCsvException e){
+                records.add(e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> readAll(ByteCsvTokenizer tokenizer){
+        List<String> records=new ArrayList<>();
+        while(true){
+            try{
+                if(!tokenizer.readColumns())
+                    return records;
+                StringBuilder quoted=new StringBuilder();
+                for(int i=0;i<tokenizer.getColumnCount();i++){
+                    quoted.append(tokenizer.wasQuoted(i)?'Q':'-');
+                }
+                records.add(tokenizer.getColumns(StandardCharsets.UTF_8)+" "+quoted);
+            }catch(SuperCsvException e){
+                records.add(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.DataScan;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class ProbeRangeTest{
+
+    @Test
+    public void rowsAreAddedToEveryRangeContainingThem() throws Exception{
+        ProbeRange low=range(null,"c",10,false);
+        ProbeRange overlapping=range("b","e",10,false);
+        ProbeRange high=range("f",null,10,false);
+        List<ProbeRange> ranges=new ArrayList<>(Arrays.asList(high,overlapping,low));
+        Collections.sort(ranges);
+        Assert.assertEquals(Arrays.asList(low,overlapping,high),ranges);
+
+        for(String key : new String[]{"a","b","c","d","e","f","z"}){
+            Assert.assertEquals(0,ProbeRange.addToRanges(ranges,Bytes.toBytes(key),row(key)));
+        }
+        Assert.assertEquals(Arrays.asList("a","b"),keys(low));
+        Assert.assertEquals(Arrays.asList("b","c","d"),keys(overlapping));
+        Assert.assertEquals(Arrays.asList("f","z"),keys(high));
+    }
+
+    @Test
+    public void firstRowOnlyRangesCompleteAfterOneRow() throws Exception{
+        ProbeRange first=range("a","c",10,true);
+        ProbeRange all=range("a","c",10,false);
+        List<ProbeRange> ranges=Arrays.asList(first,all);
+
+        Assert.assertEquals(1,ProbeRange.addToRanges(ranges,Bytes.toBytes("a"),row("a")));
+        Assert.assertEquals(0,ProbeRange.addToRanges(ranges,Bytes.toBytes("b"),row("b")));
+        Assert.assertTrue(first.isComplete());
+        Assert.assertFalse(first.isOverflowed());
+        Assert.assertEquals(Collections.singletonList("a"),keys(first));
+        Assert.assertEquals(Arrays.asList("a","b"),keys(all));
+    }
+
+    @Test
+    public void rangesWithTooManyRowsOverflow() throws Exception{
+        ProbeRange range=range("a",null,2,false);
+        Assert.assertTrue(range.add(row("a")));
+        Assert.assertTrue(range.add(row("b")));
+        Assert.assertFalse("Range kept more rows than allowed",range.add(row("c")));
+        Assert.assertTrue(range.isOverflowed());
+        Assert.assertTrue("Overflowed range kept its rows",range.getRows().isEmpty());
+        Assert.assertFalse(range.add(row("d")));
+    }
+
+    @Test
+    public void rangesWithTheSameKeysAreEqual() throws Exception{
+        Assert.assertEquals(range("a","b",10,false),range("a","b",10,true));
+        Assert.assertEquals(range(null,"b",10,false).hashCode(),range("","b",10,false).hashCode());
+        Assert.assertNotEquals(range("a","b",10,false),range("a","c",10,false));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static ProbeRange range(String startKey,String stopKey,int maxBufferedRows,boolean firstRowOnly){
+        DataScan scan=mock(DataScan.class);
+        when(scan.getStartKey()).thenReturn(startKey==null?null:Bytes.toBytes(startKey));
+        when(scan.getStopKey()).thenReturn(stopKey==null?null:Bytes.toBytes(stopKey));
+        return new ProbeRange(scan,maxBufferedRows,firstRowOnly);
+    }
+
+    private static LocatedRow row(String key){
+        ValueRow row=new ValueRow(1);
+        row.setColumn(1,new SQLInteger(key.charAt(0)));
+        return new LocatedRow(new HBaseRowLocation(Bytes.toBytes(key)),row);
+    }
+
+    private static List<String> keys(ProbeRange range) throws Exception{
+        List<String> keys=new ArrayList<>();
+        for(LocatedRow row : range.getRows()){
+            keys.add(Bytes.toString(row.getRowLocation().getBytes()));
+        }
+        return keys;
+    }
+}
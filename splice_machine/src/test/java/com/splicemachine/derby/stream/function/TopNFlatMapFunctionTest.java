@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.control.ControlDataSet;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class TopNFlatMapFunctionTest{
+
+    @Test
+    public void returnsFirstRowsInOrder() throws Exception{
+        List<Integer> values = randomValues(1000);
+        TopNFlatMapFunction function = new TopNFlatMapFunction(null,new int[]{0},new RowComparator(new boolean[]{false}),10);
+
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        Assert.assertEquals(expected.subList(0,10),keys(function.call(rows(values))));
+    }
+
+    @Test
+    public void returnsFirstRowsInDescendingOrder() throws Exception{
+        List<Integer> values = randomValues(1000);
+        TopNFlatMapFunction function = new TopNFlatMapFunction(null,new int[]{0},new RowComparator(new boolean[]{true}),25);
+
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected,Collections.<Integer>reverseOrder());
+        Assert.assertEquals(expected.subList(0,25),keys(function.call(rows(values))));
+    }
+
+    @Test
+    public void returnsEverythingWhenFewerThanN() throws Exception{
+        List<Integer> values = randomValues(7);
+        TopNFlatMapFunction function = new TopNFlatMapFunction(null,new int[]{0},new RowComparator(new boolean[]{false}),10);
+
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        Assert.assertEquals(expected,keys(function.call(rows(values))));
+    }
+
+    @Test
+    public void mergingPartitionsGivesGlobalFirstRows() throws Exception{
+        List<Integer> values = randomValues(1000);
+        TopNFlatMapFunction function = new TopNFlatMapFunction(null,new int[]{0},new RowComparator(new boolean[]{false}),10);
+
+        List<LocatedRow> merged = new ArrayList<>();
+        for(int i=0;i<values.size();i+=100){
+            Iterator<LocatedRow> partition = function.call(rows(values.subList(i,i+100)));
+            while(partition.hasNext()) merged.add(partition.next());
+        }
+
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        Assert.assertEquals(expected.subList(0,10),keys(function.call(merged.iterator())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void firstRowsOfADataSet() throws Exception{
+        List<Integer> values = randomValues(1000);
+        TopNFlatMapFunction function = new TopNFlatMapFunction(null,new int[]{0},new RowComparator(new boolean[]{false}),10);
+
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        Assert.assertEquals(expected.subList(0,10),keys(function.firstRows(new ControlDataSet<>(rows(values))).toLocalIterator()));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static List<Integer> randomValues(int size){
+        Random random = new Random(0L);
+        List<Integer> values = new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            values.add(random.nextInt(size/2+1));
+        }
+        return values;
+    }
+
+    private static Iterator<LocatedRow> rows(List<Integer> values){
+        List<LocatedRow> rows = new ArrayList<>(values.size());
+        for(Integer value : values){
+            ExecRow row = new ValueRow(2);
+            row.setColumn(1,new SQLInteger(value));
+            row.setColumn(2,new SQLVarchar("row"+value));
+            rows.add(new LocatedRow(row));
+        }
+        return rows.iterator();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> keys(Iterator rows) throws Exception{
+        List<Integer> keys = new ArrayList<>();
+        while(rows.hasNext()){
+            LocatedRow row = (LocatedRow)rows.next();
+            keys.add(row.getRow().getColumn(1).getInt());
+            Assert.assertEquals("row"+row.getRow().getColumn(1).getInt(),row.getRow().getColumn(2).getString());
+        }
+        return keys;
+    }
+}
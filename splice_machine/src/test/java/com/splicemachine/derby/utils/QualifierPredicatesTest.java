@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.utils;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataType;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.predicate.NullPredicate;
+import com.splicemachine.storage.predicate.Predicate;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class QualifierPredicatesTest{
+    private static final int[] columnTypes = {StoredFormatIds.SQL_INTEGER_ID,StoredFormatIds.SQL_VARCHAR_ID};
+
+    @Test
+    public void isNullIsPushedDown() throws Exception{
+        Predicate predicate = QualifierPredicates.toPredicate(new Qualifier[][]{{isNull(1,false)}},columnTypes,new BitSet());
+        Assert.assertTrue("IS NULL was not pushed down",predicate instanceof NullPredicate);
+        Assert.assertEquals("(1 is null)",predicate.toString());
+    }
+
+    @Test
+    public void isNotNullIsPushedDown() throws Exception{
+        Predicate predicate = QualifierPredicates.toPredicate(new Qualifier[][]{{isNull(0,true)}},columnTypes,new BitSet());
+        Assert.assertTrue("IS NOT NULL was not pushed down",predicate instanceof NullPredicate);
+        Assert.assertEquals("(0 is not null)",predicate.toString());
+    }
+
+    @Test
+    public void orWithIsNullIsPushedDown() throws Exception{
+        Qualifier[][] qualifiers = {{},{equalTo(0,new SQLInteger(3)),isNull(1,false)}};
+        Predicate predicate = QualifierPredicates.toPredicate(qualifiers,columnTypes,new BitSet());
+        Assert.assertNotNull("OR with IS NULL was not pushed down",predicate);
+        Assert.assertTrue(predicate.toString(),predicate.toString().contains("(1 is null)"));
+    }
+
+    @Test
+    public void isNullOnAKeyColumnIsNotPushedDown() throws Exception{
+        BitSet keyColumns = new BitSet();
+        keyColumns.set(1);
+        Assert.assertNull(QualifierPredicates.toPredicate(new Qualifier[][]{{isNull(1,false)}},columnTypes,keyColumns));
+    }
+
+    @Test
+    public void orderedNullsComparisonWithAValueIsNotPushedDown() throws Exception{
+        Qualifier qualifier = qualifier(1,new SQLVarchar("a"),true,false);
+        Assert.assertNull(QualifierPredicates.toPredicate(new Qualifier[][]{{qualifier}},columnTypes,new BitSet()));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static Qualifier isNull(int column,boolean negate) throws Exception{
+        DataValueDescriptor nullValue = columnTypes[column]==StoredFormatIds.SQL_INTEGER_ID? new SQLInteger(): new SQLVarchar();
+        return qualifier(column,nullValue,true,negate);
+    }
+
+    private static Qualifier equalTo(int column,DataValueDescriptor value) throws Exception{
+        return qualifier(column,value,false,false);
+    }
+
+    private static Qualifier qualifier(int column,DataValueDescriptor orderable,boolean orderedNulls,boolean negate) throws Exception{
+        Qualifier qualifier = mock(Qualifier.class);
+        when(qualifier.getStoragePosition()).thenReturn(column);
+        when(qualifier.getOperator()).thenReturn(DataType.ORDER_OP_EQUALS);
+        when(qualifier.getOrderable()).thenReturn(orderable);
+        when(qualifier.getOrderedNulls()).thenReturn(orderedNulls);
+        when(qualifier.negateCompareResult()).thenReturn(negate);
+        when(qualifier.getUnknownRV()).thenReturn(false);
+        when(qualifier.getVariantType()).thenReturn(Qualifier.CONSTANT);
+        return qualifier;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.utils.stats;
+
+import com.splicemachine.db.iapi.sql.dictionary.PartitionStatisticsDescriptor;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.PartitionLoad;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class PartitionWriteTrackerTest{
+
+    @Test
+    public void partitionIsStaleOnceEnoughRowsAreWritten() throws Exception{
+        PartitionStatisticsDescriptor stats=statistics(100,1000);
+        Assert.assertFalse(PartitionWriteTracker.isStale(stats,load(1000),0.1d));
+        Assert.assertFalse(PartitionWriteTracker.isStale(stats,load(1010),0.1d));
+        Assert.assertTrue(PartitionWriteTracker.isStale(stats,load(1011),0.1d));
+    }
+
+    @Test
+    public void statisticsWithoutAStoredCountAreStale() throws Exception{
+        Assert.assertTrue(PartitionWriteTracker.isStale(statistics(100,-1),load(0),0.1d));
+        Assert.assertTrue(PartitionWriteTracker.isStale(null,load(0),0.1d));
+    }
+
+    @Test
+    public void partitionWithUnknownOrReopenedLoadIsStale() throws Exception{
+        PartitionStatisticsDescriptor stats=statistics(100,1000);
+        Assert.assertTrue(PartitionWriteTracker.isStale(stats,null,0.1d));
+        Assert.assertTrue(PartitionWriteTracker.isStale(stats,load(-1),0.1d));
+        Assert.assertTrue("Write count went backwards",PartitionWriteTracker.isStale(stats,load(5),0.1d));
+    }
+
+    @Test
+    public void writeCountIsStoredAsIs() throws Exception{
+        Assert.assertEquals(42l,PartitionWriteTracker.writeCount(load(42)));
+        Assert.assertEquals(-1l,PartitionWriteTracker.writeCount(load(-7)));
+        Assert.assertEquals(-1l,PartitionWriteTracker.writeCount(null));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static PartitionStatisticsDescriptor statistics(long rowCount,long writeCount){
+        return new PartitionStatisticsDescriptor(1l,"p",0l,false,false,rowCount,rowCount*10,10,writeCount);
+    }
+
+    private static PartitionLoad load(long writeCount){
+        PartitionLoad load=mock(PartitionLoad.class);
+        when(load.getWriteRequestCount()).thenReturn(writeCount);
+        return load;
+    }
+}
@@ -139,6 +139,46 @@ public class ForeignKey_Check_IT {
 
     }
 
+    @Test
+    public void childRowsCannotReferenceParentDeletedAfterAnotherChildFoundIt() throws Exception {
+        try(Statement s = conn.createStatement()){
+            s.executeUpdate("create table P(a int primary key)");
+            s.executeUpdate("create table C1(a int references P(a))");
+            s.executeUpdate("create table C2(a int references P(a))");
+            s.executeUpdate("insert into P values(1),(2)");
+            // the parent row is found by the checks of C1
+            s.executeUpdate("insert into C1 values(1),(1),(2)");
+
+            // when -- the referencing rows are deleted, and then the parent row
+            s.executeUpdate("delete from C1 where a = 1");
+            s.executeUpdate("delete from P where a = 1");
+        }
+
+        // then -- neither child table can reference the deleted parent row
+        assertQueryFailMatch("insert into C1 values(1)", "Operation on table 'C1' caused a violation of foreign key constraint 'SQL\\d+' for key \\(A\\).  The statement has been rolled back.");
+        assertQueryFailMatch("insert into C2 values(1)", "Operation on table 'C2' caused a violation of foreign key constraint 'SQL\\d+' for key \\(A\\).  The statement has been rolled back.");
+    }
+
+    @Test
+    public void failedChildWriteDoesNotKeepParentFromBeingChecked() throws Exception {
+        try(Statement s = conn.createStatement()){
+            s.executeUpdate("create table P(a int primary key)");
+            s.executeUpdate("create table C(a int references P(a), b int unique)");
+            s.executeUpdate("insert into P values(1),(2)");
+            s.executeUpdate("insert into C values(2,10)");
+        }
+
+        // when -- a child row referencing the parent row fails to be written
+        assertQueryFailMatch("insert into C values(1,10)", ".*duplicate key value.*");
+        try(Statement s = conn.createStatement()){
+            // there is nothing referencing the parent row, so it can be deleted
+            assertEquals(1, s.executeUpdate("delete from P where a = 1"));
+        }
+
+        // then -- the deleted parent row cannot be referenced
+        assertQueryFailMatch("insert into C values(1,11)", "Operation on table 'C' caused a violation of foreign key constraint 'SQL\\d+' for key \\(A\\).  The statement has been rolled back.");
+    }
+
 
     // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
     //
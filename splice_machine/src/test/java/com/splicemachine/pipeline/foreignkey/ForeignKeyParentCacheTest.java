@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ArchitectureIndependent.class)
+public class ForeignKeyParentCacheTest{
+    private static final long PARENT=1000l;
+    private static final byte[] KEY=Bytes.toBytes("parent");
+
+    @Test
+    public void entriesAreScopedToTheChildRegion() throws Exception{
+        ForeignKeyParentCache child1=ForeignKeyParentCache.forRegion("2000","2000,,1.scoped1.");
+        ForeignKeyParentCache child2=ForeignKeyParentCache.forRegion("3000","3000,,1.scoped2.");
+        child1.put(PARENT,KEY,10l);
+
+        Assert.assertEquals(10l,child1.getCheckingTxnId(PARENT,KEY));
+        Assert.assertSame(child1,ForeignKeyParentCache.forRegion("2000","2000,,1.scoped1."));
+        Assert.assertEquals("Another child table trusted the entry",-1l,child2.getCheckingTxnId(PARENT,KEY));
+        Assert.assertEquals("Another parent trusted the entry",-1l,child1.getCheckingTxnId(PARENT+1,KEY));
+    }
+
+    @Test
+    public void closingTheRegionDropsItsEntries() throws Exception{
+        ForeignKeyParentCache cache=ForeignKeyParentCache.forRegion("2000","2000,,1.closed.");
+        cache.put(PARENT,KEY,10l);
+
+        ForeignKeyParentCache.regionClosed("2000,,1.closed.");
+        ForeignKeyParentCache reopened=ForeignKeyParentCache.forRegion("2000","2000,,1.closed.");
+        Assert.assertEquals("Entry survived the region closing",-1l,reopened.getCheckingTxnId(PARENT,KEY));
+    }
+
+    @Test
+    public void deletingTheParentInvalidatesAllRegions() throws Exception{
+        ForeignKeyParentCache child1=ForeignKeyParentCache.forRegion("2000","2000,,1.deleted1.");
+        ForeignKeyParentCache child2=ForeignKeyParentCache.forRegion("3000","3000,,1.deleted2.");
+        byte[] otherKey=Bytes.toBytes("other");
+        child1.put(PARENT,KEY,10l);
+        child2.put(PARENT,KEY,11l);
+        child2.put(PARENT,otherKey,11l);
+
+        ForeignKeyParentCache.invalidateParent(PARENT,Bytes.toBytes("parent"));
+        Assert.assertEquals(-1l,child1.getCheckingTxnId(PARENT,KEY));
+        Assert.assertEquals(-1l,child2.getCheckingTxnId(PARENT,KEY));
+        Assert.assertEquals("Unrelated parent was invalidated",11l,child2.getCheckingTxnId(PARENT,otherKey));
+    }
+
+    @Test
+    public void deletingAChildRowInvalidatesOnlyItsRegion() throws Exception{
+        ForeignKeyParentCache region1=ForeignKeyParentCache.forRegion("2000","2000,,1.child1.");
+        ForeignKeyParentCache region2=ForeignKeyParentCache.forRegion("2000","2000,a,2.child2.");
+        region1.put(PARENT,KEY,10l);
+        region2.put(PARENT,KEY,11l);
+
+        region1.invalidate(PARENT,KEY);
+        Assert.assertEquals(-1l,region1.getCheckingTxnId(PARENT,KEY));
+        Assert.assertEquals(11l,region2.getCheckingTxnId(PARENT,KEY));
+    }
+
+    @Test
+    public void changingTheForeignKeysDropsTheConglomerate() throws Exception{
+        ForeignKeyParentCache changed=ForeignKeyParentCache.forRegion("4000","4000,,1.changed.");
+        ForeignKeyParentCache unchanged=ForeignKeyParentCache.forRegion("5000","5000,,1.unchanged.");
+        changed.put(PARENT,KEY,10l);
+        unchanged.put(PARENT,KEY,10l);
+
+        ForeignKeyParentCache.conglomerateChanged("4000");
+        Assert.assertEquals(-1l,ForeignKeyParentCache.forRegion("4000","4000,,1.changed.").getCheckingTxnId(PARENT,KEY));
+        Assert.assertEquals(10l,unchanged.getCheckingTxnId(PARENT,KEY));
+    }
+}
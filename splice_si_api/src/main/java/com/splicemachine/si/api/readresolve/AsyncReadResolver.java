@@ -26,6 +26,9 @@ import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
 import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -35,7 +38,13 @@ import java.util.concurrent.TimeUnit;
  * any entries which exceed the size of the processing queue.
  * <p/>
  * This implementation uses an LMAX disruptor to asynchronously pass Read-resolve events
- * to a background thread, which in turn uses a SynchronousReadResolver to actually perform the resolution.
+ * to a set of background threads, which in turn use a KeyedReadResolver to actually perform the resolution.
+ * <p/>
+ * Events are sharded by region across the background threads, so that each region is only ever resolved by
+ * one thread. Each thread accumulates the events it sees for each region until the disruptor has no more events
+ * available (or until it has accumulated {@link #MAX_BATCH_SIZE} rows), dropping duplicate (row, transaction) pairs
+ * as it goes. It then resolves all the rows for a region at once, so that the commit timestamps for that region
+ * are written in a single batch.
  *
  * @author Scott Fines
  *         Date: 7/1/14
@@ -43,6 +52,7 @@ import java.util.concurrent.TimeUnit;
 @ThreadSafe
 public class AsyncReadResolver{
     private static final Logger LOG=Logger.getLogger(AsyncReadResolver.class);
+    static final int MAX_BATCH_SIZE=1024;
     private final RingBuffer<ResolveEvent> ringBuffer;
     private final Disruptor<ResolveEvent> disruptor;
 
@@ -52,6 +62,7 @@ public class AsyncReadResolver{
     private final RollForwardStatus status;
     private final TrafficControl trafficControl;
     private final KeyedReadResolver synchronousResolver;
+    private final int numShards;
 
     public AsyncReadResolver(int maxThreads,int bufferSize,
                              TxnSupplier txnSupplier,
@@ -73,7 +84,13 @@ public class AsyncReadResolver{
         disruptor=new Disruptor<>(new ResolveEventFactory(),bSize,consumerThreads,
                 ProducerType.MULTI,
                 new BlockingWaitStrategy()); //we want low latency here, but it might cost too much in CPU
-        disruptor.handleEventsWith(new ResolveEventHandler());
+        //each handler gets its own thread from the pool, so we can't have more shards than threads
+        this.numShards=Math.max(1,maxThreads);
+        ResolveEventHandler[] handlers=new ResolveEventHandler[numShards];
+        for(int i=0;i<numShards;i++){
+            handlers[i]=new ResolveEventHandler(i);
+        }
+        disruptor.handleEventsWith(handlers);
         ringBuffer=disruptor.getRingBuffer();
     }
 
@@ -94,6 +111,8 @@ public class AsyncReadResolver{
 
     private static class ResolveEvent{
         Partition region;
+        String regionName;
+        int shard;
         long txnId;
         ByteSlice rowKey=new ByteSlice();
         RollForward rollForward;
@@ -108,32 +127,121 @@ public class AsyncReadResolver{
     }
 
     private class ResolveEventHandler implements EventHandler<ResolveEvent>{
+        private final int shard;
+        private final Map<String, RegionBatch> pending=new HashMap<>();
+        private int pendingSize;
+
+        ResolveEventHandler(int shard){
+            this.shard=shard;
+        }
 
         @Override
         public void onEvent(ResolveEvent event,long sequence,boolean endOfBatch) throws Exception{
+            if(event.shard==shard){
+                RegionBatch batch=pending.get(event.regionName);
+                if(batch==null){
+                    batch=new RegionBatch(event.region);
+                    pending.put(event.regionName,batch);
+                }
+                /*
+                 * The publisher gives each event its own copy of the row key, so we can hold on to it
+                 * after the event has been reused.
+                 */
+                ByteSlice rowKey=event.rowKey;
+                if(batch.add(ByteSlice.wrap(rowKey.array(),rowKey.offset(),rowKey.length()),event.txnId,event.rollForward))
+                    pendingSize++;
+            }
+            if(pendingSize>0 && (endOfBatch || pendingSize>=MAX_BATCH_SIZE))
+                flush();
+        }
+
+        private void flush() throws Exception{
             try{
-                if(synchronousResolver.resolve(event.region,
-                        event.rowKey,
-                        event.txnId,
-                        txnSupplier,
-                        status,
-                        false,
-                        trafficControl)){
-                    event.rollForward.recordResolved(event.rowKey,event.txnId);
+                for(RegionBatch batch : pending.values()){
+                    batch.resolve();
                 }
             }catch(Exception e){
                 LOG.info("Error during read resolution",e);
                 throw e;
+            }finally{
+                pending.clear();
+                pendingSize=0;
             }
         }
     }
 
+    /**
+     * The rows waiting to be resolved for a single region.
+     */
+    private class RegionBatch{
+        private final Partition region;
+        private final Map<PendingRow, RollForward> rows=new LinkedHashMap<>();
+
+        RegionBatch(Partition region){
+            this.region=region;
+        }
+
+        /**
+         * @return {@code false} if the row is already waiting to be resolved for the same transaction
+         */
+        boolean add(ByteSlice rowKey,long txnId,RollForward rollForward){
+            return rows.put(new PendingRow(rowKey,txnId),rollForward)==null;
+        }
+
+        void resolve(){
+            int size=rows.size();
+            ByteSlice[] rowKeys=new ByteSlice[size];
+            long[] txnIds=new long[size];
+            boolean[] resolved=new boolean[size];
+            int i=0;
+            for(PendingRow row : rows.keySet()){
+                rowKeys[i]=row.rowKey;
+                txnIds[i]=row.txnId;
+                i++;
+            }
+            synchronousResolver.resolve(region,rowKeys,txnIds,resolved,size,txnSupplier,status,false,trafficControl);
+            i=0;
+            for(RollForward rollForward : rows.values()){
+                if(resolved[i])
+                    rollForward.recordResolved(rowKeys[i],txnIds[i]);
+                i++;
+            }
+        }
+    }
+
+    private static final class PendingRow{
+        private final ByteSlice rowKey;
+        private final long txnId;
+
+        PendingRow(ByteSlice rowKey,long txnId){
+            this.rowKey=rowKey;
+            this.txnId=txnId;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof PendingRow)) return false;
+            PendingRow that=(PendingRow)o;
+            return txnId==that.txnId && rowKey.equals(that.rowKey);
+        }
+
+        @Override
+        public int hashCode(){
+            return 31*rowKey.hashCode()+(int)(txnId^(txnId>>>32));
+        }
+    }
+
     private class PartitionReadResolver implements ReadResolver{
         private final Partition region;
+        private final String regionName;
+        private final int shard;
         private final RollForward rollForward;
 
         public PartitionReadResolver(Partition region,RollForward rollForward){
             this.region=region;
+            this.regionName=region.getName();
+            this.shard=(regionName.hashCode()&Integer.MAX_VALUE)%numShards;
             this.rollForward=rollForward;
         }
 
@@ -152,6 +260,8 @@ public class AsyncReadResolver{
             try{
                 ResolveEvent event=ringBuffer.get(sequence);
                 event.region=region;
+                event.regionName=regionName;
+                event.shard=shard;
                 event.txnId=txnId;
                 event.rowKey.set(rowKey.getByteCopy());
                 event.rollForward=rollForward;
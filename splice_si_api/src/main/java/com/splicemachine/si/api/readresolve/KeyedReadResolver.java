@@ -33,4 +33,23 @@ public interface KeyedReadResolver{
                     RollForwardStatus status,
                     boolean failOnError,
                     TrafficControl trafficControl);
+
+    /**
+     * Resolve a batch of rows which all belong to the same region. Rows whose transaction has committed are
+     * resolved together, with a single batch write to the region.
+     *
+     * @param rowKeys the rows to resolve
+     * @param txnIds the transaction to resolve for each row (parallel to {@code rowKeys})
+     * @param resolved set to {@code true} for each row which was resolved (parallel to {@code rowKeys})
+     * @param size the number of entries in the batch
+     */
+    void resolve(Partition region,
+                 ByteSlice[] rowKeys,
+                 long[] txnIds,
+                 boolean[] resolved,
+                 int size,
+                 TxnSupplier txnSupplier,
+                 RollForwardStatus status,
+                 boolean failOnError,
+                 TrafficControl trafficControl);
 }
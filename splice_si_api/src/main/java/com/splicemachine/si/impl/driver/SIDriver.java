@@ -40,6 +40,7 @@ import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.si.impl.server.SITransactor;
+import com.splicemachine.si.impl.store.ActiveTxnWatermark;
 import com.splicemachine.si.impl.txn.SITransactionReadController;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.Partition;
@@ -48,6 +49,8 @@ import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.GreenLight;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+
 public class SIDriver {
     private static final Logger LOG = Logger.getLogger("splice.uncaught");
 
@@ -90,6 +93,7 @@ public class SIDriver {
     private final PartitionInfoCache partitionInfoCache;
     private final SnowflakeFactory snowflakeFactory;
     private final SIEnvironment env;
+    private final ActiveTxnWatermark activeTxnWatermark;
 
     public SIDriver(SIEnvironment env){
         this.tableFactory = env.tableFactory();
@@ -122,6 +126,8 @@ public class SIDriver {
         this.fileSystem = env.fileSystem();
         this.baseOpFactory = env.baseOperationFactory();
         this.env = env;
+        this.activeTxnWatermark = new ActiveTxnWatermark(this.txnStore,this.timestampSource,this.clock,
+                config.getActiveTransactionWatermarkRefreshInterval());
     }
 
 
@@ -231,6 +237,20 @@ public class SIDriver {
         return baseOpFactory;
     }
 
+    /**
+     * @return the timestamp below which compactions may discard versions of data that no active
+     * transaction can see, or {@code 0} if compactions should keep every version.
+     */
+    public long getCompactionWatermark(){
+        if(!config.getCompactionPurgeVersions()) return 0L;
+        try{
+            return activeTxnWatermark.getWatermark();
+        }catch(IOException e){
+            LOG.warn("Unable to determine the oldest active transaction, compactions will keep all versions",e);
+            return 0L;
+        }
+    }
+
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
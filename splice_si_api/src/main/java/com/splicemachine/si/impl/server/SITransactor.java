@@ -235,8 +235,8 @@ public class SITransactor implements Transactor{
                                                                    TxnFilter constraintStateFilter,
                                                                    MutationStatus[] finalStatus) throws IOException {
         IntObjectOpenHashMap<DataPut> finalMutationsToWrite = IntObjectOpenHashMap.newInstance(dataAndLocks.length, 0.9f);
-        DataResult possibleConflicts = null;
         BitSet bloomInMemoryCheck  = table.getBloomInMemoryCheck(constraintChecker!=null,dataAndLocks);
+        DataResult[] latestRows = getLatestForKvBatch(table,dataAndLocks,constraintChecker,bloomInMemoryCheck);
         for(int i=0;i<dataAndLocks.length;i++){
             Pair<KVPair, Lock> baseDataAndLock=dataAndLocks[i];
             if(baseDataAndLock==null) continue;
@@ -254,8 +254,7 @@ public class SITransactor implements Transactor{
                  * We know that this is the case because there is no constraint checker (constraint checkers are only
                  * applied on key elements.
                  */
-                //todo -sf remove the Row key copy here
-                possibleConflicts=bloomInMemoryCheck==null||bloomInMemoryCheck.get(i)?table.getLatest(kvPair.getRowKey(),possibleConflicts):null;
+                DataResult possibleConflicts=latestRows[i];
                 if(possibleConflicts!=null){
                     //we need to check for write conflicts
                     try {
@@ -290,6 +289,48 @@ public class SITransactor implements Transactor{
         return finalMutationsToWrite;
     }
 
+    /**
+     * Fetch the existing versions of every row in the batch which needs a write conflict or constraint check,
+     * in a single pass over the partition.
+     *
+     * @return an array parallel to {@code dataAndLocks}, holding the latest cells for each row which needs to be
+     * checked and exists (or {@code null} otherwise)
+     */
+    private DataResult[] getLatestForKvBatch(Partition table,
+                                             final Pair<KVPair, Lock>[] dataAndLocks,
+                                             ConstraintChecker constraintChecker,
+                                             BitSet bloomInMemoryCheck) throws IOException{
+        DataResult[] latestRows=new DataResult[dataAndLocks.length];
+        Integer[] positions=new Integer[dataAndLocks.length];
+        int size=0;
+        for(int i=0;i<dataAndLocks.length;i++){
+            Pair<KVPair, Lock> baseDataAndLock=dataAndLocks[i];
+            if(baseDataAndLock==null) continue;
+            //see the comment in checkConflictsForKvBatch for why plain inserts without constraints can be skipped
+            if(constraintChecker==null && KVPair.Type.INSERT.equals(baseDataAndLock.getFirst().getType())) continue;
+            if(bloomInMemoryCheck!=null && !bloomInMemoryCheck.get(i)) continue; //the row definitely doesn't exist
+            positions[size]=i;
+            size++;
+        }
+        if(size<=0) return latestRows;
+
+        Arrays.sort(positions,0,size,new Comparator<Integer>(){
+            @Override
+            public int compare(Integer o1,Integer o2){
+                return Bytes.BASE_COMPARATOR.compare(dataAndLocks[o1].getFirst().getRowKey(),dataAndLocks[o2].getFirst().getRowKey());
+            }
+        });
+        List<byte[]> sortedKeys=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            sortedKeys.add(dataAndLocks[positions[i]].getFirst().getRowKey());
+        }
+        DataResult[] sortedResults=table.getLatest(sortedKeys);
+        for(int i=0;i<size;i++){
+            latestRows[positions[i]]=sortedResults[i];
+        }
+        return latestRows;
+    }
+
     private boolean applyConstraint(ConstraintChecker constraintChecker,
                                     TxnFilter constraintStateFilter,
                                     int rowPosition,
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.timestamp.api.TimestampSource;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+
+/**
+ * Tracks a cluster-wide "low-water mark" for transactions: a timestamp which is less than or equal to the
+ * begin timestamp of every transaction which is still active. Anything which was committed before the
+ * watermark is therefore visible to every transaction which can still read data.
+ *
+ * Finding the oldest active transaction requires a scan of the transaction table, so the watermark is
+ * only recomputed once the refresh interval has elapsed.
+ *
+ * A transaction gets its begin timestamp before it is recorded in the transaction table, so a scan can miss
+ * a transaction which has already begun. The watermark is therefore never moved past the timestamp taken
+ * before the <em>previous</em> scan: that refresh was at least a refresh interval ago, which gives the
+ * transactions in flight at the time a refresh interval to be recorded. Those which take longer can end up
+ * behind the watermark. As a consequence, the first refresh leaves the watermark at 0.
+ *
+ * Given that, the watermark never moves backwards, and each refresh only needs to consider transactions
+ * which began after the previous watermark.
+ *
+ * Only transactions which are recorded in the transaction table (i.e. write transactions) are considered.
+ */
+public class ActiveTxnWatermark{
+    private static final Logger LOG=Logger.getLogger(ActiveTxnWatermark.class);
+
+    private final TxnStore txnStore;
+    private final TimestampSource timestampSource;
+    private final Clock clock;
+    private final long refreshIntervalMs;
+
+    private volatile long watermark=0L;
+    private long previousScanTimestamp=0L;
+    private volatile long lastRefreshTime;
+    private volatile boolean initialized=false;
+
+    public ActiveTxnWatermark(TxnStore txnStore,TimestampSource timestampSource,Clock clock,long refreshIntervalMs){
+        this.txnStore=txnStore;
+        this.timestampSource=timestampSource;
+        this.clock=clock;
+        this.refreshIntervalMs=refreshIntervalMs;
+    }
+
+    /**
+     * @return a timestamp which is no greater than the begin timestamp of any active transaction.
+     * @throws IOException if the transaction table could not be scanned
+     */
+    public long getWatermark() throws IOException{
+        if(initialized && clock.currentTimeMillis()-lastRefreshTime<refreshIntervalMs)
+            return watermark;
+        synchronized(this){
+            //someone else may have refreshed it while we were waiting
+            if(!initialized || clock.currentTimeMillis()-lastRefreshTime>=refreshIntervalMs)
+                refresh();
+            return watermark;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void refresh() throws IOException{
+        /*
+         * We grab a timestamp before looking for active transactions, so that anything which
+         * begins while we are scanning is necessarily after it. A transaction which began just
+         * before it may not be recorded yet though, so it only bounds the watermark on the next refresh.
+         */
+        long currentTs=timestampSource.nextTimestamp();
+        long[] activeTxnIds=txnStore.getActiveTransactionIds(watermark,currentTs,null);
+        long oldest=previousScanTimestamp;
+        for(long activeTxnId : activeTxnIds){
+            if(activeTxnId<oldest)
+                oldest=activeTxnId;
+        }
+        if(oldest>watermark)
+            watermark=oldest;
+        previousScanTimestamp=currentTs;
+        lastRefreshTime=clock.currentTimeMillis();
+        initialized=true;
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Active transaction watermark is %d (%d active transactions)",watermark,activeTxnIds.length);
+    }
+}
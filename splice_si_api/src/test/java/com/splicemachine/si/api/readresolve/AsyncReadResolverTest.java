@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.GreenLight;
+import com.splicemachine.utils.TrafficControl;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the batching and sharding of asynchronous read resolution.
+ */
+@Category(ArchitectureIndependent.class)
+public class AsyncReadResolverTest{
+
+    @Test
+    public void duplicateRowsAreResolvedOnce() throws Exception{
+        RecordingResolver keyedResolver=new RecordingResolver();
+        CountDownLatch blockFirstBatch=new CountDownLatch(1);
+        keyedResolver.block=blockFirstBatch;
+        AsyncReadResolver asyncResolver=newResolver(1,keyedResolver);
+        CountingRollForward rollForward=new CountingRollForward(12);
+        try{
+            ReadResolver resolver=asyncResolver.getResolver(partition("region1"),rollForward);
+            resolver.resolve(ByteSlice.wrap(Bytes.toBytes(0)),1L);
+            //wait for the first row to be picked up, so the rest are queued while its batch is being resolved
+            Assert.assertTrue(keyedResolver.started.await(10,TimeUnit.SECONDS));
+            for(int copy=0;copy<3;copy++){
+                for(int i=1;i<=10;i++){
+                    resolver.resolve(ByteSlice.wrap(Bytes.toBytes(i)),1L);
+                }
+            }
+            resolver.resolve(ByteSlice.wrap(Bytes.toBytes(1)),2L); //same row, different transaction
+            blockFirstBatch.countDown();
+
+            Assert.assertTrue("Rows were not resolved",rollForward.await());
+            Assert.assertEquals(2,keyedResolver.batchSizes.size());
+            Assert.assertEquals(1,(int)keyedResolver.batchSizes.get(0));
+            Assert.assertEquals(11,(int)keyedResolver.batchSizes.get(1));
+        }finally{
+            asyncResolver.shutdown();
+        }
+    }
+
+    @Test
+    public void eachRegionIsResolvedOnOneThread() throws Exception{
+        RecordingResolver keyedResolver=new RecordingResolver();
+        AsyncReadResolver asyncResolver=newResolver(4,keyedResolver);
+        CountingRollForward rollForward=new CountingRollForward(8*100);
+        try{
+            List<ReadResolver> resolvers=new ArrayList<>();
+            for(int r=0;r<8;r++){
+                resolvers.add(asyncResolver.getResolver(partition("region"+r),rollForward));
+            }
+            for(int i=0;i<100;i++){
+                for(ReadResolver resolver : resolvers){
+                    resolver.resolve(ByteSlice.wrap(Bytes.toBytes(i)),1L);
+                }
+            }
+            Assert.assertTrue("Rows were not resolved",rollForward.await());
+            Assert.assertEquals(8,keyedResolver.threadsByRegion.size());
+            for(Map.Entry<String, Set<String>> regionThreads : keyedResolver.threadsByRegion.entrySet()){
+                Assert.assertEquals("Region "+regionThreads.getKey()+" was resolved by multiple threads",
+                        1,regionThreads.getValue().size());
+            }
+        }finally{
+            asyncResolver.shutdown();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static AsyncReadResolver newResolver(int threads,KeyedReadResolver keyedResolver){
+        AsyncReadResolver resolver=new AsyncReadResolver(threads,1024,mock(TxnSupplier.class),
+                new RollForwardStatus(),GreenLight.INSTANCE,keyedResolver);
+        resolver.start();
+        return resolver;
+    }
+
+    private static Partition partition(String name){
+        Partition partition=mock(Partition.class);
+        when(partition.getName()).thenReturn(name);
+        return partition;
+    }
+
+    private static class RecordingResolver implements KeyedReadResolver{
+        private final List<Integer> batchSizes=Collections.synchronizedList(new ArrayList<Integer>());
+        private final Map<String, Set<String>> threadsByRegion=new ConcurrentHashMap<>();
+        private final CountDownLatch started=new CountDownLatch(1);
+        private volatile CountDownLatch block;
+
+        @Override
+        public boolean resolve(Partition region,ByteSlice rowKey,long txnId,TxnSupplier txnSupplier,
+                               RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            throw new UnsupportedOperationException("Rows should be resolved in batches");
+        }
+
+        @Override
+        public void resolve(Partition region,ByteSlice[] rowKeys,long[] txnIds,boolean[] resolved,int size,
+                            TxnSupplier txnSupplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            Set<String> threads=threadsByRegion.get(region.getName());
+            if(threads==null){
+                threads=Collections.synchronizedSet(new HashSet<String>());
+                threadsByRegion.put(region.getName(),threads);
+            }
+            threads.add(Thread.currentThread().getName());
+            batchSizes.add(size);
+            started.countDown();
+            CountDownLatch b=block;
+            if(b!=null){
+                block=null;
+                try{
+                    b.await();
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for(int i=0;i<size;i++){
+                resolved[i]=true;
+            }
+        }
+    }
+
+    private static class CountingRollForward implements RollForward{
+        private final CountDownLatch resolved;
+
+        CountingRollForward(int expected){
+            this.resolved=new CountDownLatch(expected);
+        }
+
+        @Override
+        public void submitForResolution(ByteSlice rowKey,long txnId){
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordResolved(ByteSlice rowKey,long txnId){
+            resolved.countDown();
+        }
+
+        boolean await() throws InterruptedException{
+            return resolved.await(10,TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import com.splicemachine.si.impl.txn.WritableTxn;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the computation of the oldest active transaction.
+ */
+@Category(ArchitectureIndependent.class)
+public class ActiveTxnWatermarkTest{
+
+    @Test
+    public void watermarkIsOldestActiveTransaction() throws Exception{
+        TestingTimestampSource timestampSource=new TestingTimestampSource();
+        IncrementingClock clock=new IncrementingClock();
+        TestingTxnStore store=new TestingTxnStore(clock,timestampSource,null,Long.MAX_VALUE);
+        Txn first=newTxn(timestampSource.nextTimestamp());
+        Txn second=newTxn(timestampSource.nextTimestamp());
+        store.recordNewTransaction(first);
+        store.recordNewTransaction(second);
+
+        ActiveTxnWatermark watermark=new ActiveTxnWatermark(store,timestampSource,clock,0L);
+        Assert.assertEquals("The first refresh should not move the watermark",0L,watermark.getWatermark());
+        Assert.assertEquals("Incorrect watermark",first.getTxnId(),watermark.getWatermark());
+
+        store.commit(first.getTxnId());
+        Assert.assertEquals("Incorrect watermark",second.getTxnId(),watermark.getWatermark());
+
+        store.commit(second.getTxnId());
+        long beforeRefresh=timestampSource.nextTimestamp();
+        watermark.getWatermark();
+        Assert.assertTrue("Watermark should be newer than any finished transaction",watermark.getWatermark()>beforeRefresh);
+    }
+
+    @Test
+    public void watermarkIsOnlyRefreshedAfterInterval() throws Exception{
+        TestingTimestampSource timestampSource=new TestingTimestampSource();
+        IncrementingClock clock=new IncrementingClock();
+        TestingTxnStore store=new TestingTxnStore(clock,timestampSource,null,Long.MAX_VALUE);
+        Txn txn=newTxn(timestampSource.nextTimestamp());
+        store.recordNewTransaction(txn);
+
+        long interval=TimeUnit.MINUTES.toMillis(1);
+        ActiveTxnWatermark watermark=new ActiveTxnWatermark(store,timestampSource,clock,interval);
+        Assert.assertEquals("The first refresh should not move the watermark",0L,watermark.getWatermark());
+        clock.sleep(interval,TimeUnit.MILLISECONDS);
+        Assert.assertEquals("Incorrect watermark",txn.getTxnId(),watermark.getWatermark());
+
+        store.commit(txn.getTxnId());
+        Assert.assertEquals("Watermark should not have been refreshed",txn.getTxnId(),watermark.getWatermark());
+
+        clock.sleep(interval,TimeUnit.MILLISECONDS);
+        Assert.assertTrue("Watermark should have been refreshed",watermark.getWatermark()>txn.getTxnId());
+    }
+
+    @Test
+    public void watermarkDoesNotPassTransactionsWhichAreNotRecordedYet() throws Exception{
+        TestingTimestampSource timestampSource=new TestingTimestampSource();
+        IncrementingClock clock=new IncrementingClock();
+        TestingTxnStore store=new TestingTxnStore(clock,timestampSource,null,Long.MAX_VALUE);
+        long interval=TimeUnit.MINUTES.toMillis(1);
+        ActiveTxnWatermark watermark=new ActiveTxnWatermark(store,timestampSource,clock,interval);
+        watermark.getWatermark();
+
+        //the transaction has its begin timestamp, but the refresh happens before it is recorded
+        Txn txn=newTxn(timestampSource.nextTimestamp());
+        clock.sleep(interval,TimeUnit.MILLISECONDS);
+        Assert.assertTrue("Watermark passed a transaction which was still being recorded",watermark.getWatermark()<=txn.getTxnId());
+
+        store.recordNewTransaction(txn);
+        clock.sleep(interval,TimeUnit.MILLISECONDS);
+        Assert.assertEquals("Incorrect watermark",txn.getTxnId(),watermark.getWatermark());
+
+        store.commit(txn.getTxnId());
+        clock.sleep(interval,TimeUnit.MILLISECONDS);
+        Assert.assertTrue("Watermark should have moved past the finished transaction",watermark.getWatermark()>txn.getTxnId());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static Txn newTxn(long txnId){
+        TxnLifecycleManager tc=mock(TxnLifecycleManager.class);
+        return new WritableTxn(txnId,txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.ROOT_TRANSACTION,tc,false,null);
+    }
+}
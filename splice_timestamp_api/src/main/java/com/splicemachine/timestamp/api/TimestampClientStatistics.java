@@ -30,5 +30,19 @@ public interface TimestampClientStatistics{
 	long getNumberTimestampRequests();
 	
  	double getAvgTimestampRequestDuration();
-	
+
+	/**
+	 * @return the number of requests sent to the server. Concurrent callers are batched
+	 * into a single request, so this is at most {@link #getNumberTimestampRequests()}.
+	 */
+	long getNumberTimestampBatches();
+
+	double getAvgTimestampBatchSize();
+
+	/**
+	 * @return the distribution of batch sizes, where entry {@code i} is the number of requests
+	 * sent to the server for at least {@code 2^i} (and fewer than {@code 2^(i+1)}) timestamps.
+	 */
+	long[] getTimestampBatchSizeHistogram();
+
 }
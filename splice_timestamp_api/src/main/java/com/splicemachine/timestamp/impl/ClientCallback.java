@@ -22,8 +22,9 @@ import java.util.concurrent.TimeUnit;
 
 public class ClientCallback implements Callback {
 
-    private final short _callerId;
+    private volatile short _callerId;
     private volatile long _newTimestamp = -1l;
+    private volatile long _sentAt;
     private Exception _e = null;
     private CountDownLatch _latch = new CountDownLatch(1);
     		
@@ -34,6 +35,25 @@ public class ClientCallback implements Callback {
     public short getCallerId() {
     	return _callerId;
     }
+
+    void setCallerId(short callerId) {
+        _callerId = callerId;
+    }
+
+    /**
+     * @return the time the request for this callback was last sent, in milliseconds
+     */
+    long getSentAt() {
+        return _sentAt;
+    }
+
+    void setSentAt(long sentAt) {
+        _sentAt = sentAt;
+    }
+
+    boolean isDone() {
+        return _latch.getCount() == 0;
+    }
     
     public Exception getException() {
        return _e;
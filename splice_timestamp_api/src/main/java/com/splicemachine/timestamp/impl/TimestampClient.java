@@ -17,9 +17,12 @@ package com.splicemachine.timestamp.impl;
 
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -40,7 +43,6 @@ import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
 import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.concurrent.CountDownLatches;
-import com.splicemachine.timestamp.api.Callback;
 import com.splicemachine.timestamp.api.TimestampClientStatistics;
 import com.splicemachine.timestamp.api.TimestampHostProvider;
 import com.splicemachine.timestamp.api.TimestampIOException;
@@ -53,6 +55,15 @@ import org.apache.log4j.Logger;
  * For the caller, the invocation of {@link #getNextTimestamp()}
  * is synchronous.
  * <p>
+ * Only one request is outstanding at a time. Callers which arrive while a
+ * request is in flight are queued, and are all served by a single request
+ * for that many timestamps as soon as the outstanding request completes.
+ * A caller is never given a timestamp which was requested before it arrived.
+ * <p>
+ * A request which is not answered within the timeout is sent again, as a new request, for all the callers
+ * still waiting on it. A late answer to the abandoned request is ignored. A caller gives up after
+ * {@link #MAX_ATTEMPTS} timeouts.
+ * <p>
  * This class should generally not be constructed directly.
  *
  * @author Walt Koetke
@@ -64,6 +75,16 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
     private static final short CLIENT_COUNTER_INIT = 100; // actual value doesn't matter
 
+    /**
+     * The most timestamps we will ask for in a single request.
+     */
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    /**
+     * The number of times a caller waits for the timeout before giving up on its timestamp.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
     /**
      * Fixed number of bytes in the message we expect to receive back from the server.
      */
@@ -74,10 +95,18 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     }
 
     /**
-     * A map representing all currently active callers to this TimestampClient
-     * waiting for their response.
+     * A map representing all currently outstanding requests to the server,
+     * with the callers waiting on each of them for their response.
+     */
+    private ConcurrentMap<Short, List<ClientCallback>> clientCallbacks = null;
+
+    /**
+     * Callers waiting for the next request to be sent, and the request currently in flight (if any).
+     * Both are guarded by {@code batchLock}.
      */
-    private ConcurrentMap<Short, Callback> clientCallbacks = null;
+    private final Object batchLock = new Object();
+    private List<ClientCallback> pendingCallbacks = new ArrayList<>();
+    private List<ClientCallback> inFlight = null;
 
     private final AtomicReference<State> state = new AtomicReference<>(State.DISCONNECTED);
 
@@ -102,6 +131,8 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     // for solid definitions of each metric.
     private AtomicLong numRequests = new AtomicLong(0);
     private AtomicLong totalRequestDuration = new AtomicLong(0);
+    private AtomicLong numBatches = new AtomicLong(0);
+    private AtomicLongArray batchSizeHistogram = new AtomicLongArray(Integer.SIZE - Integer.numberOfLeadingZeros(MAX_BATCH_SIZE));
     private TimestampHostProvider timestampHostProvider;
 
 
@@ -215,46 +246,28 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         connectIfNeeded();
 
-        short clientCallId = (short) clientCallCounter.getAndIncrement();
-        final ClientCallback callback = new ClientCallback(clientCallId);
-        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", clientCallId);
-
-        // Add this caller (id and callback) to the map of current clients.
-        // If an entry was already present for this caller id, that is a bug,
-        // so throw an exception.
-        if (clientCallbacks.putIfAbsent(clientCallId, callback) != null) {
-            doClientErrorThrow(LOG, "Found existing client callback with caller id %s, so unable to handle new call.", null, clientCallId);
+        final ClientCallback callback = new ClientCallback((short) 0);
+        synchronized (batchLock) {
+            pendingCallbacks.add(callback);
         }
+        sendPendingIfIdle();
+
+        // We might not have received response yet, so we need to wait for that now.
 
         try {
-            ChannelBuffer buffer = ChannelBuffers.buffer(2);
-            buffer.writeShort(clientCallId);
-            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", callback);
-            ChannelFuture futureWrite = channel.write(buffer);
-            futureWrite.addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (!future.isSuccess()) {
-                        doClientErrorThrow(LOG, "Error writing message from timestamp client to server", future.getCause());
-                    } else {
-                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", callback);
+            int attempt = 1;
+            while (!callback.await(timeoutMillis)) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    synchronized (batchLock) {
+                        pendingCallbacks.remove(callback);
                     }
+                    // the request is still sent again for anyone else waiting on it
+                    callback.error(new TimestampIOException("Timed out waiting for timestamp response"));
+                    retryRequest(callback);
+                    doClientErrorThrow(LOG, "Client timed out after %s attempts of %s ms waiting for new timestamp: %s", null, attempt, timeoutMillis, callback);
                 }
-            });
-        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
-            clientCallbacks.remove(clientCallId);
-            callback.error(e);
-            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, callback);
-        }
-
-        // If we get here, request was successfully sent without exception.
-        // However, we might not have received response yet, so we need to
-        // wait for that now.
-
-        try {
-            boolean success = callback.await(timeoutMillis);
-            if (!success) {
-                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, callback);
+                attempt++;
+                retryRequest(callback);
             }
         } catch (InterruptedException e) {
             doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, callback);
@@ -265,7 +278,7 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         long timestamp = callback.getNewTimestamp();
         if (timestamp < 0) {
-            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, callback);
+            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", callback.getException(), callback);
         }
 
         SpliceLogUtils.debug(LOG, "Client call complete: %s", callback);
@@ -277,6 +290,119 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return timestamp;
     }
 
+    /**
+     * Send a single request for all of the waiting callers, unless a request is already in flight (in which
+     * case this will be called again once it completes).
+     */
+    private void sendPendingIfIdle() {
+        final short clientCallId;
+        final List<ClientCallback> batch;
+        Channel c = channel;
+        synchronized (batchLock) {
+            if (inFlight != null || pendingCallbacks.isEmpty() || c == null) return;
+            if (pendingCallbacks.size() <= MAX_BATCH_SIZE) {
+                batch = pendingCallbacks;
+                pendingCallbacks = new ArrayList<>();
+            } else {
+                batch = new ArrayList<>(pendingCallbacks.subList(0, MAX_BATCH_SIZE));
+                pendingCallbacks = new ArrayList<>(pendingCallbacks.subList(MAX_BATCH_SIZE, pendingCallbacks.size()));
+            }
+            clientCallId = (short) clientCallCounter.getAndIncrement();
+            long sentAt = System.currentTimeMillis();
+            for (ClientCallback callback : batch) {
+                callback.setCallerId(clientCallId);
+                callback.setSentAt(sentAt);
+            }
+            // Add this request (id and callbacks) to the map of outstanding requests.
+            // If an entry was already present for this id, that is a bug.
+            if (clientCallbacks.putIfAbsent(clientCallId, batch) != null) {
+                failCallbacks(batch, new TimestampIOException("Found existing client callback with caller id " + clientCallId));
+                return;
+            }
+            inFlight = batch;
+        }
+        SpliceLogUtils.debug(LOG, "Starting new client call with id %s for %s timestamps", clientCallId, batch.size());
+        numBatches.incrementAndGet();
+        batchSizeHistogram.incrementAndGet(Integer.SIZE - 1 - Integer.numberOfLeadingZeros(batch.size()));
+
+        try {
+            ChannelBuffer buffer = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+            buffer.writeShort(clientCallId);
+            buffer.writeShort(batch.size());
+            SpliceLogUtils.trace(LOG, "Writing request message to server for client call id: %s", clientCallId);
+            ChannelFuture futureWrite = c.write(buffer);
+            futureWrite.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (!future.isSuccess()) {
+                        failRequest(clientCallId, new TimestampIOException("Error writing message from timestamp client to server", future.getCause()));
+                    } else {
+                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client call id: %s", clientCallId);
+                    }
+                }
+            });
+        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
+            failRequest(clientCallId, e);
+        }
+    }
+
+    /**
+     * Called when {@code callback} timed out. If the request it is waiting on (or, if it has not been sent yet,
+     * the request in flight ahead of it) was sent at least a timeout ago, give up on that request and send it again,
+     * for all of its callers which are still waiting.
+     */
+    private void retryRequest(ClientCallback callback) {
+        List<ClientCallback> batch;
+        short clientCallId;
+        synchronized (batchLock) {
+            ClientCallback sent = callback;
+            if (pendingCallbacks.contains(callback)) {
+                if (inFlight == null || inFlight.isEmpty()) return;
+                sent = inFlight.get(0);
+            }
+            // otherwise it may already have been sent again for another caller of the same request
+            if (System.currentTimeMillis() - sent.getSentAt() < timeoutMillis) return;
+            clientCallId = sent.getCallerId();
+            batch = clientCallbacks.remove(clientCallId);
+            if (batch == null) return; // answered in the meantime
+            if (inFlight == batch) inFlight = null;
+            List<ClientCallback> retried = new ArrayList<>(batch.size() + pendingCallbacks.size());
+            for (ClientCallback cb : batch) {
+                if (!cb.isDone()) retried.add(cb);
+            }
+            retried.addAll(pendingCallbacks); // the retried callers arrived first
+            pendingCallbacks = retried;
+        }
+        LOG.warn(String.format("Timed out after %s ms waiting for response to client call id %s, sending it again",
+                timeoutMillis, clientCallId));
+        sendPendingIfIdle();
+    }
+
+    /**
+     * Give up on an outstanding request, failing everyone waiting on it, and move on to the next one.
+     */
+    private void failRequest(short clientCallId, Exception e) {
+        List<ClientCallback> batch = clientCallbacks.remove(clientCallId);
+        if (batch != null) {
+            LOG.error("Failing timestamp request with client call id " + clientCallId, e);
+            requestComplete(batch);
+            failCallbacks(batch, e);
+        }
+        sendPendingIfIdle();
+    }
+
+    private void failCallbacks(List<ClientCallback> batch, Exception e) {
+        for (ClientCallback callback : batch) {
+            callback.error(e);
+        }
+    }
+
+    private void requestComplete(List<ClientCallback> batch) {
+        synchronized (batchLock) {
+            if (inFlight == batch) inFlight = null;
+        }
+    }
+
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
@@ -291,15 +417,24 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         ensureReadableBytes(buf, 0);
 
         SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s", clientCallerId, timestamp);
-        Callback cb = clientCallbacks.remove(clientCallerId);
-        if (cb == null) {
-            doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
+        List<ClientCallback> batch = clientCallbacks.remove(clientCallerId);
+        if (batch == null) {
+            // the request timed out and was sent again, so its callers will be answered by the new request
+            LOG.warn(String.format("Ignoring late response to client call id %s with timestamp %s", clientCallerId, timestamp));
+            super.messageReceived(ctx, e);
+            return;
         }
+        requestComplete(batch);
+
+        // Anyone who arrived while this request was in flight can now be sent
+        sendPendingIfIdle();
 
-        // This releases the latch the original client thread is waiting for
-        // (to provide the synchronous behavior for that caller) and also
-        // provides the timestamp.
-        cb.complete(timestamp);
+        // The server reserved a consecutive range of timestamps for the whole batch. Handing them
+        // out releases the latch each original client thread is waiting for (to provide the
+        // synchronous behavior for that caller).
+        for (ClientCallback cb : batch) {
+            cb.complete(timestamp++);
+        }
 
         super.messageReceived(ctx, e);
     }
@@ -310,6 +445,7 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         channel = e.getChannel();
         state.set(State.CONNECTED);
         super.channelConnected(ctx, e);
+        sendPendingIfIdle();
     }
 
     @Override
@@ -322,6 +458,10 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
             channel=null;
             shouldContinue = !state.compareAndSet(s,State.DISCONNECTED);
         }while(shouldContinue);
+        // whatever was in flight on the old connection will never be answered
+        for (Short clientCallId : clientCallbacks.keySet()) {
+            failRequest(clientCallId, new TimestampIOException("TimestampClient was disconnected from the server"));
+        }
         connectIfNeeded();
     }
 
@@ -353,6 +493,27 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return a / b;
     }
 
+    @Override
+    public long getNumberTimestampBatches() {
+        return numBatches.get();
+    }
+
+    @Override
+    public double getAvgTimestampBatchSize() {
+        double a = (double) numRequests.get();
+        double b = (double) numBatches.get();
+        return a / b;
+    }
+
+    @Override
+    public long[] getTimestampBatchSizeHistogram() {
+        long[] histogram = new long[batchSizeHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = batchSizeHistogram.get(i);
+        }
+        return histogram;
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if(state.get() != State.SHUTDOWN) {
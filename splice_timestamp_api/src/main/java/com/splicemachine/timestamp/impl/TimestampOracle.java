@@ -88,13 +88,27 @@ public class TimestampOracle implements TimestampOracleStatistics{
     }
 
 	public long getNextTimestamp() throws TimestampIOException {
-		long nextTS = _timestampCounter.getAndIncrement();
+		return getNextTimestamps(1);
+	}
+
+	/**
+	 * Reserve a consecutive range of timestamps.
+	 *
+	 * @param count the number of timestamps to reserve
+	 * @return the first timestamp of the range; the caller owns every timestamp from this one
+	 * up to (but not including) {@code first+count}.
+	 * @throws TimestampIOException if a new block of timestamps could not be reserved
+	 */
+	public long getNextTimestamps(int count) throws TimestampIOException {
+		long firstTS = _timestampCounter.getAndAdd(count);
+		long lastTS = firstTS + count - 1;
 		long maxTS = _maxReservedTimestamp; // avoid the double volatile read
-		if (nextTS > maxTS) {
+		while (lastTS > maxTS) {
 			reserveNextBlock(maxTS);
+			maxTS = _maxReservedTimestamp;
 		}
-		_numTimestampsCreated.incrementAndGet(); // JMX metric
-		return nextTS;
+		_numTimestampsCreated.addAndGet(count); // JMX metric
+		return firstTS;
 	}
 
     private void reserveNextBlock(long priorMaxReservedTimestamp) throws TimestampIOException {
@@ -60,10 +60,17 @@ public class TimestampServerHandler extends TimestampBaseHandler {
         ensureReadableBytes(buf, TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
 
         final short callerId = buf.readShort();
+        ensureReadableBytes(buf, 2);
+
+        int numTimestamps = buf.readShort();
         ensureReadableBytes(buf, 0);
+        if (numTimestamps <= 0) {
+            throw new TimestampIOException("Invalid number of timestamps " + numTimestamps + " requested by caller id " + callerId);
+        }
 
-        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s", callerId);
-        long nextTimestamp = oracle.getNextTimestamp();
+        SpliceLogUtils.trace(LOG, "Received request from client for %s timestamps. Caller id = %s", numTimestamps, callerId);
+        // The client is given the first timestamp of a consecutive range of numTimestamps
+        long nextTimestamp = oracle.getNextTimestamps(numTimestamps);
         assert nextTimestamp > 0;
 
 
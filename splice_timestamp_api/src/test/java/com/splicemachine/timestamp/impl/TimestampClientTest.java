@@ -0,0 +1,197 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import com.splicemachine.timestamp.api.TimestampHostProvider;
+import com.splicemachine.timestamp.api.TimestampIOException;
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimestampClientTest{
+    private NioServerSocketChannelFactory serverFactory;
+    private Channel serverChannel;
+    private ScriptedHandler handler;
+    private TimestampClient client;
+
+    @Before
+    public void setUp() throws Exception{
+        handler=new ScriptedHandler();
+        serverFactory=new NioServerSocketChannelFactory(Executors.newCachedThreadPool(),Executors.newCachedThreadPool());
+        ServerBootstrap bootstrap=new ServerBootstrap(serverFactory);
+        bootstrap.setPipelineFactory(new TimestampPipelineFactoryLite(handler));
+        serverChannel=bootstrap.bind(new InetSocketAddress("localhost",0));
+        final int port=((InetSocketAddress)serverChannel.getLocalAddress()).getPort();
+        client=new TimestampClient(500,new TimestampHostProvider(){
+            @Override public String getHost(){ return "localhost"; }
+            @Override public int getPort(){ return port; }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        client.shutdown();
+        serverChannel.close().awaitUninterruptibly();
+        serverFactory.releaseExternalResources();
+    }
+
+    @Test
+    public void concurrentCallersAreBatched() throws Exception{
+        handler.delayMillis=50;
+        handler.requestsToDelay.set(Integer.MAX_VALUE);
+        final int threads=16;
+        final int perThread=20;
+        final CountDownLatch start=new CountDownLatch(1);
+        ExecutorService executor=Executors.newFixedThreadPool(threads);
+        try{
+            List<Future<List<Long>>> futures=new ArrayList<>(threads);
+            for(int i=0;i<threads;i++){
+                futures.add(executor.submit(new Callable<List<Long>>(){
+                    @Override
+                    public List<Long> call() throws Exception{
+                        start.await();
+                        List<Long> timestamps=new ArrayList<>(perThread);
+                        for(int j=0;j<perThread;j++){
+                            timestamps.add(client.getNextTimestamp());
+                        }
+                        return timestamps;
+                    }
+                }));
+            }
+            start.countDown();
+            Set<Long> all=new HashSet<>();
+            for(Future<List<Long>> future : futures){
+                List<Long> timestamps=future.get(30,TimeUnit.SECONDS);
+                for(int j=1;j<timestamps.size();j++){
+                    Assert.assertTrue("Timestamps of a caller went backwards: "+timestamps,timestamps.get(j)>timestamps.get(j-1));
+                }
+                all.addAll(timestamps);
+            }
+            Assert.assertEquals("A timestamp was handed out twice",threads*perThread,all.size());
+            Assert.assertEquals(threads*perThread,client.getNumberTimestampRequests());
+            Assert.assertTrue("Concurrent callers were not batched: "+client.getNumberTimestampBatches()+" batches",
+                    client.getNumberTimestampBatches()<threads*perThread);
+            Assert.assertEquals(client.getNumberTimestampBatches(),handler.requests.get());
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void unansweredRequestIsSentAgain() throws Exception{
+        handler.requestsToDrop.set(1);
+        final CountDownLatch start=new CountDownLatch(1);
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        try{
+            List<Future<Long>> futures=new ArrayList<>();
+            for(int i=0;i<4;i++){
+                futures.add(executor.submit(new Callable<Long>(){
+                    @Override
+                    public Long call() throws Exception{
+                        start.await();
+                        return client.getNextTimestamp();
+                    }
+                }));
+            }
+            start.countDown();
+            Set<Long> timestamps=new HashSet<>();
+            for(Future<Long> future : futures){
+                timestamps.add(future.get(10,TimeUnit.SECONDS));
+            }
+            Assert.assertEquals("A timestamp was handed out twice",4,timestamps.size());
+            Assert.assertTrue("The dropped request was not sent again",handler.requests.get()>=2);
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lateResponseToARetriedRequestIsIgnored() throws Exception{
+        handler.delayMillis=700; //longer than the timeout, so the request is sent again before it is answered
+        handler.requestsToDelay.set(1);
+        long first=client.getNextTimestamp();
+        long second=client.getNextTimestamp();
+        Assert.assertTrue(second>first);
+        Assert.assertEquals(2,client.getNumberTimestampRequests());
+        Assert.assertEquals(3,handler.requests.get());
+    }
+
+    @Test
+    public void callerGivesUpAfterTheLastAttempt() throws Exception{
+        handler.requestsToDrop.set(Integer.MAX_VALUE);
+        long start=System.currentTimeMillis();
+        try{
+            client.getNextTimestamp();
+            Assert.fail("Should have timed out");
+        }catch(TimestampIOException expected){ }
+        Assert.assertTrue("Gave up before the last attempt",System.currentTimeMillis()-start>=TimestampClient.MAX_ATTEMPTS*500);
+        Assert.assertEquals(TimestampClient.MAX_ATTEMPTS,handler.requests.get());
+
+        handler.requestsToDrop.set(0);
+        Assert.assertTrue("Client did not recover",client.getNextTimestamp()>0);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    private static class ScriptedHandler extends TimestampServerHandler{
+        final AtomicInteger requests=new AtomicInteger(0);
+        final AtomicInteger requestsToDrop=new AtomicInteger(0);
+        final AtomicInteger requestsToDelay=new AtomicInteger(0);
+        volatile long delayMillis;
+
+        ScriptedHandler(){
+            super(new InMemoryBlockManager(),1000);
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx,MessageEvent e) throws Exception{
+            requests.incrementAndGet();
+            if(requestsToDrop.getAndDecrement()>0) return;
+            requestsToDrop.incrementAndGet();
+            if(requestsToDelay.getAndDecrement()>0)
+                Thread.sleep(delayMillis);
+            else
+                requestsToDelay.incrementAndGet();
+            super.messageReceived(ctx,e);
+        }
+    }
+
+    private static class InMemoryBlockManager implements TimestampBlockManager{
+        @Override public void reserveNextBlock(long currentMaxReserved){ }
+        @Override public long initialize(){ return 0l; }
+    }
+}